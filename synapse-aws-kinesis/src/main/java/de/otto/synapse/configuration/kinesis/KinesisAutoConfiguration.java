@@ -2,15 +2,21 @@ package de.otto.synapse.configuration.kinesis;
 
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import de.otto.synapse.configuration.SynapseAutoConfiguration;
+import de.otto.synapse.configuration.SynapseProperties;
 import de.otto.synapse.configuration.aws.AwsProperties;
 import de.otto.synapse.configuration.aws.SynapseAwsAuthConfiguration;
 import de.otto.synapse.endpoint.MessageInterceptorRegistry;
 import de.otto.synapse.endpoint.receiver.MessageLogReceiverEndpointFactory;
 import de.otto.synapse.endpoint.receiver.kinesis.KinesisMessageLogReceiverEndpointFactory;
+import de.otto.synapse.endpoint.receiver.kinesis.KinesisShardMetrics;
+import de.otto.synapse.endpoint.receiver.kinesis.MicrometerKinesisShardMetrics;
 import de.otto.synapse.endpoint.sender.MessageSenderEndpointFactory;
 import de.otto.synapse.endpoint.sender.kinesis.KinesisMessageSenderEndpointFactory;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.ApplicationEventPublisher;
@@ -30,6 +36,7 @@ import software.amazon.awssdk.core.retry.conditions.RetryOnExceptionsCondition;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.kinesis.KinesisAsyncClient;
 
+import java.time.Clock;
 import java.time.Duration;
 import java.util.concurrent.ExecutorService;
 
@@ -88,12 +95,39 @@ public class KinesisAutoConfiguration {
     @ConditionalOnMissingBean(name = "messageLogReceiverEndpointFactory")
     public MessageLogReceiverEndpointFactory messageLogReceiverEndpointFactory(final MessageInterceptorRegistry interceptorRegistry,
                                                                                final KinesisAsyncClient kinesisClient,
-                                                                               final ApplicationEventPublisher eventPublisher) {
+                                                                               final ApplicationEventPublisher eventPublisher,
+                                                                               final SynapseProperties synapseProperties,
+                                                                               final ObjectProvider<KinesisShardMetrics> kinesisShardMetrics) {
         LOG.info("Auto-configuring Kinesis MessageLogReceiverEndpointFactory");
         final ExecutorService executorService = newCachedThreadPool(
                 new ThreadFactoryBuilder().setNameFormat("kinesis-message-log-%d").build()
         );
-        return new KinesisMessageLogReceiverEndpointFactory(interceptorRegistry, kinesisClient, executorService, eventPublisher);
+        return new KinesisMessageLogReceiverEndpointFactory(
+                interceptorRegistry,
+                kinesisClient,
+                executorService,
+                eventPublisher,
+                Clock.systemDefaultZone(),
+                null,
+                synapseProperties.getReceiver().getPartitionedDispatch().getEffectiveLanes(),
+                kinesisShardMetrics.getIfAvailable(() -> KinesisShardMetrics.NONE));
+    }
+
+    /**
+     * Exposes the metrics of Kinesis shard readers using Micrometer, if a {@link MeterRegistry} is available.
+     */
+    @Configuration
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    public static class KinesisShardMetricsConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public KinesisShardMetrics kinesisShardMetrics(final ObjectProvider<MeterRegistry> meterRegistry) {
+            final MeterRegistry registry = meterRegistry.getIfAvailable();
+            return registry != null
+                    ? new MicrometerKinesisShardMetrics(registry)
+                    : KinesisShardMetrics.NONE;
+        }
     }
 
 
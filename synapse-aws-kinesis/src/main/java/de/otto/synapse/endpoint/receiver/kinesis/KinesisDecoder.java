@@ -7,25 +7,15 @@ import de.otto.synapse.translator.AbstractTextDecoder;
 import software.amazon.awssdk.core.SdkBytes;
 import software.amazon.awssdk.services.kinesis.model.Record;
 
-import java.util.function.Function;
-
 import static de.otto.synapse.channel.ShardPosition.fromPosition;
 import static de.otto.synapse.message.DefaultHeaderAttr.MSG_ARRIVAL_TS;
-import static java.nio.charset.StandardCharsets.UTF_8;
-import static software.amazon.awssdk.core.SdkBytes.fromByteArray;
 
+/**
+ * Decodes Kinesis records into {@link TextMessage TextMessages}. The {@link de.otto.synapse.translator.MessageFormat}
+ * of the records is detected automatically.
+ */
 public class KinesisDecoder extends AbstractTextDecoder<RecordWithShard> {
 
-    private static final SdkBytes EMPTY_SDK_BYTES_BUFFER = fromByteArray(new byte[]{});
-
-    private static final Function<SdkBytes, String> SDK_BYTES_STRING = sdkBytes -> {
-        if (sdkBytes == null || sdkBytes.equals(EMPTY_SDK_BYTES_BUFFER)) {
-            return null;
-        } else {
-            return sdkBytes.asString(UTF_8);
-        }
-    };
-
     @Override
     public TextMessage apply(RecordWithShard recordWithShard) {
         final Record record = recordWithShard.getRecord();
@@ -35,8 +25,12 @@ public class KinesisDecoder extends AbstractTextDecoder<RecordWithShard> {
                 Header.builder()
                         .withAttribute(MSG_ARRIVAL_TS, record.approximateArrivalTimestamp())
                         .withShardPosition(fromPosition(shardName, record.sequenceNumber())).build(),
-                SDK_BYTES_STRING.apply(record.data()));
+                bytesOf(record.data()));
     }
 
+    private static byte[] bytesOf(final SdkBytes sdkBytes) {
+        final byte[] bytes = sdkBytes != null ? sdkBytes.asByteArray() : null;
+        return bytes != null && bytes.length > 0 ? bytes : null;
+    }
 
 }
@@ -43,6 +43,7 @@ public class KinesisMessageLogReader {
     private final int waitingTimeOnEmptyRecords;
 
     private final Marker marker;
+    private final KinesisShardMetrics shardMetrics;
 
 
     public KinesisMessageLogReader(final String channelName,
@@ -56,6 +57,16 @@ public class KinesisMessageLogReader {
                                    final KinesisAsyncClient kinesisClient,
                                    final ExecutorService executorService,
                                    final Clock clock, final int waitingTimeOnEmptyRecords, final Marker marker) {
+        this(channelName, kinesisClient, executorService, clock, waitingTimeOnEmptyRecords, marker, KinesisShardMetrics.NONE);
+    }
+
+    public KinesisMessageLogReader(final String channelName,
+                                   final KinesisAsyncClient kinesisClient,
+                                   final ExecutorService executorService,
+                                   final Clock clock,
+                                   final int waitingTimeOnEmptyRecords,
+                                   final Marker marker,
+                                   final KinesisShardMetrics shardMetrics) {
         this.channelName = channelName;
         this.kinesisClient = kinesisClient;
         this.executorService = executorService;
@@ -64,6 +75,7 @@ public class KinesisMessageLogReader {
         this.waitingTimeOnEmptyRecords = waitingTimeOnEmptyRecords;
 
         this.marker = marker;
+        this.shardMetrics = shardMetrics;
     }
 
     public String getChannelName() {
@@ -178,7 +190,11 @@ public class KinesisMessageLogReader {
         final Set<String> openShards = retrieveAllOpenShards();
         this.kinesisShardReaders.set(openShards
                 .stream()
-                .map(shardName -> new KinesisShardReader(channelName, shardName, kinesisClient, executorService, clock, waitingTimeOnEmptyRecords, marker))
+                .map(shardName -> {
+                    final KinesisShardReader shardReader = new KinesisShardReader(channelName, shardName, kinesisClient, executorService, clock, waitingTimeOnEmptyRecords, marker);
+                    shardMetrics.register(shardReader);
+                    return shardReader;
+                })
                 .collect(toList()));
     }
 
@@ -2,13 +2,14 @@ package de.otto.synapse.endpoint.receiver.kinesis;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableMap;
-import de.otto.synapse.channel.ChannelDurationBehind;
 import de.otto.synapse.channel.ChannelPosition;
 import de.otto.synapse.channel.ShardResponse;
 import de.otto.synapse.consumer.MessageDispatcher;
 import de.otto.synapse.endpoint.InterceptorChain;
 import de.otto.synapse.endpoint.MessageInterceptorRegistry;
 import de.otto.synapse.endpoint.receiver.AbstractMessageLogReceiverEndpoint;
+import de.otto.synapse.endpoint.receiver.ChannelDurationBehindTracker;
+import de.otto.synapse.endpoint.receiver.KeyPartitionedDispatcher;
 import de.otto.synapse.message.TextMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,71 +20,85 @@ import software.amazon.awssdk.services.kinesis.KinesisAsyncClient;
 import javax.annotation.Nonnull;
 import java.time.Clock;
 import java.util.List;
+import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 
-import static de.otto.synapse.channel.ChannelDurationBehind.copyOf;
-import static de.otto.synapse.channel.ChannelDurationBehind.unknown;
 import static de.otto.synapse.endpoint.EndpointType.RECEIVER;
-import static de.otto.synapse.info.MessageReceiverNotification.builder;
+import static de.otto.synapse.endpoint.receiver.ChannelDurationBehindTracker.sharedScheduler;
+import static de.otto.synapse.endpoint.receiver.DispatchMode.CATCH_UP;
+import static de.otto.synapse.endpoint.receiver.kinesis.KinesisMessageLogReader.DEFAULT_WAITING_TIME_ON_EMPTY_RECORDS;
 import static de.otto.synapse.info.MessageReceiverStatus.*;
 import static de.otto.synapse.logging.LogHelper.info;
+import static java.util.stream.Collectors.toList;
 
 public class KinesisMessageLogReceiverEndpoint extends AbstractMessageLogReceiverEndpoint {
 
     private static final Logger LOG = LoggerFactory.getLogger(KinesisMessageLogReceiverEndpoint.class);
 
     private static class KinesisShardResponseConsumer implements Consumer<ShardResponse> {
-        private final AtomicReference<ChannelDurationBehind> channelDurationBehind = new AtomicReference<>();
         private final MessageInterceptorRegistry interceptorRegistry;
         private final String channelName;
         private final MessageDispatcher messageDispatcher;
-        private final ApplicationEventPublisher eventPublisher;
+        private final KeyPartitionedDispatcher keyPartitionedDispatcher;
+        private final KeyPartitionedDispatcher sequentialDispatcher = KeyPartitionedDispatcher.sequential();
+        private final ChannelDurationBehindTracker durationBehindTracker;
 
         private KinesisShardResponseConsumer(final String channelName,
                                              final List<String> shardNames,
                                              final MessageInterceptorRegistry interceptorRegistry,
                                              final MessageDispatcher messageDispatcher,
-                                             final ApplicationEventPublisher eventPublisher) {
+                                             final KeyPartitionedDispatcher keyPartitionedDispatcher,
+                                             final ChannelDurationBehindTracker durationBehindTracker) {
             this.channelName = channelName;
             this.messageDispatcher = messageDispatcher;
+            this.keyPartitionedDispatcher = keyPartitionedDispatcher;
             this.interceptorRegistry = interceptorRegistry;
-            this.eventPublisher = eventPublisher;
-            channelDurationBehind.set(unknown(shardNames));
+            this.durationBehindTracker = durationBehindTracker;
+            durationBehindTracker.assign(shardNames);
         }
 
         @Override
         public void accept(final ShardResponse response) {
             final InterceptorChain interceptorChain = interceptorRegistry.getInterceptorChain(channelName, RECEIVER);
-            response.getMessages().forEach(message -> {
+            // worker lanes are only paying off for the large responses received while catching up:
+            final KeyPartitionedDispatcher dispatcher = durationBehindTracker.getDispatchMode() == CATCH_UP
+                    ? keyPartitionedDispatcher
+                    : sequentialDispatcher;
+            final List<TextMessage> interceptedMessages = interceptorChain.hasAsyncInterceptors()
+                    ? dispatcher.dispatchAsync(response.getMessages(), message -> {
+                        LOG.debug("Processing message " + message.getKey());
+                        return interceptorChain
+                                .interceptAsync(message)
+                                .thenApply(interceptedMessage -> dispatch(message, interceptedMessage));
+                    })
+                    : dispatcher.dispatch(response.getMessages(), message -> {
+                        LOG.debug("Processing message " + message.getKey());
+                        return dispatch(message, interceptorChain.intercept(message));
+                    });
+            if (messageDispatcher.hasBatchMessageConsumers()) {
                 try {
-                    LOG.debug("Processing message " + message.getKey());
-                    final TextMessage interceptedMessage = interceptorChain.intercept(message);
-                    if (interceptedMessage != null) {
-                        messageDispatcher.accept(interceptedMessage);
-                    } else {
-                        LOG.debug("Message {} dropped by interceptor", message.getKey());
-                    }
+                    messageDispatcher.acceptBatch(response.getShardPosition(), interceptedMessages
+                            .stream()
+                            .filter(Objects::nonNull)
+                            .collect(toList()));
                 } catch (final Exception e) {
-                    LOG.error("Error processing message: " + e.getMessage(), e);
+                    LOG.error("Error processing batch of messages: " + e.getMessage(), e);
                 }
-            });
-            channelDurationBehind.updateAndGet(behind -> copyOf(behind)
-                    .with(response.getShardName(), response.getDurationBehind())
-                    .build());
-
-            if (eventPublisher != null) {
-                eventPublisher.publishEvent(builder()
-                        .withChannelName(channelName)
-                        .withChannelDurationBehind(channelDurationBehind.get())
-                        .withStatus(RUNNING)
-                        .withMessage("Reading from kinesis shard.")
-                        .build());
             }
+            durationBehindTracker.update(response.getShardName(), response.getDurationBehind());
+        }
 
+        private TextMessage dispatch(final TextMessage message, final TextMessage interceptedMessage) {
+            if (interceptedMessage != null) {
+                messageDispatcher.accept(interceptedMessage);
+            } else {
+                LOG.debug("Message {} dropped by interceptor", message.getKey());
+            }
+            return interceptedMessage;
         }
 
     }
@@ -91,28 +106,68 @@ public class KinesisMessageLogReceiverEndpoint extends AbstractMessageLogReceive
     private final KinesisMessageLogReader kinesisMessageLogReader;
     private final ApplicationEventPublisher eventPublisher;
     private final MessageInterceptorRegistry interceptorRegistry;
+    private final int dispatchLanes;
+    private final ScheduledExecutorService notificationScheduler;
+    private final Clock clock;
 
-
+    /**
+     * Creates a KinesisMessageLogReceiverEndpoint with the defaults of the {@link Builder}.
+     *
+     * @param channelName the name of the Kinesis stream
+     * @param interceptorRegistry registry used to determine the receiver interceptors of the channel
+     * @param kinesisClient the Kinesis client
+     * @param executorService the executor used to read the shards of the stream
+     * @param eventPublisher optional publisher used to publish {@link de.otto.synapse.info.MessageReceiverNotification notifications}
+     * @see #builder(String, MessageInterceptorRegistry, KinesisAsyncClient, ExecutorService)
+     */
     public KinesisMessageLogReceiverEndpoint(final String channelName,
                                              final MessageInterceptorRegistry interceptorRegistry,
                                              final KinesisAsyncClient kinesisClient,
                                              final ExecutorService executorService,
                                              final ApplicationEventPublisher eventPublisher) {
-        this(channelName, interceptorRegistry, kinesisClient, executorService, eventPublisher, Clock.systemDefaultZone());
+        this(builder(channelName, interceptorRegistry, kinesisClient, executorService)
+                .withEventPublisher(eventPublisher));
     }
 
+    /**
+     * Creates a KinesisMessageLogReceiverEndpoint with the defaults of the {@link Builder}: the messages of a shard
+     * are dispatched sequentially, without shard metrics, and notifications are published by the
+     * {@link ChannelDurationBehindTracker#sharedScheduler() shared scheduler}.
+     *
+     * @param channelName the name of the Kinesis stream
+     * @param interceptorRegistry registry used to determine the receiver interceptors of the channel
+     * @param kinesisClient the Kinesis client
+     * @param executorService the executor used to read the shards of the stream
+     * @param eventPublisher optional publisher used to publish {@link de.otto.synapse.info.MessageReceiverNotification notifications}
+     * @param clock the clock
+     * @see #builder(String, MessageInterceptorRegistry, KinesisAsyncClient, ExecutorService)
+     */
     public KinesisMessageLogReceiverEndpoint(final String channelName,
                                              final MessageInterceptorRegistry interceptorRegistry,
                                              final KinesisAsyncClient kinesisClient,
                                              final ExecutorService executorService,
                                              final ApplicationEventPublisher eventPublisher,
                                              final Clock clock) {
-        super(channelName, interceptorRegistry, eventPublisher);
-        this.eventPublisher = eventPublisher;
-        this.kinesisMessageLogReader = new KinesisMessageLogReader(channelName, kinesisClient, executorService, clock);
-        this.interceptorRegistry = interceptorRegistry;
+        this(builder(channelName, interceptorRegistry, kinesisClient, executorService)
+                .withEventPublisher(eventPublisher)
+                .withClock(clock));
     }
 
+    /**
+     * Creates a KinesisMessageLogReceiverEndpoint with the defaults of the {@link Builder}: the messages of a shard
+     * are dispatched sequentially, without shard metrics, and notifications are published by the
+     * {@link ChannelDurationBehindTracker#sharedScheduler() shared scheduler}.
+     *
+     * @param channelName the name of the Kinesis stream
+     * @param interceptorRegistry registry used to determine the receiver interceptors of the channel
+     * @param kinesisClient the Kinesis client
+     * @param executorService the executor used to read the shards of the stream
+     * @param eventPublisher optional publisher used to publish {@link de.otto.synapse.info.MessageReceiverNotification notifications}
+     * @param clock the clock
+     * @param waitingTimeOnEmptyRecords waiting time in millis, if no records were received from a shard
+     * @param marker optional marker used for logging
+     * @see #builder(String, MessageInterceptorRegistry, KinesisAsyncClient, ExecutorService)
+     */
     public KinesisMessageLogReceiverEndpoint(final String channelName,
                                              final MessageInterceptorRegistry interceptorRegistry,
                                              final KinesisAsyncClient kinesisClient,
@@ -121,10 +176,44 @@ public class KinesisMessageLogReceiverEndpoint extends AbstractMessageLogReceive
                                              final Clock clock,
                                              final int waitingTimeOnEmptyRecords,
                                              final Marker marker) {
-        super(channelName, interceptorRegistry, eventPublisher);
-        this.eventPublisher = eventPublisher;
-        this.kinesisMessageLogReader = new KinesisMessageLogReader(channelName, kinesisClient, executorService, clock, waitingTimeOnEmptyRecords, marker);
-        this.interceptorRegistry = interceptorRegistry;
+        this(builder(channelName, interceptorRegistry, kinesisClient, executorService)
+                .withEventPublisher(eventPublisher)
+                .withClock(clock)
+                .withWaitingTimeOnEmptyRecords(waitingTimeOnEmptyRecords)
+                .withMarker(marker));
+    }
+
+    private KinesisMessageLogReceiverEndpoint(final Builder builder) {
+        super(builder.channelName, builder.interceptorRegistry, builder.eventPublisher);
+        this.eventPublisher = builder.eventPublisher;
+        this.kinesisMessageLogReader = new KinesisMessageLogReader(
+                builder.channelName,
+                builder.kinesisClient,
+                builder.executorService,
+                builder.clock,
+                builder.waitingTimeOnEmptyRecords,
+                builder.marker,
+                builder.shardMetrics);
+        this.interceptorRegistry = builder.interceptorRegistry;
+        this.dispatchLanes = builder.dispatchLanes;
+        this.notificationScheduler = builder.notificationScheduler;
+        this.clock = builder.clock;
+    }
+
+    /**
+     * Returns a builder used to create a KinesisMessageLogReceiverEndpoint.
+     *
+     * @param channelName the name of the Kinesis stream
+     * @param interceptorRegistry registry used to determine the receiver interceptors of the channel
+     * @param kinesisClient the Kinesis client
+     * @param executorService the executor used to read the shards of the stream
+     * @return Builder
+     */
+    public static Builder builder(final String channelName,
+                                  final MessageInterceptorRegistry interceptorRegistry,
+                                  final KinesisAsyncClient kinesisClient,
+                                  final ExecutorService executorService) {
+        return new Builder(channelName, interceptorRegistry, kinesisClient, executorService);
     }
 
     @Nonnull
@@ -136,9 +225,15 @@ public class KinesisMessageLogReceiverEndpoint extends AbstractMessageLogReceive
 
             publishEvent(STARTED, "Received shards from Kinesis.", null);
 
-            final KinesisShardResponseConsumer consumer = new KinesisShardResponseConsumer(getChannelName(), shards, interceptorRegistry, getMessageDispatcher(), eventPublisher);
+            final KeyPartitionedDispatcher keyPartitionedDispatcher = new KeyPartitionedDispatcher(getChannelName(), dispatchLanes);
+            final ChannelDurationBehindTracker durationBehindTracker = new ChannelDurationBehindTracker(getChannelName(), eventPublisher, "Reading from kinesis shard.", notificationScheduler, clock);
+            final KinesisShardResponseConsumer consumer = new KinesisShardResponseConsumer(getChannelName(), shards, interceptorRegistry, getMessageDispatcher(), keyPartitionedDispatcher, durationBehindTracker);
 
             return kinesisMessageLogReader.consumeUntil(startFrom, stopCondition, consumer)
+                    .whenComplete((channelPosition, throwable) -> {
+                        keyPartitionedDispatcher.close();
+                        durationBehindTracker.close();
+                    })
                     .thenApply((channelPosition -> {
                         final long t2 = System.currentTimeMillis();
                         info(LOG, ImmutableMap.of("runtime", (t2-t1)), "Consume events from Kinesis", null);
@@ -166,5 +261,113 @@ public class KinesisMessageLogReceiverEndpoint extends AbstractMessageLogReceive
         return kinesisMessageLogReader.getCurrentKinesisShards();
     }
 
+    public static final class Builder {
+        private final String channelName;
+        private final MessageInterceptorRegistry interceptorRegistry;
+        private final KinesisAsyncClient kinesisClient;
+        private final ExecutorService executorService;
+        private ApplicationEventPublisher eventPublisher;
+        private Clock clock = Clock.systemDefaultZone();
+        private int waitingTimeOnEmptyRecords = DEFAULT_WAITING_TIME_ON_EMPTY_RECORDS;
+        private Marker marker;
+        private int dispatchLanes = 1;
+        private KinesisShardMetrics shardMetrics = KinesisShardMetrics.NONE;
+        private ScheduledExecutorService notificationScheduler = sharedScheduler();
+
+        private Builder(final String channelName,
+                        final MessageInterceptorRegistry interceptorRegistry,
+                        final KinesisAsyncClient kinesisClient,
+                        final ExecutorService executorService) {
+            this.channelName = channelName;
+            this.interceptorRegistry = interceptorRegistry;
+            this.kinesisClient = kinesisClient;
+            this.executorService = executorService;
+        }
 
+        /**
+         * The publisher used to publish {@link de.otto.synapse.info.MessageReceiverNotification notifications}
+         * (default: none).
+         *
+         * @param val event publisher, or null
+         * @return builder
+         */
+        public Builder withEventPublisher(final ApplicationEventPublisher val) {
+            eventPublisher = val;
+            return this;
+        }
+
+        /**
+         * The clock (default: {@link Clock#systemDefaultZone()}).
+         *
+         * @param val clock
+         * @return builder
+         */
+        public Builder withClock(final Clock val) {
+            clock = val;
+            return this;
+        }
+
+        /**
+         * The waiting time in millis, if no records were received from a shard (default:
+         * {@link KinesisMessageLogReader#DEFAULT_WAITING_TIME_ON_EMPTY_RECORDS}).
+         *
+         * @param val waiting time in millis
+         * @return builder
+         */
+        public Builder withWaitingTimeOnEmptyRecords(final int val) {
+            waitingTimeOnEmptyRecords = val;
+            return this;
+        }
+
+        /**
+         * The marker used for logging (default: none).
+         *
+         * @param val marker, or null
+         * @return builder
+         */
+        public Builder withMarker(final Marker val) {
+            marker = val;
+            return this;
+        }
+
+        /**
+         * The number of worker lanes used to dispatch the messages of a shard, partitioned by
+         * {@link de.otto.synapse.message.Key#partitionKey() partition key} (default: 1). Values less or equal
+         * 1 will dispatch the messages of a shard sequentially in the reader thread.
+         *
+         * @param val number of dispatch lanes
+         * @return builder
+         */
+        public Builder withDispatchLanes(final int val) {
+            dispatchLanes = val;
+            return this;
+        }
+
+        /**
+         * The metrics of the shard readers (default: {@link KinesisShardMetrics#NONE}).
+         *
+         * @param val shard metrics
+         * @return builder
+         */
+        public Builder withShardMetrics(final KinesisShardMetrics val) {
+            shardMetrics = val;
+            return this;
+        }
+
+        /**
+         * The scheduler used to publish {@link de.otto.synapse.info.MessageReceiverStatus#RUNNING RUNNING}
+         * notifications (default: {@link ChannelDurationBehindTracker#sharedScheduler()}).
+         *
+         * @param val scheduler
+         * @return builder
+         */
+        public Builder withNotificationScheduler(final ScheduledExecutorService val) {
+            notificationScheduler = val;
+            return this;
+        }
+
+        public KinesisMessageLogReceiverEndpoint build() {
+            return new KinesisMessageLogReceiverEndpoint(this);
+        }
+    }
 }
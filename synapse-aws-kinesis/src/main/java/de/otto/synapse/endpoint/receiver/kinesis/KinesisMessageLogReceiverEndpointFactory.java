@@ -14,8 +14,6 @@ import javax.annotation.Nonnull;
 import java.time.Clock;
 import java.util.concurrent.ExecutorService;
 
-import static de.otto.synapse.endpoint.receiver.kinesis.KinesisMessageLogReader.DEFAULT_WAITING_TIME_ON_EMPTY_RECORDS;
-
 public class KinesisMessageLogReceiverEndpointFactory implements MessageLogReceiverEndpointFactory {
 
     private final MessageInterceptorRegistry interceptorRegistry;
@@ -24,6 +22,8 @@ public class KinesisMessageLogReceiverEndpointFactory implements MessageLogRecei
     private final Clock clock;
     private final ExecutorService executorService;
     private final Marker marker;
+    private final int dispatchLanes;
+    private final KinesisShardMetrics shardMetrics;
 
     @Autowired
     public KinesisMessageLogReceiverEndpointFactory(final MessageInterceptorRegistry interceptorRegistry,
@@ -47,18 +47,47 @@ public class KinesisMessageLogReceiverEndpointFactory implements MessageLogRecei
                                                     final ApplicationEventPublisher eventPublisher,
                                                     final Clock clock,
                                                     final Marker marker) {
+        this(interceptorRegistry, kinesisClient, kinesisMessageLogExecutorService, eventPublisher, clock, marker, 1);
+    }
+
+    public KinesisMessageLogReceiverEndpointFactory(final MessageInterceptorRegistry interceptorRegistry,
+                                                    final KinesisAsyncClient kinesisClient,
+                                                    final ExecutorService kinesisMessageLogExecutorService,
+                                                    final ApplicationEventPublisher eventPublisher,
+                                                    final Clock clock,
+                                                    final Marker marker,
+                                                    final int dispatchLanes) {
+        this(interceptorRegistry, kinesisClient, kinesisMessageLogExecutorService, eventPublisher, clock, marker, dispatchLanes, KinesisShardMetrics.NONE);
+    }
+
+    public KinesisMessageLogReceiverEndpointFactory(final MessageInterceptorRegistry interceptorRegistry,
+                                                    final KinesisAsyncClient kinesisClient,
+                                                    final ExecutorService kinesisMessageLogExecutorService,
+                                                    final ApplicationEventPublisher eventPublisher,
+                                                    final Clock clock,
+                                                    final Marker marker,
+                                                    final int dispatchLanes,
+                                                    final KinesisShardMetrics shardMetrics) {
         this.interceptorRegistry = interceptorRegistry;
         this.kinesisClient = kinesisClient;
         this.executorService = kinesisMessageLogExecutorService;
         this.eventPublisher = eventPublisher;
         this.clock = clock;
         this.marker = marker;
+        this.dispatchLanes = dispatchLanes;
+        this.shardMetrics = shardMetrics;
     }
 
 
     @Override
     public MessageLogReceiverEndpoint create(@Nonnull String channelName) {
-        return new KinesisMessageLogReceiverEndpoint(channelName, interceptorRegistry, kinesisClient, executorService, eventPublisher, clock, DEFAULT_WAITING_TIME_ON_EMPTY_RECORDS, marker);
+        return KinesisMessageLogReceiverEndpoint.builder(channelName, interceptorRegistry, kinesisClient, executorService)
+                .withEventPublisher(eventPublisher)
+                .withClock(clock)
+                .withMarker(marker)
+                .withDispatchLanes(dispatchLanes)
+                .withShardMetrics(shardMetrics)
+                .build();
     }
 
     @Override
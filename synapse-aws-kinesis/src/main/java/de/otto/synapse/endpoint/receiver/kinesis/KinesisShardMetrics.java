@@ -0,0 +1,25 @@
+package de.otto.synapse.endpoint.receiver.kinesis;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Exposes the metrics of the {@link KinesisShardReader shard readers} of a Kinesis message log, like the number
+ * of {@link KinesisShardReader#getQueuedResponses() prefetched responses} and the time the fetcher and the
+ * dispatcher of a shard were waiting for each other.
+ */
+@FunctionalInterface
+public interface KinesisShardMetrics {
+
+    /**
+     * KinesisShardMetrics that are not exposing any metrics.
+     */
+    KinesisShardMetrics NONE = shardReader -> {};
+
+    /**
+     * Called every time a KinesisShardReader is created.
+     *
+     * @param shardReader the shard reader
+     */
+    void register(@Nonnull KinesisShardReader shardReader);
+
+}
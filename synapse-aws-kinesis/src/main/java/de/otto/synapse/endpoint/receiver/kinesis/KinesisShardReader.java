@@ -1,5 +1,6 @@
 package de.otto.synapse.endpoint.receiver.kinesis;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import de.otto.synapse.channel.ShardPosition;
 import de.otto.synapse.channel.ShardResponse;
 import de.otto.synapse.channel.StartFrom;
@@ -16,20 +17,33 @@ import javax.annotation.concurrent.ThreadSafe;
 import java.time.Clock;
 import java.time.Duration;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 
 import static de.otto.synapse.endpoint.receiver.kinesis.KinesisMessageLogReader.DEFAULT_WAITING_TIME_ON_EMPTY_RECORDS;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 @ThreadSafe
 public class KinesisShardReader {
     private static final Logger LOG = LoggerFactory.getLogger(KinesisShardReader.class);
     public static final int LOG_MESSAGE_COUNTER_EVERY_NTH_MESSAGE = 1_000;
+    /**
+     * The default number of decoded shard responses that are fetched in advance.
+     */
+    public static final int DEFAULT_PREFETCH_CAPACITY = 2;
+    private static final long POLL_INTERVAL_MILLIS = 100;
 
     private final String shardName;
     private final String channelName;
@@ -39,6 +53,11 @@ public class KinesisShardReader {
     private final AtomicBoolean stopSignal = new AtomicBoolean(false);
     private final int waitingTimeOnEmptyRecords;
     private final Marker marker;
+    private final int prefetchCapacity;
+    private final AtomicReference<BlockingQueue<ShardResponse>> prefetchQueue = new AtomicReference<>();
+    private final AtomicReference<CountDownLatch> fetcherStopSignal = new AtomicReference<>();
+    private final LongAdder fetcherWaitNanos = new LongAdder();
+    private final LongAdder dispatcherWaitNanos = new LongAdder();
 
     public KinesisShardReader(final String channelName,
                               final String shardName,
@@ -55,6 +74,33 @@ public class KinesisShardReader {
                               final Clock clock,
                               final int waitingTimeOnEmptyRecords,
                               final Marker marker) {
+        this(channelName, shardName, kinesisClient, executorService, clock, waitingTimeOnEmptyRecords, marker, DEFAULT_PREFETCH_CAPACITY);
+    }
+
+    /**
+     * Creates a KinesisShardReader.
+     *
+     * @param channelName the name of the Kinesis stream
+     * @param shardName the name of the shard
+     * @param kinesisClient the Kinesis client
+     * @param executorService the executor used to dispatch the shard responses
+     * @param clock the clock
+     * @param waitingTimeOnEmptyRecords waiting time in millis between two GetRecords requests, if the reader is
+     *                                  not behind the latest record of the shard
+     * @param marker optional marker used for logging
+     * @param prefetchCapacity the maximum number of shard responses that are fetched, but not yet dispatched
+     */
+    public KinesisShardReader(final String channelName,
+                              final String shardName,
+                              final KinesisAsyncClient kinesisClient,
+                              final ExecutorService executorService,
+                              final Clock clock,
+                              final int waitingTimeOnEmptyRecords,
+                              final Marker marker,
+                              final int prefetchCapacity) {
+        if (prefetchCapacity < 1) {
+            throw new IllegalArgumentException("prefetchCapacity must be greater than zero");
+        }
         this.shardName = shardName;
         this.channelName = channelName;
         this.kinesisClient = kinesisClient;
@@ -62,6 +108,7 @@ public class KinesisShardReader {
         this.clock = clock;
         this.waitingTimeOnEmptyRecords = waitingTimeOnEmptyRecords;
         this.marker = marker;
+        this.prefetchCapacity = prefetchCapacity;
     }
 
     public String getChannelName() {
@@ -72,6 +119,22 @@ public class KinesisShardReader {
         return shardName;
     }
 
+    /**
+     * Consumes the shard, starting at the given position, until the stop condition is fulfilled or the reader
+     * is stopped.
+     * <p>
+     *     Fetching and dispatching of shard responses are decoupled: a fetcher thread is reading and decoding
+     *     the records of the shard into a bounded queue, while the calling executor's thread is dispatching the
+     *     responses to the {@code responseConsumer}. The next GetRecords request is therefore already in flight,
+     *     while the current response is processed. If the queue is full, the fetcher is blocked until the
+     *     dispatcher has taken the next response.
+     * </p>
+     *
+     * @param startFrom the position where consumption is started
+     * @param stopCondition the condition used to stop consumption
+     * @param responseConsumer the consumer of the shard responses
+     * @return the position of the last dispatched response
+     */
     public CompletableFuture<ShardPosition> consumeUntil(final ShardPosition startFrom,
                                                          final Predicate<ShardResponse> stopCondition,
                                                          final Consumer<ShardResponse> responseConsumer) {
@@ -83,6 +146,9 @@ public class KinesisShardReader {
             MDC.put("channelName", channelName);
             MDC.put("shardName", shardName);
             LOG.info(marker, "Reading from channel={}, shard={}, position={}", channelName, shardName, startFrom);
+            final CountDownLatch stopFetching = new CountDownLatch(1);
+            final ExecutorService fetcherExecutorService = newSingleThreadExecutor(
+                    new ThreadFactoryBuilder().setNameFormat("kinesis-shard-fetcher-" + shardName + "-%d").setDaemon(true).build());
             try {
                 final long firstMessageLogTime = System.currentTimeMillis();
                 final AtomicLong shardMessagesCounter = new AtomicLong(0);
@@ -91,30 +157,35 @@ public class KinesisShardReader {
                 final ShardPosition sanitizedShardPosition = sanitizePositionedShardPosition(startFrom);
                 final KinesisShardIterator kinesisShardIterator = new KinesisShardIterator(kinesisClient, channelName, sanitizedShardPosition);
 
-                boolean stopRetrieval;
-                do {
-                    /*
-                    Poison-Pill injected by a test. This is helpful, if you want to write tests that should terminate
-                    after a number of iterated shards.
-                     */
-                    if (kinesisShardIterator.isPoison()) {
-                        LOG.warn(marker, "Received Poison-Pill - This should only happen during tests!");
+                final BlockingQueue<ShardResponse> queue = new ArrayBlockingQueue<>(prefetchCapacity);
+                prefetchQueue.set(queue);
+                fetcherStopSignal.set(stopFetching);
+                final Map<String, String> fetcherContextMap = MDC.getCopyOfContextMap();
+                final CompletableFuture<Void> fetcher = CompletableFuture.runAsync(
+                        () -> fetch(kinesisShardIterator, queue, stopFetching, fetcherContextMap),
+                        fetcherExecutorService);
+
+                ShardPosition shardPosition = sanitizedShardPosition;
+                boolean stopRetrieval = false;
+                while (!stopRetrieval) {
+                    final ShardResponse response = nextResponse(queue, fetcher);
+                    if (response == null) {
+                        // the fetcher is finished, because the reader was stopped or the iterator was poisoned:
                         break;
                     }
-
-                    final ShardResponse response = kinesisShardIterator.next();
                     responseConsumer.accept(response);
+                    shardPosition = response.getShardPosition();
 
                     int responseMessagesCounter = response.getMessages().size();
                     long totalMessagesCounter = shardMessagesCounter.addAndGet(responseMessagesCounter);
 
                     boolean stopConditionFulfilled = stopCondition.test(response);
-                    stopRetrieval = stopConditionFulfilled || isStopping() || waitABit(response.getDurationBehind());
+                    stopRetrieval = stopConditionFulfilled || isStopping();
 
                     if ((totalMessagesCounter > 0 && totalMessagesCounter > previousLoggedMessageCounterMod.get() + LOG_MESSAGE_COUNTER_EVERY_NTH_MESSAGE) || stopRetrieval) {
                         double messagesPerSecond = LogHelper.calculateMessagesPerSecond(previousMessageLogTime.getAndSet(System.currentTimeMillis()), totalMessagesCounter - previousLoggedMessageCounter.get());
 
-                        LOG.info(marker, "Read {} messages ({} per sec) from '{}:{}', durationBehind={}, totalMessages={}", responseMessagesCounter, String.format("%.2f", messagesPerSecond), channelName, shardName, response.getDurationBehind(), totalMessagesCounter);
+                        LOG.info(marker, "Read {} messages ({} per sec) from '{}:{}', durationBehind={}, totalMessages={}, queuedResponses={}", responseMessagesCounter, String.format("%.2f", messagesPerSecond), channelName, shardName, response.getDurationBehind(), totalMessagesCounter, queue.size());
                         if (stopRetrieval) {
                             LOG.info(marker, "Stop reading of channel={}, shard={}, stopCondition={}, stopSignal={}, durationBehind={}", channelName, shardName, stopConditionFulfilled, isStopping(), response.getDurationBehind());
                         }
@@ -122,13 +193,12 @@ public class KinesisShardReader {
                         previousLoggedMessageCounterMod.set(totalMessagesCounter - (totalMessagesCounter % LOG_MESSAGE_COUNTER_EVERY_NTH_MESSAGE));
                         previousLoggedMessageCounter.set(totalMessagesCounter);
                     }
-
-                } while (!stopRetrieval);
+                }
 
                 double totalMessagesPerSecond = LogHelper.calculateMessagesPerSecond(firstMessageLogTime, shardMessagesCounter.get());
                 LOG.info(marker, "Read a total of {} messages from '{}:{}', totalMessagesPerSecond={}", shardMessagesCounter.get(), channelName, shardName, String.format("%.2f", totalMessagesPerSecond));
 
-                return kinesisShardIterator.getShardPosition();
+                return shardPosition;
 
             } catch (final RuntimeException e) {
                 LOG.error(marker, "Failed to consume from Kinesis shard {}: {}, {}", channelName, shardName, e.getMessage());
@@ -136,12 +206,108 @@ public class KinesisShardReader {
                 stop();
                 throw e;
             } finally {
+                stopFetching.countDown();
+                fetcherExecutorService.shutdown();
+                prefetchQueue.set(null);
                 MDC.remove("channelName");
                 MDC.remove("shardName");
             }
         }, executorService);
     }
 
+    /**
+     * @return the number of fetched shard responses that are waiting to be dispatched
+     */
+    public int getQueuedResponses() {
+        final BlockingQueue<ShardResponse> queue = prefetchQueue.get();
+        return queue != null ? queue.size() : 0;
+    }
+
+    /**
+     * @return the total time the fetcher was blocked, because the queue of prefetched responses was full
+     */
+    public Duration getFetcherWaitTime() {
+        return Duration.ofNanos(fetcherWaitNanos.sum());
+    }
+
+    /**
+     * @return the total time the dispatcher was waiting for the next response of the fetcher
+     */
+    public Duration getDispatcherWaitTime() {
+        return Duration.ofNanos(dispatcherWaitNanos.sum());
+    }
+
+    private void fetch(final KinesisShardIterator kinesisShardIterator,
+                       final BlockingQueue<ShardResponse> queue,
+                       final CountDownLatch stopFetching,
+                       final Map<String, String> contextMap) {
+        if (contextMap != null) {
+            MDC.setContextMap(contextMap);
+        }
+        try {
+            boolean stop;
+            do {
+                /*
+                Poison-Pill injected by a test. This is helpful, if you want to write tests that should terminate
+                after a number of iterated shards.
+                 */
+                if (kinesisShardIterator.isPoison()) {
+                    LOG.warn(marker, "Received Poison-Pill - This should only happen during tests!");
+                    break;
+                }
+
+                final ShardResponse response = kinesisShardIterator.next();
+
+                final long started = System.nanoTime();
+                while (!queue.offer(response, POLL_INTERVAL_MILLIS, MILLISECONDS)) {
+                    if (stopFetching.getCount() == 0) {
+                        return;
+                    }
+                }
+                fetcherWaitNanos.add(System.nanoTime() - started);
+
+                stop = isStopping() || waitABit(response.getDurationBehind(), stopFetching);
+            } while (!stop);
+        } catch (final InterruptedException e) {
+            LOG.warn(marker, "Thread got interrupted");
+            Thread.currentThread().interrupt();
+        } finally {
+            MDC.clear();
+        }
+    }
+
+    private ShardResponse nextResponse(final BlockingQueue<ShardResponse> queue,
+                                       final CompletableFuture<Void> fetcher) {
+        final long started = System.nanoTime();
+        try {
+            ShardResponse response = queue.poll(POLL_INTERVAL_MILLIS, MILLISECONDS);
+            while (response == null) {
+                if (fetcher.isDone()) {
+                    response = queue.poll();
+                    if (response == null) {
+                        // propagates exceptions of the fetcher:
+                        fetcher.join();
+                        return null;
+                    }
+                } else {
+                    response = queue.poll(POLL_INTERVAL_MILLIS, MILLISECONDS);
+                }
+            }
+            return response;
+        } catch (final InterruptedException e) {
+            LOG.warn(marker, "Thread got interrupted");
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (final CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        } finally {
+            dispatcherWaitNanos.add(System.nanoTime() - started);
+        }
+    }
+
     private ShardPosition sanitizePositionedShardPosition(ShardPosition shardPosition) {
         try {
             StartFrom startFrom = shardPosition.startFrom();
@@ -166,24 +332,28 @@ public class KinesisShardReader {
         return ShardPosition.fromHorizon(shardPosition.shardName());
     }
 
-    private boolean waitABit(Duration durationBehind) {
-        try {
-            /*Wait one second as documented by amazon: https://docs.aws.amazon.com/kinesis/latest/APIReference/API_GetRecords.html*/
-            if (durationBehind.getSeconds() > 10) {
-                Thread.sleep(1000);
-            } else {
-                Thread.sleep(waitingTimeOnEmptyRecords);
-            }
-        } catch (final InterruptedException e) {
-            LOG.warn(marker, "Thread got interrupted");
-            return true;
+    /**
+     * Waits before the next GetRecords request is sent to the shard.
+     *
+     * @return true, if fetching was stopped while waiting
+     */
+    private boolean waitABit(final Duration durationBehind,
+                             final CountDownLatch stopFetching) throws InterruptedException {
+        /*Wait one second as documented by amazon: https://docs.aws.amazon.com/kinesis/latest/APIReference/API_GetRecords.html*/
+        if (durationBehind.getSeconds() > 10) {
+            return stopFetching.await(1000, MILLISECONDS);
+        } else {
+            return stopFetching.await(waitingTimeOnEmptyRecords, MILLISECONDS);
         }
-        return false;
     }
 
     public void stop() {
         LOG.info(marker, "Shard {} received stop signal.", shardName);
         stopSignal.set(true);
+        final CountDownLatch stopFetching = fetcherStopSignal.get();
+        if (stopFetching != null) {
+            stopFetching.countDown();
+        }
     }
 
     public boolean isStopping() {
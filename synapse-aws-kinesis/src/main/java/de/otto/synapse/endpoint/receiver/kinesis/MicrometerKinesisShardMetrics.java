@@ -0,0 +1,93 @@
+package de.otto.synapse.endpoint.receiver.kinesis;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link KinesisShardMetrics} using Micrometer.
+ * <p>
+ *     The number of responses fetched, but not yet dispatched, is exposed by the gauge {@value #QUEUED_RESPONSES}.
+ *     The total number of seconds the fetcher was blocked because of a full queue is counted by
+ *     {@value #FETCHER_WAIT_TIME}, the number of seconds the dispatcher was waiting for responses by
+ *     {@value #DISPATCHER_WAIT_TIME}. All meters are tagged with the {@code channel} and {@code shard}.
+ * </p>
+ * <p>
+ *     If a shard reader is replaced, for example after a failure of the message log, the meters are reporting
+ *     the values of the latest reader of the shard.
+ * </p>
+ */
+public class MicrometerKinesisShardMetrics implements KinesisShardMetrics {
+
+    public static final String QUEUED_RESPONSES = "synapse.kinesis.shard.queued.responses";
+    public static final String FETCHER_WAIT_TIME = "synapse.kinesis.shard.fetcher.wait";
+    public static final String DISPATCHER_WAIT_TIME = "synapse.kinesis.shard.dispatcher.wait";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, ShardMeters> shardMeters = new ConcurrentHashMap<>();
+
+    public MicrometerKinesisShardMetrics(final @Nonnull MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void register(final @Nonnull KinesisShardReader shardReader) {
+        final String key = shardReader.getChannelName() + "/" + shardReader.getShardName();
+        shardMeters
+                .computeIfAbsent(key, k -> new ShardMeters(shardReader.getChannelName(), shardReader.getShardName()))
+                .replace(shardReader);
+    }
+
+    private final class ShardMeters {
+        private KinesisShardReader shardReader;
+        private double previousFetcherWaitSeconds;
+        private double previousDispatcherWaitSeconds;
+
+        ShardMeters(final String channelName, final String shardName) {
+            final Tags tags = Tags.of("channel", channelName, "shard", shardName);
+            Gauge.builder(QUEUED_RESPONSES, this, ShardMeters::queuedResponses)
+                    .description("Number of shard responses fetched from Kinesis that are waiting to be dispatched")
+                    .tags(tags)
+                    .register(meterRegistry);
+            FunctionCounter.builder(FETCHER_WAIT_TIME, this, ShardMeters::fetcherWaitSeconds)
+                    .description("Total time the fetcher of the shard was blocked by the dispatcher")
+                    .baseUnit("seconds")
+                    .tags(tags)
+                    .register(meterRegistry);
+            FunctionCounter.builder(DISPATCHER_WAIT_TIME, this, ShardMeters::dispatcherWaitSeconds)
+                    .description("Total time the dispatcher of the shard was waiting for responses from Kinesis")
+                    .baseUnit("seconds")
+                    .tags(tags)
+                    .register(meterRegistry);
+        }
+
+        synchronized void replace(final KinesisShardReader shardReader) {
+            // keep the counters monotonic, if the reader of a shard is replaced:
+            previousFetcherWaitSeconds = fetcherWaitSeconds();
+            previousDispatcherWaitSeconds = dispatcherWaitSeconds();
+            this.shardReader = shardReader;
+        }
+
+        synchronized double queuedResponses() {
+            return shardReader != null ? shardReader.getQueuedResponses() : 0;
+        }
+
+        synchronized double fetcherWaitSeconds() {
+            return previousFetcherWaitSeconds + (shardReader != null ? seconds(shardReader.getFetcherWaitTime()) : 0);
+        }
+
+        synchronized double dispatcherWaitSeconds() {
+            return previousDispatcherWaitSeconds + (shardReader != null ? seconds(shardReader.getDispatcherWaitTime()) : 0);
+        }
+    }
+
+    private static double seconds(final Duration duration) {
+        return duration.toNanos() / 1e9;
+    }
+}
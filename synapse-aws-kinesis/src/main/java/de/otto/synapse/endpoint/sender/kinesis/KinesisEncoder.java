@@ -1,6 +1,7 @@
 package de.otto.synapse.endpoint.sender.kinesis;
 
 import de.otto.synapse.message.Message;
+import de.otto.synapse.translator.BinaryEncoder;
 import de.otto.synapse.translator.Encoder;
 import de.otto.synapse.translator.MessageFormat;
 import de.otto.synapse.translator.TextEncoder;
@@ -12,17 +13,24 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 class KinesisEncoder implements Encoder<PutRecordsRequestEntry> {
 
     private final TextEncoder textEncoder;
+    private final BinaryEncoder binaryEncoder;
 
     KinesisEncoder(final MessageFormat messageFormat) {
-        this.textEncoder = new TextEncoder(messageFormat);
+        this.textEncoder = messageFormat != MessageFormat.V3 ? new TextEncoder(messageFormat) : null;
+        this.binaryEncoder = messageFormat == MessageFormat.V3 ? new BinaryEncoder() : null;
     }
 
     @Override
     public PutRecordsRequestEntry apply(final Message<String> message) {
-        final String encodedMessage = textEncoder.apply(message);
-        final SdkBytes sdkBytes = encodedMessage != null
-                ? SdkBytes.fromString(encodedMessage, UTF_8)
-                : SdkBytes.fromByteArray(new byte[]{});
+        final SdkBytes sdkBytes;
+        if (binaryEncoder != null) {
+            sdkBytes = SdkBytes.fromByteArray(binaryEncoder.apply(message));
+        } else {
+            final String encodedMessage = textEncoder.apply(message);
+            sdkBytes = encodedMessage != null
+                    ? SdkBytes.fromString(encodedMessage, UTF_8)
+                    : SdkBytes.fromByteArray(new byte[]{});
+        }
 
         return PutRecordsRequestEntry.builder()
                 .partitionKey(message.getKey().partitionKey())
@@ -1,7 +1,10 @@
 package de.otto.synapse.endpoint.receiver.kinesis;
 
+import de.otto.synapse.message.Header;
 import de.otto.synapse.message.Key;
 import de.otto.synapse.message.Message;
+import de.otto.synapse.message.TextMessage;
+import de.otto.synapse.translator.BinaryEncoder;
 import org.junit.Test;
 import software.amazon.awssdk.core.SdkBytes;
 import software.amazon.awssdk.services.kinesis.model.Record;
@@ -37,6 +40,30 @@ public class KinesisDecoderTest {
         assertThat(message.getHeader().getShardPosition(), is(Optional.of(fromPosition("some-shard", "00001"))));
     }
 
+    @Test
+    public void shouldBuildKinesisMessageV3() {
+        final byte[] bytes = new BinaryEncoder().apply(TextMessage.of(
+                Key.of("42", "42#1"),
+                Header.builder().withAttribute("attr", "value").build(),
+                "{\"some\":\"payload\"}"));
+
+        final Instant now = Instant.now();
+        final Record record = Record.builder()
+                .partitionKey("42")
+                .data(SdkBytes.fromByteArray(bytes))
+                .approximateArrivalTimestamp(now)
+                .sequenceNumber("00001")
+                .build();
+        final Message<String> message = decoder.apply(new RecordWithShard(
+                "some-shard",
+                record));
+        assertThat(message.getKey(), is(Key.of("42", "42#1")));
+        assertThat(message.getPayload(), is("{\"some\":\"payload\"}"));
+        assertThat(message.getHeader().getAsInstant(MSG_ARRIVAL_TS), is(now));
+        assertThat(message.getHeader().getShardPosition(), is(Optional.of(fromPosition("some-shard", "00001"))));
+        assertThat(message.getHeader().get("attr"), is("value"));
+    }
+
     @Test
     public void shouldBuildKinesisMessageV2() {
         final String json = "{\"_synapse_msg_format\":\"v2\","
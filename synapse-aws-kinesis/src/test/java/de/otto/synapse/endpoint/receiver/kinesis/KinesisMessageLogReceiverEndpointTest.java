@@ -274,7 +274,7 @@ public class KinesisMessageLogReceiverEndpointTest {
         // then
         verify(interceptor, atLeast(3)).intercept(any(TextMessage.class));
 
-        verifyZeroInteractions(messageConsumer);
+        verify(messageConsumer, never()).accept(any(Message.class));
         List<Message<String>> messages = messageArgumentCaptor.getAllValues();
 
         assertThat(messages, is(empty()));
@@ -290,7 +290,10 @@ public class KinesisMessageLogReceiverEndpointTest {
         describeRecordsForShard("shard1", true);
         ArgumentCaptor<MessageReceiverNotification> eventCaptor = ArgumentCaptor.forClass(MessageReceiverNotification.class);
         final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
-        kinesisMessageLog = new KinesisMessageLogReceiverEndpoint("testStream", new MessageInterceptorRegistry(), kinesisClient, executorService, eventPublisher);
+        kinesisMessageLog = KinesisMessageLogReceiverEndpoint.builder("testStream", new MessageInterceptorRegistry(), kinesisClient, executorService)
+                .withEventPublisher(eventPublisher)
+                .withNotificationScheduler(synchronousScheduler())
+                .build();
         kinesisMessageLog.register(messageConsumer);
 
         // when
@@ -304,8 +307,9 @@ public class KinesisMessageLogReceiverEndpointTest {
         assertThat(events.get(0).getChannelDurationBehind().isPresent(), is(false));
         assertThat(events.get(1).getStatus(), is(STARTED));
         assertThat(events.get(1).getChannelDurationBehind().isPresent(), is(false));
-        assertThat(events.get(2).getStatus(), is(RUNNING)); // first emtpy record response, we dont evaluate millis behind latest from record response with zero records
+        assertThat(events.get(2).getStatus(), is(RUNNING));
         assertThat(events.get(2).getChannelDurationBehind().orElse(null), is(channelDurationBehind().with("shard1", ofMillis(555L)).build()));
+        assertThat(events.get(2).getMessage(), is("Switched to live mode."));
         assertThat(events.get(3).getStatus(), is(RUNNING));
         assertThat(events.get(3).getChannelDurationBehind().orElse(null), is(channelDurationBehind().with("shard1", ofMillis(1234L)).build()));
         assertThat(events.get(4).getStatus(), is(RUNNING));
@@ -423,6 +427,23 @@ public class KinesisMessageLogReceiverEndpointTest {
                 .build();
     }
 
+    /**
+     * Scheduler executing all tasks immediately in the calling thread, so every RUNNING notification is published
+     * synchronously.
+     */
+    private ScheduledExecutorService synchronousScheduler() {
+        final ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(scheduler).execute(any(Runnable.class));
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(scheduler).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+        return scheduler;
+    }
+
     private void describeStreamResponse(List<Shard> shards) {
         DescribeStreamResponse response = createResponseForShards(shards, false);
 
@@ -19,8 +19,10 @@ import java.time.Clock;
 import java.time.Instant;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.function.Consumer;
 
@@ -34,6 +36,7 @@ import static java.time.temporal.ChronoUnit.SECONDS;
 import static java.util.Collections.emptyList;
 import static java.util.concurrent.CompletableFuture.completedFuture;
 import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static org.awaitility.Awaitility.await;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertEquals;
@@ -307,4 +310,48 @@ public class KinesisShardReaderTest {
 
         assertEquals(argumentCaptor.getValue().shardIteratorType(), ShardIteratorType.AT_TIMESTAMP);
     }
+
+    @Test
+    public void shouldPrefetchResponsesWhileDispatching() throws ExecutionException, InterruptedException {
+        // given
+        final GetRecordsResponse response = GetRecordsResponse.builder()
+                .records(Record.builder()
+                        .sequenceNumber("1")
+                        .approximateArrivalTimestamp(now())
+                        .partitionKey("first")
+                        .build())
+                .nextShardIterator("nextShardIterator")
+                .millisBehindLatest(0L)
+                .build();
+        when(kinesisClient.getRecords(any(GetRecordsRequest.class))).thenReturn(completedFuture(response));
+        final KinesisShardReader prefetchingShardReader = new KinesisShardReader("someChannel", "someShard", kinesisClient, executorService, clock, 1, null, 2);
+        final CountDownLatch dispatching = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        // when
+        final CompletableFuture<ShardPosition> shardPosition = prefetchingShardReader.consumeUntil(fromHorizon("someShard"), shutdown(), shardResponse -> {
+            dispatching.countDown();
+            try {
+                release.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        dispatching.await();
+
+        // then
+        await().atMost(5, TimeUnit.SECONDS).until(prefetchingShardReader::getQueuedResponses, is(2));
+        verify(kinesisClient, atLeast(3)).getRecords(any(GetRecordsRequest.class));
+
+        prefetchingShardReader.stop();
+        release.countDown();
+        assertThat(shardPosition.get(), is(fromPosition("someShard", "1")));
+        assertThat(prefetchingShardReader.getQueuedResponses(), is(0));
+        assertThat(prefetchingShardReader.getFetcherWaitTime().isZero(), is(false));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectIllegalPrefetchCapacity() {
+        new KinesisShardReader("someChannel", "someShard", kinesisClient, executorService, clock, 1, null, 0);
+    }
 }
@@ -0,0 +1,61 @@
+package de.otto.synapse.endpoint.receiver.kinesis;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static de.otto.synapse.endpoint.receiver.kinesis.MicrometerKinesisShardMetrics.DISPATCHER_WAIT_TIME;
+import static de.otto.synapse.endpoint.receiver.kinesis.MicrometerKinesisShardMetrics.FETCHER_WAIT_TIME;
+import static de.otto.synapse.endpoint.receiver.kinesis.MicrometerKinesisShardMetrics.QUEUED_RESPONSES;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MicrometerKinesisShardMetricsTest {
+
+    @Test
+    public void shouldExposeMetricsOfShardReader() {
+        // given
+        final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        final KinesisShardMetrics shardMetrics = new MicrometerKinesisShardMetrics(meterRegistry);
+        final KinesisShardReader shardReader = someShardReader(2, Duration.ofSeconds(3), Duration.ofSeconds(4));
+
+        // when
+        shardMetrics.register(shardReader);
+
+        // then
+        assertThat(meterRegistry.get(QUEUED_RESPONSES).tag("channel", "some-channel").tag("shard", "some-shard").gauge().value(), is(2.0));
+        assertThat(meterRegistry.get(FETCHER_WAIT_TIME).tag("channel", "some-channel").tag("shard", "some-shard").functionCounter().count(), is(3.0));
+        assertThat(meterRegistry.get(DISPATCHER_WAIT_TIME).tag("channel", "some-channel").tag("shard", "some-shard").functionCounter().count(), is(4.0));
+    }
+
+    @Test
+    public void shouldKeepCountersMonotonicIfShardReaderIsReplaced() {
+        // given
+        final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        final KinesisShardMetrics shardMetrics = new MicrometerKinesisShardMetrics(meterRegistry);
+        shardMetrics.register(someShardReader(2, Duration.ofSeconds(3), Duration.ofSeconds(4)));
+
+        // when
+        shardMetrics.register(someShardReader(0, Duration.ofSeconds(1), Duration.ofSeconds(1)));
+
+        // then
+        assertThat(meterRegistry.get(QUEUED_RESPONSES).gauge().value(), is(0.0));
+        assertThat(meterRegistry.get(FETCHER_WAIT_TIME).functionCounter().count(), is(4.0));
+        assertThat(meterRegistry.get(DISPATCHER_WAIT_TIME).functionCounter().count(), is(5.0));
+    }
+
+    private KinesisShardReader someShardReader(final int queuedResponses,
+                                               final Duration fetcherWaitTime,
+                                               final Duration dispatcherWaitTime) {
+        final KinesisShardReader shardReader = mock(KinesisShardReader.class);
+        when(shardReader.getChannelName()).thenReturn("some-channel");
+        when(shardReader.getShardName()).thenReturn("some-shard");
+        when(shardReader.getQueuedResponses()).thenReturn(queuedResponses);
+        when(shardReader.getFetcherWaitTime()).thenReturn(fetcherWaitTime);
+        when(shardReader.getDispatcherWaitTime()).thenReturn(dispatcherWaitTime);
+        return shardReader;
+    }
+}
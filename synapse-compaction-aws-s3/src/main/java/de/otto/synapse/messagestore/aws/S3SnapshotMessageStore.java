@@ -33,7 +33,11 @@ import java.util.Iterator;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import java.util.zip.ZipInputStream;
 
 import static com.google.common.collect.ImmutableMap.builder;
@@ -146,10 +150,27 @@ public class S3SnapshotMessageStore implements SnapshotMessageStore {
     @Override
     public Stream<MessageStoreEntry> stream() {
         return messageIterator != null
-                ? Streams.stream(messageIterator).map(msg -> MessageStoreEntry.of(channelName, ImmutableMap.of(Index.ORIGIN, "Snapshot"), msg))
+                ? Streams.stream(messageIterator).map(this::toMessageStoreEntry)
                 : Stream.empty();
     }
 
+    /**
+     * Returns a parallel stream of the messages of the snapshot. The snapshot file is read sequentially, but the
+     * messages are split into blocks that are decoded in parallel.
+     *
+     * @return parallel Stream of entries
+     */
+    @Override
+    public Stream<MessageStoreEntry> parallelStream() {
+        return messageIterator != null
+                ? StreamSupport.stream(new BlockSpliterator(messageIterator), true).map(this::toMessageStoreEntry)
+                : Stream.empty();
+    }
+
+    private MessageStoreEntry toMessageStoreEntry(final TextMessage message) {
+        return MessageStoreEntry.of(channelName, ImmutableMap.of(Index.ORIGIN, "Snapshot"), message);
+    }
+
     /**
      * Guaranteed to throw an exception and leave the message store unmodified.
      *
@@ -161,6 +182,28 @@ public class S3SnapshotMessageStore implements SnapshotMessageStore {
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * Guaranteed to throw an exception: snapshot messages have neither shard positions nor arrival timestamps.
+     *
+     * @throws UnsupportedOperationException always
+     * @deprecated Unsupported operation.
+     */
+    @Override
+    public Stream<MessageStoreEntry> stream(String channelName, ChannelPosition fromPosition) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Guaranteed to throw an exception: snapshot messages have neither shard positions nor arrival timestamps.
+     *
+     * @throws UnsupportedOperationException always
+     * @deprecated Unsupported operation.
+     */
+    @Override
+    public Stream<MessageStoreEntry> stream(String channelName, Instant from, Instant to) {
+        throw new UnsupportedOperationException();
+    }
+
     /**
      * Guaranteed to throw an exception and leave the message store unmodified.
      *
@@ -237,9 +280,10 @@ public class S3SnapshotMessageStore implements SnapshotMessageStore {
 
     private static class MessageIterator implements Iterator<TextMessage> {
 
+        private static final Decoder<SnapshotMessage> DECODER = new SnapshotMessageDecoder();
+
         private TextMessage nextMessage = null;
         private JsonParser jsonParser;
-        private final Decoder<SnapshotMessage> decoder = new SnapshotMessageDecoder();
 
         private MessageIterator(final JsonParser jsonParser) {
             this.jsonParser = jsonParser;
@@ -247,20 +291,33 @@ public class S3SnapshotMessageStore implements SnapshotMessageStore {
 
         @Override
         public boolean hasNext() {
+            if (nextMessage == null) {
+                final SnapshotMessage snapshotMessage = nextSnapshotMessage();
+                if (snapshotMessage != null) {
+                    nextMessage = DECODER.apply(snapshotMessage);
+                }
+            }
+            return nextMessage != null;
+        }
+
+        /**
+         * Reads the next message from the snapshot file without decoding it. Must not be mixed with calls of
+         * {@link #next()}.
+         *
+         * @return the next undecoded message, or null if there are no more messages
+         */
+        private SnapshotMessage nextSnapshotMessage() {
             try {
-                if (nextMessage == null) {
-                    while (!jsonParser.isClosed() && jsonParser.nextToken() != JsonToken.END_ARRAY) {
-                        JsonToken currentToken = jsonParser.currentToken();
-                        if (currentToken == JsonToken.FIELD_NAME) {
-                            nextMessage = decoder.apply(new SnapshotMessage(
-                                    Key.of(jsonParser.getValueAsString()),
-                                    Header.of(),
-                                    jsonParser.nextTextValue()));
-                            break;
-                        }
+                while (!jsonParser.isClosed() && jsonParser.nextToken() != JsonToken.END_ARRAY) {
+                    JsonToken currentToken = jsonParser.currentToken();
+                    if (currentToken == JsonToken.FIELD_NAME) {
+                        return new SnapshotMessage(
+                                Key.of(jsonParser.getValueAsString()),
+                                Header.of(),
+                                jsonParser.nextTextValue());
                     }
                 }
-                return nextMessage != null;
+                return null;
             } catch (final IOException e) {
                 throw new RuntimeException(e.getMessage(), e);
             }
@@ -277,4 +334,89 @@ public class S3SnapshotMessageStore implements SnapshotMessageStore {
             }
         }
     }
+
+    /**
+     * Spliterator over the messages of a snapshot file. Splitting reads the next block of messages from the file,
+     * and returns a spliterator that is decoding the block, so the messages are decoded in parallel.
+     */
+    private static class BlockSpliterator extends Spliterators.AbstractSpliterator<TextMessage> {
+
+        private static final int BLOCK_SIZE = 1024;
+
+        private final MessageIterator messageIterator;
+
+        private BlockSpliterator(final MessageIterator messageIterator) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.messageIterator = messageIterator;
+        }
+
+        @Override
+        public boolean tryAdvance(final Consumer<? super TextMessage> action) {
+            final SnapshotMessage snapshotMessage = messageIterator.nextSnapshotMessage();
+            if (snapshotMessage != null) {
+                action.accept(MessageIterator.DECODER.apply(snapshotMessage));
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public Spliterator<TextMessage> trySplit() {
+            final SnapshotMessage[] block = new SnapshotMessage[BLOCK_SIZE];
+            int size = 0;
+            SnapshotMessage snapshotMessage;
+            while (size < BLOCK_SIZE && (snapshotMessage = messageIterator.nextSnapshotMessage()) != null) {
+                block[size++] = snapshotMessage;
+            }
+            return size > 0
+                    ? new DecodingSpliterator(block, 0, size)
+                    : null;
+        }
+    }
+
+    /**
+     * Spliterator over a block of undecoded messages, decoding the messages while they are traversed.
+     */
+    private static class DecodingSpliterator implements Spliterator<TextMessage> {
+
+        private final SnapshotMessage[] block;
+        private final int fence;
+        private int index;
+
+        private DecodingSpliterator(final SnapshotMessage[] block, final int origin, final int fence) {
+            this.block = block;
+            this.index = origin;
+            this.fence = fence;
+        }
+
+        @Override
+        public boolean tryAdvance(final Consumer<? super TextMessage> action) {
+            if (index < fence) {
+                action.accept(MessageIterator.DECODER.apply(block[index++]));
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public Spliterator<TextMessage> trySplit() {
+            final int origin = index;
+            final int mid = (origin + fence) >>> 1;
+            if (origin >= mid) {
+                return null;
+            }
+            index = mid;
+            return new DecodingSpliterator(block, origin, mid);
+        }
+
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.NONNULL | Spliterator.IMMUTABLE;
+        }
+    }
 }
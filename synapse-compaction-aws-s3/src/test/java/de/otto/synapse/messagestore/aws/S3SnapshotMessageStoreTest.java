@@ -3,6 +3,7 @@ package de.otto.synapse.messagestore.aws;
 import de.otto.synapse.compaction.s3.SnapshotReadService;
 import de.otto.synapse.info.SnapshotReaderNotification;
 import de.otto.synapse.info.SnapshotReaderStatus;
+import de.otto.synapse.messagestore.MessageStoreEntry;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
@@ -15,10 +16,13 @@ import software.amazon.awssdk.services.s3.model.S3Exception;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
 import java.util.Optional;
 
+import static de.otto.synapse.channel.ChannelPosition.fromHorizon;
 import static de.otto.synapse.info.SnapshotReaderNotification.builder;
 import static java.time.Instant.parse;
+import static java.util.stream.Collectors.toList;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
@@ -60,6 +64,55 @@ public class S3SnapshotMessageStoreTest {
         assertThat(messageStore.getSnapshotTimestamp(), is(parse("2017-09-29T09:02:00.00Z")));
     }
 
+    @Test
+    public void shouldStreamMessagesInParallel() throws IOException {
+        // given
+        final File snapshotFile = new ClassPathResource("compaction-integrationtest-snapshot-2017-09-29T09-02Z-3053797267191232636.json.zip").getFile();
+        when(snapshotReadService.retrieveLatestSnapshot(any())).thenReturn(Optional.of(snapshotFile));
+        final List<MessageStoreEntry> expectedEntries;
+        try (final S3SnapshotMessageStore messageStore = new S3SnapshotMessageStore(STREAM_NAME, snapshotReadService, eventPublisher)) {
+            expectedEntries = messageStore.stream().collect(toList());
+        }
+
+        // when
+        final List<MessageStoreEntry> entries;
+        try (final S3SnapshotMessageStore messageStore = new S3SnapshotMessageStore(STREAM_NAME, snapshotReadService, eventPublisher)) {
+            entries = messageStore.parallelStream().collect(toList());
+        }
+
+        // then
+        assertThat(entries.isEmpty(), is(false));
+        assertThat(entries, is(expectedEntries));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void shouldRejectStreamingMessagesFollowingChannelPosition() throws IOException {
+        // given
+        final File snapshotFile = new ClassPathResource("compaction-integrationtest-snapshot-2017-09-29T09-02Z-3053797267191232636.json.zip").getFile();
+        when(snapshotReadService.retrieveLatestSnapshot(any())).thenReturn(Optional.of(snapshotFile));
+
+        // when
+        try (final S3SnapshotMessageStore messageStore = new S3SnapshotMessageStore(STREAM_NAME, snapshotReadService, eventPublisher)) {
+            messageStore.stream(STREAM_NAME, fromHorizon());
+        }
+
+        // then expect exception
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void shouldRejectStreamingMessagesArrivedBetweenTimestamps() throws IOException {
+        // given
+        final File snapshotFile = new ClassPathResource("compaction-integrationtest-snapshot-2017-09-29T09-02Z-3053797267191232636.json.zip").getFile();
+        when(snapshotReadService.retrieveLatestSnapshot(any())).thenReturn(Optional.of(snapshotFile));
+
+        // when
+        try (final S3SnapshotMessageStore messageStore = new S3SnapshotMessageStore(STREAM_NAME, snapshotReadService, eventPublisher)) {
+            messageStore.stream(STREAM_NAME, parse("2017-09-29T09:00:00.00Z"), parse("2017-09-29T10:00:00.00Z"));
+        }
+
+        // then expect exception
+    }
+
     @Test
     public void shouldThrowExceptionIfBucketNotExists() {
         // given
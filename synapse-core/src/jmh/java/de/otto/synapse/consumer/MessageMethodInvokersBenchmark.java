@@ -0,0 +1,93 @@
+package de.otto.synapse.consumer;
+
+import de.otto.synapse.message.Message;
+import de.otto.synapse.message.TextMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the different ways to call annotated consumer methods: the reflective path used by earlier versions
+ * of {@link MethodInvokingMessageConsumer}, the MethodHandle fallback, and the LambdaMetafactory-based invoker.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageMethodInvokersBenchmark {
+
+    public static class PublicConsumer {
+        private long count;
+
+        public void consume(final Message<String> message) {
+            count += message.getKey().compactionKey().length();
+        }
+    }
+
+    static class PackagePrivateConsumer {
+        private long count;
+
+        void consume(final Message<String> message) {
+            count += message.getKey().compactionKey().length();
+        }
+    }
+
+    private final TextMessage message = TextMessage.of("some-key", "{}");
+
+    private PublicConsumer publicConsumer;
+    private Method method;
+    private MessageMethodInvoker lambdaInvoker;
+    private MessageMethodInvoker methodHandleInvoker;
+    private MessageMethodInvoker reflectiveInvoker;
+    private MethodInvokingMessageConsumer<String> messageConsumer;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        publicConsumer = new PublicConsumer();
+        method = PublicConsumer.class.getMethod("consume", Message.class);
+        lambdaInvoker = MessageMethodInvokers.invokerFor(publicConsumer, method);
+        methodHandleInvoker = MessageMethodInvokers.invokerFor(
+                new PackagePrivateConsumer(),
+                PackagePrivateConsumer.class.getDeclaredMethod("consume", Message.class));
+        reflectiveInvoker = MessageMethodInvokers.reflectiveInvokerFor(publicConsumer, method);
+        messageConsumer = new MethodInvokingMessageConsumer<>(".*", String.class, publicConsumer, method);
+    }
+
+    @Benchmark
+    public void methodInvoke(final Blackhole blackhole) throws Exception {
+        blackhole.consume(method.invoke(publicConsumer, message));
+    }
+
+    @Benchmark
+    public void reflectiveInvoker(final Blackhole blackhole) {
+        blackhole.consume(reflectiveInvoker.invoke(message));
+    }
+
+    @Benchmark
+    public void methodHandleInvoker(final Blackhole blackhole) {
+        blackhole.consume(methodHandleInvoker.invoke(message));
+    }
+
+    @Benchmark
+    public void lambdaInvoker(final Blackhole blackhole) {
+        blackhole.consume(lambdaInvoker.invoke(message));
+    }
+
+    @Benchmark
+    public void methodInvokingMessageConsumer() {
+        messageConsumer.accept(message);
+    }
+}
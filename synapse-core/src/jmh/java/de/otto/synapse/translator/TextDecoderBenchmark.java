@@ -0,0 +1,73 @@
+package de.otto.synapse.translator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import de.otto.synapse.message.Header;
+import de.otto.synapse.message.Key;
+import de.otto.synapse.message.TextMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static de.otto.synapse.translator.ObjectMappers.currentObjectMapper;
+
+/**
+ * Compares the streaming decoder of {@link AbstractTextDecoder} with decoding V2 messages using a tree of
+ * JSON nodes, as done by earlier versions of Synapse.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextDecoderBenchmark {
+
+    private final TextDecoder decoder = new TextDecoder();
+
+    private String v1Body;
+    private String v2Body;
+
+    @Setup
+    public void setup() {
+        final StringBuilder payload = new StringBuilder("{\"id\":\"4711\",\"variations\":[");
+        for (int i = 0; i < 20; ++i) {
+            payload.append(i > 0 ? "," : "").append("{\"id\":\"").append(i).append("\",\"price\":").append(i * 100).append("}");
+        }
+        payload.append("]}");
+        v1Body = payload.toString();
+        v2Body = new TextEncoder(MessageFormat.V2).apply(TextMessage.of(
+                Key.of("4711", "4711#0"),
+                Header.builder().withAttribute("some-attr", "some value").build(),
+                v1Body));
+    }
+
+    @Benchmark
+    public TextMessage decodeV1() {
+        return decoder.apply(v1Body);
+    }
+
+    @Benchmark
+    public TextMessage decodeV2() {
+        return decoder.apply(v2Body);
+    }
+
+    @Benchmark
+    public Object decodeV2UsingTree() throws IOException {
+        final JsonNode json = currentObjectMapper().readTree(v2Body);
+        return new Object[]{
+                json.get(MessageFormat.SYNAPSE_MSG_KEY),
+                currentObjectMapper().convertValue(json.get(MessageFormat.SYNAPSE_MSG_HEADERS), java.util.Map.class),
+                json.get(MessageFormat.SYNAPSE_MSG_PAYLOAD).toString()
+        };
+    }
+}
@@ -5,6 +5,16 @@ import de.otto.synapse.message.Message;
 
 import java.lang.annotation.*;
 
+/**
+ * Annotation used to register a method as a consumer of the messages of a {@link EventSource}.
+ * <p>
+ *     The annotated method is either consuming single messages, using a parameter of type {@code Message<T>},
+ *     or batches of messages: if the method has a parameter of type {@code List<Message<T>>} (optionally
+ *     preceded by a parameter of type {@link de.otto.synapse.channel.ShardPosition}), the method is registered
+ *     as a {@link de.otto.synapse.consumer.BatchMessageConsumer} that is called once for all matching messages
+ *     of a {@link de.otto.synapse.channel.ShardResponse}.
+ * </p>
+ */
 @Target(ElementType.METHOD)
 @Retention(RetentionPolicy.RUNTIME)
 @Documented
@@ -32,4 +42,14 @@ public @interface EventSourceConsumer {
      */
     Class<?> payloadType();
 
+    /**
+     * If true, the consumer is called with {@link de.otto.synapse.message.LazyMessage messages} that are
+     * deserializing the {@link Message#getPayload() payload} on first access. This is useful for consumers that
+     * are ignoring most messages after looking at their key or header.
+     *
+     * @return true if the payload should be decoded lazily; defaults to false
+     */
+    boolean lazyPayload() default false;
+
+
 }
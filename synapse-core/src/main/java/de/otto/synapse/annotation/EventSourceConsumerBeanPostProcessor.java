@@ -1,5 +1,6 @@
 package de.otto.synapse.annotation;
 
+import de.otto.synapse.consumer.MethodInvokingBatchMessageConsumer;
 import de.otto.synapse.consumer.MethodInvokingMessageConsumer;
 import de.otto.synapse.eventsource.EventSource;
 import org.slf4j.Logger;
@@ -79,8 +80,12 @@ public class EventSourceConsumerBeanPostProcessor implements BeanPostProcessor,
         for (Map.Entry<Method, Set<EventSourceConsumer>> entry : annotatedMethods.entrySet()) {
             final Method method = entry.getKey();
             for (EventSourceConsumer consumerAnnotation : entry.getValue()) {
-                matchingEventSourceFor(consumerAnnotation)
-                        .register(eventConsumerFor(consumerAnnotation, method, bean));
+                final EventSource eventSource = matchingEventSourceFor(consumerAnnotation);
+                if (MethodInvokingBatchMessageConsumer.isBatchConsumerMethod(method)) {
+                    eventSource.register(batchEventConsumerFor(consumerAnnotation, method, bean));
+                } else {
+                    eventSource.register(eventConsumerFor(consumerAnnotation, method, bean));
+                }
             }
         }
         LOG.info("{} @EventSourceConsumer methods processed on bean {} : {}'", annotatedMethods.size(), beanName, annotatedMethods);
@@ -101,7 +106,13 @@ public class EventSourceConsumerBeanPostProcessor implements BeanPostProcessor,
     private MethodInvokingMessageConsumer<?> eventConsumerFor(final EventSourceConsumer annotation,
                                                               final Method annotatedMethod,
                                                               final Object bean) {
-        return new MethodInvokingMessageConsumer<>(annotation.keyPattern(), annotation.payloadType(), bean, annotatedMethod);
+        return new MethodInvokingMessageConsumer<>(annotation.keyPattern(), annotation.payloadType(), bean, annotatedMethod, annotation.lazyPayload());
+    }
+
+    private MethodInvokingBatchMessageConsumer<?> batchEventConsumerFor(final EventSourceConsumer annotation,
+                                                                        final Method annotatedMethod,
+                                                                        final Object bean) {
+        return new MethodInvokingBatchMessageConsumer<>(annotation.keyPattern(), annotation.payloadType(), bean, annotatedMethod);
     }
 
     private EventSource matchingEventSourceFor(final EventSourceConsumer annotation) {
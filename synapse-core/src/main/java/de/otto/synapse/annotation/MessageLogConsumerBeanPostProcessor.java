@@ -1,5 +1,6 @@
 package de.otto.synapse.annotation;
 
+import de.otto.synapse.consumer.MethodInvokingBatchMessageConsumer;
 import de.otto.synapse.consumer.MethodInvokingMessageConsumer;
 import de.otto.synapse.endpoint.receiver.MessageLogReceiverEndpoint;
 import de.otto.synapse.endpoint.receiver.MessageReceiverEndpoint;
@@ -80,8 +81,12 @@ public class MessageLogConsumerBeanPostProcessor implements BeanPostProcessor, O
         for (Map.Entry<Method, Set<MessageLogConsumer>> entry : annotatedMethods.entrySet()) {
             final Method method = entry.getKey();
             for (MessageLogConsumer consumerAnnotation : entry.getValue()) {
-                matchingMessageLogReceiverEndpointFor(consumerAnnotation)
-                        .register(MessageLogConsumerFor(consumerAnnotation, method, bean));
+                final MessageReceiverEndpoint endpoint = matchingMessageLogReceiverEndpointFor(consumerAnnotation);
+                if (MethodInvokingBatchMessageConsumer.isBatchConsumerMethod(method)) {
+                    endpoint.register(batchMessageLogConsumerFor(consumerAnnotation, method, bean));
+                } else {
+                    endpoint.register(MessageLogConsumerFor(consumerAnnotation, method, bean));
+                }
             }
         }
         LOG.info("{} @MessageLogConsumer methods processed on bean {} : {}'", annotatedMethods.size(), beanName, annotatedMethods);
@@ -102,7 +107,13 @@ public class MessageLogConsumerBeanPostProcessor implements BeanPostProcessor, O
     private MethodInvokingMessageConsumer<?> MessageLogConsumerFor(final MessageLogConsumer annotation,
                                                                    final Method annotatedMethod,
                                                                    final Object bean) {
-        return new MethodInvokingMessageConsumer<>(annotation.keyPattern(), annotation.payloadType(), bean, annotatedMethod);
+        return new MethodInvokingMessageConsumer<>(annotation.keyPattern(), annotation.payloadType(), bean, annotatedMethod, annotation.lazyPayload());
+    }
+
+    private MethodInvokingBatchMessageConsumer<?> batchMessageLogConsumerFor(final MessageLogConsumer annotation,
+                                                                             final Method annotatedMethod,
+                                                                             final Object bean) {
+        return new MethodInvokingBatchMessageConsumer<>(annotation.keyPattern(), annotation.payloadType(), bean, annotatedMethod);
     }
 
     private MessageReceiverEndpoint matchingMessageLogReceiverEndpointFor(final MessageLogConsumer annotation) {
@@ -20,4 +20,14 @@ public @interface MessageQueueConsumer {
      * @return payload type
      */
     Class<?> payloadType();
+
+    /**
+     * If true, the consumer is called with {@link de.otto.synapse.message.LazyMessage messages} that are
+     * deserializing the {@link Message#getPayload() payload} on first access. This is useful for consumers that
+     * are ignoring most messages after looking at their key or header.
+     *
+     * @return true if the payload should be decoded lazily; defaults to false
+     */
+    boolean lazyPayload() default false;
+
 }
@@ -102,7 +102,7 @@ public class MessageQueueConsumerBeanPostProcessor implements BeanPostProcessor,
     private MethodInvokingMessageConsumer<?> messageQueueConsumerFor(final MessageQueueConsumer annotation,
                                                                      final Method annotatedMethod,
                                                                      final Object bean) {
-        return new MethodInvokingMessageConsumer<>(annotation.keyPattern(), annotation.payloadType(), bean, annotatedMethod);
+        return new MethodInvokingMessageConsumer<>(annotation.keyPattern(), annotation.payloadType(), bean, annotatedMethod, annotation.lazyPayload());
     }
 
     private MessageReceiverEndpoint matchingMessageQueueReceiverEndpointFor(final MessageQueueConsumer annotation) {
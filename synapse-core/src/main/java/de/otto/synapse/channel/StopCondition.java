@@ -1,10 +1,12 @@
 package de.otto.synapse.channel;
 
 import de.otto.synapse.message.DefaultHeaderAttr;
+import de.otto.synapse.message.TextMessage;
 
 import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.List;
 import java.util.function.Predicate;
 
 import static com.google.common.base.Predicates.alwaysFalse;
@@ -68,10 +70,16 @@ public final class StopCondition {
      */
     public static Predicate<ShardResponse> arrivalTimestampAfterNow(final Clock clock) {
         final Instant now = clock.instant();
-        return (response) -> response
-                .getMessages()
-                .stream()
-                .anyMatch(m -> m.getHeader().getAsInstant(DefaultHeaderAttr.MSG_ARRIVAL_TS, Instant.MIN).isAfter(now));
+        return (response) -> {
+            final List<TextMessage> messages = response.getMessages();
+            for (int i = 0, n = messages.size(); i < n; ++i) {
+                final Instant arrivalTimestamp = messages.get(i).getHeader().getAsInstant(DefaultHeaderAttr.MSG_ARRIVAL_TS);
+                if (arrivalTimestamp != null && arrivalTimestamp.isAfter(now)) {
+                    return true;
+                }
+            }
+            return false;
+        };
     }
 
     /**
@@ -2,13 +2,19 @@ package de.otto.synapse.configuration;
 
 import de.otto.synapse.annotation.EventSourceConsumerBeanPostProcessor;
 import de.otto.synapse.channel.selector.MessageLog;
+import de.otto.synapse.eventsource.ChannelPositionCheckpoint;
+import de.otto.synapse.eventsource.ChannelPositionCheckpointFactory;
 import de.otto.synapse.eventsource.DefaultEventSourceBuilder;
 import de.otto.synapse.eventsource.EventSource;
 import de.otto.synapse.eventsource.EventSourceBuilder;
 import de.otto.synapse.eventsource.EventSourceConsumerProcess;
+import de.otto.synapse.eventsource.MessageStoreReplayCoordinator;
 import de.otto.synapse.messagestore.MessageStoreFactory;
 import de.otto.synapse.messagestore.SnapshotMessageStore;
+import de.otto.synapse.state.ChronicleMapStateRepository;
+import de.otto.synapse.state.StateRepository;
 import org.slf4j.Logger;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -18,9 +24,15 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
 import org.springframework.context.annotation.Role;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
 
 import static de.otto.synapse.messagestore.MessageStores.emptyMessageStore;
+import static java.util.stream.Collectors.toList;
 import static org.slf4j.LoggerFactory.getLogger;
 import static org.springframework.beans.factory.config.BeanDefinition.ROLE_INFRASTRUCTURE;
 
@@ -33,18 +45,96 @@ public class EventSourcingAutoConfiguration {
     @Autowired(required = false)
     private List<EventSource> eventSources;
 
+    /**
+     * Configures the {@link MessageStoreReplayCoordinator} that is used to limit the number of message stores
+     * replayed concurrently when the event sources are started.
+     *
+     * @param synapseProperties properties used to configure the coordinator
+     * @return MessageStoreReplayCoordinator
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public MessageStoreReplayCoordinator messageStoreReplayCoordinator(final SynapseProperties synapseProperties) {
+        final SynapseProperties.EventSource.Replay replay = synapseProperties.getEventSource().getReplay();
+        return new MessageStoreReplayCoordinator(replay.getParallelism(), replay.getWorkersPerReplay());
+    }
+
+    /**
+     * Configures the {@link ChannelPositionCheckpointFactory} used by event sources to continue at the last
+     * checkpoint instead of replaying the snapshot, if 'synapse.event-source.checkpoint.enabled' is true.
+     * <p>
+     *     Checkpoints are only trusted, if the event-sourced state is kept in {@link ChronicleMapStateRepository
+     *     ChronicleMapStateRepositories} that are recovered from their persisted files. Without persisted state,
+     *     no checkpoints are used. If a persisted file was newly created, for example because it was deleted, the
+     *     existing checkpoints are deleted, so the snapshots are replayed.
+     * </p>
+     *
+     * @param synapseProperties properties used to configure the checkpoints
+     * @param stateRepositories the state repositories of the service
+     * @return ChannelPositionCheckpointFactory
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(
+            prefix = "synapse.event-source.checkpoint",
+            name = "enabled",
+            havingValue = "true")
+    public ChannelPositionCheckpointFactory channelPositionCheckpointFactory(final SynapseProperties synapseProperties,
+                                                                             final ObjectProvider<StateRepository<?>> stateRepositories) {
+        final SynapseProperties.EventSource.Checkpoint checkpoint = synapseProperties.getEventSource().getCheckpoint();
+        if (checkpoint.getDirectory() == null) {
+            throw new IllegalStateException("Property synapse.event-source.checkpoint.directory is required if checkpoints are enabled");
+        }
+        final Path directory = Paths.get(checkpoint.getDirectory());
+        return channelName -> {
+            final Path file = directory.resolve(channelName + ".checkpoint.json");
+            final List<ChronicleMapStateRepository<?>> persistedStateRepositories = stateRepositories.stream()
+                    .filter(ChronicleMapStateRepository.class::isInstance)
+                    .<ChronicleMapStateRepository<?>>map(ChronicleMapStateRepository.class::cast)
+                    .filter(repository -> repository.getPersistedFile().isPresent())
+                    .collect(toList());
+            if (persistedStateRepositories.isEmpty()) {
+                LOG.warn("Checkpoints are enabled, but there is no persisted ChronicleMapStateRepository: channel '{}' is consumed without checkpoint", channelName);
+                return null;
+            }
+            persistedStateRepositories.stream()
+                    .filter(repository -> !repository.isRecovered())
+                    .findAny()
+                    .ifPresent(repository -> deleteCheckpoint(file, channelName, repository));
+            return new ChannelPositionCheckpoint(
+                    channelName,
+                    file,
+                    checkpoint.getInterval(),
+                    checkpoint.getMaxAge());
+        };
+    }
+
+    private static void deleteCheckpoint(final Path file,
+                                         final String channelName,
+                                         final ChronicleMapStateRepository<?> repository) {
+        try {
+            if (Files.deleteIfExists(file)) {
+                LOG.warn("Deleted checkpoint of channel '{}': state repository '{}' was not recovered from {}", channelName, repository.getName(), repository.getPersistedFile().orElse(null));
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Unable to delete checkpoint " + file + " of channel '" + channelName + "': " + e.getMessage(), e);
+        }
+    }
+
     @Bean
     @ConditionalOnMissingBean(name = "defaultEventSourceBuilder")
     @ConditionalOnBean(name = "snapshotMessageStoreFactory")
-    public EventSourceBuilder defaultEventSourceBuilder(final MessageStoreFactory<SnapshotMessageStore> snapshotMessageStoreFactory) {
-        return new DefaultEventSourceBuilder(snapshotMessageStoreFactory, MessageLog.class);
+    public EventSourceBuilder defaultEventSourceBuilder(final MessageStoreFactory<SnapshotMessageStore> snapshotMessageStoreFactory,
+                                                        final MessageStoreReplayCoordinator messageStoreReplayCoordinator,
+                                                        final ObjectProvider<ChannelPositionCheckpointFactory> checkpointFactory) {
+        return new DefaultEventSourceBuilder(snapshotMessageStoreFactory, MessageLog.class, messageStoreReplayCoordinator, checkpointFactory.getIfAvailable());
     }
 
     @Bean
     @ConditionalOnMissingBean(name = {"defaultEventSourceBuilder", "snapshotMessageStoreFactory"})
-    public EventSourceBuilder fallbackEventSourceBuilder() {
+    public EventSourceBuilder fallbackEventSourceBuilder(final ObjectProvider<ChannelPositionCheckpointFactory> checkpointFactory) {
         LOG.info("No MessageStoreFactory is configured. Falling back to EventStoreBuilder w/o Snapshot MessageStore");
-        return new DefaultEventSourceBuilder((_x) -> emptyMessageStore(), MessageLog.class);
+        return new DefaultEventSourceBuilder((_x) -> emptyMessageStore(), MessageLog.class, null, checkpointFactory.getIfAvailable());
     }
 
     @Bean
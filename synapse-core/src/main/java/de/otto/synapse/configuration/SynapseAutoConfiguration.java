@@ -7,7 +7,12 @@ import de.otto.synapse.endpoint.DefaultSenderHeadersInterceptor;
 import de.otto.synapse.endpoint.MessageInterceptorRegistry;
 import de.otto.synapse.journal.Journal;
 import de.otto.synapse.journal.JournalRegistry;
+import de.otto.synapse.metrics.MessageTimings;
+import de.otto.synapse.metrics.MicrometerMessageTimings;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -40,9 +45,11 @@ public class SynapseAutoConfiguration {
     }
 
     @Bean
-    public MessageInterceptorRegistry messageInterceptorRegistry(final ApplicationContext applicationContext) {
+    public MessageInterceptorRegistry messageInterceptorRegistry(final ApplicationContext applicationContext,
+                                                                 final ObjectProvider<MessageTimings> messageTimings) {
         if (registry == null) {
             this.registry = new MessageInterceptorRegistry();
+            messageTimings.ifAvailable(registry::setMessageTimings);
             final Map<String, MessageEndpointConfigurer> configurers = applicationContext.getBeansOfType(MessageEndpointConfigurer.class);
             if (configurers != null) {
                 configurers.forEach((beanName, bean) -> {
@@ -110,4 +117,24 @@ public class SynapseAutoConfiguration {
         return new MessageInterceptorBeanPostProcessor();
     }
 
+    /**
+     * Configures {@link MessageTimings} measuring the latency of message interceptors and consumers using
+     * Micrometer, if {@code synapse.metrics.latency.enabled=true}.
+     */
+    @Configuration
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    @ConditionalOnProperty(
+            prefix = "synapse.metrics.latency",
+            name = "enabled",
+            havingValue = "true")
+    public static class MessageTimingsConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public MessageTimings messageTimings(final MeterRegistry meterRegistry,
+                                             final SynapseProperties synapseProperties) {
+            return new MicrometerMessageTimings(meterRegistry, synapseProperties.getMetrics().getLatency().getSamplingInterval());
+        }
+    }
+
 }
@@ -3,11 +3,15 @@ package de.otto.synapse.configuration;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+
 @ConfigurationProperties(prefix = "synapse")
 public class SynapseProperties {
     private final ConsumerProcess consumerProcess = new ConsumerProcess();
     private final Sender sender;
     private final Receiver receiver;
+    private final Metrics metrics = new Metrics();
+    private final EventSource eventSource = new EventSource();
 
     public SynapseProperties(@Value("${spring.application.name:Synapse}") String defaultName) {
         this.sender = new Sender(defaultName);
@@ -26,6 +30,14 @@ public class SynapseProperties {
         return receiver;
     }
 
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    public EventSource getEventSource() {
+        return eventSource;
+    }
+
     public static class Sender {
 
         /**
@@ -73,10 +85,50 @@ public class SynapseProperties {
 
         private final DefaultHeaders defaultHeaders = new DefaultHeaders();
 
+        private final PartitionedDispatch partitionedDispatch = new PartitionedDispatch();
+
         public DefaultHeaders getDefaultHeaders() {
             return defaultHeaders;
         }
 
+        public PartitionedDispatch getPartitionedDispatch() {
+            return partitionedDispatch;
+        }
+
+        /**
+         * Configures message-log receivers to dispatch the messages of a shard using multiple worker lanes.
+         *
+         * Messages are assigned to lanes by partition key, so the ordering of messages having the same
+         * partition key is retained.
+         */
+        public class PartitionedDispatch {
+            private boolean enabled = false;
+            private int lanes = Runtime.getRuntime().availableProcessors();
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public int getLanes() {
+                return lanes;
+            }
+
+            public void setLanes(int lanes) {
+                this.lanes = lanes;
+            }
+
+            /**
+             * @return the number of lanes if partitioned dispatching is enabled, 1 otherwise.
+             */
+            public int getEffectiveLanes() {
+                return enabled ? lanes : 1;
+            }
+        }
+
         public class DefaultHeaders {
             private boolean enabled = true;
 
@@ -90,6 +142,131 @@ public class SynapseProperties {
         }
     }
 
+    public static class EventSource {
+
+        private final Replay replay = new Replay();
+        private final Checkpoint checkpoint = new Checkpoint();
+
+        public Replay getReplay() {
+            return replay;
+        }
+
+        public Checkpoint getCheckpoint() {
+            return checkpoint;
+        }
+
+        /**
+         * Configures the replay of message stores when event sources are started.
+         *
+         * At most 'parallelism' message stores are replayed concurrently; the message stores of other event sources
+         * are replayed as soon as one of the running replays is finished. Every replay is using
+         * 'workers-per-replay' threads to dispatch the messages of a store.
+         */
+        public class Replay {
+            private int parallelism = 4;
+            private int workersPerReplay = Runtime.getRuntime().availableProcessors();
+
+            public int getParallelism() {
+                return parallelism;
+            }
+
+            public void setParallelism(int parallelism) {
+                this.parallelism = parallelism;
+            }
+
+            public int getWorkersPerReplay() {
+                return workersPerReplay;
+            }
+
+            public void setWorkersPerReplay(int workersPerReplay) {
+                this.workersPerReplay = workersPerReplay;
+            }
+        }
+
+        /**
+         * Configures checkpoints of the channel positions consumed by event sources.
+         *
+         * If enabled, the channel position of every event source is written to a file in 'directory' every
+         * 'interval'. When the service is restarted, event sources are continuing at the checkpoint instead of
+         * replaying the snapshot, if the checkpoint is not older than 'max-age'. Checkpoints must only be enabled
+         * if the event-sourced state is persisted, too.
+         */
+        public class Checkpoint {
+            private boolean enabled = false;
+            private String directory;
+            private Duration interval = Duration.ofSeconds(10);
+            private Duration maxAge = Duration.ofHours(24);
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public String getDirectory() {
+                return directory;
+            }
+
+            public void setDirectory(String directory) {
+                this.directory = directory;
+            }
+
+            public Duration getInterval() {
+                return interval;
+            }
+
+            public void setInterval(Duration interval) {
+                this.interval = interval;
+            }
+
+            public Duration getMaxAge() {
+                return maxAge;
+            }
+
+            public void setMaxAge(Duration maxAge) {
+                this.maxAge = maxAge;
+            }
+        }
+    }
+
+    public static class Metrics {
+
+        private final Latency latency = new Latency();
+
+        public Latency getLatency() {
+            return latency;
+        }
+
+        /**
+         * Configures Micrometer timers measuring the latency of every message interceptor and message consumer.
+         *
+         * The timers are tagged by channel, endpoint type and bean name. Using a sampling-interval n greater than
+         * one, only every n-th message is timed.
+         */
+        public class Latency {
+            private boolean enabled = false;
+            private int samplingInterval = 1;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public int getSamplingInterval() {
+                return samplingInterval;
+            }
+
+            public void setSamplingInterval(int samplingInterval) {
+                this.samplingInterval = samplingInterval;
+            }
+        }
+    }
+
     public static class ConsumerProcess {
         private boolean enabled = true;
 
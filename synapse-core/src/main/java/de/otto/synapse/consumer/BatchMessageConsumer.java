@@ -0,0 +1,78 @@
+package de.otto.synapse.consumer;
+
+import de.otto.synapse.channel.ShardPosition;
+import de.otto.synapse.message.Message;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.regex.Pattern;
+
+import static java.util.regex.Pattern.compile;
+
+/**
+ * A consumer endpoint for batches of {@link Message messages} with payload-type &lt;T&gt;.
+ * <p>
+ *     In contrast to a {@link MessageConsumer}, a BatchMessageConsumer is called once for all messages of a
+ *     {@link de.otto.synapse.channel.ShardResponse} that are matching the {@link #keyPattern() key pattern}
+ *     of the consumer. Consumers that are writing to external stores are able to use bulk operations
+ *     instead of writing every single message, which is especially useful while catching up with a
+ *     message log.
+ * </p>
+ * <p>
+ *     All messages of a batch are coming from the same shard. Together with the messages, the consumer is
+ *     receiving the {@link ShardPosition position} of the shard after the last message of the batch.
+ * </p>
+ * <p>
+ *     BatchMessageConsumers are expected to be thread-safe.
+ * </p>
+ *
+ * @param <T> the type of the messages's payload
+ */
+@ThreadSafe
+public interface BatchMessageConsumer<T> extends BiConsumer<ShardPosition, List<Message<T>>> {
+
+    static <T> BatchMessageConsumer<T> of(final String keyPattern,
+                                          final Class<T> payloadType,
+                                          final BiConsumer<ShardPosition, List<Message<T>>> consumer) {
+        return new BatchMessageConsumer<T>() {
+
+            private Pattern pattern = compile(keyPattern);
+
+            @Override
+            @Nonnull
+            public Class<T> payloadType() {
+                return payloadType;
+            }
+
+            @Override
+            @Nonnull
+            public Pattern keyPattern() {
+                return pattern;
+            }
+
+            @Override
+            public void accept(final ShardPosition shardPosition, final List<Message<T>> messages) {
+                consumer.accept(shardPosition, messages);
+            }
+        };
+    }
+
+    /**
+     * Returns the expected payload type of {@link Message messages} consumed by this BatchMessageConsumer.
+     *
+     * @return payload type
+     */
+    @Nonnull
+    Class<T> payloadType();
+
+    /**
+     * Returns the pattern of {@link de.otto.synapse.message.Message#getKey() message keys} accepted by this consumer.
+     *
+     * @return Pattern
+     */
+    @Nonnull
+    Pattern keyPattern();
+
+}
@@ -0,0 +1,241 @@
+package de.otto.synapse.consumer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Routing table used by the {@link MessageDispatcher} to find the consumers whose
+ * {@link MessageConsumer#keyPattern() key pattern} is matching the compaction key of a message.
+ * <p>
+ *     The table is built once for a list of key patterns. Patterns are classified as follows:
+ * </p>
+ * <ul>
+ *     <li>{@code .*} matches all keys and is short-circuited,</li>
+ *     <li>literal prefixes like {@code product\.} followed by {@code .*} are added to a prefix trie,</li>
+ *     <li>plain literals are added to the same trie as exact matches,</li>
+ *     <li>literals may contain escaped meta characters like {@code \.}, which are unescaped before they are
+ *     added to the trie,</li>
+ *     <li>all other patterns are evaluated using {@link Pattern#matcher(CharSequence)}.</li>
+ * </ul>
+ * <p>
+ *     The cost of routing a message therefore depends on the length of the key and on the number of
+ *     complex patterns, but not on the number of match-all or literal patterns.
+ * </p>
+ */
+@Immutable
+final class KeyPatternRouter {
+
+    private static final int[] NONE = new int[0];
+    private static final String MATCH_ALL = ".*";
+    private static final String META_CHARS = "\\^$.|?*+()[]{}";
+
+    private final Pattern[] keyPatterns;
+    private final Node root;
+    private final int[] complexRoutes;
+    private final boolean hasWildcardRoutes;
+    private final int[] allRoutes;
+
+    private KeyPatternRouter(final List<Pattern> keyPatterns) {
+        this.keyPatterns = keyPatterns.toArray(new Pattern[0]);
+        this.root = new Node();
+        final List<Integer> complex = new ArrayList<>();
+        boolean wildcard = false;
+        for (int i = 0; i < this.keyPatterns.length; ++i) {
+            final Pattern keyPattern = this.keyPatterns[i];
+            final String regex = keyPattern.pattern();
+            final String prefix = regex.endsWith(MATCH_ALL)
+                    ? literalOf(regex.substring(0, regex.length() - MATCH_ALL.length()))
+                    : null;
+            final String literal = prefix == null ? literalOf(regex) : null;
+            if (keyPattern.flags() != 0) {
+                complex.add(i);
+            } else if (prefix != null) {
+                final Node node = root.insert(prefix);
+                node.prefixRoutes = append(node.prefixRoutes, i);
+                wildcard = true;
+            } else if (literal != null) {
+                final Node node = root.insert(literal);
+                node.exactRoutes = append(node.exactRoutes, i);
+            } else {
+                complex.add(i);
+            }
+        }
+        this.complexRoutes = complex.stream().mapToInt(Integer::intValue).toArray();
+        this.hasWildcardRoutes = wildcard;
+        this.allRoutes = complexRoutes.length == 0 && root.isLeaf() && root.exactRoutes.length == 0
+                ? root.prefixRoutes
+                : null;
+    }
+
+    /**
+     * Creates a routing table for the given key patterns. The routes returned by {@link #route(String)} are
+     * the indexes of the matching patterns in this list.
+     *
+     * @param keyPatterns the key patterns of the registered consumers
+     * @return KeyPatternRouter
+     */
+    static KeyPatternRouter of(final List<Pattern> keyPatterns) {
+        return new KeyPatternRouter(keyPatterns);
+    }
+
+    /**
+     * Returns the indexes of all key patterns that are matching the given key, in ascending order.
+     * <p>
+     *     The returned array must not be modified by the caller.
+     * </p>
+     *
+     * @param key the compaction key of a message
+     * @return indexes of the matching key patterns
+     */
+    @Nonnull
+    int[] route(final String key) {
+        if (hasWildcardRoutes && containsLineTerminator(key)) {
+            // '.' is not matching line terminators, so the trie can not be used for such keys:
+            return routeByRegex(key);
+        }
+        if (allRoutes != null) {
+            return allRoutes;
+        }
+        final int[] matches = new int[keyPatterns.length];
+        int count = 0;
+        boolean sorted = true;
+
+        Node node = root;
+        int pos = 0;
+        while (node != null) {
+            for (final int route : node.prefixRoutes) {
+                sorted &= count == 0 || matches[count - 1] < route;
+                matches[count++] = route;
+            }
+            if (pos == key.length()) {
+                for (final int route : node.exactRoutes) {
+                    sorted &= count == 0 || matches[count - 1] < route;
+                    matches[count++] = route;
+                }
+                break;
+            }
+            node = node.child(key.charAt(pos++));
+        }
+        for (final int route : complexRoutes) {
+            if (keyPatterns[route].matcher(key).matches()) {
+                sorted &= count == 0 || matches[count - 1] < route;
+                matches[count++] = route;
+            }
+        }
+        if (!sorted) {
+            Arrays.sort(matches, 0, count);
+        }
+        return count == matches.length ? matches : Arrays.copyOf(matches, count);
+    }
+
+    private int[] routeByRegex(final String key) {
+        final int[] matches = new int[keyPatterns.length];
+        int count = 0;
+        for (int i = 0; i < keyPatterns.length; ++i) {
+            if (keyPatterns[i].matcher(key).matches()) {
+                matches[count++] = i;
+            }
+        }
+        return Arrays.copyOf(matches, count);
+    }
+
+    /**
+     * @return the number of key patterns that are evaluated using regular expressions
+     */
+    int getComplexRouteCount() {
+        return complexRoutes.length;
+    }
+
+    /**
+     * Returns the literal matched by a regex, if the regex only consists of plain characters and escaped
+     * meta characters like {@code \.}.
+     *
+     * @param regex the regular expression
+     * @return the unescaped literal, or null if the regex is not a literal
+     */
+    private static String literalOf(final String regex) {
+        final StringBuilder literal = new StringBuilder(regex.length());
+        for (int i = 0; i < regex.length(); ++i) {
+            final char c = regex.charAt(i);
+            if (c == '\\') {
+                if (i + 1 == regex.length() || META_CHARS.indexOf(regex.charAt(i + 1)) < 0) {
+                    // character classes like \d, quotes like \Q, or a trailing backslash:
+                    return null;
+                }
+                literal.append(regex.charAt(++i));
+            } else if (META_CHARS.indexOf(c) >= 0) {
+                return null;
+            } else {
+                literal.append(c);
+            }
+        }
+        return literal.toString();
+    }
+
+    private static boolean containsLineTerminator(final String key) {
+        for (int i = 0; i < key.length(); ++i) {
+            final char c = key.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int[] append(final int[] routes, final int route) {
+        final int[] result = Arrays.copyOf(routes, routes.length + 1);
+        result[routes.length] = route;
+        return result;
+    }
+
+    /**
+     * A node of the prefix trie. Nodes are only modified while the router is built.
+     */
+    private static final class Node {
+        private char[] labels = new char[0];
+        private Node[] children = new Node[0];
+        private int[] prefixRoutes = NONE;
+        private int[] exactRoutes = NONE;
+
+        private Node insert(final String literal) {
+            Node node = this;
+            for (int i = 0; i < literal.length(); ++i) {
+                final char c = literal.charAt(i);
+                Node child = node.child(c);
+                if (child == null) {
+                    child = node.addChild(c);
+                }
+                node = child;
+            }
+            return node;
+        }
+
+        private Node child(final char c) {
+            final int pos = Arrays.binarySearch(labels, c);
+            return pos >= 0 ? children[pos] : null;
+        }
+
+        private Node addChild(final char c) {
+            final int pos = -(Arrays.binarySearch(labels, c) + 1);
+            final char[] newLabels = new char[labels.length + 1];
+            final Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, pos);
+            System.arraycopy(children, 0, newChildren, 0, pos);
+            newLabels[pos] = c;
+            newChildren[pos] = new Node();
+            System.arraycopy(labels, pos, newLabels, pos + 1, labels.length - pos);
+            System.arraycopy(children, pos, newChildren, pos + 1, children.length - pos);
+            labels = newLabels;
+            children = newChildren;
+            return newChildren[pos];
+        }
+
+        private boolean isLeaf() {
+            return children.length == 0;
+        }
+    }
+}
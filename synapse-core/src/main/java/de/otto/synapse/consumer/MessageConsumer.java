@@ -82,4 +82,19 @@ public interface MessageConsumer<T> extends Consumer<Message<T>> {
     @Nonnull
     Pattern keyPattern();
 
+    /**
+     * Returns true, if the consumer is accepting messages with lazily decoded payloads.
+     * <p>
+     *     In this case, the {@link MessageDispatcher} is calling the consumer with a
+     *     {@link de.otto.synapse.message.LazyMessage} that is deserializing the payload on the first call of
+     *     {@link Message#getPayload()}. Consumers that are only looking at the key or header of most messages
+     *     are able to avoid the costs of deserializing payloads they are not interested in.
+     * </p>
+     *
+     * @return true if the payload is decoded lazily, false otherwise. The default is false.
+     */
+    default boolean lazyPayload() {
+        return false;
+    }
+
 }
@@ -1,18 +1,32 @@
 package de.otto.synapse.consumer;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import de.otto.synapse.channel.ShardPosition;
+import de.otto.synapse.message.BinaryMessage;
 import de.otto.synapse.message.Message;
 import de.otto.synapse.message.TextMessage;
+import de.otto.synapse.metrics.LatencyTimer;
 import org.slf4j.Logger;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.regex.Pattern;
 
+import static de.otto.synapse.message.LazyMessage.lazyMessage;
 import static de.otto.synapse.message.Message.message;
 import static de.otto.synapse.translator.ObjectMappers.currentObjectMapper;
-import static java.util.Collections.synchronizedList;
+import static java.util.Collections.nCopies;
 import static java.util.Collections.unmodifiableList;
 import static java.util.regex.Pattern.compile;
 import static org.slf4j.LoggerFactory.getLogger;
@@ -28,6 +42,30 @@ import static org.slf4j.LoggerFactory.getLogger;
  * </p>
  * <p>
  *     Messages are translated by the dispatcher using to the format expected by the registered consumers.
+ *     Consumers are grouped by their {@link MessageConsumer#payloadType() payload type} when they are
+ *     registered, so the payload of a message is deserialized at most once per payload type, and the
+ *     resulting {@link Message} is shared by all consumers of the same group.
+ * </p>
+ * <p>
+ *     The consumers of a message are selected using a {@link KeyPatternRouter routing table} that is built when
+ *     consumers are registered, so the cost of matching the {@link MessageConsumer#keyPattern() key patterns}
+ *     does not grow with the number of consumers accepting all keys or keys with a literal prefix.
+ * </p>
+ * <p>
+ *     Consumers {@link MessageConsumer#lazyPayload() accepting lazy payloads} are called with a
+ *     {@link de.otto.synapse.message.LazyMessage} that is only deserializing the payload if the consumer is
+ *     calling {@link Message#getPayload()}. If the payload was already deserialized for another consumer of the
+ *     same payload type, the decoded message is shared instead.
+ * </p>
+ * <p>
+ *     {@link BatchMessageConsumer Batch consumers} are registered separately. They are not called by
+ *     {@link #accept(TextMessage)}, but by {@link #acceptBatch(ShardPosition, List)} for all messages of a
+ *     shard response.
+ * </p>
+ * <p>
+ *     If the dispatcher is created with a function providing {@link LatencyTimer timers}, every registered consumer
+ *     gets its own timer that is measuring the latency of the consumer, excluding the time needed to decode
+ *     the payload of the message.
  * </p>
  * @see  <a href="http://www.enterpriseintegrationpatterns.com/patterns/messaging/MessageDispatcher.html">EIP: Message Dispatcher</a>
  * @see <a href="https://en.wikipedia.org/wiki/Composite_pattern">Composite Pattern</a>
@@ -37,24 +75,104 @@ public class MessageDispatcher implements Consumer<TextMessage> {
     private static final Logger LOG = getLogger(MessageDispatcher.class);
     private static final Pattern ACCEPT_ALL = compile(".*");
 
-    private final List<MessageConsumer<?>> messageConsumers;
+    private final Map<Class<?>, PayloadDecoder> payloadDecoders;
+    private final Function<Object, LatencyTimer> consumerTimers;
+    private volatile Routing routing;
+    private volatile BatchRouting batchRouting;
 
     public MessageDispatcher() {
-        this.messageConsumers = synchronizedList(new ArrayList<>());
+        this((Function<Object, LatencyTimer>) null);
+    }
+
+    /**
+     * Creates a MessageDispatcher that is timing the registered consumers.
+     *
+     * @param consumerTimers function returning the {@link LatencyTimer} of a {@link MessageConsumer} or
+     *                       {@link BatchMessageConsumer} when the consumer is registered, or null if consumers
+     *                       should not be timed.
+     */
+    public MessageDispatcher(final @Nullable Function<Object, LatencyTimer> consumerTimers) {
+        this.consumerTimers = consumerTimers;
+        this.payloadDecoders = new LinkedHashMap<>();
+        this.routing = new Routing(new Registration[0], 0);
+        this.batchRouting = new BatchRouting(new BatchRegistration[0], 0);
     }
 
     public MessageDispatcher(final List<MessageConsumer<?>> messageConsumers) {
-        this.messageConsumers = synchronizedList(new ArrayList<>(messageConsumers));
+        this();
+        messageConsumers.forEach(this::add);
+    }
+
+    /**
+     * Registers a {@link MessageConsumer}.
+     * <p>
+     *     The routing table of the dispatcher is rebuilt and replaced on every registration, so messages that are
+     *     concurrently dispatched will not block and will either see the previous or the new set of consumers.
+     * </p>
+     *
+     * @param messageConsumer the registered consumer
+     */
+    public synchronized void add(final MessageConsumer<?> messageConsumer) {
+        final PayloadDecoder payloadDecoder = payloadDecoderFor(messageConsumer.payloadType());
+        final Registration[] current = routing.registrations;
+        final Registration[] registrations = Arrays.copyOf(current, current.length + 1);
+        registrations[current.length] = new Registration(messageConsumer, messageConsumer.keyPattern(), payloadDecoder, messageConsumer.lazyPayload(), timerFor(messageConsumer));
+        this.routing = new Routing(registrations, payloadDecoders.size());
+    }
+
+    /**
+     * Registers a {@link BatchMessageConsumer}.
+     * <p>
+     *     Just like {@link #add(MessageConsumer)}, the routing table of the batch consumers is replaced on every
+     *     registration.
+     * </p>
+     *
+     * @param batchMessageConsumer the registered batch consumer
+     */
+    public synchronized void add(final BatchMessageConsumer<?> batchMessageConsumer) {
+        final PayloadDecoder payloadDecoder = payloadDecoderFor(batchMessageConsumer.payloadType());
+        final BatchRegistration[] current = batchRouting.registrations;
+        final BatchRegistration[] registrations = Arrays.copyOf(current, current.length + 1);
+        registrations[current.length] = new BatchRegistration(batchMessageConsumer, batchMessageConsumer.keyPattern(), payloadDecoder, timerFor(batchMessageConsumer));
+        this.batchRouting = new BatchRouting(registrations, payloadDecoders.size());
+    }
+
+    private LatencyTimer timerFor(final Object consumer) {
+        return consumerTimers != null ? consumerTimers.apply(consumer) : null;
     }
 
-    public void add(final MessageConsumer<?> messageConsumer) {
-        this.messageConsumers.add(messageConsumer);
+    private PayloadDecoder payloadDecoderFor(final Class<?> payloadType) {
+        return payloadDecoders.computeIfAbsent(
+                payloadType,
+                type -> new PayloadDecoder(type, payloadDecoders.size()));
     }
 
     public List<MessageConsumer<?>> getAll() {
+        final List<MessageConsumer<?>> messageConsumers = new ArrayList<>();
+        for (final Registration registration : routing.registrations) {
+            messageConsumers.add(registration.messageConsumer);
+        }
         return unmodifiableList(messageConsumers);
     }
 
+    public List<BatchMessageConsumer<?>> getAllBatchMessageConsumers() {
+        final List<BatchMessageConsumer<?>> batchMessageConsumers = new ArrayList<>();
+        for (final BatchRegistration registration : batchRouting.registrations) {
+            batchMessageConsumers.add(registration.batchMessageConsumer);
+        }
+        return unmodifiableList(batchMessageConsumers);
+    }
+
+    /**
+     * Returns true, if at least one {@link BatchMessageConsumer} is registered. Receivers may use this to avoid
+     * collecting batches of messages, if nobody is interested in them.
+     *
+     * @return boolean
+     */
+    public boolean hasBatchMessageConsumers() {
+        return batchRouting.registrations.length > 0;
+    }
+
     /**
      * Returns the expected payload type of {@link Message events} consumed by this EventConsumer.
      *
@@ -87,32 +205,302 @@ public class MessageDispatcher implements Consumer<TextMessage> {
     @SuppressWarnings({"unchecked", "raw"})
     public void accept(final TextMessage message) {
         LOG.debug("Accepting message={}", message);
-        messageConsumers
-                .stream()
-                .filter(consumer -> matchesKeyPattern(message, consumer.keyPattern()))
-                .forEach((MessageConsumer consumer) -> {
+        final Routing routing = this.routing;
+        final int[] routes = routing.keyPatternRouter.route(message.getKey().compactionKey());
+        final Message<?>[] decodedMessages = new Message<?>[routing.payloadTypeCount];
+        final Message<?>[] lazyMessages = routing.hasLazyRegistrations ? new Message<?>[routing.payloadTypeCount] : null;
+        for (final int route : routes) {
+            final Registration registration = routing.registrations[route];
+            try {
+                final Message<?> decodedMessage = registration.lazyPayload
+                        ? lazyMessageOf(message, registration.payloadDecoder, decodedMessages, lazyMessages)
+                        : decodedMessageOf(message, registration.payloadDecoder, decodedMessages, lazyMessages);
+                final LatencyTimer timer = registration.timer;
+                if (timer == null) {
+                    ((MessageConsumer) registration.messageConsumer).accept(decodedMessage);
+                } else {
+                    final long start = timer.start();
+                    try {
+                        ((MessageConsumer) registration.messageConsumer).accept(decodedMessage);
+                    } finally {
+                        timer.stop(start);
+                    }
+                }
+            } catch (final Exception e) {
+                LOG.error(e.getMessage(), e);
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+        }
+    }
+
+    private static Message<?> decodedMessageOf(final TextMessage message,
+                                               final PayloadDecoder payloadDecoder,
+                                               final Message<?>[] decodedMessages,
+                                               final Message<?>[] lazyMessages) throws IOException {
+        Message<?> decodedMessage = decodedMessages[payloadDecoder.index];
+        if (decodedMessage == null) {
+            final Message<?> lazyMessage = lazyMessages != null ? lazyMessages[payloadDecoder.index] : null;
+            if (lazyMessage != null) {
+                // decodes and memoizes the payload of the lazy message:
+                lazyMessage.getPayload();
+                decodedMessage = lazyMessage;
+            } else {
+                decodedMessage = payloadDecoder.decode(message);
+            }
+            decodedMessages[payloadDecoder.index] = decodedMessage;
+        }
+        return decodedMessage;
+    }
+
+    private static Message<?> lazyMessageOf(final TextMessage message,
+                                            final PayloadDecoder payloadDecoder,
+                                            final Message<?>[] decodedMessages,
+                                            final Message<?>[] lazyMessages) {
+        Message<?> lazyMessage = decodedMessages[payloadDecoder.index];
+        if (lazyMessage == null) {
+            lazyMessage = lazyMessages[payloadDecoder.index];
+            if (lazyMessage == null) {
+                lazyMessage = payloadDecoder.decodeLazily(message);
+                lazyMessages[payloadDecoder.index] = lazyMessage;
+            }
+        }
+        return lazyMessage;
+    }
+
+    /**
+     * Accepts the messages of a shard response, and dispatches them to the registered
+     * {@link BatchMessageConsumer batch consumers}.
+     * <p>
+     *     Every batch consumer is called once with the messages matching its
+     *     {@link BatchMessageConsumer#keyPattern() key pattern}, in the order of the given list. Consumers without
+     *     matching messages are not called. The payloads of the messages are deserialized at most once per
+     *     payload type.
+     * </p>
+     *
+     * @param shardPosition the position of the shard after the last message of the batch
+     * @param messages the messages of the shard response, after interception. The list must not contain
+     *                 {@code null} elements.
+     */
+    public void acceptBatch(final ShardPosition shardPosition,
+                            final List<TextMessage> messages) {
+        final BatchRouting batchRouting = this.batchRouting;
+        if (batchRouting.registrations.length == 0 || messages.isEmpty()) {
+            return;
+        }
+        LOG.debug("Accepting batch of {} messages at shardPosition={}", messages.size(), shardPosition);
+        final List<List<Message<?>>> batches = new ArrayList<>(nCopies(batchRouting.registrations.length, null));
+        final Message<?>[] decodedMessages = new Message<?>[batchRouting.payloadTypeCount];
+        for (final TextMessage message : messages) {
+            final int[] routes = batchRouting.keyPatternRouter.route(message.getKey().compactionKey());
+            if (routes.length == 0) {
+                continue;
+            }
+            Arrays.fill(decodedMessages, null);
+            for (final int route : routes) {
+                final PayloadDecoder payloadDecoder = batchRouting.registrations[route].payloadDecoder;
+                Message<?> decodedMessage = decodedMessages[payloadDecoder.index];
+                if (decodedMessage == null) {
                     try {
-                        final Class<?> payloadType = consumer.payloadType();
-                        if (payloadType.equals(String.class)) {
-                            consumer.accept(message);
-                        } else {
-                            Object payload = null;
-                            if (message.getPayload() != null) {
-                                payload = currentObjectMapper().readValue(message.getPayload(), payloadType);
-                            }
-                            final Message<?> tMessage = message(message.getKey(), message.getHeader(), payload);
-                            consumer.accept(tMessage);
-                        }
+                        decodedMessage = payloadDecoder.decode(message);
                     } catch (final Exception e) {
                         LOG.error(e.getMessage(), e);
                         throw new IllegalStateException(e.getMessage(), e);
                     }
-                });
+                    decodedMessages[payloadDecoder.index] = decodedMessage;
+                }
+                List<Message<?>> batch = batches.get(route);
+                if (batch == null) {
+                    batch = new ArrayList<>(messages.size());
+                    batches.set(route, batch);
+                }
+                batch.add(decodedMessage);
+            }
+        }
+        for (int i = 0; i < batches.size(); ++i) {
+            final List<Message<?>> batch = batches.get(i);
+            if (batch != null) {
+                final BatchRegistration registration = batchRouting.registrations[i];
+                final long start = registration.timer != null ? registration.timer.start() : 0L;
+                try {
+                    acceptBatch(registration.batchMessageConsumer, shardPosition, batch);
+                } catch (final Exception e) {
+                    LOG.error(e.getMessage(), e);
+                    throw new IllegalStateException(e.getMessage(), e);
+                } finally {
+                    if (registration.timer != null) {
+                        registration.timer.stop(start);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Calls the batch consumer with the decoded messages of the batch. The messages were decoded using the
+     * {@link PayloadDecoder} of the consumer's payload type, so the unchecked cast is safe.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> void acceptBatch(final BatchMessageConsumer<T> batchMessageConsumer,
+                                        final ShardPosition shardPosition,
+                                        final List<Message<?>> batch) {
+        batchMessageConsumer.accept(shardPosition, unmodifiableList((List<Message<T>>) (List<?>) batch));
+    }
+
+    /**
+     * Immutable snapshot of the registered consumers, together with the {@link KeyPatternRouter} used to select
+     * the consumers of a message.
+     */
+    private static final class Routing {
+        private final Registration[] registrations;
+        private final KeyPatternRouter keyPatternRouter;
+        private final int payloadTypeCount;
+        private final boolean hasLazyRegistrations;
+
+        private Routing(final Registration[] registrations, final int payloadTypeCount) {
+            this.registrations = registrations;
+            this.payloadTypeCount = payloadTypeCount;
+            final List<Pattern> keyPatterns = new ArrayList<>(registrations.length);
+            boolean lazy = false;
+            for (final Registration registration : registrations) {
+                keyPatterns.add(registration.keyPattern);
+                lazy |= registration.lazyPayload;
+            }
+            this.keyPatternRouter = KeyPatternRouter.of(keyPatterns);
+            this.hasLazyRegistrations = lazy;
+        }
+    }
+
+    /**
+     * A registered {@link MessageConsumer}, together with the key pattern, the {@link PayloadDecoder} of the
+     * payload-type group the consumer belongs to, whether or not the consumer accepts lazy payloads, and the
+     * optional {@link LatencyTimer} of the consumer.
+     */
+    private static final class Registration {
+        private final MessageConsumer<?> messageConsumer;
+        private final Pattern keyPattern;
+        private final PayloadDecoder payloadDecoder;
+        private final boolean lazyPayload;
+        private final LatencyTimer timer;
+
+        private Registration(final MessageConsumer<?> messageConsumer,
+                             final Pattern keyPattern,
+                             final PayloadDecoder payloadDecoder,
+                             final boolean lazyPayload,
+                             final LatencyTimer timer) {
+            this.messageConsumer = messageConsumer;
+            this.keyPattern = keyPattern;
+            this.payloadDecoder = payloadDecoder;
+            this.lazyPayload = lazyPayload;
+            this.timer = timer;
+        }
+    }
+
+    /**
+     * Immutable snapshot of the registered {@link BatchMessageConsumer batch consumers}, together with the
+     * {@link KeyPatternRouter} used to select the consumers of a message.
+     */
+    private static final class BatchRouting {
+        private final BatchRegistration[] registrations;
+        private final KeyPatternRouter keyPatternRouter;
+        private final int payloadTypeCount;
+
+        private BatchRouting(final BatchRegistration[] registrations, final int payloadTypeCount) {
+            this.registrations = registrations;
+            this.payloadTypeCount = payloadTypeCount;
+            final List<Pattern> keyPatterns = new ArrayList<>(registrations.length);
+            for (final BatchRegistration registration : registrations) {
+                keyPatterns.add(registration.keyPattern);
+            }
+            this.keyPatternRouter = KeyPatternRouter.of(keyPatterns);
+        }
     }
 
-    private boolean matchesKeyPattern(final TextMessage message,
-                                      final Pattern keyPattern) {
-        return keyPattern.matcher(message.getKey().compactionKey()).matches();
+    private static final class BatchRegistration {
+        private final BatchMessageConsumer<?> batchMessageConsumer;
+        private final Pattern keyPattern;
+        private final PayloadDecoder payloadDecoder;
+        private final LatencyTimer timer;
+
+        private BatchRegistration(final BatchMessageConsumer<?> batchMessageConsumer,
+                                  final Pattern keyPattern,
+                                  final PayloadDecoder payloadDecoder,
+                                  final LatencyTimer timer) {
+            this.batchMessageConsumer = batchMessageConsumer;
+            this.keyPattern = keyPattern;
+            this.payloadDecoder = payloadDecoder;
+            this.timer = timer;
+        }
+    }
+
+    /**
+     * Translates {@link TextMessage text messages} into messages of a single payload type, using an
+     * {@link ObjectReader} that is cached as long as the {@link de.otto.synapse.translator.ObjectMappers#currentObjectMapper()
+     * current ObjectMapper} is not changed.
+     */
+    private static final class PayloadDecoder {
+        private final Class<?> payloadType;
+        private final int index;
+        private volatile CachedReader cachedReader;
+
+        private PayloadDecoder(final Class<?> payloadType, final int index) {
+            this.payloadType = payloadType;
+            this.index = index;
+        }
+
+        private Message<?> decode(final TextMessage message) throws IOException {
+            if (payloadType.equals(String.class)) {
+                return message;
+            }
+            return message(message.getKey(), message.getHeader(), decodePayload(message, objectReader()));
+        }
+
+        private Message<?> decodeLazily(final TextMessage message) {
+            if (payloadType.equals(String.class)) {
+                return message;
+            }
+            final ObjectReader objectReader = objectReader();
+            return lazyMessage(message.getKey(), message.getHeader(), message::getPayload, () -> {
+                try {
+                    return decodePayload(message, objectReader);
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+
+        private static Object decodePayload(final TextMessage message,
+                                            final ObjectReader objectReader) throws IOException {
+            if (message instanceof BinaryMessage && !((BinaryMessage) message).isMaterialized()
+                    && ((BinaryMessage) message).getPayloadBytes().hasArray()) {
+                // Parse UTF-8 encoded payloads directly, without converting them into a String first:
+                final ByteBuffer bytes = ((BinaryMessage) message).getPayloadBytes();
+                return objectReader.readValue(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+            } else if (message.getPayload() != null) {
+                return objectReader.readValue(message.getPayload());
+            } else {
+                return null;
+            }
+        }
+
+        private ObjectReader objectReader() {
+            final ObjectMapper objectMapper = currentObjectMapper();
+            CachedReader reader = cachedReader;
+            if (reader == null || reader.objectMapper != objectMapper) {
+                reader = new CachedReader(objectMapper, objectMapper.readerFor(payloadType));
+                cachedReader = reader;
+            }
+            return reader.objectReader;
+        }
+    }
+
+    private static final class CachedReader {
+        private final ObjectMapper objectMapper;
+        private final ObjectReader objectReader;
+
+        private CachedReader(final ObjectMapper objectMapper, final ObjectReader objectReader) {
+            this.objectMapper = objectMapper;
+            this.objectReader = objectReader;
+        }
     }
 
 }
@@ -0,0 +1,31 @@
+package de.otto.synapse.consumer;
+
+import de.otto.synapse.message.Message;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Invokes a single-argument method of some object instance with a {@link Message}.
+ * <p>
+ *     Instances are created using {@link MessageMethodInvokers#invokerFor(Object, java.lang.reflect.Method)},
+ *     typically once on startup, when annotated consumers or interceptors are registered.
+ * </p>
+ */
+@ThreadSafe
+@FunctionalInterface
+public interface MessageMethodInvoker {
+
+    /**
+     * Calls the method using the given message as the single argument.
+     * <p>
+     *     Exceptions thrown by the method are passed through unchanged, including checked exceptions.
+     * </p>
+     *
+     * @param message the message
+     * @return the return value of the method, or {@code null} if the method is {@code void}
+     */
+    @Nullable
+    Object invoke(Message<?> message);
+
+}
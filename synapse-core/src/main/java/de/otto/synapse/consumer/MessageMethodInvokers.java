@@ -0,0 +1,166 @@
+package de.otto.synapse.consumer;
+
+import de.otto.synapse.message.Message;
+import org.slf4j.Logger;
+import org.springframework.util.ClassUtils;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import static java.lang.invoke.MethodType.methodType;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Utility class used to create {@link MessageMethodInvoker} instances.
+ * <p>
+ *     If possible, the invoker is a class implementing the functional interface that is generated by the
+ *     {@link LambdaMetafactory}, so the JIT is able to inline the call just like a call of a lambda expression.
+ *     Methods that are not accessible to the generated class (non-public methods or classes, or classes loaded
+ *     by a different class loader) are called using a {@link MethodHandle} that is created once. Only if both
+ *     approaches fail, the method is called using {@link Method#invoke(Object, Object...)}.
+ * </p>
+ */
+public final class MessageMethodInvokers {
+
+    private static final Logger LOG = getLogger(MessageMethodInvokers.class);
+
+    private static final MethodType VOID_SAM_TYPE = methodType(void.class, Message.class);
+    private static final MethodType OBJECT_SAM_TYPE = methodType(Object.class, Message.class);
+
+    private MessageMethodInvokers() {
+    }
+
+    /**
+     * Functional interface implemented by the generated invokers of void methods.
+     */
+    @FunctionalInterface
+    private interface VoidMethodInvoker {
+        void invoke(Message<?> message);
+    }
+
+    /**
+     * Creates a {@link MessageMethodInvoker} that is calling the given method of some instance.
+     *
+     * @param instance the object instance
+     * @param method a method with a single parameter of type {@link Message} (or a sub-class of Message)
+     * @return MessageMethodInvoker
+     */
+    public static MessageMethodInvoker invokerFor(final Object instance, final Method method) {
+        if (isAccessibleForLambdaMetafactory(method)) {
+            try {
+                return lambdaInvokerFor(instance, method);
+            } catch (final Throwable e) {
+                LOG.debug("Unable to create lambda for method {}, falling back to MethodHandle: {}", method, e.getMessage());
+            }
+        }
+        try {
+            return methodHandleInvokerFor(instance, method);
+        } catch (final Exception e) {
+            LOG.debug("Unable to create MethodHandle for method {}, falling back to reflection: {}", method, e.getMessage());
+            return reflectiveInvokerFor(instance, method);
+        }
+    }
+
+    /**
+     * Creates a {@link MessageMethodInvoker} that is calling the given method using {@link Method#invoke(Object, Object...)}.
+     *
+     * @param instance the object instance
+     * @param method a method with a single parameter of type {@link Message} (or a sub-class of Message)
+     * @return MessageMethodInvoker
+     */
+    public static MessageMethodInvoker reflectiveInvokerFor(final Object instance, final Method method) {
+        method.setAccessible(true);
+        return message -> {
+            try {
+                return method.invoke(instance, message);
+            } catch (final InvocationTargetException e) {
+                throw sneakyThrow(e.getCause());
+            } catch (final IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    private static MessageMethodInvoker lambdaInvokerFor(final Object instance, final Method method) throws Throwable {
+        final MethodHandles.Lookup lookup = MethodHandles.lookup();
+        final MethodHandle target = lookup.unreflect(method);
+        final Class<?> declaringClass = method.getDeclaringClass();
+        final Class<?> parameterType = method.getParameterTypes()[0];
+        if (method.getReturnType() == void.class) {
+            final CallSite callSite = LambdaMetafactory.metafactory(lookup,
+                    "invoke",
+                    methodType(VoidMethodInvoker.class, declaringClass),
+                    VOID_SAM_TYPE,
+                    target,
+                    methodType(void.class, parameterType));
+            final VoidMethodInvoker invoker = (VoidMethodInvoker) callSite.getTarget().invoke(instance);
+            return message -> {
+                invoker.invoke(message);
+                return null;
+            };
+        } else {
+            final CallSite callSite = LambdaMetafactory.metafactory(lookup,
+                    "invoke",
+                    methodType(MessageMethodInvoker.class, declaringClass),
+                    OBJECT_SAM_TYPE,
+                    target,
+                    methodType(method.getReturnType().isPrimitive() ? Object.class : method.getReturnType(), parameterType));
+            return (MessageMethodInvoker) callSite.getTarget().invoke(instance);
+        }
+    }
+
+    private static MessageMethodInvoker methodHandleInvokerFor(final Object instance, final Method method) throws IllegalAccessException {
+        method.setAccessible(true);
+        MethodHandle handle = MethodHandles.lookup().unreflect(method);
+        if (!Modifier.isStatic(method.getModifiers())) {
+            handle = handle.bindTo(instance);
+        }
+        final MethodHandle target = handle.asType(method.getReturnType() == void.class
+                ? VOID_SAM_TYPE
+                : OBJECT_SAM_TYPE);
+        if (method.getReturnType() == void.class) {
+            return message -> {
+                try {
+                    target.invokeExact(message);
+                    return null;
+                } catch (final Throwable e) {
+                    throw sneakyThrow(e);
+                }
+            };
+        } else {
+            return message -> {
+                try {
+                    return (Object) target.invokeExact(message);
+                } catch (final Throwable e) {
+                    throw sneakyThrow(e);
+                }
+            };
+        }
+    }
+
+    private static boolean isAccessibleForLambdaMetafactory(final Method method) {
+        if (Modifier.isStatic(method.getModifiers()) || !Modifier.isPublic(method.getModifiers())) {
+            return false;
+        }
+        for (Class<?> type = method.getDeclaringClass(); type != null; type = type.getEnclosingClass()) {
+            if (!Modifier.isPublic(type.getModifiers())) {
+                return false;
+            }
+        }
+        final ClassLoader classLoader = MessageMethodInvokers.class.getClassLoader();
+        return ClassUtils.isVisible(method.getDeclaringClass(), classLoader)
+                && ClassUtils.isVisible(method.getParameterTypes()[0], classLoader)
+                && ClassUtils.isVisible(method.getReturnType(), classLoader);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E extends Throwable> RuntimeException sneakyThrow(final Throwable e) throws E {
+        throw (E) e;
+    }
+}
@@ -0,0 +1,132 @@
+package de.otto.synapse.consumer;
+
+import de.otto.synapse.channel.ShardPosition;
+import de.otto.synapse.message.Message;
+import de.otto.synapse.metrics.MessageTimings;
+
+import javax.annotation.Nonnull;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+import static java.lang.invoke.MethodType.methodType;
+import static org.springframework.util.ClassUtils.getUserClass;
+
+/**
+ * A {@link BatchMessageConsumer} that is calling a method of a class instance for every accepted batch of
+ * {@link Message messages}.
+ * <p>
+ *     The method must either have a single parameter of type {@code List<Message<T>>}, or two parameters of
+ *     type {@link ShardPosition} and {@code List<Message<T>>}.
+ * </p>
+ *
+ * @param <T> The expected type of the message's payload
+ */
+public class MethodInvokingBatchMessageConsumer<T> implements BatchMessageConsumer<T>, MessageTimings.Named {
+
+    private final Pattern keyPattern;
+    private final Class<T> payloadType;
+    private final MethodHandle methodHandle;
+    private final String name;
+
+    public MethodInvokingBatchMessageConsumer(final String keyPattern,
+                                              final Class<T> payloadType,
+                                              final Object instance,
+                                              final Method method) {
+        Objects.requireNonNull(keyPattern, "keyPattern must not be null");
+        Objects.requireNonNull(payloadType, "payloadType must not be null");
+        Objects.requireNonNull(instance, "Unable to build MethodInvokingBatchMessageConsumer: instance parameter is null");
+        Objects.requireNonNull(method, "Unable to build MethodInvokingBatchMessageConsumer: method parameter is null");
+
+        if (!isBatchConsumerMethod(method)) {
+            throw new IllegalArgumentException("Unable to build MethodInvokingBatchMessageConsumer: expected parameter types are (List) or (ShardPosition, List), not " + method);
+        }
+
+        this.keyPattern = Pattern.compile(keyPattern);
+        this.payloadType = payloadType;
+        this.methodHandle = methodHandleFor(instance, method);
+        this.name = getUserClass(instance).getSimpleName() + "#" + method.getName();
+    }
+
+    /**
+     * Returns true, if the given method is consuming batches of messages: the method has either a single parameter
+     * of type {@link List}, or two parameters of type {@link ShardPosition} and {@code List}.
+     *
+     * @param method the method
+     * @return true if the method is a batch consumer method, false otherwise
+     */
+    public static boolean isBatchConsumerMethod(final Method method) {
+        final Class<?>[] parameterTypes = method.getParameterTypes();
+        switch (parameterTypes.length) {
+            case 1:
+                return parameterTypes[0].equals(List.class);
+            case 2:
+                return parameterTypes[0].equals(ShardPosition.class) && parameterTypes[1].equals(List.class);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Returns the expected payload type of {@link Message messages} consumed by this BatchMessageConsumer.
+     *
+     * @return payload type
+     */
+    @Nonnull
+    @Override
+    public Class<T> payloadType() {
+        return payloadType;
+    }
+
+    /**
+     * Returns the pattern of {@link Message#getKey() message keys} accepted by this consumer.
+     *
+     * @return Pattern
+     */
+    @Nonnull
+    @Override
+    public Pattern keyPattern() {
+        return keyPattern;
+    }
+
+    /**
+     * Returns the name of the consumer, consisting of the simple class name of the instance and the method name,
+     * separated by '#'.
+     *
+     * @return name
+     */
+    @Nonnull
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void accept(final ShardPosition shardPosition, final List<Message<T>> messages) {
+        try {
+            methodHandle.invokeExact(shardPosition, messages);
+        } catch (final Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static MethodHandle methodHandleFor(final Object instance, final Method method) {
+        try {
+            method.setAccessible(true);
+            MethodHandle handle = MethodHandles.lookup().unreflect(method);
+            if (!Modifier.isStatic(method.getModifiers())) {
+                handle = handle.bindTo(instance);
+            }
+            if (method.getParameterCount() == 1) {
+                handle = MethodHandles.dropArguments(handle, 0, ShardPosition.class);
+            }
+            return handle.asType(methodType(void.class, ShardPosition.class, List.class));
+        } catch (final IllegalAccessException e) {
+            throw new IllegalArgumentException("Unable to build MethodInvokingBatchMessageConsumer: " + e.getMessage(), e);
+        }
+    }
+}
@@ -1,32 +1,47 @@
 package de.otto.synapse.consumer;
 
 import de.otto.synapse.message.Message;
+import de.otto.synapse.metrics.MessageTimings;
 
 import javax.annotation.Nonnull;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.Objects;
 import java.util.regex.Pattern;
 
+import static org.springframework.util.ClassUtils.getUserClass;
+
 /**
  * A {@link MessageConsumer} that is calling a method of a class instance for every accepted {@link Message}
  * <p>
  *     <img src="http://www.enterpriseintegrationpatterns.com/img/MessageEndpointSolution.gif" alt="MesageConsumer">
  * </p>
+ * <p>
+ *     The method is called using a {@link MessageMethodInvoker} that is created once, when the consumer is
+ *     created, instead of calling the method reflectively for every message.
+ * </p>
 
  * @param <T> The expected type of the message's payload
  */
-public class MethodInvokingMessageConsumer<T> implements MessageConsumer<T> {
+public class MethodInvokingMessageConsumer<T> implements MessageConsumer<T>, MessageTimings.Named {
 
     private final Pattern keyPattern;
     private final Class<T> payloadType;
-    private final Object instance;
-    private final Method method;
+    private final MessageMethodInvoker invoker;
+    private final boolean lazyPayload;
+    private final String name;
 
     public MethodInvokingMessageConsumer(final String keyPattern,
                                          final Class<T> payloadType,
                                          final Object instance,
                                          final Method method) {
+        this(keyPattern, payloadType, instance, method, false);
+    }
+
+    public MethodInvokingMessageConsumer(final String keyPattern,
+                                         final Class<T> payloadType,
+                                         final Object instance,
+                                         final Method method,
+                                         final boolean lazyPayload) {
         Objects.requireNonNull(keyPattern, "keyPattern must not be null");
         Objects.requireNonNull(payloadType, "payloadType must not be null");
         Objects.requireNonNull(instance, "Unable to build MethodInvokingMessageConsumer: instance parameter is null");
@@ -42,8 +57,9 @@ public class MethodInvokingMessageConsumer<T> implements MessageConsumer<T> {
 
         this.keyPattern = Pattern.compile(keyPattern);
         this.payloadType = payloadType;
-        this.method = method;
-        this.instance = instance;
+        this.invoker = MessageMethodInvokers.invokerFor(instance, method);
+        this.lazyPayload = lazyPayload;
+        this.name = getUserClass(instance).getSimpleName() + "#" + method.getName();
     }
 
     /**
@@ -68,11 +84,34 @@ public class MethodInvokingMessageConsumer<T> implements MessageConsumer<T> {
         return keyPattern;
     }
 
+    /**
+     * Returns true, if the consumer is accepting {@link de.otto.synapse.message.LazyMessage messages with lazily
+     * decoded payloads}.
+     *
+     * @return boolean
+     */
+    @Override
+    public boolean lazyPayload() {
+        return lazyPayload;
+    }
+
+    /**
+     * Returns the name of the consumer, consisting of the simple class name of the instance and the method name,
+     * separated by '#'.
+     *
+     * @return name
+     */
+    @Nonnull
+    @Override
+    public String getName() {
+        return name;
+    }
+
     @Override
     public void accept(final Message<T> message) {
         try {
-            method.invoke(instance, message);
-        } catch (IllegalAccessException | InvocationTargetException e) {
+            invoker.invoke(message);
+        } catch (final Exception e) {
             throw new IllegalStateException(e);
         }
     }
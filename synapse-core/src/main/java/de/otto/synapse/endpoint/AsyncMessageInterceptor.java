@@ -0,0 +1,59 @@
+package de.otto.synapse.endpoint;
+
+import de.otto.synapse.message.TextMessage;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * A {@link MessageInterceptor} that is intercepting messages asynchronously.
+ * <p>
+ *     Interceptors doing I/O, like journaling messages in a remote store or enriching messages using some
+ *     external service, should implement this interface instead of blocking the thread that is reading
+ *     the messages from the channel.
+ * </p>
+ * <p>
+ *     AsyncMessageInterceptors are registered like other interceptors. The {@link InterceptorChain} is
+ *     composing the returned {@link CompletionStage completion stages} without blocking, so receiver endpoints
+ *     are able to intercept multiple messages of a {@link de.otto.synapse.channel.ShardResponse} concurrently
+ *     (see {@link de.otto.synapse.endpoint.receiver.KeyPartitionedDispatcher#dispatchAsync}).
+ * </p>
+ * <p>
+ *     If an AsyncMessageInterceptor is called using {@link #intercept(TextMessage)}, the calling thread is
+ *     blocked until the message is intercepted.
+ * </p>
+ */
+@FunctionalInterface
+public interface AsyncMessageInterceptor extends MessageInterceptor {
+
+    /**
+     * Intercepts a message asynchronously.
+     *
+     * @param message the channel-layer message with payload-type beeing a String
+     * @return completion stage of the intercepted version of the message. The stage completes with {@code null}
+     * if the message should be dropped.
+     */
+    @Nonnull
+    CompletionStage<TextMessage> interceptAsync(final @Nonnull TextMessage message);
+
+    /**
+     * Intercepts a message and waits for the completion of {@link #interceptAsync(TextMessage)}.
+     *
+     * @param message the channel-layer message with payload-type beeing a String
+     * @return intercepted version of the message, or null if the message should be dropped.
+     */
+    @Nullable
+    @Override
+    default TextMessage intercept(final @Nonnull TextMessage message) {
+        try {
+            return interceptAsync(message).toCompletableFuture().join();
+        } catch (final CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
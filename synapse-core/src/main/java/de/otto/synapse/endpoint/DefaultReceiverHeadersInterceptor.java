@@ -1,7 +1,6 @@
 package de.otto.synapse.endpoint;
 
 import de.otto.synapse.configuration.SynapseProperties;
-import de.otto.synapse.message.Header;
 import de.otto.synapse.message.TextMessage;
 
 import javax.annotation.Nonnull;
@@ -9,7 +8,6 @@ import javax.annotation.Nullable;
 import java.time.Clock;
 
 import static de.otto.synapse.message.DefaultHeaderAttr.MSG_RECEIVER_TS;
-import static de.otto.synapse.message.Header.copyOf;
 import static de.otto.synapse.message.Message.message;
 
 /**
@@ -52,11 +50,9 @@ public class DefaultReceiverHeadersInterceptor {
     @de.otto.synapse.annotation.MessageInterceptor(endpointType = EndpointType.RECEIVER)
     public TextMessage addDefaultHeaders(@Nonnull TextMessage message) {
 
-        final Header.Builder headers = copyOf(message.getHeader());
-
         if (enabled) {
-            headers.withAttribute(MSG_RECEIVER_TS, clock.instant());
+            return message.withHeader(message.getHeader().withAttribute(MSG_RECEIVER_TS, clock.instant()));
         }
-        return TextMessage.of(message.getKey(), headers.build(), message.getPayload());
+        return message;
     }
 }
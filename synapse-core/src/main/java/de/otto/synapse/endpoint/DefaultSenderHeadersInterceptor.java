@@ -1,5 +1,6 @@
 package de.otto.synapse.endpoint;
 
+import com.google.common.collect.ImmutableMap;
 import de.otto.synapse.configuration.SynapseProperties;
 import de.otto.synapse.message.DefaultHeaderAttr;
 import de.otto.synapse.message.Header;
@@ -13,7 +14,6 @@ import java.util.Set;
 import java.util.UUID;
 
 import static de.otto.synapse.message.DefaultHeaderAttr.*;
-import static de.otto.synapse.message.Header.copyOf;
 import static de.otto.synapse.message.Message.message;
 
 /**
@@ -92,17 +92,20 @@ public class DefaultSenderHeadersInterceptor {
     @de.otto.synapse.annotation.MessageInterceptor(endpointType = EndpointType.SENDER)
     public TextMessage addDefaultHeaders(@Nonnull TextMessage message) {
 
-        final Header.Builder headers = copyOf(message.getHeader());
-
+        if (capabilities.isEmpty()) {
+            return message;
+        }
+        final ImmutableMap.Builder<String, String> attributes = ImmutableMap.builder();
         if (capabilities.contains(Capability.SENDER_NAME)) {
-            headers.withAttribute(MSG_SENDER, senderName);
+            attributes.put(MSG_SENDER.key(), senderName);
         }
         if (capabilities.contains(Capability.MESSAGE_ID)) {
-            headers.withAttribute(MSG_ID, UUID.randomUUID().toString());
+            attributes.put(MSG_ID.key(), UUID.randomUUID().toString());
         }
+        Header header = message.getHeader().withAttributes(attributes.build());
         if (capabilities.contains(Capability.TIMESTAMP)) {
-            headers.withAttribute(MSG_SENDER_TS, clock.instant());
+            header = header.withAttribute(MSG_SENDER_TS, clock.instant());
         }
-        return TextMessage.of(message.getKey(), headers.build(), message.getPayload());
+        return message.withHeader(header);
     }
 }
@@ -8,7 +8,10 @@ import org.slf4j.Logger;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
+import static java.util.concurrent.CompletableFuture.completedFuture;
 import static org.slf4j.LoggerFactory.getLogger;
 
 /**
@@ -31,21 +34,25 @@ import static org.slf4j.LoggerFactory.getLogger;
  * @see <a href="https://en.wikipedia.org/wiki/Composite_pattern">Composite Pattern</a>
  */
 @ThreadSafe
-public final class InterceptorChain implements MessageInterceptor {
+public final class InterceptorChain implements AsyncMessageInterceptor {
 
     private static final Logger LOG = getLogger(InterceptorChain.class);
 
     private final ImmutableList<MessageInterceptor> interceptors;
+    private final boolean hasAsyncInterceptors;
 
     /**
      * Creates an empty InterceptorChain.
      */
     public InterceptorChain() {
-        this.interceptors = ImmutableList.of();
+        this(ImmutableList.of());
     }
 
     public InterceptorChain(final ImmutableList<MessageInterceptor> messageInterceptors) {
         this.interceptors = messageInterceptors;
+        this.hasAsyncInterceptors = messageInterceptors
+                .stream()
+                .anyMatch(interceptor -> interceptor instanceof AsyncMessageInterceptor);
     }
 
     /**
@@ -57,6 +64,19 @@ public final class InterceptorChain implements MessageInterceptor {
         return interceptors;
     }
 
+    /**
+     * Returns true, if at least one of the registered interceptors is an {@link AsyncMessageInterceptor}.
+     * <p>
+     *     Receiver endpoints are using {@link #interceptAsync(TextMessage)} to intercept messages, if the chain
+     *     contains asynchronous interceptors, and {@link #intercept(TextMessage)} otherwise.
+     * </p>
+     *
+     * @return boolean
+     */
+    public boolean hasAsyncInterceptors() {
+        return hasAsyncInterceptors;
+    }
+
     /**
      * Intercepts a message using all registered interceptors and returns the resulting message.
      * <p>
@@ -76,6 +96,7 @@ public final class InterceptorChain implements MessageInterceptor {
      * @return the (possibly modified) message, or null if the message should be dropped.
      */
     @Nullable
+    @Override
     public TextMessage intercept(final @Nonnull TextMessage message) {
         TextMessage interceptedMessage = message;
         for (final MessageInterceptor interceptor : interceptors) {
@@ -84,6 +105,55 @@ public final class InterceptorChain implements MessageInterceptor {
             }
             interceptedMessage = interceptor.intercept(interceptedMessage);
         }
+        return logged(message, interceptedMessage);
+    }
+
+    /**
+     * Intercepts a message using all registered interceptors and returns a completion stage of the resulting
+     * message.
+     * <p>
+     *     Just like {@link #intercept(TextMessage)}, the interceptors are called in order. Synchronous interceptors
+     *     are called in the current thread until the first {@link AsyncMessageInterceptor} is reached. The
+     *     remaining interceptors are called after the completion stage of the asynchronous interceptor has
+     *     completed, without blocking the calling thread.
+     * </p>
+     * <p>
+     *     Exceptions thrown by interceptors complete the returned stage exceptionally.
+     * </p>
+     *
+     * @param message the message to intercept
+     * @return completion stage of the (possibly modified) message, completing with null if the message
+     * should be dropped.
+     */
+    @Nonnull
+    @Override
+    public CompletionStage<TextMessage> interceptAsync(final @Nonnull TextMessage message) {
+        return interceptAsync(message, 0)
+                .thenApply(interceptedMessage -> logged(message, interceptedMessage));
+    }
+
+    private CompletionStage<TextMessage> interceptAsync(final TextMessage message, final int from) {
+        try {
+            TextMessage interceptedMessage = message;
+            for (int i = from; i < interceptors.size() && interceptedMessage != null; ++i) {
+                final MessageInterceptor interceptor = interceptors.get(i);
+                if (interceptor instanceof AsyncMessageInterceptor) {
+                    final int next = i + 1;
+                    return ((AsyncMessageInterceptor) interceptor)
+                            .interceptAsync(interceptedMessage)
+                            .thenCompose(m -> m != null ? interceptAsync(m, next) : completedFuture(null));
+                }
+                interceptedMessage = interceptor.intercept(interceptedMessage);
+            }
+            return completedFuture(interceptedMessage);
+        } catch (final RuntimeException e) {
+            final CompletableFuture<TextMessage> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    private TextMessage logged(final TextMessage message, final TextMessage interceptedMessage) {
         if (interceptedMessage != null) {
             LOG.debug("Intercepted message '{}' converted to {}", message, interceptedMessage);
         } else {
@@ -1,9 +1,11 @@
 package de.otto.synapse.endpoint;
 
 import com.google.common.collect.ImmutableList;
+import de.otto.synapse.metrics.MessageTimings;
 import org.springframework.core.OrderComparator;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
@@ -11,6 +13,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static de.otto.synapse.endpoint.TimedMessageInterceptor.timed;
 import static java.util.Collections.synchronizedList;
 import static java.util.Comparator.comparing;
 
@@ -19,6 +22,7 @@ public class MessageInterceptorRegistry {
     private final static Comparator<Object> REGISTRATION_ORDER_COMPARATOR = new OrderComparator().reversed();
     private final List<MessageInterceptorRegistration> registry = synchronizedList(new ArrayList<>());
     private final ConcurrentMap<String, InterceptorChain> interceptorChainCache = new ConcurrentHashMap<>();
+    private volatile MessageTimings messageTimings;
 
     public void register(final @Nonnull MessageInterceptorRegistration registration) {
         registry.add(registration);
@@ -26,15 +30,46 @@ public class MessageInterceptorRegistry {
         interceptorChainCache.clear();
     }
 
+    /**
+     * Configures the {@link MessageTimings} used to measure the latency of interceptors and consumers.
+     * <p>
+     *     If timings are configured, every interceptor of the {@link InterceptorChain interceptor chains} returned
+     *     by {@link #getInterceptorChain(String, EndpointType)} is timed separately. Receiver endpoints are using
+     *     the timings to measure the latency of their message consumers.
+     * </p>
+     *
+     * @param messageTimings the timings, or null to disable timing
+     */
+    public void setMessageTimings(final @Nullable MessageTimings messageTimings) {
+        this.messageTimings = messageTimings;
+        interceptorChainCache.clear();
+    }
+
+    /**
+     * Returns the configured {@link MessageTimings}, or null if latencies are not measured.
+     *
+     * @return MessageTimings or null
+     */
+    @Nullable
+    public MessageTimings getMessageTimings() {
+        return messageTimings;
+    }
+
     @Nonnull
     public InterceptorChain getInterceptorChain(final String channelName,
                                                 final EndpointType endpointType) {
-        return interceptorChainCache.computeIfAbsent(channelName + "#" + endpointType.name(), (key) -> new InterceptorChain(
-                getRegistrations(channelName, endpointType)
-                        .stream()
-                        .map(MessageInterceptorRegistration::getInterceptor)
-                        .collect(toImmutableList())
-        ));
+        return interceptorChainCache.computeIfAbsent(channelName + "#" + endpointType.name(), (key) -> {
+            final MessageTimings messageTimings = this.messageTimings;
+            return new InterceptorChain(
+                    getRegistrations(channelName, endpointType)
+                            .stream()
+                            .map(MessageInterceptorRegistration::getInterceptor)
+                            .map(interceptor -> messageTimings != null
+                                    ? timed(interceptor, messageTimings.interceptorTimer(channelName, endpointType, MessageTimings.nameOf(interceptor)))
+                                    : interceptor)
+                            .collect(toImmutableList())
+            );
+        });
     }
 
     @Nonnull
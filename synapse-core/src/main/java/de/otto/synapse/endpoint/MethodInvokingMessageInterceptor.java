@@ -1,29 +1,37 @@
 package de.otto.synapse.endpoint;
 
 import de.otto.synapse.consumer.MessageConsumer;
+import de.otto.synapse.consumer.MessageMethodInvoker;
+import de.otto.synapse.consumer.MessageMethodInvokers;
 import de.otto.synapse.message.Message;
 import de.otto.synapse.message.TextMessage;
+import de.otto.synapse.metrics.MessageTimings;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.Arrays;
 import java.util.Objects;
 
+import static org.springframework.util.ClassUtils.getUserClass;
+
 /**
  * A {@link MessageConsumer} that is calling a method of a class instance for every accepted {@link Message}
  * <p>
  *     <img src="http://www.enterpriseintegrationpatterns.com/img/MessageEndpointSolution.gif" alt="MesageConsumer">
  * </p>
+ * <p>
+ *     The method is called using a {@link MessageMethodInvoker} that is created once, when the interceptor is
+ *     created, instead of calling the method reflectively for every message.
+ * </p>
  */
-public class MethodInvokingMessageInterceptor implements MessageInterceptor {
+public class MethodInvokingMessageInterceptor implements MessageInterceptor, MessageTimings.Named {
 
-    private final Object instance;
-    private final Method method;
+    private final MessageMethodInvoker invoker;
     private final boolean returnsMessage;
+    private final String name;
 
     public MethodInvokingMessageInterceptor(final Object instance,
                                             final Method method) {
@@ -43,9 +51,9 @@ public class MethodInvokingMessageInterceptor implements MessageInterceptor {
         assertIsMessageWithStringTypeParam(method.getGenericParameterTypes()[0]);
         assertIsMessage(method.getParameterTypes()[0]);
 
-        this.method = method;
-        this.instance = instance;
+        this.invoker = MessageMethodInvokers.invokerFor(instance, method);
         this.returnsMessage = method.getReturnType() != Void.class && method.getReturnType() != void.class;
+        this.name = getUserClass(instance).getSimpleName() + "#" + method.getName();
     }
 
     private void assertIsMessageWithStringTypeParam(final Type type) {
@@ -71,23 +79,35 @@ public class MethodInvokingMessageInterceptor implements MessageInterceptor {
         }
     }
 
+    /**
+     * Returns the name of the interceptor, consisting of the simple class name of the instance and the method name,
+     * separated by '#'.
+     *
+     * @return name
+     */
+    @Nonnull
+    @Override
+    public String getName() {
+        return name;
+    }
+
     @Nullable
     @Override
     @SuppressWarnings("unchecked")
     public TextMessage intercept(@Nonnull TextMessage message) {
         try {
             if (returnsMessage) {
-                final Message<String> interceptedMessage = (Message<String>) method.invoke(instance, message);
+                final Message<String> interceptedMessage = (Message<String>) invoker.invoke(message);
                 if (interceptedMessage == null || interceptedMessage == message || interceptedMessage instanceof TextMessage) {
                     return (TextMessage) interceptedMessage;
                 } else {
                     return TextMessage.of(interceptedMessage);
                 }
             } else {
-                method.invoke(instance, message);
+                invoker.invoke(message);
                 return message;
             }
-        } catch (IllegalAccessException | InvocationTargetException e) {
+        } catch (final Exception e) {
             throw new IllegalStateException(e);
         }
     }
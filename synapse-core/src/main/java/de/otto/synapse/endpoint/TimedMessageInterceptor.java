@@ -0,0 +1,86 @@
+package de.otto.synapse.endpoint;
+
+import de.otto.synapse.message.TextMessage;
+import de.otto.synapse.metrics.LatencyTimer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * A {@link MessageInterceptor} that is measuring the latency of another interceptor using a {@link LatencyTimer}.
+ * <p>
+ *     Used by the {@link MessageInterceptorRegistry}, if {@link de.otto.synapse.metrics.MessageTimings} are
+ *     configured.
+ * </p>
+ */
+class TimedMessageInterceptor implements MessageInterceptor {
+
+    final MessageInterceptor delegate;
+    final LatencyTimer timer;
+
+    private TimedMessageInterceptor(final MessageInterceptor delegate, final LatencyTimer timer) {
+        this.delegate = delegate;
+        this.timer = timer;
+    }
+
+    /**
+     * Returns a timed interceptor for the given delegate. If the delegate is an {@link AsyncMessageInterceptor},
+     * the returned interceptor is asynchronous as well, so the {@link InterceptorChain} is still able to intercept
+     * messages without blocking.
+     *
+     * @param delegate the timed interceptor
+     * @param timer the timer used to record latencies
+     * @return timed MessageInterceptor
+     */
+    static MessageInterceptor timed(final MessageInterceptor delegate, final LatencyTimer timer) {
+        return delegate instanceof AsyncMessageInterceptor
+                ? new TimedAsyncMessageInterceptor((AsyncMessageInterceptor) delegate, timer)
+                : new TimedMessageInterceptor(delegate, timer);
+    }
+
+    @Nullable
+    @Override
+    public TextMessage intercept(final @Nonnull TextMessage message) {
+        final long start = timer.start();
+        try {
+            return delegate.intercept(message);
+        } finally {
+            timer.stop(start);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "TimedMessageInterceptor{" +
+                "delegate=" + delegate +
+                '}';
+    }
+
+    private static final class TimedAsyncMessageInterceptor extends TimedMessageInterceptor implements AsyncMessageInterceptor {
+
+        private TimedAsyncMessageInterceptor(final AsyncMessageInterceptor delegate, final LatencyTimer timer) {
+            super(delegate, timer);
+        }
+
+        @Nullable
+        @Override
+        public TextMessage intercept(final @Nonnull TextMessage message) {
+            return super.intercept(message);
+        }
+
+        @Nonnull
+        @Override
+        public CompletionStage<TextMessage> interceptAsync(final @Nonnull TextMessage message) {
+            final long start = timer.start();
+            try {
+                return ((AsyncMessageInterceptor) delegate)
+                        .interceptAsync(message)
+                        .whenComplete((interceptedMessage, throwable) -> timer.stop(start));
+            } catch (final RuntimeException e) {
+                timer.stop(start);
+                throw e;
+            }
+        }
+    }
+}
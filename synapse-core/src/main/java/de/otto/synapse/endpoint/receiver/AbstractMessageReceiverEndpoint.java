@@ -8,6 +8,7 @@ import de.otto.synapse.endpoint.EndpointType;
 import de.otto.synapse.endpoint.MessageInterceptorRegistry;
 import de.otto.synapse.info.MessageReceiverNotification;
 import de.otto.synapse.info.MessageReceiverStatus;
+import de.otto.synapse.metrics.MessageTimings;
 import org.springframework.context.ApplicationEventPublisher;
 
 import javax.annotation.Nonnull;
@@ -31,7 +32,10 @@ public class AbstractMessageReceiverEndpoint extends AbstractMessageEndpoint imp
                                            final @Nonnull MessageInterceptorRegistry interceptorRegistry,
                                            final @Nullable ApplicationEventPublisher eventPublisher) {
         super(channelName, interceptorRegistry);
-        messageDispatcher = new MessageDispatcher();
+        final MessageTimings messageTimings = interceptorRegistry.getMessageTimings();
+        messageDispatcher = messageTimings != null
+                ? new MessageDispatcher(consumer -> messageTimings.consumerTimer(channelName, MessageTimings.nameOf(consumer)))
+                : new MessageDispatcher();
         this.eventPublisher = eventPublisher;
     }
 
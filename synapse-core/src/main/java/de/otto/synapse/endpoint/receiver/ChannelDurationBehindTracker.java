@@ -0,0 +1,272 @@
+package de.otto.synapse.endpoint.receiver;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import de.otto.synapse.channel.ChannelDurationBehind;
+import de.otto.synapse.info.MessageReceiverNotification;
+import org.slf4j.Logger;
+import org.springframework.context.ApplicationEventPublisher;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static de.otto.synapse.channel.ChannelDurationBehind.channelDurationBehind;
+import static de.otto.synapse.info.MessageReceiverStatus.RUNNING;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Keeps track of the {@link ChannelDurationBehind duration} a receiver is behind the head of the shards of a
+ * channel, and publishes {@link MessageReceiverNotification RUNNING notifications} about the progress of the
+ * receiver.
+ * <p>
+ *     Updates are lock-free and applied in place, so receivers are able to update the tracker for every
+ *     {@link de.otto.synapse.channel.ShardResponse} without creating a new {@link ChannelDurationBehind}. Listeners
+ *     are notified asynchronously, using a scheduler that is shared by all trackers: at most once per
+ *     {@code notificationInterval}, and immediately after the {@link DispatchMode} of the channel was switched.
+ *     Updates in between two notifications are coalesced, so every notification contains the latest durations.
+ * </p>
+ * <p>
+ *     Receivers must {@link #close() close} the tracker after consumption is finished, before publishing the
+ *     {@link de.otto.synapse.info.MessageReceiverStatus#FINISHED FINISHED} notification: pending updates are
+ *     then published in the calling thread.
+ * </p>
+ */
+@ThreadSafe
+public class ChannelDurationBehindTracker implements AutoCloseable {
+
+    private static final Logger LOG = getLogger(ChannelDurationBehindTracker.class);
+
+    /**
+     * The default minimum interval between two notifications.
+     */
+    public static final Duration DEFAULT_NOTIFICATION_INTERVAL = Duration.ofMillis(250);
+
+    private static final long UNKNOWN_MILLIS_BEHIND = Long.MAX_VALUE;
+
+    private final String channelName;
+    private final ApplicationEventPublisher eventPublisher;
+    private final String message;
+    private final DispatchModeSelector dispatchModeSelector;
+    private final long notificationIntervalMillis;
+    private final ScheduledExecutorService scheduler;
+    private final Clock clock;
+
+    private final ConcurrentMap<String, AtomicLong> millisBehind = new ConcurrentHashMap<>();
+    private final AtomicBoolean updated = new AtomicBoolean(false);
+    private final AtomicBoolean notificationScheduled = new AtomicBoolean(false);
+    private final AtomicReference<String> switchedMessage = new AtomicReference<>();
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private volatile long lastNotification = Long.MIN_VALUE;
+
+    /**
+     * Creates a ChannelDurationBehindTracker using the {@link #DEFAULT_NOTIFICATION_INTERVAL default interval}.
+     *
+     * @param channelName the name of the channel
+     * @param eventPublisher optional publisher used to publish the notifications
+     * @param message the message of the notifications
+     */
+    public ChannelDurationBehindTracker(final @Nonnull String channelName,
+                                        final @Nullable ApplicationEventPublisher eventPublisher,
+                                        final @Nonnull String message) {
+        this(channelName, eventPublisher, message, sharedScheduler(), Clock.systemDefaultZone());
+    }
+
+    /**
+     * Creates a ChannelDurationBehindTracker using the {@link #DEFAULT_NOTIFICATION_INTERVAL default interval}.
+     *
+     * @param channelName the name of the channel
+     * @param eventPublisher optional publisher used to publish the notifications
+     * @param message the message of the notifications
+     * @param scheduler the scheduler used to publish notifications
+     * @param clock the clock
+     */
+    public ChannelDurationBehindTracker(final @Nonnull String channelName,
+                                        final @Nullable ApplicationEventPublisher eventPublisher,
+                                        final @Nonnull String message,
+                                        final @Nonnull ScheduledExecutorService scheduler,
+                                        final @Nonnull Clock clock) {
+        this(channelName, eventPublisher, message, new DispatchModeSelector(channelName), DEFAULT_NOTIFICATION_INTERVAL, scheduler, clock);
+    }
+
+    /**
+     * Creates a ChannelDurationBehindTracker.
+     *
+     * @param channelName the name of the channel
+     * @param eventPublisher optional publisher used to publish the notifications
+     * @param message the message of the notifications
+     * @param dispatchModeSelector the selector used to switch the dispatch mode of the channel
+     * @param notificationInterval the minimum interval between two notifications
+     * @param scheduler the scheduler used to publish notifications
+     * @param clock the clock
+     */
+    public ChannelDurationBehindTracker(final @Nonnull String channelName,
+                                        final @Nullable ApplicationEventPublisher eventPublisher,
+                                        final @Nonnull String message,
+                                        final @Nonnull DispatchModeSelector dispatchModeSelector,
+                                        final @Nonnull Duration notificationInterval,
+                                        final @Nonnull ScheduledExecutorService scheduler,
+                                        final @Nonnull Clock clock) {
+        this.channelName = requireNonNull(channelName);
+        this.eventPublisher = eventPublisher;
+        this.message = requireNonNull(message);
+        this.dispatchModeSelector = requireNonNull(dispatchModeSelector);
+        this.notificationIntervalMillis = notificationInterval.toMillis();
+        this.scheduler = requireNonNull(scheduler);
+        this.clock = requireNonNull(clock);
+    }
+
+    /**
+     * Returns the daemon scheduler that is shared by all trackers, if no other scheduler is specified.
+     *
+     * @return shared scheduler
+     */
+    @Nonnull
+    public static ScheduledExecutorService sharedScheduler() {
+        return SharedScheduler.INSTANCE;
+    }
+
+    /**
+     * Adds shards with unknown duration behind. The durations of shards that are already known are reset to
+     * unknown.
+     *
+     * @param shardNames the names of the shards
+     */
+    public void assign(final @Nonnull Collection<String> shardNames) {
+        shardNames.forEach(shardName -> millisBehindOf(shardName).set(UNKNOWN_MILLIS_BEHIND));
+    }
+
+    /**
+     * Removes a shard, for example after a Kafka partition was revoked.
+     *
+     * @param shardName the name of the shard
+     */
+    public void revoke(final @Nonnull String shardName) {
+        millisBehind.remove(shardName);
+    }
+
+    /**
+     * Updates the duration behind of a shard and schedules a notification.
+     *
+     * @param shardName the name of the shard
+     * @param durationBehind the duration the receiver is behind the head of the shard
+     */
+    public void update(final @Nonnull String shardName,
+                       final @Nonnull Duration durationBehind) {
+        millisBehindOf(shardName).set(durationBehind.toMillis());
+        updated.set(true);
+        final boolean switched = dispatchModeSelector
+                .update(getDurationBehind())
+                .map(dispatchMode -> {
+                    switchedMessage.set(DispatchModeSelector.switchedTo(dispatchMode));
+                    return true;
+                })
+                .orElse(false);
+        scheduleNotification(switched);
+    }
+
+    /**
+     * @return the maximum duration behind of all shards, or {@code Long.MAX_VALUE} millis if unknown
+     */
+    @Nonnull
+    public Duration getDurationBehind() {
+        long max = Long.MIN_VALUE;
+        for (final AtomicLong shardMillisBehind : millisBehind.values()) {
+            max = Math.max(max, shardMillisBehind.get());
+        }
+        return Duration.ofMillis(max == Long.MIN_VALUE ? UNKNOWN_MILLIS_BEHIND : max);
+    }
+
+    /**
+     * @return a snapshot of the durations behind of all shards
+     */
+    @Nonnull
+    public ChannelDurationBehind getChannelDurationBehind() {
+        final ChannelDurationBehind.Builder builder = channelDurationBehind();
+        millisBehind.forEach((shardName, shardMillisBehind) -> builder.with(shardName, Duration.ofMillis(shardMillisBehind.get())));
+        return builder.build();
+    }
+
+    /**
+     * @return the current dispatch mode of the channel
+     */
+    @Nonnull
+    public DispatchMode getDispatchMode() {
+        return dispatchModeSelector.getDispatchMode();
+    }
+
+    /**
+     * Stops scheduling notifications, and publishes pending updates in the calling thread.
+     */
+    @Override
+    public void close() {
+        closed.set(true);
+        publishPendingUpdates();
+    }
+
+    private AtomicLong millisBehindOf(final String shardName) {
+        final AtomicLong shardMillisBehind = millisBehind.get(shardName);
+        return shardMillisBehind != null
+                ? shardMillisBehind
+                : millisBehind.computeIfAbsent(shardName, _x -> new AtomicLong(UNKNOWN_MILLIS_BEHIND));
+    }
+
+    private void scheduleNotification(final boolean immediately) {
+        if (eventPublisher == null || closed.get()) {
+            return;
+        }
+        if (immediately) {
+            scheduler.execute(this::publishPendingUpdates);
+        } else if (notificationScheduled.compareAndSet(false, true)) {
+            final long last = lastNotification;
+            final long delay = last == Long.MIN_VALUE
+                    ? 0
+                    : Math.max(0, last + notificationIntervalMillis - clock.millis());
+            scheduler.schedule(() -> {
+                notificationScheduled.set(false);
+                if (!closed.get()) {
+                    publishPendingUpdates();
+                }
+            }, delay, MILLISECONDS);
+        }
+    }
+
+    private synchronized void publishPendingUpdates() {
+        if (eventPublisher == null) {
+            return;
+        }
+        final String switched = switchedMessage.getAndSet(null);
+        if (!updated.getAndSet(false) && switched == null) {
+            return;
+        }
+        lastNotification = clock.millis();
+        try {
+            eventPublisher.publishEvent(MessageReceiverNotification.builder()
+                    .withChannelName(channelName)
+                    .withChannelDurationBehind(getChannelDurationBehind())
+                    .withStatus(RUNNING)
+                    .withMessage(switched != null ? switched : message)
+                    .build());
+        } catch (final RuntimeException e) {
+            LOG.error("Failed to publish notification for channel '{}': {}", channelName, e.getMessage(), e);
+        }
+    }
+
+    private static final class SharedScheduler {
+        private static final ScheduledExecutorService INSTANCE = newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("synapse-receiver-notifications-%d")
+                .setDaemon(true)
+                .build());
+    }
+}
@@ -0,0 +1,19 @@
+package de.otto.synapse.endpoint.receiver;
+
+/**
+ * The mode used by a {@link MessageLogReceiverEndpoint} to dispatch the messages received from a channel.
+ *
+ * @see DispatchModeSelector
+ */
+public enum DispatchMode {
+    /**
+     * The endpoint is far behind the head of the channel: messages are dispatched using all worker lanes of the
+     * {@link KeyPartitionedDispatcher}, and notifications about the progress are coalesced.
+     */
+    CATCH_UP,
+    /**
+     * The endpoint is (nearly) at the head of the channel: messages are dispatched immediately in the reading
+     * thread, and every response is notified.
+     */
+    LIVE
+}
@@ -0,0 +1,143 @@
+package de.otto.synapse.endpoint.receiver;
+
+import de.otto.synapse.channel.ChannelDurationBehind;
+import org.slf4j.Logger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static de.otto.synapse.endpoint.receiver.DispatchMode.CATCH_UP;
+import static de.otto.synapse.endpoint.receiver.DispatchMode.LIVE;
+import static java.util.Objects.requireNonNull;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Selects the {@link DispatchMode} of a channel, depending on the {@link ChannelDurationBehind duration} the
+ * receiver is behind the head of the channel.
+ * <p>
+ *     The selector is switching to {@link DispatchMode#CATCH_UP} as soon as the receiver is more than
+ *     {@code catchUpThreshold} behind, and back to {@link DispatchMode#LIVE} if the receiver is no more than
+ *     {@code liveThreshold} behind. The gap between both thresholds is preventing the mode from flapping if the
+ *     duration behind is oscillating around a single threshold.
+ * </p>
+ */
+@ThreadSafe
+public class DispatchModeSelector {
+
+    private static final Logger LOG = getLogger(DispatchModeSelector.class);
+
+    /**
+     * The default duration behind, above which the receiver is switching to catch-up mode.
+     */
+    public static final Duration DEFAULT_CATCH_UP_THRESHOLD = Duration.ofSeconds(10);
+    /**
+     * The default duration behind, below which the receiver is switching back to live mode.
+     */
+    public static final Duration DEFAULT_LIVE_THRESHOLD = Duration.ofSeconds(1);
+
+    private final String channelName;
+    private final Duration catchUpThreshold;
+    private final Duration liveThreshold;
+    private final AtomicReference<DispatchMode> dispatchMode;
+
+    /**
+     * Creates a DispatchModeSelector using the default thresholds, starting in {@link DispatchMode#CATCH_UP}.
+     *
+     * @param channelName the name of the channel
+     */
+    public DispatchModeSelector(final @Nonnull String channelName) {
+        this(channelName, CATCH_UP);
+    }
+
+    /**
+     * Creates a DispatchModeSelector using the default thresholds.
+     *
+     * @param channelName the name of the channel
+     * @param initialMode the mode used until the duration behind is updated
+     */
+    public DispatchModeSelector(final @Nonnull String channelName,
+                                final @Nonnull DispatchMode initialMode) {
+        this(channelName, initialMode, DEFAULT_CATCH_UP_THRESHOLD, DEFAULT_LIVE_THRESHOLD);
+    }
+
+    /**
+     * Creates a DispatchModeSelector.
+     *
+     * @param channelName the name of the channel
+     * @param initialMode the mode used until the duration behind is updated
+     * @param catchUpThreshold the duration behind, above which the selector is switching to catch-up mode
+     * @param liveThreshold the duration behind, below which the selector is switching back to live mode. Must not
+     *                      be greater than {@code catchUpThreshold}.
+     */
+    public DispatchModeSelector(final @Nonnull String channelName,
+                                final @Nonnull DispatchMode initialMode,
+                                final @Nonnull Duration catchUpThreshold,
+                                final @Nonnull Duration liveThreshold) {
+        if (liveThreshold.compareTo(catchUpThreshold) > 0) {
+            throw new IllegalArgumentException("liveThreshold must not be greater than catchUpThreshold");
+        }
+        this.channelName = requireNonNull(channelName);
+        this.dispatchMode = new AtomicReference<>(requireNonNull(initialMode));
+        this.catchUpThreshold = catchUpThreshold;
+        this.liveThreshold = liveThreshold;
+    }
+
+    /**
+     * @return the current dispatch mode
+     */
+    @Nonnull
+    public DispatchMode getDispatchMode() {
+        return dispatchMode.get();
+    }
+
+    /**
+     * Updates the dispatch mode using the duration behind of the channel.
+     *
+     * @param durationBehind the duration behind of the channel
+     * @return the new DispatchMode, if the mode was switched, Optional.empty() otherwise
+     */
+    @Nonnull
+    public Optional<DispatchMode> update(final @Nonnull ChannelDurationBehind durationBehind) {
+        return update(durationBehind.getDurationBehind());
+    }
+
+    /**
+     * Updates the dispatch mode using the duration behind of the channel.
+     *
+     * @param durationBehind the duration behind of the channel
+     * @return the new DispatchMode, if the mode was switched, Optional.empty() otherwise
+     */
+    @Nonnull
+    public Optional<DispatchMode> update(final @Nonnull Duration durationBehind) {
+        final DispatchMode current = dispatchMode.get();
+        final DispatchMode next;
+        if (current == LIVE && durationBehind.compareTo(catchUpThreshold) > 0) {
+            next = CATCH_UP;
+        } else if (current == CATCH_UP && durationBehind.compareTo(liveThreshold) <= 0) {
+            next = LIVE;
+        } else {
+            return Optional.empty();
+        }
+        if (dispatchMode.compareAndSet(current, next)) {
+            LOG.info("Switched channel '{}' to {} mode, durationBehind={}", channelName, next, durationBehind);
+            return Optional.of(next);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Returns a human readable message describing a switch of the dispatch mode.
+     *
+     * @param dispatchMode the new mode
+     * @return message used in notifications
+     */
+    @Nonnull
+    public static String switchedTo(final @Nonnull DispatchMode dispatchMode) {
+        return dispatchMode == CATCH_UP
+                ? "Switched to catch-up mode."
+                : "Switched to live mode.";
+    }
+}
@@ -0,0 +1,249 @@
+package de.otto.synapse.endpoint.receiver;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import de.otto.synapse.message.Key;
+import de.otto.synapse.message.TextMessage;
+import org.slf4j.Logger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Processes the messages of a batch (typically the messages of a {@link de.otto.synapse.channel.ShardResponse})
+ * using a number of ordered worker lanes.
+ * <p>
+ *     Messages are assigned to lanes using the hash of their {@link Key#partitionKey() partition key}, so all
+ *     messages with the same partition key are processed by the same lane, in the order of the batch. Messages
+ *     with different partition keys may be processed concurrently.
+ * </p>
+ * <p>
+ *     {@link #dispatch(List, UnaryOperator)} is blocking until every lane has finished processing the batch, so
+ *     callers are able to advance the position of a shard after the method has returned.
+ * </p>
+ * <p>
+ *     A dispatcher with a single lane is processing all messages in the calling thread.
+ * </p>
+ * <p>
+ *     Messages that are processed asynchronously, for example by an
+ *     {@link de.otto.synapse.endpoint.AsyncMessageInterceptor}, are dispatched using
+ *     {@link #dispatchAsync(List, Function)}: up to {@code maxInFlight} messages of a batch are processed
+ *     concurrently, while messages with the same partition key are still processed in order.
+ * </p>
+ */
+@ThreadSafe
+public class KeyPartitionedDispatcher implements AutoCloseable {
+
+    private static final Logger LOG = getLogger(KeyPartitionedDispatcher.class);
+
+    /**
+     * The default maximum number of messages that are processed concurrently by {@link #dispatchAsync}.
+     */
+    public static final int DEFAULT_MAX_IN_FLIGHT = 100;
+
+    private final ExecutorService[] lanes;
+    private final int maxInFlight;
+
+    /**
+     * Creates a KeyPartitionedDispatcher.
+     *
+     * @param channelName the name of the channel, used to name the threads of the worker lanes
+     * @param lanes the number of worker lanes. Values less or equal 1 will process messages in the calling thread.
+     */
+    public KeyPartitionedDispatcher(final @Nonnull String channelName,
+                                    final int lanes) {
+        this(channelName, lanes, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    /**
+     * Creates a KeyPartitionedDispatcher.
+     *
+     * @param channelName the name of the channel, used to name the threads of the worker lanes
+     * @param lanes the number of worker lanes. Values less or equal 1 will process messages in the calling thread.
+     * @param maxInFlight the maximum number of messages that are processed concurrently by
+     *                    {@link #dispatchAsync(List, Function)}
+     */
+    public KeyPartitionedDispatcher(final @Nonnull String channelName,
+                                    final int lanes,
+                                    final int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be greater than zero");
+        }
+        this.maxInFlight = maxInFlight;
+        if (lanes > 1) {
+            this.lanes = new ExecutorService[lanes];
+            for (int i = 0; i < lanes; ++i) {
+                this.lanes[i] = newSingleThreadExecutor(new ThreadFactoryBuilder()
+                        .setNameFormat(channelName + "-lane-" + i)
+                        .setDaemon(true)
+                        .build());
+            }
+        } else {
+            this.lanes = new ExecutorService[0];
+        }
+    }
+
+    /**
+     * Returns a KeyPartitionedDispatcher that is processing all messages sequentially in the calling thread.
+     *
+     * @return sequential KeyPartitionedDispatcher
+     */
+    public static KeyPartitionedDispatcher sequential() {
+        return new KeyPartitionedDispatcher("sequential", 1);
+    }
+
+    /**
+     * @return the number of worker lanes; 1 if messages are processed in the calling thread.
+     */
+    public int getLanes() {
+        return Math.max(lanes.length, 1);
+    }
+
+    /**
+     * Processes the messages of a batch and waits until all messages are processed.
+     * <p>
+     *     Exceptions thrown by the processor are logged, the result for the failing message is {@code null}, and
+     *     processing continues with the next message.
+     * </p>
+     *
+     * @param messages the messages of the batch
+     * @param processor the function used to process a single message, for example intercepting and dispatching
+     *                  the message. The function may return {@code null}, for example if a message was dropped
+     *                  by an interceptor.
+     * @return the results of the processor, in the same order as the messages of the batch. The list may contain
+     * {@code null} values.
+     */
+    @Nonnull
+    public List<TextMessage> dispatch(final @Nonnull List<TextMessage> messages,
+                                      final @Nonnull UnaryOperator<TextMessage> processor) {
+        final TextMessage[] results = new TextMessage[messages.size()];
+        if (lanes.length == 0 || messages.size() <= 1) {
+            for (int i = 0; i < results.length; ++i) {
+                results[i] = process(messages.get(i), processor);
+            }
+        } else {
+            final List<List<Integer>> indexesPerLane = new ArrayList<>(lanes.length);
+            for (int lane = 0; lane < lanes.length; ++lane) {
+                indexesPerLane.add(new ArrayList<>());
+            }
+            for (int i = 0; i < results.length; ++i) {
+                indexesPerLane.get(laneOf(messages.get(i).getKey())).add(i);
+            }
+            final List<CompletableFuture<Void>> futures = new ArrayList<>(lanes.length);
+            for (int lane = 0; lane < lanes.length; ++lane) {
+                final List<Integer> indexes = indexesPerLane.get(lane);
+                if (!indexes.isEmpty()) {
+                    futures.add(CompletableFuture.runAsync(() -> {
+                        for (final int i : indexes) {
+                            results[i] = process(messages.get(i), processor);
+                        }
+                    }, lanes[lane]));
+                }
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Processes the messages of a batch asynchronously and waits until all messages are processed.
+     * <p>
+     *     The processor is called for up to {@code maxInFlight} messages, before the calling thread is waiting
+     *     for the completion of the first messages. Messages with the same partition key are processed in the
+     *     order of the batch: the processor is called for a message after the completion stage of the previous
+     *     message with the same partition key has completed.
+     * </p>
+     * <p>
+     *     Exceptions thrown by the processor, or exceptionally completed stages, are logged and the result for the
+     *     failing message is {@code null}.
+     * </p>
+     *
+     * @param messages the messages of the batch
+     * @param processor the function used to process a single message asynchronously. The returned stage may
+     *                  complete with {@code null}, for example if a message was dropped by an interceptor.
+     * @return the results of the processor, in the same order as the messages of the batch. The list may contain
+     * {@code null} values.
+     */
+    @Nonnull
+    public List<TextMessage> dispatchAsync(final @Nonnull List<TextMessage> messages,
+                                           final @Nonnull Function<TextMessage, CompletionStage<TextMessage>> processor) {
+        final TextMessage[] results = new TextMessage[messages.size()];
+        final Semaphore inFlight = new Semaphore(maxInFlight);
+        final Map<String, CompletableFuture<Void>> lastOfPartitionKey = new HashMap<>();
+        final List<CompletableFuture<Void>> futures = new ArrayList<>(results.length);
+        for (int i = 0; i < results.length; ++i) {
+            final int index = i;
+            final TextMessage message = messages.get(i);
+            final String partitionKey = message.getKey().partitionKey();
+            inFlight.acquireUninterruptibly();
+            final CompletableFuture<Void> future = lastOfPartitionKey
+                    .getOrDefault(partitionKey, completedFuture(null))
+                    .thenCompose(_x -> processAsync(message, processor))
+                    .thenAccept(result -> results[index] = result)
+                    .whenComplete((_x, _e) -> inFlight.release());
+            lastOfPartitionKey.put(partitionKey, future);
+            futures.add(future);
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Shuts down the worker lanes.
+     */
+    @Override
+    public void close() {
+        for (final ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+    }
+
+    private int laneOf(final Key key) {
+        return Math.floorMod(key.partitionKey().hashCode(), lanes.length);
+    }
+
+    private CompletionStage<TextMessage> processAsync(final TextMessage message,
+                                                      final Function<TextMessage, CompletionStage<TextMessage>> processor) {
+        final CompletionStage<TextMessage> stage;
+        try {
+            stage = processor.apply(message);
+        } catch (final Exception e) {
+            LOG.error("Error processing message: " + e.getMessage(), e);
+            return completedFuture(null);
+        }
+        return stage.handle((result, throwable) -> {
+            if (throwable != null) {
+                final Throwable cause = throwable.getCause() != null ? throwable.getCause() : throwable;
+                LOG.error("Error processing message: " + cause.getMessage(), cause);
+                return null;
+            }
+            return result;
+        });
+    }
+
+    @Nullable
+    private TextMessage process(final TextMessage message,
+                                final UnaryOperator<TextMessage> processor) {
+        try {
+            return processor.apply(message);
+        } catch (final Exception e) {
+            LOG.error("Error processing message: " + e.getMessage(), e);
+            return null;
+        }
+    }
+}
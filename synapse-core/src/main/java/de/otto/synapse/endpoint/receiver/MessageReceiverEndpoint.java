@@ -1,5 +1,6 @@
 package de.otto.synapse.endpoint.receiver;
 
+import de.otto.synapse.consumer.BatchMessageConsumer;
 import de.otto.synapse.consumer.MessageConsumer;
 import de.otto.synapse.consumer.MessageDispatcher;
 import de.otto.synapse.endpoint.MessageEndpoint;
@@ -24,6 +25,19 @@ public interface MessageReceiverEndpoint extends MessageEndpoint {
      */
     void register(MessageConsumer<?> messageConsumer);
 
+    /**
+     * Registers a BatchMessageConsumer at the receiver endpoint.
+     * <p>
+     *     Batch consumers are called once for all matching messages of a {@link de.otto.synapse.channel.ShardResponse}.
+     *     Just like {@link MessageConsumer consumers}, they have to be thread safe.
+     * </p>
+     *
+     * @param batchMessageConsumer registered BatchMessageConsumer
+     */
+    default void register(final BatchMessageConsumer<?> batchMessageConsumer) {
+        getMessageDispatcher().add(batchMessageConsumer);
+    }
+
     /**
      * Returns the MessageDispatcher that is used to dispatch messages.
      *
@@ -0,0 +1,239 @@
+package de.otto.synapse.eventsource;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import de.otto.synapse.channel.ChannelPosition;
+import de.otto.synapse.channel.ShardPosition;
+import de.otto.synapse.channel.ShardResponse;
+import de.otto.synapse.channel.StartFrom;
+import org.slf4j.Logger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+import static de.otto.synapse.channel.ChannelPosition.channelPosition;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.Objects.requireNonNull;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * A durable record of the last {@link ChannelPosition} of a channel that was applied by an {@link EventSource}.
+ * <p>
+ *     The checkpoint is intended to be used together with event-sourced state that survives a restart of the
+ *     service, for example a {@link de.otto.synapse.state.ChronicleMapStateRepository} that is persisted to a file.
+ *     If a valid checkpoint exists when the event source is started, the {@link DefaultEventSource} skips the replay
+ *     of the snapshot and continues consuming the message log at the position of the checkpoint.
+ * </p>
+ * <p>
+ *     While consuming the message log, the channel position is written to the checkpoint file at most once per
+ *     {@code interval}, and after consumption is finished. The file is first written to a temporary file that is
+ *     atomically moved to the checkpoint file afterwards, so a crash of the service never leaves a partially
+ *     written checkpoint.
+ * </p>
+ * <p>
+ *     The position is only written after the messages of a {@link ShardResponse} are dispatched to the consumers,
+ *     so the state is always at least as recent as the checkpoint: after a restart, messages received after the
+ *     checkpoint was written are consumed again (at-least-once). Consumers must therefore be idempotent.
+ * </p>
+ * <p>
+ *     A checkpoint is only restored, if it belongs to the same channel and if it is not older than {@code maxAge}.
+ *     The maximum age should be less than the retention period of the message log, otherwise messages that are
+ *     already removed from the log would be missing in the state.
+ * </p>
+ * <p>
+ *     If no checkpoint is restored, the event source is replaying the snapshot. Entities that are contained in a
+ *     persisted state, but have been removed from the snapshot in the meantime, are not removed by the replay: in
+ *     this case, the state should be {@link de.otto.synapse.state.StateRepository#clear() cleared} before the
+ *     event source is started.
+ * </p>
+ */
+@ThreadSafe
+public class ChannelPositionCheckpoint {
+
+    private static final Logger LOG = getLogger(ChannelPositionCheckpoint.class);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final String channelName;
+    private final Path file;
+    private final Duration interval;
+    private final Duration maxAge;
+    private final Clock clock;
+
+    private Optional<ChannelPosition> restoredChannelPosition;
+    private ChannelPosition channelPosition;
+    private Instant lastWritten;
+
+    public ChannelPositionCheckpoint(final @Nonnull String channelName,
+                                     final @Nonnull Path file,
+                                     final @Nonnull Duration interval,
+                                     final @Nonnull Duration maxAge) {
+        this(channelName, file, interval, maxAge, Clock.systemDefaultZone());
+    }
+
+    public ChannelPositionCheckpoint(final @Nonnull String channelName,
+                                     final @Nonnull Path file,
+                                     final @Nonnull Duration interval,
+                                     final @Nonnull Duration maxAge,
+                                     final @Nonnull Clock clock) {
+        this.channelName = requireNonNull(channelName);
+        this.file = requireNonNull(file);
+        this.interval = requireNonNull(interval);
+        this.maxAge = requireNonNull(maxAge);
+        this.clock = requireNonNull(clock);
+    }
+
+    public String getChannelName() {
+        return channelName;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the channel position of the checkpoint file, if the file exists, belongs to the channel of this
+     * checkpoint and is not older than {@code maxAge}.
+     * <p>
+     *     The file is only read once; subsequent calls return the same result.
+     * </p>
+     *
+     * @return the restored ChannelPosition, or Optional.empty() if there is no valid checkpoint
+     */
+    @Nonnull
+    public synchronized Optional<ChannelPosition> restore() {
+        if (restoredChannelPosition == null) {
+            restoredChannelPosition = read();
+        }
+        return restoredChannelPosition;
+    }
+
+    /**
+     * Writes the channel position to the checkpoint file.
+     *
+     * @param channelPosition the last channel position that was applied to the state
+     */
+    public synchronized void write(final @Nonnull ChannelPosition channelPosition) {
+        this.channelPosition = channelPosition;
+        final Instant now = clock.instant();
+        final Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        lastWritten = now;
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            Files.write(tempFile, OBJECT_MAPPER.writeValueAsBytes(toJson(channelPosition, now)));
+            try {
+                Files.move(tempFile, file, ATOMIC_MOVE, REPLACE_EXISTING);
+            } catch (final AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, file, REPLACE_EXISTING);
+            }
+        } catch (final IOException e) {
+            LOG.error("Unable to write checkpoint of channel '{}' to {}: {}", channelName, file, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns a stop condition that is keeping track of the channel positions of the shard responses, writing
+     * the checkpoint at most once per {@code interval}, before delegating to the given stop condition.
+     *
+     * @param startFrom the channel position where consumption is started
+     * @param stopCondition the stop condition of the consumer
+     * @return stop condition
+     */
+    @Nonnull
+    public Predicate<ShardResponse> tracking(final @Nonnull ChannelPosition startFrom,
+                                             final @Nonnull Predicate<ShardResponse> stopCondition) {
+        synchronized (this) {
+            channelPosition = startFrom;
+            lastWritten = clock.instant();
+        }
+        return shardResponse -> {
+            update(shardResponse.getShardPosition());
+            return stopCondition.test(shardResponse);
+        };
+    }
+
+    private synchronized void update(final ShardPosition shardPosition) {
+        channelPosition = ChannelPosition.merge(channelPosition, shardPosition);
+        if (!clock.instant().isBefore(lastWritten.plus(interval))) {
+            write(channelPosition);
+        }
+    }
+
+    private Optional<ChannelPosition> read() {
+        if (!Files.exists(file)) {
+            LOG.info("No checkpoint found for channel '{}' at {}", channelName, file);
+            return Optional.empty();
+        }
+        try {
+            final JsonNode json = OBJECT_MAPPER.readTree(file.toFile());
+            if (!channelName.equals(json.path("channelName").asText())) {
+                LOG.warn("Ignoring checkpoint {}: expected channel '{}' but found '{}'", file, channelName, json.path("channelName").asText());
+                return Optional.empty();
+            }
+            final Instant timestamp = Instant.parse(json.path("timestamp").asText());
+            if (timestamp.plus(maxAge).isBefore(clock.instant())) {
+                LOG.warn("Ignoring checkpoint of channel '{}': written at {} which is older than {}", channelName, timestamp, maxAge);
+                return Optional.empty();
+            }
+            final List<ShardPosition> shardPositions = new ArrayList<>();
+            for (final JsonNode shard : json.path("shards")) {
+                shardPositions.add(toShardPosition(shard));
+            }
+            final ChannelPosition restored = channelPosition(shardPositions);
+            LOG.info("Restored checkpoint of channel '{}' written at {}: {}", channelName, timestamp, restored);
+            return Optional.of(restored);
+        } catch (final IOException | RuntimeException e) {
+            LOG.warn("Ignoring checkpoint of channel '{}': unable to read {}: {}", channelName, file, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private ObjectNode toJson(final ChannelPosition channelPosition, final Instant now) {
+        final ObjectNode json = OBJECT_MAPPER.createObjectNode();
+        json.put("channelName", channelName);
+        json.put("timestamp", now.toString());
+        final ArrayNode shards = json.putArray("shards");
+        channelPosition.shards().forEach(shardName -> {
+            final ShardPosition shardPosition = channelPosition.shard(shardName);
+            final ObjectNode shard = shards.addObject();
+            shard.put("shardName", shardName);
+            shard.put("startFrom", shardPosition.startFrom().name());
+            shard.put("position", shardPosition.position());
+            if (shardPosition.timestamp() != null) {
+                shard.put("timestamp", shardPosition.timestamp().toString());
+            }
+        });
+        return json;
+    }
+
+    private static ShardPosition toShardPosition(final JsonNode shard) {
+        final String shardName = shard.path("shardName").asText();
+        switch (StartFrom.valueOf(shard.path("startFrom").asText())) {
+            case HORIZON:
+                return ShardPosition.fromHorizon(shardName);
+            case POSITION:
+                return ShardPosition.fromPosition(shardName, shard.path("position").asText());
+            case AT_POSITION:
+                return ShardPosition.atPosition(shardName, shard.path("position").asText());
+            case TIMESTAMP:
+                return ShardPosition.fromTimestamp(shardName, Instant.parse(shard.path("timestamp").asText()));
+            default:
+                throw new IllegalArgumentException("Unsupported shard position " + shard);
+        }
+    }
+}
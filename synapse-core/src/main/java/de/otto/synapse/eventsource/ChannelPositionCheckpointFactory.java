@@ -0,0 +1,21 @@
+package de.otto.synapse.eventsource;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A factory used to create the {@link ChannelPositionCheckpoint} of an {@link EventSource}.
+ */
+@FunctionalInterface
+public interface ChannelPositionCheckpointFactory {
+
+    /**
+     * Creates and returns a {@link ChannelPositionCheckpoint}.
+     *
+     * @param channelName the name of the channel associated to the checkpoint.
+     * @return ChannelPositionCheckpoint, or null, if the channel must be consumed without checkpoint
+     */
+    @Nullable
+    ChannelPositionCheckpoint createCheckpointFor(@Nonnull String channelName);
+
+}
@@ -1,9 +1,12 @@
 package de.otto.synapse.eventsource;
 
 import de.otto.synapse.channel.ChannelPosition;
+import de.otto.synapse.channel.ShardPosition;
 import de.otto.synapse.channel.ShardResponse;
+import de.otto.synapse.consumer.MessageDispatcher;
 import de.otto.synapse.endpoint.receiver.MessageLogReceiverEndpoint;
 import de.otto.synapse.logging.LogHelper;
+import de.otto.synapse.message.TextMessage;
 import de.otto.synapse.messagestore.MessageStore;
 import de.otto.synapse.messagestore.MessageStoreEntry;
 import org.slf4j.Logger;
@@ -12,30 +15,87 @@ import org.slf4j.Marker;
 import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
+import static java.util.concurrent.CompletableFuture.completedFuture;
 import static java.util.concurrent.Executors.newSingleThreadExecutor;
 import static org.slf4j.LoggerFactory.getLogger;
 
+/**
+ * An {@link EventSource} that is first replaying the messages of a {@link MessageStore}, before it continues
+ * consuming the {@link MessageLogReceiverEndpoint message log} at the latest channel position of the store.
+ * <p>
+ *     The messages of the store are replayed using a {@link KeyPartitionedReplay}: messages with different
+ *     compaction keys are dispatched concurrently, while messages with the same compaction key keep their ordering.
+ * </p>
+ * <p>
+ *     If the event source is created with a {@link MessageStoreReplayCoordinator}, the replay is scheduled by the
+ *     coordinator, so the number of message stores that are replayed concurrently is limited, and the replays of all
+ *     event sources share the same worker threads.
+ * </p>
+ * <p>
+ *     If the event source is created with the restored position of a {@link ChannelPositionCheckpoint}, the replay
+ *     of the message store is skipped, and the message log is consumed starting at the position of the checkpoint.
+ *     While consuming the message log, the checkpoint is updated periodically.
+ * </p>
+ */
 public class DefaultEventSource extends AbstractEventSource {
 
     private static final Logger LOG = getLogger(DefaultEventSource.class);
     private static final int LOG_MESSAGE_COUNTER_EVERY_NTH_MESSAGE = 100_000;
+    private static final int MESSAGE_STORE_BATCH_SIZE = 1000;
 
     private final MessageStore messageStore;
     private final Marker marker;
+    private final MessageStoreReplayCoordinator replayCoordinator;
+    private final ChannelPositionCheckpoint checkpoint;
+    private final ChannelPosition checkpointPosition;
 
     public DefaultEventSource(final @Nonnull MessageStore messageStore,
                               final @Nonnull MessageLogReceiverEndpoint messageLog) {
+        this(messageStore, messageLog, (MessageStoreReplayCoordinator) null);
+    }
+
+    public DefaultEventSource(final @Nonnull MessageStore messageStore,
+                              final @Nonnull MessageLogReceiverEndpoint messageLog,
+                              final @Nullable MessageStoreReplayCoordinator replayCoordinator) {
+        this(messageStore, messageLog, replayCoordinator, null, null);
+    }
+
+    /**
+     * Creates a DefaultEventSource that is continuing at the restored position of a checkpoint.
+     *
+     * @param messageStore the message store that is replayed, if no checkpoint position is given
+     * @param messageLog the message log
+     * @param replayCoordinator the coordinator used to replay the message store, or null
+     * @param checkpoint the checkpoint updated while consuming the message log, or null
+     * @param checkpointPosition the {@link ChannelPositionCheckpoint#restore() restored} position of the checkpoint,
+     *                           or null, if the message store must be replayed
+     */
+    public DefaultEventSource(final @Nonnull MessageStore messageStore,
+                              final @Nonnull MessageLogReceiverEndpoint messageLog,
+                              final @Nullable MessageStoreReplayCoordinator replayCoordinator,
+                              final @Nullable ChannelPositionCheckpoint checkpoint,
+                              final @Nullable ChannelPosition checkpointPosition) {
         super(messageLog);
         this.messageStore = messageStore;
         this.marker = null;
+        this.replayCoordinator = replayCoordinator;
+        this.checkpoint = checkpoint;
+        this.checkpointPosition = checkpointPosition;
     }
 
     public DefaultEventSource(final @Nonnull MessageStore messageStore,
@@ -44,16 +104,30 @@ public class DefaultEventSource extends AbstractEventSource {
         super(messageLog);
         this.messageStore = messageStore;
         this.marker = marker;
+        this.replayCoordinator = null;
+        this.checkpoint = null;
+        this.checkpointPosition = null;
     }
 
     @Nonnull
     @Override
     public CompletableFuture<ChannelPosition> consumeUntil(final @Nonnull Predicate<ShardResponse> stopCondition) {
-        return consumeMessageStore()
-                .thenCompose(channelPosition -> getMessageLogReceiverEndpoint().consumeUntil(channelPosition, stopCondition))
+        final CompletableFuture<ChannelPosition> startFrom;
+        if (checkpointPosition != null) {
+            LOG.info(marker, "Skipping replay of message store for channel '{}': continuing at checkpoint {}", getChannelName(), checkpointPosition);
+            startFrom = completedFuture(checkpointPosition);
+        } else {
+            startFrom = consumeMessageStore();
+        }
+        return startFrom
+                .thenCompose(channelPosition -> getMessageLogReceiverEndpoint().consumeUntil(
+                        channelPosition,
+                        checkpoint != null ? checkpoint.tracking(channelPosition, stopCondition) : stopCondition))
                 .handle((channelPosition, throwable) -> {
                     if (throwable != null) {
                         LOG.error(marker, "Failed to start consuming from EventSource {}: {}. Closing MessageStore.", getChannelName(), throwable.getMessage(), throwable);
+                    } else if (checkpoint != null && channelPosition != null) {
+                        checkpoint.write(channelPosition);
                     }
                     try {
                         messageStore.close();
@@ -66,71 +140,86 @@ public class DefaultEventSource extends AbstractEventSource {
 
 
     private CompletableFuture<ChannelPosition> consumeMessageStore() {
-
-        int numberOfDispatcherThreads = 1;
-        if (messageStore.isCompacting()) {
-            numberOfDispatcherThreads = Runtime.getRuntime().availableProcessors();
-        }
-
-        final ExecutorService executorService = Executors.newCachedThreadPool(new CustomizableThreadFactory("synapse-messagestore-dispatcher-"));
-        final Semaphore lock = new Semaphore(numberOfDispatcherThreads);
         final String channelName = getChannelName();
-
-        LOG.info(marker, "Starting to read message store for channel '{}'.", channelName);
-        Instant startTime = Instant.now();
-
-        final AtomicLong messageCounter = new AtomicLong();
-        final long firstMessageLogTime = System.currentTimeMillis();
-        final AtomicLong previousMessageLogTime = new AtomicLong(System.currentTimeMillis());
-
         final Map<String, String> copyOfContextMap = MDC.getCopyOfContextMap();
 
-        return CompletableFuture.supplyAsync(() -> {
+        final KeyPartitionedReplay replay = replayCoordinator != null
+                ? replayCoordinator.getReplay()
+                : new KeyPartitionedReplay(Runtime.getRuntime().availableProcessors());
+
+        final Supplier<ChannelPosition> replayMessageStore = () -> {
             if (copyOfContextMap != null) {
                 MDC.setContextMap(copyOfContextMap);
             }
-            messageStore
+            LOG.info(marker, "Starting to read message store for channel '{}'.", channelName);
+            final Instant startTime = Instant.now();
+
+            final AtomicLong messageCounter = new AtomicLong();
+            final long firstMessageLogTime = System.currentTimeMillis();
+            final AtomicLong previousMessageLogTime = new AtomicLong(System.currentTimeMillis());
+
+            final MessageDispatcher messageDispatcher = getMessageLogReceiverEndpoint().getMessageDispatcher();
+            final Map<String, List<TextMessage>> batchesPerShard = new HashMap<>();
+            try (final Stream<TextMessage> messages = messageStore
                     .stream()
                     .filter(entry -> entry.getChannelName().equals(channelName))
                     .map(MessageStoreEntry::getTextMessage)
                     .map(message -> getMessageLogReceiverEndpoint().intercept(message))
                     .filter(Objects::nonNull)
-                    .forEach(message -> {
-                        try {
-                            lock.acquire();
-                        } catch (InterruptedException e) {
-                            LOG.error(marker, e.getMessage(), e);
-                        }
-                        executorService.execute(() -> {
-                            if (copyOfContextMap != null) {
-                                MDC.setContextMap(copyOfContextMap);
+                    .peek(message -> {
+                        if (messageDispatcher.hasBatchMessageConsumers()) {
+                            final String shardName = shardNameOf(message);
+                            final List<TextMessage> batch = batchesPerShard.computeIfAbsent(shardName, name -> new ArrayList<>(MESSAGE_STORE_BATCH_SIZE));
+                            batch.add(message);
+                            if (batch.size() >= MESSAGE_STORE_BATCH_SIZE) {
+                                dispatchBatch(messageDispatcher, shardName, batch);
+                                batch.clear();
                             }
-                            try {
-                                getMessageLogReceiverEndpoint().getMessageDispatcher().accept(message);
-                            } finally {
-                                long counter = messageCounter.getAndIncrement();
-                                if (counter > 0 && counter % LOG_MESSAGE_COUNTER_EVERY_NTH_MESSAGE == 0) {
-                                    double messagesPerSecond = LogHelper.calculateMessagesPerSecond(previousMessageLogTime.getAndSet(System.currentTimeMillis()), LOG_MESSAGE_COUNTER_EVERY_NTH_MESSAGE);
-                                    LOG.info(marker, "Consumed {} messages ({} per second) from message store for channel '{}'", counter, String.format( "%.2f", messagesPerSecond), channelName );
-                                }
-                                lock.release();
-                            }
-                        });
-                    });
-            executorService.shutdown();
-            try {
-                executorService.awaitTermination(Long.MAX_VALUE, TimeUnit.MINUTES);
-                LOG.info(marker, "Consumed a total of {} messages from message store for channel '{}', totalMessagesPerSecond={}", messageCounter.get(), channelName, String.format( "%.2f", LogHelper.calculateMessagesPerSecond(firstMessageLogTime, messageCounter.get())));
-            } catch (InterruptedException e) {
-                LOG.error(marker, e.getMessage(), e);
+                        }
+                    })) {
+                replay.replay(messages, messageDispatcher, processed -> {
+                    final long counter = messageCounter.addAndGet(processed);
+                    if (counter / LOG_MESSAGE_COUNTER_EVERY_NTH_MESSAGE > (counter - processed) / LOG_MESSAGE_COUNTER_EVERY_NTH_MESSAGE) {
+                        double messagesPerSecond = LogHelper.calculateMessagesPerSecond(previousMessageLogTime.getAndSet(System.currentTimeMillis()), LOG_MESSAGE_COUNTER_EVERY_NTH_MESSAGE);
+                        LOG.info(marker, "Consumed {} messages ({} per second) from message store for channel '{}'", counter, String.format( "%.2f", messagesPerSecond), channelName );
+                    }
+                });
             }
-
+            batchesPerShard.forEach((shardName, batch) -> dispatchBatch(messageDispatcher, shardName, batch));
+            LOG.info(marker, "Consumed a total of {} messages from message store for channel '{}', totalMessagesPerSecond={}", messageCounter.get(), channelName, String.format( "%.2f", LogHelper.calculateMessagesPerSecond(firstMessageLogTime, messageCounter.get())));
             LOG.info(marker, "Finished reading message store for channel '{}'. Duration was {}.", channelName, Duration.between(startTime, Instant.now()));
 
             return messageStore.getLatestChannelPosition(channelName);
-        }, newSingleThreadExecutor(
-                new CustomizableThreadFactory("synapse-eventsource-")
-        ));
+        };
+
+        if (replayCoordinator != null) {
+            return replayCoordinator.schedule(channelName, replayMessageStore);
+        } else {
+            final ExecutorService executorService = newSingleThreadExecutor(new CustomizableThreadFactory("synapse-eventsource-"));
+            return CompletableFuture
+                    .supplyAsync(replayMessageStore, executorService)
+                    .whenComplete((channelPosition, throwable) -> executorService.shutdown());
+        }
+    }
+
+    private static String shardNameOf(final TextMessage message) {
+        return message.getHeader().getShardPosition()
+                .map(ShardPosition::shardName)
+                .orElse("");
+    }
+
+    private void dispatchBatch(final MessageDispatcher messageDispatcher,
+                               final String shardName,
+                               final List<TextMessage> batch) {
+        if (!batch.isEmpty()) {
+            final ShardPosition shardPosition = batch.get(batch.size() - 1).getHeader().getShardPosition()
+                    .orElse(ShardPosition.fromHorizon(shardName));
+            try {
+                messageDispatcher.acceptBatch(shardPosition, batch);
+            } catch (final Exception e) {
+                LOG.error(marker, "Error processing batch of messages: " + e.getMessage(), e);
+            }
+        }
     }
 
 }
@@ -1,27 +1,80 @@
 package de.otto.synapse.eventsource;
 
+import de.otto.synapse.channel.ChannelPosition;
 import de.otto.synapse.channel.selector.MessageLog;
 import de.otto.synapse.channel.selector.Selector;
 import de.otto.synapse.endpoint.receiver.MessageLogReceiverEndpoint;
 import de.otto.synapse.messagestore.MessageStore;
 import de.otto.synapse.messagestore.MessageStoreFactory;
 
+import javax.annotation.Nullable;
+
+import static de.otto.synapse.messagestore.MessageStores.emptyMessageStore;
+
 public class DefaultEventSourceBuilder implements EventSourceBuilder {
 
     private final MessageStoreFactory<? extends MessageStore> snapshotMessageStoreFactory;
     private final Class<? extends MessageLog> selector;
+    private final MessageStoreReplayCoordinator replayCoordinator;
+    private final ChannelPositionCheckpointFactory checkpointFactory;
 
     public DefaultEventSourceBuilder(final MessageStoreFactory<? extends MessageStore> snapshotMessageStoreFactory,
                                      final Class<? extends MessageLog> selector) {
+        this(snapshotMessageStoreFactory, selector, null);
+    }
+
+    /**
+     * Creates a DefaultEventSourceBuilder building event sources that are replaying their message stores using
+     * the given {@link MessageStoreReplayCoordinator}.
+     *
+     * @param snapshotMessageStoreFactory the factory used to create the message stores of the event sources
+     * @param selector the selector of the message logs
+     * @param replayCoordinator the coordinator used to replay the message stores, or null
+     */
+    public DefaultEventSourceBuilder(final MessageStoreFactory<? extends MessageStore> snapshotMessageStoreFactory,
+                                     final Class<? extends MessageLog> selector,
+                                     final @Nullable MessageStoreReplayCoordinator replayCoordinator) {
+        this(snapshotMessageStoreFactory, selector, replayCoordinator, null);
+    }
+
+    /**
+     * Creates a DefaultEventSourceBuilder building event sources that are continuing at a
+     * {@link ChannelPositionCheckpoint} instead of replaying the message store, if a valid checkpoint exists.
+     * <p>
+     *     The message store of a channel is not created, if the checkpoint of the channel can be restored.
+     * </p>
+     *
+     * @param snapshotMessageStoreFactory the factory used to create the message stores of the event sources
+     * @param selector the selector of the message logs
+     * @param replayCoordinator the coordinator used to replay the message stores, or null
+     * @param checkpointFactory the factory used to create the checkpoints of the event sources, or null. The factory
+     *                          may return null for channels without checkpoint.
+     */
+    public DefaultEventSourceBuilder(final MessageStoreFactory<? extends MessageStore> snapshotMessageStoreFactory,
+                                     final Class<? extends MessageLog> selector,
+                                     final @Nullable MessageStoreReplayCoordinator replayCoordinator,
+                                     final @Nullable ChannelPositionCheckpointFactory checkpointFactory) {
         this.snapshotMessageStoreFactory = snapshotMessageStoreFactory;
         this.selector = selector;
+        this.replayCoordinator = replayCoordinator;
+        this.checkpointFactory = checkpointFactory;
     }
 
     @Override
     public EventSource buildEventSource(MessageLogReceiverEndpoint messageLogReceiverEndpoint) {
         final String channelName = messageLogReceiverEndpoint.getChannelName();
-        final MessageStore messageStore = snapshotMessageStoreFactory.createMessageStoreFor(channelName);
-        return new DefaultEventSource(messageStore, messageLogReceiverEndpoint);
+        final ChannelPositionCheckpoint checkpoint = checkpointFactory != null
+                ? checkpointFactory.createCheckpointFor(channelName)
+                : null;
+        // the checkpoint is restored only once, so the decision to skip the snapshot can not change until the
+        // event source is started:
+        final ChannelPosition checkpointPosition = checkpoint != null
+                ? checkpoint.restore().orElse(null)
+                : null;
+        final MessageStore messageStore = checkpointPosition != null
+                ? emptyMessageStore()
+                : snapshotMessageStoreFactory.createMessageStoreFor(channelName);
+        return new DefaultEventSource(messageStore, messageLogReceiverEndpoint, replayCoordinator, checkpoint, checkpointPosition);
     }
 
     @Override
@@ -2,6 +2,7 @@ package de.otto.synapse.eventsource;
 
 import de.otto.synapse.channel.ChannelPosition;
 import de.otto.synapse.channel.ShardResponse;
+import de.otto.synapse.consumer.BatchMessageConsumer;
 import de.otto.synapse.consumer.MessageConsumer;
 import de.otto.synapse.consumer.MessageDispatcher;
 import de.otto.synapse.endpoint.receiver.MessageLogReceiverEndpoint;
@@ -33,6 +34,19 @@ public interface EventSource {
      */
     void register(MessageConsumer<?> messageConsumer);
 
+    /**
+     * Registers a BatchMessageConsumer at the EventSource.
+     * <p>
+     *     Batch consumers are called once for all matching messages of a {@link de.otto.synapse.channel.ShardResponse}.
+     *     Just like {@link MessageConsumer consumers}, they have to be thread safe.
+     * </p>
+     *
+     * @param batchMessageConsumer registered BatchMessageConsumer
+     */
+    default void register(final BatchMessageConsumer<?> batchMessageConsumer) {
+        getMessageDispatcher().add(batchMessageConsumer);
+    }
+
     /**
      * Returns the MessageDispatcher used by the EventSource to translate and sent incoming messages to the
      * registered {@link MessageConsumer message consumers}.
@@ -0,0 +1,257 @@
+package de.otto.synapse.eventsource;
+
+import de.otto.synapse.message.TextMessage;
+import org.slf4j.Logger;
+import org.slf4j.MDC;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.stream.Stream;
+
+import static java.util.Collections.emptyList;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Replays a stream of messages, for example the messages of a {@link de.otto.synapse.messagestore.MessageStore},
+ * using a fixed number of worker threads.
+ * <p>
+ *     Messages are assigned to workers using the hash of their {@link de.otto.synapse.message.Key#compactionKey()
+ *     compaction key}, so all messages with the same compaction key are processed by the same worker, in the order
+ *     of the stream. Messages with different compaction keys may be processed concurrently.
+ * </p>
+ * <p>
+ *     The messages are handed over to the workers in batches, using a bounded queue per worker: if the workers are
+ *     not able to keep up with the stream, the thread reading the stream is blocked until a worker has taken the
+ *     next batch from its queue.
+ * </p>
+ * <p>
+ *     A replay using a single worker processes all messages in the calling thread. Otherwise, the workers are
+ *     either running in a thread pool that is created for every replay, or in a shared {@link ExecutorService}
+ *     (see {@link MessageStoreReplayCoordinator}).
+ * </p>
+ */
+public class KeyPartitionedReplay {
+
+    private static final Logger LOG = getLogger(KeyPartitionedReplay.class);
+
+    /**
+     * The default number of messages that are handed over to a worker at once.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 256;
+    /**
+     * The default number of batches that are queued per worker.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 4;
+
+    private static final List<TextMessage> END_OF_STREAM = emptyList();
+
+    private final ExecutorService sharedExecutorService;
+    private final int workers;
+    private final int batchSize;
+    private final int queueCapacity;
+
+    /**
+     * Creates a KeyPartitionedReplay using the {@link #DEFAULT_BATCH_SIZE default batch size} and
+     * {@link #DEFAULT_QUEUE_CAPACITY queue capacity}.
+     *
+     * @param workers the number of worker threads. Values less or equal 1 will process messages in the calling
+     *                thread.
+     */
+    public KeyPartitionedReplay(final int workers) {
+        this(workers, DEFAULT_BATCH_SIZE, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Creates a KeyPartitionedReplay.
+     *
+     * @param workers the number of worker threads. Values less or equal 1 will process messages in the calling
+     *                thread.
+     * @param batchSize the maximum number of messages that are handed over to a worker at once
+     * @param queueCapacity the maximum number of batches that are queued per worker
+     */
+    public KeyPartitionedReplay(final int workers,
+                                final int batchSize,
+                                final int queueCapacity) {
+        this(null, workers, batchSize, queueCapacity);
+    }
+
+    /**
+     * Creates a KeyPartitionedReplay that is running the workers using a shared ExecutorService.
+     * <p>
+     *     Every replay is occupying {@code workers} threads of the executor until the replay is finished, so the
+     *     executor must be able to run {@code workers} tasks concurrently for every concurrent replay.
+     * </p>
+     *
+     * @param executorService the executor used to run the workers, or null if a thread pool should be created
+     *                        for every replay
+     * @param workers the number of worker threads. Values less or equal 1 will process messages in the calling
+     *                thread.
+     * @param batchSize the maximum number of messages that are handed over to a worker at once
+     * @param queueCapacity the maximum number of batches that are queued per worker
+     */
+    public KeyPartitionedReplay(final @Nullable ExecutorService executorService,
+                                final int workers,
+                                final int batchSize,
+                                final int queueCapacity) {
+        if (batchSize < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("batchSize and queueCapacity must be greater than zero");
+        }
+        this.sharedExecutorService = executorService;
+        this.workers = Math.max(workers, 1);
+        this.batchSize = batchSize;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * @return the number of worker threads; 1 if messages are processed in the calling thread.
+     */
+    public int getWorkers() {
+        return workers;
+    }
+
+    /**
+     * Replays the messages of a stream and waits until all messages are processed.
+     * <p>
+     *     Exceptions thrown by the consumer are logged, and processing continues with the next message.
+     * </p>
+     *
+     * @param messages the stream of messages
+     * @param consumer the consumer of the messages. The consumer is called concurrently by multiple workers.
+     * @param progress called by the workers with the number of processed messages, after a batch of messages
+     *                 is processed
+     * @return the number of replayed messages
+     */
+    public long replay(final @Nonnull Stream<TextMessage> messages,
+                       final @Nonnull Consumer<TextMessage> consumer,
+                       final @Nonnull IntConsumer progress) {
+        if (workers == 1) {
+            return replaySequentially(messages, consumer, progress);
+        }
+        final Map<String, String> contextMap = MDC.getCopyOfContextMap();
+        final ExecutorService executorService = sharedExecutorService != null
+                ? sharedExecutorService
+                : newFixedThreadPool(workers, new CustomizableThreadFactory("synapse-messagestore-dispatcher-"));
+        final List<BlockingQueue<List<TextMessage>>> queues = new ArrayList<>(workers);
+        final List<CompletableFuture<Void>> futures = new ArrayList<>(workers);
+        for (int i = 0; i < workers; ++i) {
+            final BlockingQueue<List<TextMessage>> queue = new ArrayBlockingQueue<>(queueCapacity);
+            queues.add(queue);
+            futures.add(CompletableFuture.runAsync(() -> work(queue, consumer, progress, contextMap), executorService));
+        }
+        long count = 0;
+        boolean completed = false;
+        try {
+            final List<List<TextMessage>> batches = new ArrayList<>(workers);
+            for (int i = 0; i < workers; ++i) {
+                batches.add(new ArrayList<>(batchSize));
+            }
+            final Iterator<TextMessage> iterator = messages.iterator();
+            while (iterator.hasNext()) {
+                final TextMessage message = iterator.next();
+                final int worker = workerOf(message);
+                final List<TextMessage> batch = batches.get(worker);
+                batch.add(message);
+                ++count;
+                if (batch.size() >= batchSize) {
+                    queues.get(worker).put(batch);
+                    batches.set(worker, new ArrayList<>(batchSize));
+                }
+            }
+            for (int i = 0; i < workers; ++i) {
+                if (!batches.get(i).isEmpty()) {
+                    queues.get(i).put(batches.get(i));
+                }
+            }
+            for (final BlockingQueue<List<TextMessage>> queue : queues) {
+                queue.put(END_OF_STREAM);
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get();
+            completed = true;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while replaying messages", e);
+        } catch (final ExecutionException e) {
+            throw new IllegalStateException(e.getCause().getMessage(), e.getCause());
+        } finally {
+            if (!completed) {
+                // stop the workers after their current batch, if reading the stream has failed:
+                for (final BlockingQueue<List<TextMessage>> queue : queues) {
+                    queue.clear();
+                    queue.offer(END_OF_STREAM);
+                }
+            }
+            if (executorService != sharedExecutorService) {
+                executorService.shutdown();
+            }
+        }
+        return count;
+    }
+
+    private long replaySequentially(final Stream<TextMessage> messages,
+                                    final Consumer<TextMessage> consumer,
+                                    final IntConsumer progress) {
+        long count = 0;
+        int pending = 0;
+        final Iterator<TextMessage> iterator = messages.iterator();
+        while (iterator.hasNext()) {
+            process(iterator.next(), consumer);
+            ++count;
+            if (++pending == batchSize) {
+                progress.accept(pending);
+                pending = 0;
+            }
+        }
+        if (pending > 0) {
+            progress.accept(pending);
+        }
+        return count;
+    }
+
+    private void work(final BlockingQueue<List<TextMessage>> queue,
+                      final Consumer<TextMessage> consumer,
+                      final IntConsumer progress,
+                      final Map<String, String> contextMap) {
+        if (contextMap != null) {
+            MDC.setContextMap(contextMap);
+        }
+        try {
+            List<TextMessage> batch = queue.take();
+            while (batch != END_OF_STREAM) {
+                for (final TextMessage message : batch) {
+                    process(message, consumer);
+                }
+                progress.accept(batch.size());
+                batch = queue.take();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            MDC.clear();
+        }
+    }
+
+    private int workerOf(final TextMessage message) {
+        return Math.floorMod(message.getKey().compactionKey().hashCode(), workers);
+    }
+
+    private static void process(final TextMessage message, final Consumer<TextMessage> consumer) {
+        try {
+            consumer.accept(message);
+        } catch (final Exception e) {
+            LOG.error("Error processing message: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package de.otto.synapse.eventsource;
+
+import org.slf4j.Logger;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Coordinates the replay of the {@link de.otto.synapse.messagestore.MessageStore message stores} of multiple
+ * {@link DefaultEventSource event sources} during startup.
+ * <p>
+ *     Without a coordinator, every DefaultEventSource is replaying its message store in its own threads as soon
+ *     as it is started, so all snapshots of a service are loaded at the same time. Using a coordinator, at most
+ *     {@code parallelism} message stores are replayed concurrently, while the replays of the other event sources
+ *     are queued. This is limiting the number of threads, and the memory needed to load the message stores.
+ * </p>
+ * <p>
+ *     All replays share a single pool of worker threads that is used by the {@link KeyPartitionedReplay}. Progress
+ *     is logged every time a replay is finished.
+ * </p>
+ */
+@ThreadSafe
+public class MessageStoreReplayCoordinator implements AutoCloseable {
+
+    private static final Logger LOG = getLogger(MessageStoreReplayCoordinator.class);
+
+    private final int parallelism;
+    private final ExecutorService readerExecutorService;
+    private final ExecutorService workerExecutorService;
+    private final KeyPartitionedReplay replay;
+    private final AtomicInteger scheduledReplays = new AtomicInteger();
+    private final AtomicInteger finishedReplays = new AtomicInteger();
+
+    /**
+     * Creates a MessageStoreReplayCoordinator.
+     *
+     * @param parallelism the maximum number of message stores that are replayed concurrently
+     * @param workersPerReplay the number of worker threads used to replay a single message store
+     */
+    public MessageStoreReplayCoordinator(final int parallelism,
+                                         final int workersPerReplay) {
+        if (parallelism < 1 || workersPerReplay < 1) {
+            throw new IllegalArgumentException("parallelism and workersPerReplay must be greater than zero");
+        }
+        this.parallelism = parallelism;
+        this.readerExecutorService = newFixedThreadPool(parallelism, new CustomizableThreadFactory("synapse-eventsource-"));
+        if (workersPerReplay > 1) {
+            this.workerExecutorService = newFixedThreadPool(parallelism * workersPerReplay, new CustomizableThreadFactory("synapse-messagestore-dispatcher-"));
+        } else {
+            this.workerExecutorService = null;
+        }
+        this.replay = new KeyPartitionedReplay(
+                workerExecutorService,
+                workersPerReplay,
+                KeyPartitionedReplay.DEFAULT_BATCH_SIZE,
+                KeyPartitionedReplay.DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @return the maximum number of message stores that are replayed concurrently
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Returns the {@link KeyPartitionedReplay} that is used to replay message stores, using the shared pool of
+     * worker threads. The replay must only be used by replays {@link #schedule(String, Supplier) scheduled} by
+     * this coordinator.
+     *
+     * @return KeyPartitionedReplay
+     */
+    @Nonnull
+    public KeyPartitionedReplay getReplay() {
+        return replay;
+    }
+
+    /**
+     * @return the number of replays that have been scheduled
+     */
+    public int getScheduledReplays() {
+        return scheduledReplays.get();
+    }
+
+    /**
+     * @return the number of replays that are finished, either successfully or exceptionally
+     */
+    public int getFinishedReplays() {
+        return finishedReplays.get();
+    }
+
+    /**
+     * Schedules the replay of a message store. The replay is started as soon as less than {@code parallelism}
+     * other replays are running.
+     *
+     * @param channelName the name of the channel of the replayed message store
+     * @param replay the replay of the message store
+     * @param <T> the result type of the replay
+     * @return CompletableFuture completing with the result of the replay
+     */
+    @Nonnull
+    public <T> CompletableFuture<T> schedule(final @Nonnull String channelName,
+                                             final @Nonnull Supplier<T> replay) {
+        final int scheduled = scheduledReplays.incrementAndGet();
+        LOG.info("Scheduled replay of message store for channel '{}' ({} of {} replays finished)", channelName, finishedReplays.get(), scheduled);
+        return CompletableFuture
+                .supplyAsync(replay, readerExecutorService)
+                .whenComplete((result, throwable) -> {
+                    final int finished = finishedReplays.incrementAndGet();
+                    LOG.info("Finished replay of message store for channel '{}' ({} of {} replays finished)", channelName, finished, scheduledReplays.get());
+                });
+    }
+
+    /**
+     * Shuts down the threads of the coordinator.
+     */
+    @Override
+    public void close() {
+        readerExecutorService.shutdownNow();
+        if (workerExecutorService != null) {
+            workerExecutorService.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package de.otto.synapse.message;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.nio.ByteBuffer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A {@link TextMessage} that is keeping the UTF-8 encoded payload of a record, as received from the channel.
+ * <p>
+ *     The payload is only converted into a {@code String} on the first call of {@link #getPayload()}. Consumers
+ *     and interceptors that are not calling {@code getPayload()} will never materialize the String: the
+ *     {@link de.otto.synapse.consumer.MessageDispatcher} is deserializing the payload of BinaryMessages directly
+ *     from the {@link #getPayloadBytes() bytes} of the record.
+ * </p>
+ * <p>
+ *     BinaryMessages are serialized as regular {@link TextMessage TextMessages}.
+ * </p>
+ */
+@ThreadSafe
+public class BinaryMessage extends TextMessage {
+
+    private static final long serialVersionUID = -5071528717462263452L;
+
+    private transient final ByteBuffer payloadBytes;
+    private transient volatile String materializedPayload;
+
+    protected BinaryMessage(final @Nonnull Key key,
+                            final @Nonnull Header header,
+                            final @Nonnull ByteBuffer payloadBytes) {
+        super(key, header, null);
+        this.payloadBytes = payloadBytes.slice();
+    }
+
+    /**
+     * Factory method used to create a {@code BinaryMessage} from key, header and the UTF-8 encoded payload.
+     * <p>
+     *     The buffer is not copied: the bytes between the current position and the limit of the buffer are
+     *     used as payload, so the content of the buffer must not be modified afterwards.
+     * </p>
+     *
+     * @param key Key of the created message
+     * @param header Header of the created message
+     * @param payloadBytes UTF-8 encoded payload of the created message
+     * @return BinaryMessage
+     */
+    @Nonnull
+    public static BinaryMessage of(final @Nonnull Key key,
+                                   final @Nonnull Header header,
+                                   final @Nonnull ByteBuffer payloadBytes) {
+        return new BinaryMessage(key, header, payloadBytes);
+    }
+
+    /**
+     * Returns a view of the UTF-8 encoded payload. The content of the buffer must not be modified.
+     *
+     * @return payload bytes
+     */
+    @Nonnull
+    public ByteBuffer getPayloadBytes() {
+        return payloadBytes.duplicate();
+    }
+
+    /**
+     * Returns true, if the payload was already converted into a String.
+     *
+     * @return boolean
+     */
+    public boolean isMaterialized() {
+        return materializedPayload != null;
+    }
+
+    /**
+     * Returns the payload of the message. The payload is converted into a String on the first call of this method.
+     *
+     * @return payload
+     */
+    @Nullable
+    @Override
+    public String getPayload() {
+        String payload = materializedPayload;
+        if (payload == null) {
+            payload = UTF_8.decode(payloadBytes.duplicate()).toString();
+            materializedPayload = payload;
+        }
+        return payload;
+    }
+
+    @Nonnull
+    @Override
+    public TextMessage withHeader(final @Nonnull Header header) {
+        return new BinaryMessage(getKey(), header, payloadBytes);
+    }
+
+    @Override
+    public String toString() {
+        return "BinaryMessage{" +
+                "of='" + getKey() + '\'' +
+                ", payload=" + (materializedPayload != null ? materializedPayload : UTF_8.decode(payloadBytes.duplicate())) +
+                ", header=" + getHeader() +
+                '}';
+    }
+
+    private Object writeReplace() {
+        return TextMessage.of(getKey(), getHeader(), getPayload());
+    }
+
+}
@@ -13,6 +13,7 @@ import javax.annotation.Nullable;
 import java.io.Serializable;
 import java.time.Instant;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
@@ -28,6 +29,20 @@ import java.util.Optional;
  * <p>
  *     <img src="http://www.enterpriseintegrationpatterns.com/img/MessageSolution.gif" alt="Message">
  * </p>
+ * <p>
+ *     Headers are immutable. Attributes can be added using {@link #withAttribute(String, String)} and similar
+ *     methods: the returned Header is only containing the added attributes and refers to the original header
+ *     for all other attributes, so {@link de.otto.synapse.endpoint.MessageInterceptor interceptors} are able to
+ *     add attributes without copying the attributes of the original header. The attributes of all layers
+ *     are merged on the first call of {@link #getAll()}.
+ * </p>
+ * <p>
+ *     The timestamp attributes {@link DefaultHeaderAttr#MSG_ARRIVAL_TS}, {@link DefaultHeaderAttr#MSG_SENDER_TS}
+ *     and {@link DefaultHeaderAttr#MSG_RECEIVER_TS} are kept as {@link Instant instants} if they are added as
+ *     instants, and they are only converted into strings if all attributes are requested using {@code getAll()},
+ *     for example when the header is serialized. If these attributes are added as strings, they are parsed at
+ *     most once.
+ * </p>
  * @see <a href="http://www.enterpriseintegrationpatterns.com/patterns/messaging/Message.html">EIP: Message</a>
  */
 public class Header implements Serializable {
@@ -35,6 +50,16 @@ public class Header implements Serializable {
 
     private static final long serialVersionUID = -6285737687861009394L;
 
+    /** The maximum number of layers, before the attributes of a Header are merged into a single map. */
+    private static final int MAX_DEPTH = 8;
+
+    /** The keys of the timestamp attributes that are kept as {@link Instant instants}. */
+    private static final String[] TIMESTAMP_KEYS = {
+            DefaultHeaderAttr.MSG_ARRIVAL_TS.key(),
+            DefaultHeaderAttr.MSG_SENDER_TS.key(),
+            DefaultHeaderAttr.MSG_RECEIVER_TS.key()
+    };
+
     public static Header of() {
         return new Header(null, ImmutableMap.of());
     }
@@ -57,18 +82,111 @@ public class Header implements Serializable {
     }
 
     public static Builder copyOf(final Header header) {
-        return new Builder()
-                .withShardPosition(header.shardPosition)
-                .withAttributes(header.getAll());
+        final Builder builder = new Builder();
+        if (header.shardPosition != null) {
+            builder.withShardPosition(header.shardPosition);
+        }
+        header.copyTo(builder);
+        return builder;
     }
 
     private final ShardPosition shardPosition;
     private final ImmutableMap<String, String> attributes;
+    private transient final Header parent;
+    private transient final int depth;
+    private transient final boolean hasInstants;
+    /**
+     * Timestamp attributes of this layer, indexed like {@link #TIMESTAMP_KEYS}. Slots of keys that are contained
+     * in {@link #attributes} are used to memoize the parsed value of the attribute.
+     */
+    private transient volatile Instant[] timestamps;
+    private transient volatile ImmutableMap<String, String> all;
 
     private Header(final ShardPosition shardPosition,
                    final ImmutableMap<String, String> attributes) {
+        this(shardPosition, attributes, null, null);
+    }
+
+    private Header(final ShardPosition shardPosition,
+                   final ImmutableMap<String, String> attributes,
+                   final Instant[] timestamps,
+                   final Header parent) {
         this.shardPosition = shardPosition;
         this.attributes = attributes;
+        this.timestamps = timestamps;
+        this.hasInstants = timestamps != null;
+        this.parent = parent;
+        this.depth = parent != null ? parent.depth + 1 : 0;
+        this.all = parent == null && timestamps == null ? attributes : null;
+    }
+
+    /**
+     * Returns a Header containing all attributes of this Header, plus the given attribute. Existing attributes
+     * with the same key are replaced.
+     * <p>
+     *     The attributes of this Header are not copied, so adding a single attribute does not depend on the
+     *     number of existing attributes.
+     * </p>
+     *
+     * @param key the key of the attribute
+     * @param value the value of the attribute
+     * @return Header
+     */
+    @Nonnull
+    public Header withAttribute(final @Nonnull String key, final @Nonnull String value) {
+        return withAttributes(ImmutableMap.of(key, value));
+    }
+
+    @Nonnull
+    public Header withAttribute(final @Nonnull HeaderAttr attr, final @Nonnull String value) {
+        return withAttribute(attr.key(), value);
+    }
+
+    @Nonnull
+    public Header withAttribute(final @Nonnull String key, final @Nonnull Instant value) {
+        final int index = timestampIndexOf(key);
+        if (index < 0) {
+            return withAttribute(key, value.toString());
+        }
+        final Instant[] timestamps = new Instant[TIMESTAMP_KEYS.length];
+        timestamps[index] = value;
+        return withLayer(ImmutableMap.of(), timestamps);
+    }
+
+    @Nonnull
+    public Header withAttribute(final @Nonnull HeaderAttr attr, final @Nonnull Instant value) {
+        return withAttribute(attr.key(), value);
+    }
+
+    /**
+     * Returns a Header containing all attributes of this Header, plus the given attributes. Existing attributes
+     * with the same keys are replaced.
+     *
+     * @param attributes the added attributes
+     * @return Header
+     */
+    @Nonnull
+    public Header withAttributes(final @Nonnull Map<String, String> attributes) {
+        if (attributes.isEmpty()) {
+            return this;
+        }
+        return withLayer(ImmutableMap.copyOf(attributes), null);
+    }
+
+    private Header withLayer(final ImmutableMap<String, String> attributes,
+                             final Instant[] timestamps) {
+        if (depth + 1 >= MAX_DEPTH) {
+            final Builder builder = copyOf(this).withAttributes(attributes);
+            if (timestamps != null) {
+                for (int i = 0; i < timestamps.length; ++i) {
+                    if (timestamps[i] != null) {
+                        builder.withAttribute(TIMESTAMP_KEYS[i], timestamps[i]);
+                    }
+                }
+            }
+            return builder.build();
+        }
+        return new Header(shardPosition, attributes, timestamps, this);
     }
 
     @Nonnull
@@ -79,11 +197,36 @@ public class Header implements Serializable {
     @Nonnull
     @JsonAnyGetter
     public ImmutableMap<String, String> getAll() {
-        return attributes;
+        ImmutableMap<String, String> result = all;
+        if (result == null && parent == null && !hasInstants) {
+            result = attributes;
+        } else if (result == null) {
+            final Map<String, String> merged = parent != null
+                    ? new LinkedHashMap<>(parent.getAll())
+                    : new LinkedHashMap<>();
+            merged.putAll(attributes);
+            if (hasInstants) {
+                final Instant[] timestamps = this.timestamps;
+                for (int i = 0; i < TIMESTAMP_KEYS.length; ++i) {
+                    if (timestamps[i] != null && !attributes.containsKey(TIMESTAMP_KEYS[i])) {
+                        merged.put(TIMESTAMP_KEYS[i], timestamps[i].toString());
+                    }
+                }
+            }
+            result = ImmutableMap.copyOf(merged);
+            all = result;
+        }
+        return result;
     }
 
     public boolean containsKey(final String key) {
-        return attributes.containsKey(key);
+        final int index = timestampIndexOf(key);
+        for (Header header = this; header != null; header = header.parent) {
+            if (header.attributes.containsKey(key) || (index >= 0 && header.instantOf(index) != null)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     public boolean containsKey(final HeaderAttr attr) {
@@ -93,7 +236,7 @@ public class Header implements Serializable {
     @Nullable
     @JsonIgnore
     public Object get(final String key) {
-        return attributes.get(key);
+        return lookup(key);
     }
 
     @Nullable
@@ -105,7 +248,8 @@ public class Header implements Serializable {
     @Nullable
     @JsonIgnore
     public Object get(final String key, final String defaultValue) {
-        return attributes.getOrDefault(key, defaultValue);
+        final String value = lookup(key);
+        return value != null ? value : defaultValue;
     }
 
     @Nullable
@@ -117,7 +261,7 @@ public class Header implements Serializable {
     @Nullable
     @JsonIgnore
     public String getAsString(final String key) {
-        return Objects.toString(attributes.get(key), null);
+        return lookup(key);
     }
 
     @Nullable
@@ -129,7 +273,7 @@ public class Header implements Serializable {
     @Nullable
     @JsonIgnore
     public String getAsString(final String key, final String defaultValue) {
-        return Objects.toString(attributes.get(key), defaultValue);
+        return Objects.toString(lookup(key), defaultValue);
     }
 
     @Nullable
@@ -141,9 +285,7 @@ public class Header implements Serializable {
     @Nullable
     @JsonIgnore
     public Instant getAsInstant(final String key) {
-        return containsKey(key)
-                ? Instant.parse(attributes.get(key))
-                : null;
+        return getAsInstant(key, (Instant) null);
     }
 
     @Nullable
@@ -155,9 +297,20 @@ public class Header implements Serializable {
     @Nullable
     @JsonIgnore
     public Instant getAsInstant(final String key, final Instant defaultValue) {
-        return containsKey(key)
-                ? Instant.parse(attributes.get(key))
-                : defaultValue;
+        final int index = timestampIndexOf(key);
+        if (index < 0) {
+            final String value = lookup(key);
+            return value != null
+                    ? Instant.parse(value)
+                    : defaultValue;
+        }
+        for (Header header = this; header != null; header = header.parent) {
+            final Instant value = header.timestampOf(index);
+            if (value != null) {
+                return value;
+            }
+        }
+        return defaultValue;
     }
 
     @Nullable
@@ -172,25 +325,106 @@ public class Header implements Serializable {
         if (o == null || getClass() != o.getClass()) return false;
         Header header = (Header) o;
         return Objects.equals(shardPosition, header.shardPosition) &&
-                Objects.equals(attributes, header.attributes);
+                Objects.equals(getAll(), header.getAll());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(shardPosition, attributes);
+        return Objects.hash(shardPosition, getAll());
     }
 
     @Override
     public String toString() {
         return "Header{" +
                 "shardPosition=" + shardPosition +
-                ", attributes=" + attributes +
+                ", attributes=" + getAll() +
                 '}';
     }
 
+    @Nullable
+    private String lookup(final String key) {
+        final int index = timestampIndexOf(key);
+        for (Header header = this; header != null; header = header.parent) {
+            final String value = header.attributes.get(key);
+            if (value != null) {
+                return value;
+            }
+            if (index >= 0) {
+                final Instant instant = header.instantOf(index);
+                if (instant != null) {
+                    return instant.toString();
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the timestamp attribute of this layer that was added as an Instant, or null.
+     */
+    @Nullable
+    private Instant instantOf(final int index) {
+        return hasInstants && !attributes.containsKey(TIMESTAMP_KEYS[index])
+                ? timestamps[index]
+                : null;
+    }
+
+    /**
+     * Returns the timestamp attribute of this layer, parsing and memoizing string attributes on first access.
+     */
+    @Nullable
+    private Instant timestampOf(final int index) {
+        Instant[] timestamps = this.timestamps;
+        if (timestamps != null && timestamps[index] != null) {
+            return timestamps[index];
+        }
+        final String value = attributes.get(TIMESTAMP_KEYS[index]);
+        if (value == null) {
+            return null;
+        }
+        final Instant parsed = Instant.parse(value);
+        if (timestamps == null) {
+            timestamps = new Instant[TIMESTAMP_KEYS.length];
+        }
+        timestamps[index] = parsed;
+        this.timestamps = timestamps;
+        return parsed;
+    }
+
+    private void copyTo(final Builder builder) {
+        if (parent != null) {
+            parent.copyTo(builder);
+        }
+        builder.withAttributes(attributes);
+        if (hasInstants) {
+            for (int i = 0; i < TIMESTAMP_KEYS.length; ++i) {
+                final Instant instant = instantOf(i);
+                if (instant != null) {
+                    builder.withAttribute(TIMESTAMP_KEYS[i], instant);
+                }
+            }
+        }
+    }
+
+    private static int timestampIndexOf(final String key) {
+        for (int i = 0; i < TIMESTAMP_KEYS.length; ++i) {
+            if (TIMESTAMP_KEYS[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private Object writeReplace() {
+        return parent != null || hasInstants
+                ? new Header(shardPosition, getAll())
+                : this;
+    }
+
     public static class Builder {
         private ShardPosition shardPosition;
         private final Map<String, String> attributes = new HashMap<>();
+        private Instant[] timestamps;
 
         public Builder withShardPosition(final @Nonnull ShardPosition shardPosition) {
             this.shardPosition = shardPosition;
@@ -199,6 +433,12 @@ public class Header implements Serializable {
 
         public Builder withAttribute(final @Nonnull String key, final @Nonnull String value) {
             this.attributes.put(key, value);
+            if (timestamps != null) {
+                final int index = timestampIndexOf(key);
+                if (index >= 0) {
+                    timestamps[index] = null;
+                }
+            }
             return this;
         }
 
@@ -207,7 +447,15 @@ public class Header implements Serializable {
         }
 
         public Builder withAttribute(final @Nonnull String key, final @Nonnull Instant value) {
-            this.attributes.put(key, value.toString());
+            final int index = timestampIndexOf(key);
+            if (index < 0) {
+                return withAttribute(key, value.toString());
+            }
+            if (timestamps == null) {
+                timestamps = new Instant[TIMESTAMP_KEYS.length];
+            }
+            timestamps[index] = value;
+            this.attributes.remove(key);
             return this;
         }
 
@@ -216,12 +464,16 @@ public class Header implements Serializable {
         }
 
         public Builder withAttributes(final @Nonnull Map<String, String> attributes) {
-            this.attributes.putAll(attributes);
+            attributes.forEach(this::withAttribute);
             return this;
         }
 
         public Header build() {
-            return new Header(shardPosition, ImmutableMap.copyOf(attributes));
+            return new Header(
+                    shardPosition,
+                    ImmutableMap.copyOf(attributes),
+                    timestamps != null ? timestamps.clone() : null,
+                    null);
         }
     }
 }
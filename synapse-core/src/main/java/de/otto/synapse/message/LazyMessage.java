@@ -0,0 +1,142 @@
+package de.otto.synapse.message;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A {@link Message} that is keeping the raw payload of a {@link TextMessage} and decodes the payload on the
+ * first call of {@link #getPayload()}.
+ * <p>
+ *     The decoded payload is memoized, so the decoder is called at most once. Consumers that are only
+ *     interested in the {@link #getKey() key} or {@link #getHeader() header} of a message are able to skip
+ *     the deserialization of the payload altogether.
+ * </p>
+ * <p>
+ *     If decoding the payload fails, the exception thrown by the decoder is propagated to the caller of
+ *     {@code getPayload()}.
+ * </p>
+ * <p>
+ *     LazyMessages are serialized as regular, eagerly decoded {@link Message messages}.
+ * </p>
+ *
+ * @param <P> The type of the decoded payload
+ */
+@ThreadSafe
+public class LazyMessage<P> extends Message<P> {
+
+    private static final long serialVersionUID = 7318213570871826425L;
+
+    private transient final Supplier<String> rawPayload;
+    private transient final Supplier<? extends P> decoder;
+    private transient volatile boolean decoded;
+    private transient P decodedPayload;
+
+    protected LazyMessage(final @Nonnull Key key,
+                          final @Nonnull Header header,
+                          final @Nullable String rawPayload,
+                          final @Nonnull Function<String, ? extends P> decoder) {
+        this(key, header, () -> rawPayload, () -> rawPayload != null ? decoder.apply(rawPayload) : null);
+    }
+
+    protected LazyMessage(final @Nonnull Key key,
+                          final @Nonnull Header header,
+                          final @Nonnull Supplier<String> rawPayload,
+                          final @Nonnull Supplier<? extends P> decoder) {
+        super(key, header, null);
+        this.rawPayload = rawPayload;
+        this.decoder = decoder;
+    }
+
+    /**
+     * Creates a LazyMessage.
+     *
+     * @param key the key of the message
+     * @param header the header of the message
+     * @param rawPayload the raw, not yet decoded payload
+     * @param decoder the function used to decode the raw payload. The decoder is not called for {@code null} payloads.
+     * @param <P> the type of the decoded payload
+     * @return LazyMessage
+     */
+    public static <P> LazyMessage<P> lazyMessage(final @Nonnull Key key,
+                                                 final @Nonnull Header header,
+                                                 final @Nullable String rawPayload,
+                                                 final @Nonnull Function<String, ? extends P> decoder) {
+        return new LazyMessage<>(key, header, rawPayload, decoder);
+    }
+
+    /**
+     * Creates a LazyMessage that is not even accessing the raw payload, before the payload is requested.
+     * <p>
+     *     Used to decode the payload of a {@link BinaryMessage} directly from its bytes, without converting it into
+     *     a String first.
+     * </p>
+     *
+     * @param key the key of the message
+     * @param header the header of the message
+     * @param rawPayload supplier of the raw payload, only called by {@link #getRawPayload()} and {@link #toString()}
+     * @param decoder supplier of the decoded payload, called at most once
+     * @param <P> the type of the decoded payload
+     * @return LazyMessage
+     */
+    public static <P> LazyMessage<P> lazyMessage(final @Nonnull Key key,
+                                                 final @Nonnull Header header,
+                                                 final @Nonnull Supplier<String> rawPayload,
+                                                 final @Nonnull Supplier<? extends P> decoder) {
+        return new LazyMessage<>(key, header, rawPayload, decoder);
+    }
+
+    /**
+     * Returns the raw payload of the message, without decoding it.
+     *
+     * @return raw payload
+     */
+    @Nullable
+    public String getRawPayload() {
+        return rawPayload.get();
+    }
+
+    /**
+     * Returns true, if the payload was already decoded.
+     *
+     * @return boolean
+     */
+    public boolean isDecoded() {
+        return decoded;
+    }
+
+    /**
+     * Returns the payload of the message. The payload is decoded on the first call of this method.
+     *
+     * @return decoded payload
+     */
+    @Nullable
+    @Override
+    public P getPayload() {
+        if (!decoded) {
+            synchronized (this) {
+                if (!decoded) {
+                    decodedPayload = decoder.get();
+                    decoded = true;
+                }
+            }
+        }
+        return decodedPayload;
+    }
+
+    @Override
+    public String toString() {
+        return "LazyMessage{" +
+                "of='" + getKey() + '\'' +
+                ", payload=" + (decoded ? decodedPayload : rawPayload.get()) +
+                ", header=" + getHeader() +
+                '}';
+    }
+
+    private Object writeReplace() {
+        return message(getKey(), getHeader(), getPayload());
+    }
+
+}
@@ -84,4 +84,19 @@ public class TextMessage extends Message<String> {
         return new TextMessage(Key.of(key), Header.of(), payload);
     }
 
+    /**
+     * Returns a {@code TextMessage} with the same key and payload as this message, but with a different header.
+     * <p>
+     *     Interceptors should prefer this method over {@code TextMessage.of(key, header, getPayload())}, as
+     *     subclasses like {@link BinaryMessage} are able to keep their payload representation.
+     * </p>
+     *
+     * @param header Header of the created message
+     * @return TextMessage
+     */
+    @Nonnull
+    public TextMessage withHeader(final @Nonnull Header header) {
+        return new TextMessage(getKey(), header, getPayload());
+    }
+
 }
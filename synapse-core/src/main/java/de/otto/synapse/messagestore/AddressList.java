@@ -0,0 +1,40 @@
+package de.otto.synapse.messagestore;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Arrays;
+import java.util.stream.LongStream;
+
+/**
+ * Growable list of the addresses of message-store entries, appended by the writer of a store and read concurrently
+ * by streams. Addresses are identifying entries of the store, like the index of an entry or the address of a
+ * record in a {@link MappedMessageLog}.
+ */
+@ThreadSafe
+final class AddressList {
+
+    private long[] addresses = new long[4];
+    private int size;
+
+    synchronized void add(final long address) {
+        if (size == addresses.length) {
+            addresses = Arrays.copyOf(addresses, size * 2);
+        }
+        addresses[size++] = address;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    synchronized long get(final int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return addresses[index];
+    }
+
+    synchronized LongStream stream() {
+        // elements up to size are never modified, so the array can be read after the lock is released:
+        return Arrays.stream(addresses, 0, size);
+    }
+}
@@ -0,0 +1,151 @@
+package de.otto.synapse.messagestore;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * An append-only list of elements, stored in segments of fixed-size arrays.
+ * <p>
+ *     Elements are appended by a single writer at a time, while readers are able to access the elements without
+ *     locking: elements are never modified or removed, and an appended element is published to readers by
+ *     incrementing the volatile size of the list.
+ * </p>
+ * <p>
+ *     Streams of the list contain the elements added before the stream was created. They are backed by a
+ *     {@link Spliterator} with exact size that is splitting the list in halves, so the list is efficiently
+ *     streamed in parallel.
+ * </p>
+ *
+ * @param <E> the type of the elements
+ */
+@ThreadSafe
+class AppendOnlyList<E> {
+
+    private static final int SEGMENT_BITS = 10;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+    private static final int CHARACTERISTICS = Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.NONNULL | Spliterator.IMMUTABLE;
+
+    private volatile Object[][] segments = new Object[0][];
+    private volatile int size;
+
+    /**
+     * Appends an element to the end of the list. Must not be called concurrently.
+     *
+     * @param element the element
+     */
+    void add(final @Nonnull E element) {
+        final int index = size;
+        Object[][] segments = this.segments;
+        if (index >> SEGMENT_BITS == segments.length) {
+            segments = Arrays.copyOf(segments, segments.length + 1);
+            segments[segments.length - 1] = new Object[SEGMENT_SIZE];
+            this.segments = segments;
+        }
+        segments[index >> SEGMENT_BITS][index & SEGMENT_MASK] = element;
+        // publishes the element to readers:
+        size = index + 1;
+    }
+
+    int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    E get(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return (E) segments[index >> SEGMENT_BITS][index & SEGMENT_MASK];
+    }
+
+    Stream<E> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Returns a sequential stream of the elements in the given range. The range is limited to the elements added
+     * before the stream was created.
+     *
+     * @param fromIndex the index of the first element (inclusive)
+     * @param toIndex the index of the last element (exclusive)
+     * @return stream
+     */
+    Stream<E> stream(final int fromIndex, final int toIndex) {
+        final int size = this.size;
+        final int fence = Math.min(toIndex, size);
+        return StreamSupport.stream(new SegmentSpliterator<>(segments, Math.min(Math.max(fromIndex, 0), fence), fence), false);
+    }
+
+    Stream<E> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    private Spliterator<E> spliterator() {
+        // size must be read before the segments, so the segments contain all published elements:
+        final int size = this.size;
+        return new SegmentSpliterator<>(segments, 0, size);
+    }
+
+    private static final class SegmentSpliterator<E> implements Spliterator<E> {
+        private final Object[][] segments;
+        private int index;
+        private final int fence;
+
+        private SegmentSpliterator(final Object[][] segments, final int origin, final int fence) {
+            this.segments = segments;
+            this.index = origin;
+            this.fence = fence;
+        }
+
+        @Override
+        public boolean tryAdvance(final Consumer<? super E> action) {
+            if (index < fence) {
+                action.accept(elementAt(index++));
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(final Consumer<? super E> action) {
+            final int fence = this.fence;
+            int i = index;
+            index = fence;
+            for (; i < fence; ++i) {
+                action.accept(elementAt(i));
+            }
+        }
+
+        @Override
+        public Spliterator<E> trySplit() {
+            final int origin = index;
+            final int mid = (origin + fence) >>> 1;
+            if (origin >= mid) {
+                return null;
+            }
+            index = mid;
+            return new SegmentSpliterator<>(segments, origin, mid);
+        }
+
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return CHARACTERISTICS;
+        }
+
+        @SuppressWarnings("unchecked")
+        private E elementAt(final int index) {
+            return (E) segments[index >> SEGMENT_BITS][index & SEGMENT_MASK];
+        }
+    }
+}
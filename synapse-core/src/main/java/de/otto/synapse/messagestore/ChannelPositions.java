@@ -11,23 +11,31 @@ import java.util.concurrent.ConcurrentMap;
 
 import static de.otto.synapse.channel.ChannelPosition.*;
 
+/**
+ * The latest positions of the shards of the channels of a {@link MessageStore}.
+ * <p>
+ *     Positions are tracked per shard, so adding entries of different shards does not contend on the same map
+ *     entry, and no {@link ChannelPosition} is created per entry. The ChannelPosition is created when it is
+ *     requested.
+ * </p>
+ */
 @ThreadSafe
 class ChannelPositions {
 
-    private final ConcurrentMap<String, ChannelPosition> channelPositions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ConcurrentMap<String, ShardPosition>> channelPositions = new ConcurrentHashMap<>();
 
     void updateFrom(final MessageStoreEntry entry) {
-        channelPositions.compute(entry.getChannelName(), (key, existing) -> {
-            final Optional<ShardPosition> shardPosition = entry
-                    .getTextMessage()
-                    .getHeader()
-                    .getShardPosition();
-            if (existing != null) {
-                return shardPosition.map(s -> merge(existing, channelPosition(s))).orElse(existing);
-            } else {
-                return shardPosition.map(ChannelPosition::channelPosition).orElseGet(ChannelPosition::fromHorizon);
-            }
-        });
+        ConcurrentMap<String, ShardPosition> shardPositions = channelPositions.get(entry.getChannelName());
+        if (shardPositions == null) {
+            shardPositions = channelPositions.computeIfAbsent(entry.getChannelName(), _x -> new ConcurrentHashMap<>());
+        }
+        final Optional<ShardPosition> shardPosition = entry
+                .getTextMessage()
+                .getHeader()
+                .getShardPosition();
+        if (shardPosition.isPresent()) {
+            shardPositions.put(shardPosition.get().shardName(), shardPosition.get());
+        }
     }
 
     public ImmutableSet<String> getChannelNames() {
@@ -35,6 +43,9 @@ class ChannelPositions {
     }
 
     public ChannelPosition getLatestChannelPosition(final String channelName) {
-        return channelPositions.getOrDefault(channelName, fromHorizon());
+        final ConcurrentMap<String, ShardPosition> shardPositions = channelPositions.get(channelName);
+        return shardPositions != null
+                ? channelPosition(shardPositions.values())
+                : fromHorizon();
     }
 }
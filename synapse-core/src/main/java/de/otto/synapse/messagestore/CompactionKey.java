@@ -0,0 +1,85 @@
+package de.otto.synapse.messagestore;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+
+import java.nio.ByteBuffer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Identifies the entries of a compacting {@link MessageStore} that are compacted into a single entry: the
+ * name of the channel, together with the {@link de.otto.synapse.message.Key#compactionKey() compaction key} of
+ * the message.
+ */
+@Immutable
+final class CompactionKey {
+
+    private final String channelName;
+    private final String compactionKey;
+    private final int hashCode;
+
+    private CompactionKey(final @Nonnull String channelName,
+                          final @Nonnull String compactionKey) {
+        this.channelName = requireNonNull(channelName);
+        this.compactionKey = requireNonNull(compactionKey);
+        this.hashCode = 31 * channelName.hashCode() + compactionKey.hashCode();
+    }
+
+    static CompactionKey of(final @Nonnull MessageStoreEntry entry) {
+        return new CompactionKey(entry.getChannelName(), entry.getTextMessage().getKey().compactionKey());
+    }
+
+    static CompactionKey of(final @Nonnull String channelName,
+                            final @Nonnull String compactionKey) {
+        return new CompactionKey(channelName, compactionKey);
+    }
+
+    String getChannelName() {
+        return channelName;
+    }
+
+    String getCompactionKey() {
+        return compactionKey;
+    }
+
+    /**
+     * Returns the binary representation of the key, used by off-heap stores: the length of the UTF-8 encoded
+     * channel name, followed by the UTF-8 encoded channel name and compaction key.
+     *
+     * @return byte array
+     */
+    byte[] toByteArray() {
+        final byte[] channelNameBytes = channelName.getBytes(UTF_8);
+        final byte[] compactionKeyBytes = compactionKey.getBytes(UTF_8);
+        return ByteBuffer.allocate(Integer.BYTES + channelNameBytes.length + compactionKeyBytes.length)
+                .putInt(channelNameBytes.length)
+                .put(channelNameBytes)
+                .put(compactionKeyBytes)
+                .array();
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CompactionKey)) return false;
+        final CompactionKey that = (CompactionKey) o;
+        return hashCode == that.hashCode &&
+                compactionKey.equals(that.compactionKey) &&
+                channelName.equals(that.channelName);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return "CompactionKey{" +
+                "channelName='" + channelName + '\'' +
+                ", compactionKey='" + compactionKey + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,393 @@
+package de.otto.synapse.messagestore;
+
+import org.slf4j.Logger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static java.lang.String.format;
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * An append-only log of binary records, stored in memory-mapped segment files.
+ * <p>
+ *     Records are appended to the current segment, until the segment is full and a new segment is mapped. Every
+ *     record is identified by its address, consisting of the index of the segment and the offset of the record
+ *     in the segment. Records are never moved or modified, so readers are able to access records without
+ *     locking: reading a record returns a read-only view of the mapped memory.
+ * </p>
+ * <p>
+ *     The log is not persistent: segment files are deleted as soon as they are mapped (or on exit of the JVM,
+ *     if the platform does not support deleting mapped files), and the memory is released after the log is closed
+ *     and the mapped buffers are garbage collected.
+ * </p>
+ */
+@ThreadSafe
+class MappedMessageLog implements AutoCloseable {
+
+    private static final Logger LOG = getLogger(MappedMessageLog.class);
+
+    /**
+     * The default size of a segment.
+     */
+    static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private static final int LENGTH_BYTES = Integer.BYTES;
+
+    private final String name;
+    private final Path directory;
+    private final int segmentSize;
+
+    private volatile Segment[] segments = new Segment[0];
+    private volatile boolean closed;
+
+    /**
+     * Creates a MappedMessageLog.
+     *
+     * @param name the name of the log, used to name the segment files
+     * @param directory the directory of the segment files, or null if the default temporary-file directory
+     *                  should be used
+     * @param segmentSize the size of a segment in bytes. Records larger than a segment are stored in a segment
+     *                    of their own.
+     */
+    MappedMessageLog(final @Nonnull String name,
+                     final @Nullable Path directory,
+                     final int segmentSize) {
+        if (segmentSize <= LENGTH_BYTES) {
+            throw new IllegalArgumentException("segmentSize must be greater than " + LENGTH_BYTES);
+        }
+        this.name = name;
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Appends a record to the log.
+     *
+     * @param record the bytes of the record
+     * @return the address of the record
+     */
+    synchronized long append(final @Nonnull byte[] record) {
+        if (closed) {
+            throw new IllegalStateException("MappedMessageLog " + name + " is already closed");
+        }
+        final int required = LENGTH_BYTES + record.length;
+        Segment segment = segments.length > 0 ? segments[segments.length - 1] : null;
+        if (segment == null || segment.capacity() - segment.limit() < required) {
+            segment = mapSegment(segments.length, Math.max(segmentSize, required));
+            final Segment[] extended = Arrays.copyOf(segments, segments.length + 1);
+            extended[extended.length - 1] = segment;
+            segments = extended;
+        }
+        final int offset = segment.limit();
+        final ByteBuffer writer = segment.buffer.duplicate();
+        writer.position(offset);
+        writer.putInt(record.length).put(record);
+        // publishes the record to readers of the segment:
+        segment.state = state(segment.count() + 1, offset + required);
+        return address(segments.length - 1, offset);
+    }
+
+    /**
+     * Returns a read-only view of a record.
+     *
+     * @param address the address returned by {@link #append(byte[])}
+     * @return read-only ByteBuffer, positioned at the first byte of the record
+     * @throws IllegalStateException if the log is already closed
+     */
+    @Nonnull
+    ByteBuffer read(final long address) {
+        final Segment[] segments = this.segments;
+        if (closed) {
+            throw new IllegalStateException("MappedMessageLog " + name + " is already closed");
+        }
+        final Segment segment = segments[(int) (address >>> 32)];
+        final int offset = (int) address;
+        return segment.record(offset);
+    }
+
+    /**
+     * Returns the records of the log, in the order they were appended. Records appended after the stream was
+     * created are not contained in the stream.
+     *
+     * @return stream of read-only ByteBuffers
+     */
+    @Nonnull
+    Stream<ByteBuffer> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Returns a parallel stream of the records of the log. The records are split at the boundaries of the
+     * segments, so the log is processed in parallel if it consists of more than a single segment.
+     *
+     * @return parallel stream of read-only ByteBuffers
+     */
+    @Nonnull
+    Stream<ByteBuffer> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    /**
+     * Returns the records at the given addresses. Reading a record fails with an {@link IllegalStateException}, if
+     * the log is closed while the stream is consumed.
+     *
+     * @param addresses the addresses of the records
+     * @return stream of read-only ByteBuffers
+     */
+    @Nonnull
+    Stream<ByteBuffer> stream(final @Nonnull LongStream addresses) {
+        return addresses.mapToObj(this::read);
+    }
+
+    /**
+     * Returns the records in the given range of addresses, in the order they were appended. Records appended
+     * after the stream was created are not contained in the stream.
+     *
+     * @param fromAddress the address of the first record, as returned by {@link #append(byte[])}
+     * @param toAddress the address of the last record (inclusive), or {@code Long.MAX_VALUE} to stream all
+     *                  records following {@code fromAddress}
+     * @return stream of read-only ByteBuffers
+     */
+    @Nonnull
+    Stream<ByteBuffer> stream(final long fromAddress, final long toAddress) {
+        final Segment[] snapshot = closed ? new Segment[0] : segments;
+        final long[] limits = new long[snapshot.length];
+        for (int i = 0; i < snapshot.length; ++i) {
+            limits[i] = limitOf(snapshot[i].state);
+        }
+        return StreamSupport.stream(new RangeSpliterator(snapshot, limits, fromAddress, toAddress), false);
+    }
+
+    /**
+     * @return the number of mapped segments
+     */
+    int getSegmentCount() {
+        return segments.length;
+    }
+
+    /**
+     * Releases the segments of the log. The mapped memory is freed after the buffers are garbage collected.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        segments = new Segment[0];
+    }
+
+    private Segment mapSegment(final int index, final int size) {
+        try {
+            final Path file = directory != null
+                    ? Files.createFile(directory.resolve(format("%s-%05d.segment", name, index)))
+                    : Files.createTempFile(name + "-", ".segment");
+            final MappedByteBuffer buffer;
+            try (final FileChannel channel = FileChannel.open(file, READ, WRITE)) {
+                buffer = channel.map(READ_WRITE, 0, size);
+            }
+            delete(file);
+            LOG.debug("Mapped segment {} of MappedMessageLog {} with {} bytes", index, name, size);
+            return new Segment(buffer);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Unable to map segment of MappedMessageLog " + name + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static void delete(final Path file) {
+        try {
+            Files.delete(file);
+        } catch (final IOException e) {
+            // not supported on every platform while the file is still mapped:
+            file.toFile().deleteOnExit();
+        }
+    }
+
+    private Spliterator<ByteBuffer> spliterator() {
+        final Segment[] snapshot = closed ? new Segment[0] : segments;
+        final long[] states = new long[snapshot.length];
+        for (int i = 0; i < snapshot.length; ++i) {
+            states[i] = snapshot[i].state;
+        }
+        return new SegmentSpliterator(snapshot, states, 0, snapshot.length);
+    }
+
+    private static long address(final int segment, final int offset) {
+        return ((long) segment << 32) | (offset & 0xFFFFFFFFL);
+    }
+
+    private static long state(final int count, final int limit) {
+        return ((long) count << 32) | (limit & 0xFFFFFFFFL);
+    }
+
+    private static int countOf(final long state) {
+        return (int) (state >>> 32);
+    }
+
+    private static int limitOf(final long state) {
+        return (int) state;
+    }
+
+    private static final class Segment {
+        private final ByteBuffer buffer;
+        /**
+         * The number of records, together with the limit of the segment, updated atomically after a record was
+         * appended.
+         */
+        private volatile long state;
+
+        private Segment(final ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        private int count() {
+            return countOf(state);
+        }
+
+        private int limit() {
+            return limitOf(state);
+        }
+
+        private int capacity() {
+            return buffer.capacity();
+        }
+
+        private ByteBuffer record(final int offset) {
+            final int length = buffer.getInt(offset);
+            final ByteBuffer record = buffer.asReadOnlyBuffer();
+            record.limit(offset + LENGTH_BYTES + length);
+            record.position(offset + LENGTH_BYTES);
+            return record.slice();
+        }
+    }
+
+    /**
+     * Spliterator over a snapshot of the segments [segment, fence), splitting at the boundaries of the segments.
+     */
+    private static final class SegmentSpliterator implements Spliterator<ByteBuffer> {
+        private static final int CHARACTERISTICS = Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.NONNULL | Spliterator.IMMUTABLE;
+
+        private final Segment[] segments;
+        private final long[] states;
+        private final int fence;
+        private int segment;
+        private int offset;
+        private long remaining;
+
+        private SegmentSpliterator(final Segment[] segments,
+                                   final long[] states,
+                                   final int origin,
+                                   final int fence) {
+            this.segments = segments;
+            this.states = states;
+            this.segment = origin;
+            this.fence = fence;
+            for (int i = origin; i < fence; ++i) {
+                remaining += countOf(states[i]);
+            }
+        }
+
+        @Override
+        public boolean tryAdvance(final Consumer<? super ByteBuffer> action) {
+            while (segment < fence && offset >= limitOf(states[segment])) {
+                ++segment;
+                offset = 0;
+            }
+            if (segment == fence) {
+                return false;
+            }
+            final ByteBuffer record = segments[segment].record(offset);
+            offset += LENGTH_BYTES + record.remaining();
+            --remaining;
+            action.accept(record);
+            return true;
+        }
+
+        @Override
+        public Spliterator<ByteBuffer> trySplit() {
+            final int mid = (segment + fence) >>> 1;
+            if (mid <= segment) {
+                return null;
+            }
+            final SegmentSpliterator prefix = new SegmentSpliterator(segments, states, segment, mid);
+            prefix.offset = offset;
+            prefix.remaining = remaining - remainingFrom(mid);
+            segment = mid;
+            offset = 0;
+            remaining = remainingFrom(mid);
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return remaining;
+        }
+
+        @Override
+        public int characteristics() {
+            return CHARACTERISTICS;
+        }
+
+        private long remainingFrom(final int origin) {
+            long count = 0;
+            for (int i = origin; i < fence; ++i) {
+                count += countOf(states[i]);
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Sequential spliterator over the records of a snapshot of the segments in a range of addresses.
+     */
+    private static final class RangeSpliterator extends Spliterators.AbstractSpliterator<ByteBuffer> {
+        private final Segment[] segments;
+        private final long[] limits;
+        private final long toAddress;
+        private int segment;
+        private int offset;
+
+        private RangeSpliterator(final Segment[] segments,
+                                 final long[] limits,
+                                 final long fromAddress,
+                                 final long toAddress) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+            this.segments = segments;
+            this.limits = limits;
+            this.toAddress = toAddress;
+            this.segment = (int) (fromAddress >>> 32);
+            this.offset = (int) fromAddress;
+        }
+
+        @Override
+        public boolean tryAdvance(final Consumer<? super ByteBuffer> action) {
+            while (segment < segments.length && offset >= limits[segment]) {
+                ++segment;
+                offset = 0;
+            }
+            if (segment >= segments.length || address(segment, offset) > toAddress) {
+                return false;
+            }
+            final ByteBuffer record = segments[segment].record(offset);
+            offset += LENGTH_BYTES + record.remaining();
+            action.accept(record);
+            return true;
+        }
+    }
+}
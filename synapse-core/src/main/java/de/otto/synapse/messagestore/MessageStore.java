@@ -6,6 +6,7 @@ import de.otto.synapse.channel.ChannelPosition;
 import de.otto.synapse.message.Header;
 
 import javax.annotation.Nonnull;
+import java.time.Instant;
 import java.util.Set;
 import java.util.stream.Stream;
 
@@ -78,6 +79,21 @@ public interface MessageStore extends AutoCloseable {
      */
     Stream<MessageStoreEntry> stream();
 
+    /**
+     * Returns a possibly parallel Stream of all entries contained in the MessageStore.
+     *
+     * <p>The encounter order of the stream is the insertion order of the entries, but parallel terminal
+     * operations like {@link Stream#forEach(java.util.function.Consumer) forEach} are processing the entries in
+     * no particular order. Implementations should return streams backed by a {@link java.util.Spliterator} that is
+     * able to split the entries into parts of (approximately) known size, so the entries are processed using all
+     * available cores. By default, the {@link #stream() sequential stream} is turned into a parallel stream.</p>
+     *
+     * @return parallel Stream of entries
+     */
+    default Stream<MessageStoreEntry> parallelStream() {
+        return stream().parallel();
+    }
+
     /**
      * Returns a Stream of all entries contained in the MessageStore that have are matching the given Index value
      * (optional operation).
@@ -94,6 +110,46 @@ public interface MessageStore extends AutoCloseable {
     @Beta
     Stream<MessageStoreEntry> stream(final Index index, final String value);
 
+    /**
+     * Returns a Stream of the entries of a channel that are following the given {@link ChannelPosition}, for
+     * example to partially replay the store after a position that was already consumed.
+     *
+     * <p>The stream will maintain the insertion order of the entries. See
+     * {@link MessageStoreEntryFilters#following(String, ChannelPosition)} for the selected entries. By default, the
+     * whole store is streamed and filtered; stores with a sequence index per shard start the scan at the first
+     * entry following the position.</p>
+     *
+     * <p>Entries without shard position are never selected. Stores that do not keep the shard positions of their
+     * messages must override this method and throw an {@link UnsupportedOperationException}, instead of returning
+     * an empty stream.</p>
+     *
+     * @param channelName the name of the channel
+     * @param fromPosition the position of the channel
+     * @return stream of message-store entries
+     * @throws UnsupportedOperationException if the store does not keep the shard positions of its messages
+     */
+    default Stream<MessageStoreEntry> stream(final String channelName, final ChannelPosition fromPosition) {
+        return stream().filter(MessageStoreEntryFilters.following(channelName, fromPosition));
+    }
+
+    /**
+     * Returns a Stream of the entries of a channel with an
+     * {@link de.otto.synapse.message.DefaultHeaderAttr#MSG_ARRIVAL_TS arrival timestamp} in the interval
+     * [{@code from}, {@code to}).
+     *
+     * <p>The stream will maintain the insertion order of the entries. By default, the whole store is streamed and
+     * filtered; stores with a time index only scan the entries that arrived in the interval.</p>
+     *
+     * @param channelName the name of the channel
+     * @param from the start of the interval (inclusive)
+     * @param to the end of the interval (exclusive)
+     * @return stream of message-store entries
+     * @throws UnsupportedOperationException if the store does not keep the arrival timestamps of its messages
+     */
+    default Stream<MessageStoreEntry> stream(final String channelName, final Instant from, final Instant to) {
+        return stream().filter(MessageStoreEntryFilters.arrivedBetween(channelName, from, to));
+    }
+
     /**
      * Appends the specified element to the end of this list (optional
      * operation).
@@ -0,0 +1,162 @@
+package de.otto.synapse.messagestore;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import de.otto.synapse.channel.ShardPosition;
+import de.otto.synapse.channel.StartFrom;
+import de.otto.synapse.message.Header;
+import de.otto.synapse.message.Key;
+import de.otto.synapse.message.TextMessage;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Compact binary encoding of {@link MessageStoreEntry MessageStoreEntries}, used by message stores that are
+ * storing entries off the heap.
+ * <p>
+ *     Filter values are encoded using the position of their {@link Index} in the list of indexes of the store,
+ *     so only entries indexed by the same {@link Indexer} can be decoded.
+ * </p>
+ */
+final class MessageStoreEntryCodec {
+
+    private static final int NULL_LENGTH = -1;
+    private static final byte NO_SHARD_POSITION = -1;
+
+    private final ImmutableList<Index> indexes;
+
+    MessageStoreEntryCodec(final @Nonnull Iterable<Index> indexes) {
+        this.indexes = ImmutableList.copyOf(indexes);
+    }
+
+    @Nonnull
+    byte[] encode(final @Nonnull MessageStoreEntry entry) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (final DataOutputStream out = new DataOutputStream(bytes)) {
+            writeString(out, entry.getChannelName());
+            final ImmutableMap<Index, String> filterValues = entry.getFilterValues();
+            out.writeByte(filterValues.size());
+            for (final Map.Entry<Index, String> filterValue : filterValues.entrySet()) {
+                final int index = indexes.indexOf(filterValue.getKey());
+                if (index < 0) {
+                    throw new IllegalArgumentException("Unsupported index " + filterValue.getKey());
+                }
+                out.writeByte(index);
+                writeString(out, filterValue.getValue());
+            }
+            final TextMessage message = entry.getTextMessage();
+            writeString(out, message.getKey().partitionKey());
+            writeString(out, message.getKey().compactionKey());
+            writeShardPosition(out, message.getHeader().getShardPosition().orElse(null));
+            final ImmutableMap<String, String> attributes = message.getHeader().getAll();
+            out.writeInt(attributes.size());
+            for (final Map.Entry<String, String> attribute : attributes.entrySet()) {
+                writeString(out, attribute.getKey());
+                writeString(out, attribute.getValue());
+            }
+            writeString(out, message.getPayload());
+        } catch (final IOException e) {
+            // not expected when writing to a ByteArrayOutputStream
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Nonnull
+    MessageStoreEntry decode(final @Nonnull ByteBuffer buffer) {
+        final String channelName = readString(buffer);
+        final int filterValueCount = buffer.get();
+        final ImmutableMap.Builder<Index, String> filterValues = ImmutableMap.builder();
+        for (int i = 0; i < filterValueCount; ++i) {
+            final Index index = indexes.get(buffer.get());
+            filterValues.put(index, readString(buffer));
+        }
+        final String partitionKey = readString(buffer);
+        final String compactionKey = readString(buffer);
+        final ShardPosition shardPosition = readShardPosition(buffer);
+        final int attributeCount = buffer.getInt();
+        final ImmutableMap.Builder<String, String> attributes = ImmutableMap.builder();
+        for (int i = 0; i < attributeCount; ++i) {
+            attributes.put(readString(buffer), readString(buffer));
+        }
+        final String payload = readString(buffer);
+        return MessageStoreEntry.of(
+                channelName,
+                filterValues.build(),
+                TextMessage.of(Key.of(partitionKey, compactionKey), Header.of(shardPosition, attributes.build()), payload));
+    }
+
+    private static void writeShardPosition(final DataOutputStream out,
+                                           final @Nullable ShardPosition shardPosition) throws IOException {
+        if (shardPosition == null) {
+            out.writeByte(NO_SHARD_POSITION);
+        } else {
+            out.writeByte(shardPosition.startFrom().ordinal());
+            writeString(out, shardPosition.shardName());
+            writeString(out, shardPosition.position());
+            final Instant timestamp = shardPosition.timestamp();
+            out.writeBoolean(timestamp != null);
+            if (timestamp != null) {
+                out.writeLong(timestamp.getEpochSecond());
+                out.writeInt(timestamp.getNano());
+            }
+        }
+    }
+
+    @Nullable
+    private static ShardPosition readShardPosition(final ByteBuffer buffer) {
+        final byte startFrom = buffer.get();
+        if (startFrom == NO_SHARD_POSITION) {
+            return null;
+        }
+        final String shardName = readString(buffer);
+        final String position = readString(buffer);
+        final Instant timestamp = buffer.get() != 0
+                ? Instant.ofEpochSecond(buffer.getLong(), buffer.getInt())
+                : null;
+        switch (StartFrom.values()[startFrom]) {
+            case HORIZON:
+                return ShardPosition.fromHorizon(shardName);
+            case POSITION:
+                return ShardPosition.fromPosition(shardName, position);
+            case AT_POSITION:
+                return ShardPosition.atPosition(shardName, position);
+            case TIMESTAMP:
+                return ShardPosition.fromTimestamp(shardName, timestamp);
+            default:
+                throw new IllegalStateException("Unsupported StartFrom " + startFrom);
+        }
+    }
+
+    private static void writeString(final DataOutputStream out,
+                                    final @Nullable String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_LENGTH);
+        } else {
+            final byte[] bytes = value.getBytes(UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    @Nullable
+    private static String readString(final ByteBuffer buffer) {
+        final int length = buffer.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+}
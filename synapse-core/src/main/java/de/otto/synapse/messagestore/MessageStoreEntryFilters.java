@@ -0,0 +1,146 @@
+package de.otto.synapse.messagestore;
+
+import de.otto.synapse.channel.ChannelPosition;
+import de.otto.synapse.channel.ShardPosition;
+import de.otto.synapse.message.Header;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+import static de.otto.synapse.message.DefaultHeaderAttr.MSG_ARRIVAL_TS;
+
+/**
+ * Predicates used to select the {@link MessageStoreEntry entries} of a {@link MessageStore} by position or
+ * arrival time.
+ * <p>
+ *     The predicates define the semantics of {@link MessageStore#stream(String, ChannelPosition)} and
+ *     {@link MessageStore#stream(String, Instant, Instant)}. Message stores with indexes use them to filter the
+ *     entries of a partial scan.
+ * </p>
+ */
+public final class MessageStoreEntryFilters {
+
+    private MessageStoreEntryFilters() {
+    }
+
+    /**
+     * Selects the entries of a channel that are following the given channel position.
+     * <p>
+     *     For every shard, the {@link ShardPosition} of {@code fromPosition} is interpreted like a start position
+     *     of a receiver: {@code HORIZON} selects all entries of the shard, {@code POSITION} selects the entries
+     *     after the position, {@code AT_POSITION} the entries at or after the position, and {@code TIMESTAMP}
+     *     the entries that arrived at or after the timestamp. Shards that are not contained in {@code fromPosition}
+     *     are read from the horizon. Entries without a shard position are not selected.
+     * </p>
+     *
+     * @param channelName the name of the channel
+     * @param fromPosition the position of the channel
+     * @return predicate
+     */
+    @Nonnull
+    public static Predicate<MessageStoreEntry> following(final @Nonnull String channelName,
+                                                         final @Nonnull ChannelPosition fromPosition) {
+        return entry -> {
+            if (!entry.getChannelName().equals(channelName)) {
+                return false;
+            }
+            final Header header = entry.getTextMessage().getHeader();
+            final Optional<ShardPosition> shardPosition = header.getShardPosition();
+            return shardPosition.isPresent() && follows(shardPosition.get(), header, fromPosition.shard(shardPosition.get().shardName()));
+        };
+    }
+
+    /**
+     * Selects the entries of a channel that arrived in the given time interval. Entries without
+     * {@link de.otto.synapse.message.DefaultHeaderAttr#MSG_ARRIVAL_TS arrival timestamp} are not selected.
+     *
+     * @param channelName the name of the channel
+     * @param from the start of the interval (inclusive)
+     * @param to the end of the interval (exclusive)
+     * @return predicate
+     */
+    @Nonnull
+    public static Predicate<MessageStoreEntry> arrivedBetween(final @Nonnull String channelName,
+                                                              final @Nonnull Instant from,
+                                                              final @Nonnull Instant to) {
+        return entry -> {
+            if (!entry.getChannelName().equals(channelName)) {
+                return false;
+            }
+            final Instant arrivalTimestamp = arrivalTimestampOf(entry);
+            return arrivalTimestamp != null && !arrivalTimestamp.isBefore(from) && arrivalTimestamp.isBefore(to);
+        };
+    }
+
+    /**
+     * Compares the positions of two messages of the same shard. Numeric positions, like Kinesis sequence numbers
+     * or Kafka offsets, are compared by their numeric value, all other positions are compared lexicographically.
+     *
+     * @param first the first position
+     * @param second the second position
+     * @return a negative integer, zero, or a positive integer as the first position is less than, equal to, or
+     *         greater than the second
+     */
+    public static int comparePositions(final @Nonnull String first,
+                                       final @Nonnull String second) {
+        if (isNumeric(first) && isNumeric(second)) {
+            final String a = withoutLeadingZeros(first);
+            final String b = withoutLeadingZeros(second);
+            return a.length() != b.length()
+                    ? Integer.compare(a.length(), b.length())
+                    : a.compareTo(b);
+        }
+        return first.compareTo(second);
+    }
+
+    /**
+     * @param entry the message-store entry
+     * @return the arrival timestamp of the entry's message, or null
+     */
+    @Nullable
+    static Instant arrivalTimestampOf(final @Nonnull MessageStoreEntry entry) {
+        return entry.getTextMessage().getHeader().getAsInstant(MSG_ARRIVAL_TS);
+    }
+
+    private static boolean follows(final ShardPosition shardPosition,
+                                   final Header header,
+                                   final ShardPosition startPosition) {
+        switch (startPosition.startFrom()) {
+            case HORIZON:
+                return true;
+            case POSITION:
+                return comparePositions(shardPosition.position(), startPosition.position()) > 0;
+            case AT_POSITION:
+                return comparePositions(shardPosition.position(), startPosition.position()) >= 0;
+            case TIMESTAMP:
+                final Instant arrivalTimestamp = header.getAsInstant(MSG_ARRIVAL_TS);
+                return arrivalTimestamp != null && !arrivalTimestamp.isBefore(startPosition.timestamp());
+            default:
+                throw new IllegalArgumentException("Unsupported StartFrom " + startPosition.startFrom());
+        }
+    }
+
+    private static boolean isNumeric(final String position) {
+        if (position.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < position.length(); ++i) {
+            final char c = position.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String withoutLeadingZeros(final String position) {
+        int i = 0;
+        while (i < position.length() - 1 && position.charAt(i) == '0') {
+            ++i;
+        }
+        return position.substring(i);
+    }
+}
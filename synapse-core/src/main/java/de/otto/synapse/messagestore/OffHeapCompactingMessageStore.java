@@ -0,0 +1,216 @@
+package de.otto.synapse.messagestore;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import de.otto.synapse.channel.ChannelPosition;
+import de.otto.synapse.message.Key;
+import net.openhft.chronicle.map.ChronicleMap;
+import net.openhft.chronicle.map.ChronicleMapBuilder;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * A {@code MessageStore} that is storing messages off the heap, compacting entries by channel name and the message's
+ * {@link Key#compactionKey()}.
+ *
+ * <p><em>Features:</em></p>
+ * <ul>
+ *     <li>Thread-Safe</li>
+ *     <li>Supports instant compaction of messages.</li>
+ *     <li>No indexing of messages is supported.</li>
+ * </ul>
+ *
+ * <p>Implementation Hints:</p>
+ * <ul>
+ *     <li>The store is using two {@code ChronicleMaps}: the first one maps the channel name and compaction key to
+ *     the sequence number of the slot of the key, the second one maps the sequence number to the latest entry of
+ *     the key, encoded into a compact binary format.</li>
+ *     <li>Sequence numbers are assigned in insertion order. Updating the entry of a key does not change its
+ *     sequence number, so the store is streamed in insertion order by reading the slots in the order of their
+ *     sequence numbers.</li>
+ *     <li>The sequence numbers of the keys in the store are kept on the heap in a sorted set, so streaming the
+ *     store only reads the slots of existing keys, no matter how many keys were removed before.</li>
+ *     <li>The maps are sized using the {@link Builder#withEntries(long) number of entries} and the
+ *     {@link Builder#withAverageKeySize(double) average key} and {@link Builder#withAverageValueSize(double) value}
+ *     sizes. The maps will fail to add entries, if the number of entries exceeds the configured number by far.</li>
+ *     <li>The memory of the store is released after the store is {@link #close() closed}.</li>
+ * </ul>
+ */
+@ThreadSafe
+public class OffHeapCompactingMessageStore implements MessageStore {
+
+    private static final double DEFAULT_KEY_SIZE_BYTES = 64;
+    private static final double DEFAULT_VALUE_SIZE_BYTES = 1024;
+    private static final long DEFAULT_ENTRY_COUNT = 100_000;
+
+    private final boolean removeNullPayloadMessages;
+    private final ChannelPositions channelPositions = new ChannelPositions();
+    private final MessageStoreEntryCodec codec = new MessageStoreEntryCodec(ImmutableList.of());
+    private final ChronicleMap<byte[], Long> sequenceNumbers;
+    private final ChronicleMap<Long, byte[]> entries;
+    private final AtomicLong nextSequenceNumber = new AtomicLong();
+    private final ConcurrentSkipListSet<Long> liveSequenceNumbers = new ConcurrentSkipListSet<>();
+
+    private OffHeapCompactingMessageStore(final Builder builder) {
+        this.removeNullPayloadMessages = builder.removeNullPayloadMessages;
+        this.sequenceNumbers = ChronicleMapBuilder.of(byte[].class, Long.class)
+                .name(builder.name + "-sequenceNumbers")
+                .averageKeySize(builder.averageKeySize)
+                .entries(builder.entries)
+                .create();
+        this.entries = ChronicleMapBuilder.of(Long.class, byte[].class)
+                .name(builder.name + "-entries")
+                .averageValueSize(builder.averageValueSize)
+                .entries(builder.entries)
+                .create();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public void add(final @Nonnull MessageStoreEntry entry) {
+        final byte[] key = CompactionKey.of(entry).toByteArray();
+        if (entry.getTextMessage().getPayload() == null && removeNullPayloadMessages) {
+            sequenceNumbers.computeIfPresent(key, (k, sequenceNumber) -> {
+                entries.remove(sequenceNumber);
+                liveSequenceNumbers.remove(sequenceNumber);
+                return null;
+            });
+        } else {
+            final byte[] value = codec.encode(entry.getFilterValues().isEmpty()
+                    ? entry
+                    : MessageStoreEntry.of(entry.getChannelName(), entry.getTextMessage()));
+            sequenceNumbers.compute(key, (k, sequenceNumber) -> {
+                final Long slot = sequenceNumber != null
+                        ? sequenceNumber
+                        : nextSequenceNumber.getAndIncrement();
+                entries.put(slot, value);
+                if (sequenceNumber == null) {
+                    liveSequenceNumbers.add(slot);
+                }
+                return slot;
+            });
+        }
+        channelPositions.updateFrom(entry);
+    }
+
+    @Override
+    public Set<String> getChannelNames() {
+        return channelPositions.getChannelNames();
+    }
+
+    @Override
+    public ImmutableSet<Index> getIndexes() {
+        return ImmutableSet.of();
+    }
+
+    @Override
+    public ChannelPosition getLatestChannelPosition(final String channelName) {
+        return channelPositions.getLatestChannelPosition(channelName);
+    }
+
+    @Override
+    public Stream<MessageStoreEntry> stream() {
+        return liveSequenceNumbers.stream()
+                .map(entries::get)
+                .filter(Objects::nonNull)
+                .map(bytes -> codec.decode(ByteBuffer.wrap(bytes)));
+    }
+
+    @Override
+    public Stream<MessageStoreEntry> stream(Index index, String value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public long size() {
+        return sequenceNumbers.longSize();
+    }
+
+    @Override
+    public boolean isCompacting() {
+        return true;
+    }
+
+    @Override
+    public void close() {
+        sequenceNumbers.close();
+        entries.close();
+        liveSequenceNumbers.clear();
+    }
+
+    public static final class Builder {
+        private String name = "OffHeapCompactingMessageStore";
+        private boolean removeNullPayloadMessages = true;
+        private long entries = DEFAULT_ENTRY_COUNT;
+        private double averageKeySize = DEFAULT_KEY_SIZE_BYTES;
+        private double averageValueSize = DEFAULT_VALUE_SIZE_BYTES;
+
+        private Builder() {
+        }
+
+        public Builder withName(final String val) {
+            name = val;
+            return this;
+        }
+
+        /**
+         * Configures whether messages with {@code null} payload are removing the previous message with the same
+         * compaction key from the store (default: true).
+         *
+         * @param val true, if messages with null payload are removing the previous message with the same key
+         * @return builder
+         */
+        public Builder withRemoveNullPayloadMessages(final boolean val) {
+            removeNullPayloadMessages = val;
+            return this;
+        }
+
+        /**
+         * The expected maximum number of compaction keys of the store (default: 100.000).
+         *
+         * @param val number of entries
+         * @return builder
+         */
+        public Builder withEntries(final long val) {
+            entries = val;
+            return this;
+        }
+
+        /**
+         * The average size of the channel name plus the compaction key of the entries in bytes (default: 64).
+         *
+         * @param val average key size
+         * @return builder
+         */
+        public Builder withAverageKeySize(final double val) {
+            averageKeySize = val;
+            return this;
+        }
+
+        /**
+         * The average size of the encoded entries in bytes, which is slightly larger than the size of the payload
+         * and header attributes of the messages (default: 1024).
+         *
+         * @param val average value size
+         * @return builder
+         */
+        public Builder withAverageValueSize(final double val) {
+            averageValueSize = val;
+            return this;
+        }
+
+        public OffHeapCompactingMessageStore build() {
+            return new OffHeapCompactingMessageStore(this);
+        }
+    }
+}
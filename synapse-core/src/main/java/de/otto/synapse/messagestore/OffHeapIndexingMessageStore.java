@@ -1,55 +1,81 @@
 package de.otto.synapse.messagestore;
 
-import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Streams;
 import de.otto.synapse.channel.ChannelPosition;
-import de.otto.synapse.message.TextMessage;
-import org.dizitart.no2.Cursor;
-import org.dizitart.no2.Document;
-import org.dizitart.no2.Nitrite;
-import org.dizitart.no2.NitriteCollection;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Stream;
 
-import static com.google.common.collect.ImmutableMap.builder;
-import static org.dizitart.no2.Document.createDocument;
-import static org.dizitart.no2.IndexOptions.indexOptions;
-import static org.dizitart.no2.IndexType.NonUnique;
-import static org.dizitart.no2.filters.Filters.eq;
+import static de.otto.synapse.messagestore.MappedMessageLog.DEFAULT_SEGMENT_SIZE;
+import static de.otto.synapse.messagestore.MessageStoreEntryFilters.arrivedBetween;
+import static de.otto.synapse.messagestore.MessageStoreEntryFilters.following;
+import static de.otto.synapse.messagestore.SequenceIndex.NO_ADDRESS;
 
 /**
  * A {@code MessageStore} that is storing messages off the heap and supports indexing of messages.
  *
  * <p>Implementation Hints:</p>
  * <ul>
- *     <li>The store is using Nitrite to messages</li>
+ *     <li>Messages are encoded into a compact binary format and appended to a log of memory-mapped segment files,
+ *     so the messages do not occupy heap memory and are not scanned by the garbage collector.</li>
+ *     <li>For every {@link Index} value, the store keeps the list of addresses of the matching entries in a
+ *     primitive array on the heap.</li>
+ *     <li>{@link #stream(String, ChannelPosition) Position} and {@link #stream(String, Instant, Instant) time}
+ *     range queries are using a sequence index per shard and time buckets per channel, so only the segments
+ *     following the position, or containing the time range, are read.</li>
+ *     <li>Streaming the store is sequentially reading the mapped segments, decoding the entries on the fly.
+ *     {@link #parallelStream() Parallel streams} are split at the boundaries of the segments.</li>
+ *     <li>Entries are added under a lock, while streams are reading the entries added before the stream was
+ *     created without locking.</li>
+ *     <li>The store is not persistent: the segment files are temporary and deleted by the store. The memory is
+ *     released after the store is {@link #close() closed}.</li>
  * </ul>
- *
- * @see <a href="https://www.dizitart.org/nitrite-database.html">Nitrite Database</a>
  */
+@ThreadSafe
 public class OffHeapIndexingMessageStore implements MessageStore {
 
-    private final Nitrite nitrite;
-    private final NitriteCollection messages;
+    private final MappedMessageLog log;
+    private final MessageStoreEntryCodec codec;
+    private final ConcurrentMap<Index, ConcurrentMap<String, AddressList>> addressesPerIndex = new ConcurrentHashMap<>();
+    private final SequenceIndex sequenceIndex;
     private final ChannelPositions channelPositions = new ChannelPositions();
     private final Indexer indexer;
+    private volatile long size;
 
     public OffHeapIndexingMessageStore(final String name) {
         this(name, Indexers.noOpIndexer());
     }
-    
+
     public OffHeapIndexingMessageStore(final String name, final Indexer indexer) {
-        nitrite = Nitrite
-                .builder()
-                .openOrCreate();
-        messages = nitrite.getCollection(name + "-messages");
-        indexer.getIndexes().forEach(index -> {
-            messages.createIndex("_idx_" + index.getName(), indexOptions(NonUnique));
-        });
+        this(name, indexer, null, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Creates an OffHeapIndexingMessageStore.
+     *
+     * @param name the name of the store, used to name the segment files
+     * @param indexer the indexer used to index the entries
+     * @param directory the directory of the segment files, or null if the default temporary-file directory should
+     *                  be used
+     * @param segmentSize the size of the memory-mapped segment files in bytes
+     */
+    public OffHeapIndexingMessageStore(final @Nonnull String name,
+                                       final @Nonnull Indexer indexer,
+                                       final @Nullable Path directory,
+                                       final int segmentSize) {
+        this.log = new MappedMessageLog(name + "-messages", directory, segmentSize);
+        this.codec = new MessageStoreEntryCodec(indexer.getIndexes());
+        this.sequenceIndex = new SequenceIndex(address -> codec.decode(log.read(address)));
         this.indexer = indexer;
+        indexer.getIndexes().forEach(index -> addressesPerIndex.put(index, new ConcurrentHashMap<>()));
     }
 
     @Override
@@ -69,52 +95,64 @@ public class OffHeapIndexingMessageStore implements MessageStore {
 
     @Override
     public Stream<MessageStoreEntry> stream() {
-        return toEntryStream(messages.find());
+        return log.stream().map(codec::decode);
+    }
+
+    @Override
+    public Stream<MessageStoreEntry> parallelStream() {
+        return log.parallelStream().map(codec::decode);
     }
 
     @Override
     public Stream<MessageStoreEntry> stream(final Index index, final String value) {
-        return toEntryStream(messages.find(eq("_idx_" + index.getName(), value)));
+        final Map<String, AddressList> addressesPerValue = addressesPerIndex.get(index);
+        final AddressList addresses = addressesPerValue != null ? addressesPerValue.get(value) : null;
+        return addresses != null
+                ? log.stream(addresses.stream()).map(codec::decode)
+                : Stream.empty();
+    }
+
+    @Override
+    public Stream<MessageStoreEntry> stream(final String channelName, final ChannelPosition fromPosition) {
+        final long first = sequenceIndex.firstAddressFollowing(channelName, fromPosition);
+        return first != NO_ADDRESS
+                ? log.stream(first, Long.MAX_VALUE).map(codec::decode).filter(following(channelName, fromPosition))
+                : Stream.empty();
+    }
+
+    @Override
+    public Stream<MessageStoreEntry> stream(final String channelName, final Instant from, final Instant to) {
+        final long[] range = sequenceIndex.addressRange(channelName, from, to);
+        return range != null
+                ? log.stream(range[0], range[1]).map(codec::decode).filter(arrivedBetween(channelName, from, to))
+                : Stream.empty();
     }
 
     @Override
     public void add(final @Nonnull MessageStoreEntry entry) {
         final MessageStoreEntry indexedEntry = indexer.index(entry);
-        final Document document = createDocument("channelName", indexedEntry.getChannelName());
-        indexedEntry.getFilterValues().forEach((index, value) -> {
-            document.put("_idx_" + index.getName(), value);
-        });
-        document.put("message", entry.getTextMessage());
-        messages.insert(document);
+        final byte[] record = codec.encode(indexedEntry);
+        synchronized (log) {
+            final long address = log.append(record);
+            indexedEntry.getFilterValues().forEach((index, value) -> addressesPerIndex
+                    .get(index)
+                    .computeIfAbsent(value, _x -> new AddressList())
+                    .add(address));
+            sequenceIndex.add(indexedEntry, address);
+            ++size;
+        }
         channelPositions.updateFrom(entry);
     }
 
     @Override
     public long size() {
-        return messages.size();
+        return size;
     }
 
     @Override
     public void close() {
-        nitrite.close();
-    }
-
-    @Nonnull
-    private Stream<MessageStoreEntry> toEntryStream(Cursor cursor) {
-        return Streams.stream(cursor).map(document ->
-                {
-                    final ImmutableMap.Builder<Index, String> filterValues = builder();
-                    indexer.getIndexes().forEach(index -> {
-                        String value = document.get("_idx_" + index.getName(), String.class);
-                        if (value != null) {
-                            filterValues.put(index, value);
-                        }
-                    });
-                    return MessageStoreEntry.of(
-                            document.get("channelName", String.class),
-                            filterValues.build(),
-                            document.get("message", TextMessage.class));
-                }
-        );
+        log.close();
+        addressesPerIndex.values().forEach(Map::clear);
+        sequenceIndex.clear();
     }
 }
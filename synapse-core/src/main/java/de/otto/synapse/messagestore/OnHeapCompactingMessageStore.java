@@ -1,17 +1,20 @@
 package de.otto.synapse.messagestore;
 
 import com.google.common.collect.ImmutableSet;
-import com.googlecode.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
 import de.otto.synapse.channel.ChannelPosition;
 import de.otto.synapse.message.Key;
 
+import javax.annotation.Nonnull;
 import javax.annotation.concurrent.ThreadSafe;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Stream;
 
 /**
@@ -21,26 +24,34 @@ import java.util.stream.Stream;
  * <p><em>Features:</em></p>
  * <ul>
  *     <li>Thread-Safe</li>
- *     <li>Supports a maximum capacity, with eviction of least-recently used (LRU) messages </li>
+ *     <li>Supports a maximum capacity, with eviction of the oldest messages</li>
  *     <li>Supports instant compaction of messages.</li>
  *     <li>No indexing of messages is supported.</li>
  * </ul>
+ *
+ * <p>Implementation Hints:</p>
+ * <ul>
+ *     <li>Every {@link CompactionKey} is mapped to a slot, holding the latest entry of the key. Slots are
+ *     updated per key, using the fine-grained locking of a {@link ConcurrentHashMap}, so messages with different
+ *     compaction keys are added without contention.</li>
+ *     <li>New slots are appended to a lock-free queue, preserving the insertion order of the keys. Updating the
+ *     entry of a key does not change its position.</li>
+ *     <li>Slots of removed entries are skipped while streaming, and purged from the queue as soon as there are more
+ *     removed than remaining entries.</li>
+ * </ul>
  */
 @ThreadSafe
 public class OnHeapCompactingMessageStore implements MessageStore {
 
-
-    // TODO: Introduce Builder
-    // TODO: Make capacity configurable
-    // TODO: Support off-heap maps
+    private static final int MIN_PURGE_THRESHOLD = 1024;
 
     private final long maxCapacity;
     private final boolean removeNullPayloadMessages;
     private final ChannelPositions channelPositions = new ChannelPositions();
-    private final ConcurrentMap<Long, MessageStoreEntry> entries;
-    private final ConcurrentMap<String, Long> internalKeyToIndexMapping = new ConcurrentHashMap<>();
-    private final ReadWriteLock lock = new ReentrantReadWriteLock();
-    private final AtomicLong nextKey = new AtomicLong();
+    private final ConcurrentMap<CompactionKey, Slot> slots = new ConcurrentHashMap<>(1000);
+    private final ConcurrentLinkedQueue<Slot> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicLong removedSlots = new AtomicLong();
+    private final AtomicBoolean purging = new AtomicBoolean(false);
 
     public OnHeapCompactingMessageStore(final boolean removeNullPayloadMessages) {
         this(removeNullPayloadMessages, Long.MAX_VALUE);
@@ -50,48 +61,33 @@ public class OnHeapCompactingMessageStore implements MessageStore {
                                         final long maxCapacity) {
         this.removeNullPayloadMessages = removeNullPayloadMessages;
         this.maxCapacity = maxCapacity;
-        this.entries = new ConcurrentLinkedHashMap.Builder<Long,MessageStoreEntry>()
-                .initialCapacity(1000)
-                .maximumWeightedCapacity(maxCapacity)
-                .build();
     }
 
     @Override
-    public void add(final MessageStoreEntry entry) {
-        lock.writeLock().lock();
-        try {
-            final String internalKey = entry.getChannelName() + ":" + entry.getTextMessage().getKey().compactionKey();
-            final long index = nextKey.getAndIncrement();
-
-            if (entry.getTextMessage().getPayload() == null && removeNullPayloadMessages) {
-                final Long previousIndex = internalKeyToIndexMapping.get(internalKey);
-                if (previousIndex != null) {
-                    entries.remove(previousIndex);
-                }
-                internalKeyToIndexMapping.remove(internalKey);
-            } else {
-                final Long previousIndex = internalKeyToIndexMapping.get(internalKey);
-                if (previousIndex != null) {
-                    entries.put(previousIndex, entry);
+    public void add(final @Nonnull MessageStoreEntry entry) {
+        final CompactionKey key = CompactionKey.of(entry);
+        if (entry.getTextMessage().getPayload() == null && removeNullPayloadMessages) {
+            slots.computeIfPresent(key, (k, slot) -> removeSlot(slot));
+            purgeRemovedSlotsIfNecessary();
+        } else {
+            slots.compute(key, (k, slot) -> {
+                if (slot == null) {
+                    final Slot inserted = new Slot(k, entry);
+                    insertionOrder.offer(inserted);
+                    return inserted;
                 } else {
-                    entries.put(index, entry);
-                    internalKeyToIndexMapping.put(internalKey, index);
+                    slot.entry = entry;
+                    return slot;
                 }
-            }
-            channelPositions.updateFrom(entry);
-        } finally {
-            lock.writeLock().unlock();
+            });
+            evictIfNecessary();
         }
+        channelPositions.updateFrom(entry);
     }
 
     @Override
     public Set<String> getChannelNames() {
-        lock.readLock().lock();
-        try {
-            return channelPositions.getChannelNames();
-        } finally {
-            lock.readLock().unlock();
-        }
+        return channelPositions.getChannelNames();
     }
 
     @Override
@@ -101,22 +97,28 @@ public class OnHeapCompactingMessageStore implements MessageStore {
 
     @Override
     public ChannelPosition getLatestChannelPosition(final String channelName) {
-        lock.readLock().lock();
-        try {
-            return channelPositions.getLatestChannelPosition(channelName);
-        } finally {
-            lock.readLock().unlock();
-        }
+        return channelPositions.getLatestChannelPosition(channelName);
     }
 
     @Override
     public Stream<MessageStoreEntry> stream() {
-        lock.readLock().lock();
-        try {
-            return entries.values().stream();
-        } finally {
-            lock.readLock().unlock();
-        }
+        return insertionOrder.stream()
+                .map(slot -> slot.entry)
+                .filter(Objects::nonNull);
+    }
+
+    /**
+     * Returns a parallel stream of the entries of the store. The stream is splitting a snapshot of the slots,
+     * taken when the stream is created.
+     *
+     * @return parallel Stream of entries
+     */
+    @Override
+    public Stream<MessageStoreEntry> parallelStream() {
+        return Arrays.stream(insertionOrder.toArray(new Slot[0]))
+                .parallel()
+                .map(slot -> slot.entry)
+                .filter(Objects::nonNull);
     }
 
     @Override
@@ -126,7 +128,63 @@ public class OnHeapCompactingMessageStore implements MessageStore {
 
     @Override
     public long size() {
-        return entries.size();
+        return slots.size();
+    }
+
+    @Override
+    public boolean isCompacting() {
+        return true;
+    }
+
+    private void evictIfNecessary() {
+        while (slots.size() > maxCapacity) {
+            final Slot oldest = insertionOrder.poll();
+            if (oldest == null) {
+                return;
+            }
+            if (oldest.entry == null) {
+                removedSlots.decrementAndGet();
+            } else {
+                slots.computeIfPresent(oldest.key, (k, slot) -> slot == oldest ? removeSlot(slot) : slot);
+            }
+        }
+    }
+
+    private Slot removeSlot(final Slot slot) {
+        slot.entry = null;
+        removedSlots.incrementAndGet();
+        return null;
+    }
+
+    private void purgeRemovedSlotsIfNecessary() {
+        final long removed = removedSlots.get();
+        if (removed > MIN_PURGE_THRESHOLD && removed > slots.size() && purging.compareAndSet(false, true)) {
+            try {
+                final Iterator<Slot> iterator = insertionOrder.iterator();
+                while (iterator.hasNext()) {
+                    if (iterator.next().entry == null) {
+                        iterator.remove();
+                        removedSlots.decrementAndGet();
+                    }
+                }
+            } finally {
+                purging.set(false);
+            }
+        }
+    }
+
+    /**
+     * Holds the latest entry of a {@link CompactionKey}. The entry is set to {@code null} after it was removed from
+     * the store.
+     */
+    private static final class Slot {
+        private final CompactionKey key;
+        private volatile MessageStoreEntry entry;
+
+        private Slot(final CompactionKey key, final MessageStoreEntry entry) {
+            this.key = key;
+            this.entry = entry;
+        }
     }
 
 }
@@ -4,16 +4,18 @@ import com.google.common.collect.ImmutableSet;
 import de.otto.synapse.channel.ChannelPosition;
 
 import javax.annotation.concurrent.ThreadSafe;
-import java.util.Deque;
+import java.time.Instant;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Stream;
 
 import static de.otto.synapse.messagestore.Indexers.noOpIndexer;
+import static de.otto.synapse.messagestore.MessageStoreEntryFilters.arrivedBetween;
+import static de.otto.synapse.messagestore.MessageStoreEntryFilters.following;
+import static de.otto.synapse.messagestore.SequenceIndex.NO_ADDRESS;
 
 /**
  * Thread-safe in-memory (on heap) implementation of a MessageStore that is able to index entries.
@@ -24,14 +26,18 @@ import static de.otto.synapse.messagestore.Indexers.noOpIndexer;
  *     <li>No support for maximum capacity, will grow without bounds.</li>
  *     <li>No support for compaction.</li>
  *     <li>Supports ndexing of messages.</li>
+ *     <li>Supports {@link #parallelStream() parallel streams}, splitting the entries into parts of exact size.</li>
+ *     <li>Supports {@link #stream(String, ChannelPosition) position} and {@link #stream(String, Instant, Instant) time}
+ *     range queries using a sequence index per shard and time buckets per channel.</li>
  * </ul>
  */
 @ThreadSafe
 public class OnHeapIndexingMessageStore implements MessageStore {
 
     private final ReadWriteLock lock = new ReentrantReadWriteLock();
-    private final Deque<MessageStoreEntry> entries = new ConcurrentLinkedDeque<>();
-    private final ConcurrentMap<String, Deque<MessageStoreEntry>> indexes = new ConcurrentHashMap<>();
+    private final AppendOnlyList<MessageStoreEntry> entries = new AppendOnlyList<>();
+    private final ConcurrentMap<String, AppendOnlyList<MessageStoreEntry>> indexes = new ConcurrentHashMap<>();
+    private final SequenceIndex sequenceIndex = new SequenceIndex(address -> entries.get((int) address));
     private final ChannelPositions channelPositions = new ChannelPositions();
     private final Indexer indexer;
 
@@ -48,13 +54,12 @@ public class OnHeapIndexingMessageStore implements MessageStore {
         lock.writeLock().lock();
         try {
             final MessageStoreEntry indexedEntry = indexer.index(entry);
+            final int address = entries.size();
             entries.add(indexedEntry);
+            sequenceIndex.add(indexedEntry, address);
             indexedEntry.getFilterValues().forEach((key, value) -> {
                 final String indexKey = indexKeyOf(key, value);
-                if (!indexes.containsKey(indexKey)) {
-                    indexes.put(indexKey, new ConcurrentLinkedDeque<>());
-                }
-                indexes.get(indexKey).addLast(indexedEntry);
+                indexes.computeIfAbsent(indexKey, _x -> new AppendOnlyList<>()).add(indexedEntry);
             });
             channelPositions.updateFrom(indexedEntry);
         } finally {
@@ -97,16 +102,37 @@ public class OnHeapIndexingMessageStore implements MessageStore {
         }
     }
 
+    @Override
+    public Stream<MessageStoreEntry> parallelStream() {
+        return entries.parallelStream();
+    }
+
     @Override
     public Stream<MessageStoreEntry> stream(Index index, String value) {
-        String indexKey = indexKeyOf(index, value);
-        if (indexes.containsKey(indexKey)) {
-            return indexes.get(indexKey).stream();
+        final AppendOnlyList<MessageStoreEntry> indexedEntries = indexes.get(indexKeyOf(index, value));
+        if (indexedEntries != null) {
+            return indexedEntries.stream();
         } else {
             return Stream.empty();
         }
     }
 
+    @Override
+    public Stream<MessageStoreEntry> stream(final String channelName, final ChannelPosition fromPosition) {
+        final long first = sequenceIndex.firstAddressFollowing(channelName, fromPosition);
+        return first != NO_ADDRESS
+                ? entries.stream((int) first, Integer.MAX_VALUE).filter(following(channelName, fromPosition))
+                : Stream.empty();
+    }
+
+    @Override
+    public Stream<MessageStoreEntry> stream(final String channelName, final Instant from, final Instant to) {
+        final long[] range = sequenceIndex.addressRange(channelName, from, to);
+        return range != null
+                ? entries.stream((int) range[0], (int) range[1] + 1).filter(arrivedBetween(channelName, from, to))
+                : Stream.empty();
+    }
+
     @Override
     public long size() {
         return entries.size();
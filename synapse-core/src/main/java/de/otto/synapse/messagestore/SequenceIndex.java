@@ -0,0 +1,239 @@
+package de.otto.synapse.messagestore;
+
+import de.otto.synapse.channel.ChannelPosition;
+import de.otto.synapse.channel.ShardPosition;
+import de.otto.synapse.channel.StartFrom;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongFunction;
+
+import static de.otto.synapse.messagestore.MessageStoreEntryFilters.arrivalTimestampOf;
+import static de.otto.synapse.messagestore.MessageStoreEntryFilters.comparePositions;
+
+/**
+ * Index of the entries of a {@link MessageStore} by shard position and arrival time, used to implement
+ * {@link MessageStore#stream(String, ChannelPosition)} and {@link MessageStore#stream(String, Instant, Instant)}
+ * without scanning the whole store.
+ * <p>
+ *     Entries are identified by their address in the store. Addresses must be increasing in insertion order, like
+ *     the index of an entry in a list, or the address of a record in a {@link MappedMessageLog}.
+ * </p>
+ * <ul>
+ *     <li>For every shard of a channel, the index keeps the addresses of the entries of the shard. As long as the
+ *     positions of a shard are added in ascending order, the first entry following a position is found using a
+ *     binary search. Otherwise, the shard is scanned from its first entry.</li>
+ *     <li>For every channel, the entries are assigned to coarse time buckets by arrival timestamp. The index keeps
+ *     the first and the last address per bucket, so a time range is mapped to the range of addresses that needs
+ *     to be scanned.</li>
+ * </ul>
+ * <p>
+ *     The index only determines the range of a scan: the scanned entries still need to be filtered using
+ *     {@link MessageStoreEntryFilters}. Entries must be added by a single writer at a time, in the order of their
+ *     addresses.
+ * </p>
+ */
+@ThreadSafe
+final class SequenceIndex {
+
+    /**
+     * Returned if there is no address matching a query.
+     */
+    static final long NO_ADDRESS = -1;
+
+    /**
+     * The default duration of a time bucket.
+     */
+    static final Duration DEFAULT_TIME_BUCKET = Duration.ofMinutes(1);
+
+    private final LongFunction<MessageStoreEntry> entryAt;
+    private final long timeBucketMillis;
+    private final ConcurrentMap<String, ConcurrentMap<String, Shard>> shardsPerChannel = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ConcurrentNavigableMap<Long, long[]>> timeBucketsPerChannel = new ConcurrentHashMap<>();
+
+    /**
+     * @param entryAt function used to read the entry at a given address
+     */
+    SequenceIndex(final @Nonnull LongFunction<MessageStoreEntry> entryAt) {
+        this(entryAt, DEFAULT_TIME_BUCKET);
+    }
+
+    /**
+     * @param entryAt function used to read the entry at a given address
+     * @param timeBucket the duration of a time bucket
+     */
+    SequenceIndex(final @Nonnull LongFunction<MessageStoreEntry> entryAt,
+                  final @Nonnull Duration timeBucket) {
+        this.entryAt = entryAt;
+        this.timeBucketMillis = timeBucket.toMillis();
+    }
+
+    /**
+     * Adds an entry to the index.
+     *
+     * @param entry the entry
+     * @param address the address of the entry, greater than the addresses of all entries added before
+     */
+    void add(final @Nonnull MessageStoreEntry entry, final long address) {
+        final String channelName = entry.getChannelName();
+        final Optional<ShardPosition> shardPosition = entry.getTextMessage().getHeader().getShardPosition();
+        if (shardPosition.isPresent()) {
+            shardsPerChannel
+                    .computeIfAbsent(channelName, _x -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(shardPosition.get().shardName(), _x -> new Shard())
+                    .add(shardPosition.get().position(), address);
+        }
+        final Instant arrivalTimestamp = arrivalTimestampOf(entry);
+        if (arrivalTimestamp != null) {
+            timeBucketsPerChannel
+                    .computeIfAbsent(channelName, _x -> new ConcurrentSkipListMap<>())
+                    .merge(bucketOf(arrivalTimestamp), new long[]{address, address}, (existing, added) -> new long[]{
+                            Math.min(existing[0], added[0]),
+                            Math.max(existing[1], added[1])});
+        }
+    }
+
+    /**
+     * Returns the address of the first entry of a channel that may follow the given position.
+     *
+     * @param channelName the name of the channel
+     * @param fromPosition the position
+     * @return address, or {@link #NO_ADDRESS}, if no entry is following the position
+     */
+    long firstAddressFollowing(final @Nonnull String channelName,
+                               final @Nonnull ChannelPosition fromPosition) {
+        final Map<String, Shard> shards = shardsPerChannel.get(channelName);
+        if (shards == null) {
+            return NO_ADDRESS;
+        }
+        long first = NO_ADDRESS;
+        for (final Map.Entry<String, Shard> shard : shards.entrySet()) {
+            final long address = firstAddressFollowing(channelName, shard.getValue(), fromPosition.shard(shard.getKey()));
+            if (address != NO_ADDRESS && (first == NO_ADDRESS || address < first)) {
+                first = address;
+            }
+        }
+        return first;
+    }
+
+    /**
+     * Returns the range of addresses of the entries of a channel that may have arrived in the given time interval.
+     *
+     * @param channelName the name of the channel
+     * @param from the start of the interval (inclusive)
+     * @param to the end of the interval (exclusive)
+     * @return array containing the first and the last address, or null, if no entry arrived in the interval
+     */
+    @Nullable
+    long[] addressRange(final @Nonnull String channelName,
+                        final @Nonnull Instant from,
+                        final @Nonnull Instant to) {
+        final ConcurrentNavigableMap<Long, long[]> timeBuckets = timeBucketsPerChannel.get(channelName);
+        if (timeBuckets == null || !from.isBefore(to)) {
+            return null;
+        }
+        long[] range = null;
+        for (final long[] bucket : timeBuckets.subMap(bucketOf(from), true, bucketOf(to.minusNanos(1)), true).values()) {
+            range = range == null
+                    ? bucket
+                    : new long[]{Math.min(range[0], bucket[0]), Math.max(range[1], bucket[1])};
+        }
+        return range;
+    }
+
+    /**
+     * Removes all entries from the index.
+     */
+    void clear() {
+        shardsPerChannel.clear();
+        timeBucketsPerChannel.clear();
+    }
+
+    private long firstAddressFollowing(final String channelName,
+                                       final Shard shard,
+                                       final ShardPosition startPosition) {
+        final int size = shard.addresses.size();
+        if (size == 0) {
+            return NO_ADDRESS;
+        }
+        switch (startPosition.startFrom()) {
+            case POSITION:
+            case AT_POSITION:
+                if (shard.ordered) {
+                    final boolean inclusive = startPosition.startFrom() == StartFrom.AT_POSITION;
+                    final int index = firstIndexFollowing(shard, size, startPosition.position(), inclusive);
+                    return index < size ? shard.addresses.get(index) : NO_ADDRESS;
+                }
+                return shard.addresses.get(0);
+            case TIMESTAMP:
+                final ConcurrentNavigableMap<Long, long[]> timeBuckets = timeBucketsPerChannel.get(channelName);
+                if (timeBuckets == null) {
+                    return NO_ADDRESS;
+                }
+                long first = NO_ADDRESS;
+                for (final long[] bucket : timeBuckets.tailMap(bucketOf(startPosition.timestamp()), true).values()) {
+                    if (first == NO_ADDRESS || bucket[0] < first) {
+                        first = bucket[0];
+                    }
+                }
+                return first;
+            default:
+                return shard.addresses.get(0);
+        }
+    }
+
+    private int firstIndexFollowing(final Shard shard,
+                                    final int size,
+                                    final String position,
+                                    final boolean inclusive) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            final String midPosition = entryAt
+                    .apply(shard.addresses.get(mid))
+                    .getTextMessage()
+                    .getHeader()
+                    .getShardPosition()
+                    .map(ShardPosition::position)
+                    .orElse("");
+            final int comparison = comparePositions(midPosition, position);
+            if (comparison > 0 || inclusive && comparison == 0) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    private long bucketOf(final Instant timestamp) {
+        return Math.floorDiv(timestamp.toEpochMilli(), timeBucketMillis);
+    }
+
+    /**
+     * The addresses of the entries of a single shard.
+     */
+    private static final class Shard {
+        private final AddressList addresses = new AddressList();
+        private volatile String lastPosition;
+        private volatile boolean ordered = true;
+
+        private void add(final String position, final long address) {
+            if (ordered && lastPosition != null && comparePositions(position, lastPosition) < 0) {
+                ordered = false;
+            }
+            lastPosition = position;
+            addresses.add(address);
+        }
+    }
+}
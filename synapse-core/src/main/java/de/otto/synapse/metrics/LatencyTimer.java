@@ -0,0 +1,46 @@
+package de.otto.synapse.metrics;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Records the latency of processing a single message, for example by a
+ * {@link de.otto.synapse.endpoint.MessageInterceptor} or {@link de.otto.synapse.consumer.MessageConsumer}.
+ * <p>
+ *     Usage:
+ * </p>
+ * <pre><code>
+ *     final long start = timer.start();
+ *     try {
+ *         consumer.accept(message);
+ *     } finally {
+ *         timer.stop(start);
+ *     }
+ * </code></pre>
+ * <p>
+ *     Implementations may only sample some of the messages: if a message is not sampled, {@link #start()}
+ *     returns {@link #NOT_SAMPLED} without reading the clock, and {@link #stop(long)} is ignoring the call.
+ * </p>
+ */
+@ThreadSafe
+public interface LatencyTimer {
+
+    /**
+     * Returned by {@link #start()}, if the current message is not sampled.
+     */
+    long NOT_SAMPLED = Long.MIN_VALUE;
+
+    /**
+     * Starts measuring the latency of a message.
+     *
+     * @return start time in nanoseconds, or {@link #NOT_SAMPLED}
+     */
+    long start();
+
+    /**
+     * Stops measuring the latency of a message and records the elapsed time.
+     *
+     * @param start the value returned by {@link #start()}
+     */
+    void stop(long start);
+
+}
@@ -0,0 +1,108 @@
+package de.otto.synapse.metrics;
+
+import de.otto.synapse.endpoint.EndpointType;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Factory for the {@link LatencyTimer timers} used to measure the latency of message interceptors and consumers.
+ * <p>
+ *     If a MessageTimings instance is configured at the {@link de.otto.synapse.endpoint.MessageInterceptorRegistry},
+ *     every interceptor of an {@link de.otto.synapse.endpoint.InterceptorChain} and every consumer registered at
+ *     a {@link de.otto.synapse.endpoint.receiver.MessageReceiverEndpoint} is timed using a separate timer.
+ *     Without MessageTimings, interceptors and consumers are called without any instrumentation.
+ * </p>
+ *
+ * @see MicrometerMessageTimings
+ */
+public interface MessageTimings {
+
+    /**
+     * Returns the timer for a message interceptor.
+     *
+     * @param channelName the name of the channel
+     * @param endpointType the type of the endpoint using the interceptor
+     * @param name the name of the interceptor, as returned by {@link #nameOf(Object)}
+     * @return LatencyTimer
+     */
+    @Nonnull
+    LatencyTimer interceptorTimer(@Nonnull String channelName,
+                                  @Nonnull EndpointType endpointType,
+                                  @Nonnull String name);
+
+    /**
+     * Returns the timer for a message consumer, or batch message consumer, registered at a receiver endpoint.
+     *
+     * @param channelName the name of the channel
+     * @param name the name of the consumer, as returned by {@link #nameOf(Object)}
+     * @return LatencyTimer
+     */
+    @Nonnull
+    LatencyTimer consumerTimer(@Nonnull String channelName,
+                               @Nonnull String name);
+
+    /**
+     * Returns the name of an interceptor or consumer that is used to identify its timer.
+     * <p>
+     *     Interceptors and consumers implementing {@link Named} are identified by {@link Named#getName()}: this is
+     *     the case for interceptors and consumers created from annotated methods of Spring beans, that are named
+     *     {@code <SimpleClassName>#<methodName>}. Otherwise, the simple name of the class is used. The names of
+     *     lambdas are the simple names of the declaring classes.
+     * </p>
+     *
+     * @param target the interceptor or consumer
+     * @return name
+     */
+    @Nonnull
+    static String nameOf(final @Nonnull Object target) {
+        if (target instanceof Named) {
+            return ((Named) target).getName();
+        }
+        final String className = target.getClass().getName();
+        final String lambdaDeclaringClass = lambdaDeclaringClassOf(className);
+        if (lambdaDeclaringClass != null) {
+            return lambdaDeclaringClass;
+        }
+        final String simpleName = target.getClass().getSimpleName();
+        return simpleName.isEmpty()
+                ? className.substring(className.lastIndexOf('.') + 1)
+                : simpleName;
+    }
+
+    /**
+     * Returns the simple name of the class declaring a lambda, if the given class name is the name of a lambda.
+     * <p>
+     *     Lambdas are named {@code <DeclaringClass>$$Lambda$<n>/<id>} up to JDK 14 and
+     *     {@code <DeclaringClass>$$Lambda/<id>} (hidden classes) since JDK 15. Everything after {@code $$Lambda}
+     *     is stripped.
+     * </p>
+     *
+     * @param className the fully qualified name of a class
+     * @return simple name of the declaring class, or null if the class is not a lambda
+     */
+    @Nullable
+    static String lambdaDeclaringClassOf(final @Nonnull String className) {
+        final int lambdaSuffix = className.indexOf("$$Lambda");
+        if (lambdaSuffix <= 0 || className.length() <= lambdaSuffix + 8) {
+            return null;
+        }
+        final char next = className.charAt(lambdaSuffix + 8);
+        if (next != '$' && next != '/') {
+            return null;
+        }
+        return className.substring(className.lastIndexOf('.', lambdaSuffix) + 1, lambdaSuffix);
+    }
+
+    /**
+     * Implemented by interceptors and consumers that have a name, for example the name of a Spring bean.
+     */
+    interface Named {
+
+        /**
+         * @return the name of the interceptor or consumer
+         */
+        @Nonnull
+        String getName();
+    }
+}
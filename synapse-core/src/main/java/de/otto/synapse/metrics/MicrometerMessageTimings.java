@@ -0,0 +1,114 @@
+package de.otto.synapse.metrics;
+
+import de.otto.synapse.endpoint.EndpointType;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import javax.annotation.Nonnull;
+
+import static de.otto.synapse.endpoint.EndpointType.RECEIVER;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * {@link MessageTimings} that are recording the latencies of interceptors and consumers using Micrometer
+ * {@link Timer timers}.
+ * <p>
+ *     Interceptors are timed using {@value #INTERCEPTOR_TIMER}, consumers using {@value #CONSUMER_TIMER}. Both timers
+ *     are tagged with the name of the {@code channel}, the {@code endpoint_type} and the {@code bean} name of the
+ *     interceptor or consumer, and are publishing the 50th, 95th and 99th percentiles.
+ * </p>
+ * <p>
+ *     Using a sampling interval {@code n > 1}, only every n-th message is timed, so the counts of the timers
+ *     are the number of sampled messages.
+ * </p>
+ * <p>
+ *     Requires {@code io.micrometer:micrometer-core}. The timings are configured automatically if
+ *     {@code synapse.metrics.latency.enabled=true}.
+ * </p>
+ */
+public class MicrometerMessageTimings implements MessageTimings {
+
+    public static final String INTERCEPTOR_TIMER = "synapse.interceptor.latency";
+    public static final String CONSUMER_TIMER = "synapse.consumer.latency";
+
+    private final MeterRegistry meterRegistry;
+    private final int samplingInterval;
+
+    /**
+     * Creates MicrometerMessageTimings that are timing every message.
+     *
+     * @param meterRegistry the registry used to register the timers
+     */
+    public MicrometerMessageTimings(final @Nonnull MeterRegistry meterRegistry) {
+        this(meterRegistry, 1);
+    }
+
+    /**
+     * Creates MicrometerMessageTimings.
+     *
+     * @param meterRegistry the registry used to register the timers
+     * @param samplingInterval only every n-th message is timed
+     */
+    public MicrometerMessageTimings(final @Nonnull MeterRegistry meterRegistry,
+                                    final int samplingInterval) {
+        if (samplingInterval < 1) {
+            throw new IllegalArgumentException("samplingInterval must be greater than zero");
+        }
+        this.meterRegistry = meterRegistry;
+        this.samplingInterval = samplingInterval;
+    }
+
+    @Nonnull
+    @Override
+    public LatencyTimer interceptorTimer(final @Nonnull String channelName,
+                                         final @Nonnull EndpointType endpointType,
+                                         final @Nonnull String name) {
+        return new SampledTimer(timer(INTERCEPTOR_TIMER, channelName, endpointType, name), samplingInterval);
+    }
+
+    @Nonnull
+    @Override
+    public LatencyTimer consumerTimer(final @Nonnull String channelName,
+                                      final @Nonnull String name) {
+        return new SampledTimer(timer(CONSUMER_TIMER, channelName, RECEIVER, name), samplingInterval);
+    }
+
+    private Timer timer(final String timerName,
+                        final String channelName,
+                        final EndpointType endpointType,
+                        final String name) {
+        return Timer.builder(timerName)
+                .tag("channel", channelName)
+                .tag("endpoint_type", endpointType.name())
+                .tag("bean", name)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    private static final class SampledTimer implements LatencyTimer {
+        private final Timer timer;
+        private final int samplingInterval;
+        /** Not synchronized: lost updates only affect which messages are sampled. */
+        private int count;
+
+        private SampledTimer(final Timer timer, final int samplingInterval) {
+            this.timer = timer;
+            this.samplingInterval = samplingInterval;
+        }
+
+        @Override
+        public long start() {
+            if (samplingInterval == 1 || ++count % samplingInterval == 0) {
+                return System.nanoTime();
+            }
+            return NOT_SAMPLED;
+        }
+
+        @Override
+        public void stop(final long start) {
+            if (start != NOT_SAMPLED) {
+                timer.record(System.nanoTime() - start, NANOSECONDS);
+            }
+        }
+    }
+}
@@ -15,7 +15,12 @@ public final class ChronicleMapBytesMarshaller<V> implements
         BytesReader<V>,
         ReadResolvable<ChronicleMapBytesMarshaller> {
 
-    private final ObjectMapper objectMapper;
+    /**
+     * The ObjectMapper is not serialized, if the marshaller is stored in the header of a persisted ChronicleMap.
+     * After the map is loaded from the file, the {@link de.otto.synapse.translator.ObjectMappers#currentObjectMapper()
+     * current ObjectMapper} is used.
+     */
+    private final transient ObjectMapper objectMapper;
     private final Class<V> clazz;
 
     public ChronicleMapBytesMarshaller(Class<V> clazz) {
@@ -49,6 +54,8 @@ public final class ChronicleMapBytesMarshaller<V> implements
 
     @Override
     public ChronicleMapBytesMarshaller readResolve() {
-        return this;
+        return objectMapper != null
+                ? this
+                : new ChronicleMapBytesMarshaller<>(clazz);
     }
 }
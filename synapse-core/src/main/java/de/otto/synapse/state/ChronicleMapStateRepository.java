@@ -7,6 +7,9 @@ import net.openhft.chronicle.map.ChronicleMapBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Optional;
 
 import static de.otto.synapse.translator.ObjectMappers.currentObjectMapper;
@@ -20,6 +23,10 @@ import static de.otto.synapse.translator.ObjectMappers.currentObjectMapper;
  * <p>In order to be able to access the {@link #keySet()} of the stored entities, this implementation is storing
  * a copy of the keys in a separate {@link java.util.concurrent.ConcurrentSkipListSet}</p>
  *
+ * <p>Using {@link Builder#withPersistedFile(File)}, the map is memory-mapped to a file that survives restarts of the
+ * service. Together with a {@link de.otto.synapse.eventsource.ChannelPositionCheckpoint}, the event source is able
+ * to continue at the checkpoint instead of replaying the snapshot of the channel.</p>
+ *
  * @param <V> The type of the event-sourced entities stored in the {@code StateRepository}
  */
 public class ChronicleMapStateRepository<V> extends ConcurrentMapStateRepository<V> {
@@ -30,9 +37,39 @@ public class ChronicleMapStateRepository<V> extends ConcurrentMapStateRepository
     private static final double DEFAULT_VALUE_SIZE_BYTES = 512;
     private static final long DEFAULT_ENTRY_COUNT = 100_000;
 
+    private final File persistedFile;
+    private final boolean recovered;
+
     private ChronicleMapStateRepository(final String name,
                                         final ChronicleMap<String, V> chronicleMap) {
+        this(name, chronicleMap, null, false);
+    }
+
+    private ChronicleMapStateRepository(final String name,
+                                        final ChronicleMap<String, V> chronicleMap,
+                                        final File persistedFile,
+                                        final boolean recovered) {
         super(name, chronicleMap);
+        this.persistedFile = persistedFile;
+        this.recovered = recovered;
+    }
+
+    /**
+     * @return the file used to persist the entries, or Optional.empty(), if the repository is not persisted
+     */
+    public Optional<File> getPersistedFile() {
+        return Optional.ofNullable(persistedFile);
+    }
+
+    /**
+     * Returns true, if the entries of the repository were recovered from an existing
+     * {@link Builder#withPersistedFile(File) persisted file}, and false, if the repository is not persisted or
+     * if the file was newly created.
+     *
+     * @return true, if the entries were recovered
+     */
+    public boolean isRecovered() {
+        return recovered;
     }
 
     @Override
@@ -76,7 +113,7 @@ public class ChronicleMapStateRepository<V> extends ConcurrentMapStateRepository
         private String name;
         private ChronicleMapBuilder<String, V> chronicleMapBuilder;
         private boolean customValueMarshaller = false;
-
+        private File persistedFile;
 
         private Builder(Class<V> clazz) {
             this.clazz = clazz;
@@ -103,6 +140,24 @@ public class ChronicleMapStateRepository<V> extends ConcurrentMapStateRepository
             return this;
         }
 
+        /**
+         * Persists the ChronicleMap to the given file. If the file already exists, the entries of the file are
+         * recovered, otherwise a new file is created.
+         * <p>
+         *     The file is memory-mapped, so the entries are written by the operating system. The configuration of
+         *     the map (entry count, key and value sizes) must not be changed as long as the file is reused. If the
+         *     entries of an existing file are recovered, the values are deserialized using the
+         *     {@link de.otto.synapse.translator.ObjectMappers#currentObjectMapper() current ObjectMapper}.
+         * </p>
+         *
+         * @param val the file used to persist the entries
+         * @return builder
+         */
+        public Builder<V> withPersistedFile(final File val) {
+            persistedFile = val;
+            return this;
+        }
+
         public ChronicleMapStateRepository<V> build() {
 
             if (chronicleMapBuilder == null) {
@@ -117,6 +172,14 @@ public class ChronicleMapStateRepository<V> extends ConcurrentMapStateRepository
                 chronicleMapBuilder.valueMarshaller(new ChronicleMapBytesMarshaller<>(objectMapper, clazz));
             }
 
+            if (persistedFile != null) {
+                final boolean recovered = persistedFile.length() > 0;
+                try {
+                    return new ChronicleMapStateRepository<>(name, chronicleMapBuilder.createOrRecoverPersistedTo(persistedFile), persistedFile, recovered);
+                } catch (final IOException e) {
+                    throw new UncheckedIOException("Unable to create persisted ChronicleMap " + persistedFile + ": " + e.getMessage(), e);
+                }
+            }
             return new ChronicleMapStateRepository<>(name, chronicleMapBuilder.create());
         }
     }
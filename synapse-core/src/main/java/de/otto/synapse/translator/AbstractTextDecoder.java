@@ -1,27 +1,42 @@
 package de.otto.synapse.translator;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import de.otto.synapse.message.BinaryMessage;
 import de.otto.synapse.message.Header;
 import de.otto.synapse.message.Key;
 import de.otto.synapse.message.TextMessage;
 import org.slf4j.Logger;
 
 import java.io.IOException;
-import java.util.Map;
-import java.util.Optional;
+import java.nio.ByteBuffer;
 
 import static de.otto.synapse.message.Header.copyOf;
 import static de.otto.synapse.translator.ObjectMappers.currentObjectMapper;
-import static java.util.Collections.emptyMap;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.slf4j.LoggerFactory.getLogger;
 
+/**
+ * Base class of {@link Decoder decoders} that are decoding the string representation of messages into
+ * {@link TextMessage TextMessages}.
+ * <p>
+ *     Messages in {@link MessageFormat#V2 V2 format} are decoded in a single pass using a streaming
+ *     {@link JsonParser}: the key and header attributes are read directly from the parser, and the payload is
+ *     copied from the body as a raw slice, without building and re-serializing a tree of JSON nodes.
+ * </p>
+ * <p>
+ *     Decoders of binary sources should use {@link #decode(Key, Header, byte[])}: messages in
+ *     {@link MessageFormat#V3 V3} format are detected automatically, and payloads are kept as bytes, so the
+ *     {@link de.otto.synapse.consumer.MessageDispatcher} is able to deserialize them without converting the
+ *     payload into a String.
+ * </p>
+ *
+ * @param <T> the type of the decoded source
+ */
 public abstract class AbstractTextDecoder<T> implements Decoder<T> {
 
     private static final Logger LOG = getLogger(AbstractTextDecoder.class);
 
-    private static final TypeReference<Map<String, String>> MAP_TYPE_REFERENCE = new TypeReference<Map<String, String>>() {};
-
     protected TextMessage decode(final Key prototypeKey,
                                  final Header prototypeHeader,
                                  final String body) {
@@ -30,13 +45,7 @@ public abstract class AbstractTextDecoder<T> implements Decoder<T> {
                 return TextMessage.of(prototypeKey, prototypeHeader, body);
             case V2:
                 try {
-                    final JsonNode json = parseRecordBody(body);
-                    return TextMessage.of(
-                            keyFrom(json).orElse(prototypeKey),
-                            copyOf(prototypeHeader)
-                                    .withAttributes(attributesFrom(json))
-                                    .build(),
-                            payloadFrom(json));
+                    return decodeV2(prototypeKey, prototypeHeader, body);
                 } catch (final RuntimeException e) {
                     LOG.error("Exception caught while parsing record {}: {}", body, e.getMessage());
                     return TextMessage.of(prototypeKey, prototypeHeader, body);
@@ -46,50 +55,169 @@ public abstract class AbstractTextDecoder<T> implements Decoder<T> {
         }
     }
 
-    private static Map<String, String> attributesFrom(final JsonNode json) {
-        final JsonNode headersJson = json.get(MessageFormat.SYNAPSE_MSG_HEADERS);
-        if (headersJson != null) {
-            return currentObjectMapper().convertValue(
-                    headersJson,
-                    MAP_TYPE_REFERENCE
-            );
+    /**
+     * Decodes the binary representation of a message.
+     * <p>
+     *     The format of the message is detected automatically. The UTF-8 encoded payload of messages in
+     *     {@link MessageFormat#V1 V1} format, and JSON payloads of messages in {@link MessageFormat#V2 V2} or
+     *     {@link MessageFormat#V3 V3} format, are not converted into Strings: the decoded message is a
+     *     {@link BinaryMessage} that is referring to the bytes of the body.
+     * </p>
+     *
+     * @param prototypeKey the key of the message, if the message itself does not contain a key
+     * @param prototypeHeader the header of the message, merged with the header attributes of the message
+     * @param body the binary representation of the message, or null
+     * @return decoded TextMessage
+     */
+    protected TextMessage decode(final Key prototypeKey,
+                                 final Header prototypeHeader,
+                                 final byte[] body) {
+        if (body == null) {
+            return TextMessage.of(prototypeKey, prototypeHeader, null);
+        }
+        switch (MessageFormat.versionOf(body)) {
+            case V1:
+                return BinaryMessage.of(prototypeKey, prototypeHeader, ByteBuffer.wrap(body));
+            case V2:
+                try (final JsonParser parser = currentObjectMapper().getFactory().createParser(body)) {
+                    return decodeV2(prototypeKey, prototypeHeader, parser, body);
+                } catch (final IOException | RuntimeException e) {
+                    LOG.error("Exception caught while parsing record {}: {}", new String(body, UTF_8), e.getMessage());
+                    return BinaryMessage.of(prototypeKey, prototypeHeader, ByteBuffer.wrap(body));
+                }
+            case V3:
+                try {
+                    return V3Codec.decode(prototypeKey, prototypeHeader, body);
+                } catch (final RuntimeException e) {
+                    LOG.error("Exception caught while parsing V3 record: {}", e.getMessage());
+                    return BinaryMessage.of(prototypeKey, prototypeHeader, ByteBuffer.wrap(body));
+                }
+            default:
+                throw new IllegalStateException("Unsupported message format: " + new String(body, UTF_8));
+        }
+    }
+
+    private static TextMessage decodeV2(final Key prototypeKey,
+                                        final Header prototypeHeader,
+                                        final String body) {
+        try (final JsonParser parser = currentObjectMapper().getFactory().createParser(body)) {
+            return decodeV2(prototypeKey, prototypeHeader, parser, body);
+        } catch (final IOException e) {
+            LOG.error("Error parsing body={} from Kinesis record: {}", body, e.getMessage());
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Decodes a V2 message using the given parser.
+     *
+     * @param body the body of the message: either a String or a byte[]; used to slice the raw payload.
+     */
+    private static TextMessage decodeV2(final Key prototypeKey,
+                                        final Header prototypeHeader,
+                                        final JsonParser parser,
+                                        final Object body) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IllegalStateException("Expected JSON object in record body");
+        }
+        Key key = prototypeKey;
+        final Header.Builder header = copyOf(prototypeHeader);
+        Object payload = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String fieldName = parser.getCurrentName();
+            final JsonToken token = parser.nextToken();
+            switch (fieldName) {
+                case MessageFormat.SYNAPSE_MSG_KEY:
+                    key = keyFrom(parser, token, prototypeKey);
+                    break;
+                case MessageFormat.SYNAPSE_MSG_HEADERS:
+                    attributesFrom(parser, token, header);
+                    break;
+                case MessageFormat.SYNAPSE_MSG_PAYLOAD:
+                    payload = payloadFrom(parser, token, body);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        if (payload instanceof ByteBuffer) {
+            return BinaryMessage.of(key, header.build(), (ByteBuffer) payload);
         } else {
-            return emptyMap();
+            return TextMessage.of(key, header.build(), (String) payload);
         }
     }
 
-    private static Optional<Key> keyFrom(final JsonNode json) {
-        final JsonNode keyNode = json.get(MessageFormat.SYNAPSE_MSG_KEY);
-        if (keyNode == null || keyNode.isNull()) {
-            return Optional.empty();
-        } else if (keyNode.isObject()) {
-            final String partitionKey = keyNode.get(MessageFormat.SYNAPSE_MSG_PARTITIONKEY).textValue();
-            final String compactionKey = keyNode.get(MessageFormat.SYNAPSE_MSG_COMPACTIONKEY).textValue();
-            return Optional.of(Key.of(partitionKey, compactionKey));
+    private static Key keyFrom(final JsonParser parser,
+                               final JsonToken token,
+                               final Key prototypeKey) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return prototypeKey;
+        } else if (token == JsonToken.START_OBJECT) {
+            String partitionKey = null;
+            String compactionKey = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String fieldName = parser.getCurrentName();
+                parser.nextToken();
+                if (MessageFormat.SYNAPSE_MSG_PARTITIONKEY.equals(fieldName)) {
+                    partitionKey = parser.getValueAsString();
+                } else if (MessageFormat.SYNAPSE_MSG_COMPACTIONKEY.equals(fieldName)) {
+                    compactionKey = parser.getValueAsString();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (partitionKey == null || compactionKey == null) {
+                throw new IllegalStateException("Missing " + MessageFormat.SYNAPSE_MSG_PARTITIONKEY + " or " + MessageFormat.SYNAPSE_MSG_COMPACTIONKEY + " in " + MessageFormat.SYNAPSE_MSG_KEY);
+            }
+            return Key.of(partitionKey, compactionKey);
         } else {
-            final String msg = "Unexpected json node containing " + json + ": ";
+            final String msg = "Unexpected json token " + token + " in " + MessageFormat.SYNAPSE_MSG_KEY;
             LOG.error(msg);
             throw new IllegalStateException(msg);
         }
     }
 
-    private static String payloadFrom(final JsonNode json) {
-        final JsonNode payloadJson = json.get(MessageFormat.SYNAPSE_MSG_PAYLOAD);
-        if (payloadJson == null || payloadJson.isNull()) {
-            return null;
-        } else if (payloadJson.isObject()) {
-            return payloadJson.toString();
-        } else {
-            return payloadJson.asText();
+    private static void attributesFrom(final JsonParser parser,
+                                       final JsonToken token,
+                                       final Header.Builder header) throws IOException {
+        if (token == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String attribute = parser.getCurrentName();
+                if (parser.nextToken().isStructStart()) {
+                    throw new IllegalStateException("Unexpected structured value of header attribute " + attribute);
+                }
+                header.withAttribute(attribute, parser.getValueAsString());
+            }
+        } else if (token != JsonToken.VALUE_NULL) {
+            throw new IllegalStateException("Unexpected json token " + token + " in " + MessageFormat.SYNAPSE_MSG_HEADERS);
         }
     }
 
-    private static JsonNode parseRecordBody(String body) {
-        try {
-            return currentObjectMapper().readTree(body);
-        } catch (IOException e) {
-            LOG.error("Error parsing body={} from Kinesis record: {}", body, e.getMessage());
-            throw new IllegalStateException(e.getMessage(), e);
+    /**
+     * Returns the payload of a V2 message. JSON objects and arrays are sliced from the body without parsing
+     * them: the payload is returned as a String, if the body is a String, or as a ByteBuffer referring to the
+     * body, if the body is a byte[]. Other values are returned as text.
+     */
+    private static Object payloadFrom(final JsonParser parser,
+                                      final JsonToken token,
+                                      final Object body) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        } else if (token.isStructStart()) {
+            if (body instanceof byte[]) {
+                final int begin = (int) parser.getTokenLocation().getByteOffset();
+                parser.skipChildren();
+                final int end = (int) parser.getTokenLocation().getByteOffset() + 1;
+                return ByteBuffer.wrap((byte[]) body, begin, end - begin);
+            } else {
+                final int begin = (int) parser.getTokenLocation().getCharOffset();
+                parser.skipChildren();
+                final int end = (int) parser.getTokenLocation().getCharOffset() + 1;
+                return ((String) body).substring(begin, end);
+            }
+        } else {
+            return parser.getText();
         }
     }
+
 }
@@ -0,0 +1,21 @@
+package de.otto.synapse.translator;
+
+import de.otto.synapse.message.Header;
+import de.otto.synapse.message.Key;
+import de.otto.synapse.message.TextMessage;
+
+/**
+ * Decodes the binary representation of messages into {@link TextMessage TextMessages}.
+ * <p>
+ *     The {@link MessageFormat} of the message is detected automatically: records in {@link MessageFormat#V3 V3}
+ *     format are decoded as such, all other records are decoded as UTF-8 text in {@link MessageFormat#V1 V1} or
+ *     {@link MessageFormat#V2 V2} format.
+ * </p>
+ */
+public final class BinaryDecoder extends AbstractTextDecoder<byte[]> {
+
+    @Override
+    public TextMessage apply(final byte[] bytes) {
+        return decode(Key.of(), Header.of(), bytes);
+    }
+}
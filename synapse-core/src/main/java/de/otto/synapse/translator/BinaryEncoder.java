@@ -0,0 +1,51 @@
+package de.otto.synapse.translator;
+
+import de.otto.synapse.message.Message;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Encodes messages into the compact binary {@link MessageFormat#V3 V3 format}.
+ * <p>
+ *     Compared to {@link MessageFormat#V2 V2}, header names are not repeated in every record: well-known header
+ *     attributes are interned, and lengths are encoded as varints. Records larger than a configurable size are
+ *     compressed using the configured {@link Compression}, if this is reducing the size of the record.
+ * </p>
+ * <p>
+ *     V3 is a binary format and can only be used with channels that are transporting bytes, like Kinesis.
+ * </p>
+ */
+@ThreadSafe
+public class BinaryEncoder implements Encoder<byte[]> {
+
+    /** Records smaller than this are not compressed by default, as compression would hardly pay off. */
+    public static final int DEFAULT_MIN_COMPRESSION_SIZE = 1024;
+
+    private final Compression compression;
+    private final int minCompressionSize;
+
+    /**
+     * Creates a BinaryEncoder that is compressing records of at least {@link #DEFAULT_MIN_COMPRESSION_SIZE} bytes
+     * using {@link Compression#LZ4}.
+     */
+    public BinaryEncoder() {
+        this(Compression.LZ4, DEFAULT_MIN_COMPRESSION_SIZE);
+    }
+
+    /**
+     * Creates a BinaryEncoder.
+     *
+     * @param compression the compression codec used for larger records
+     * @param minCompressionSize the minimum size of uncompressed records in bytes that are compressed.
+     */
+    public BinaryEncoder(final Compression compression,
+                         final int minCompressionSize) {
+        this.compression = compression;
+        this.minCompressionSize = minCompressionSize;
+    }
+
+    @Override
+    public byte[] apply(final Message<String> message) {
+        return V3Codec.encode(message, compression, minCompressionSize);
+    }
+}
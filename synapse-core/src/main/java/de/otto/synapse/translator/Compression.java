@@ -0,0 +1,114 @@
+package de.otto.synapse.translator;
+
+import com.github.luben.zstd.Zstd;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+
+import java.util.Arrays;
+
+/**
+ * Compression codecs supported by the {@link MessageFormat#V3 V3} message format.
+ * <p>
+ *     The codec is selected per record by the {@link BinaryEncoder} and stored in the flags of the record, so
+ *     decoders do not need any configuration. Records are only compressed if this actually reduces their size.
+ * </p>
+ * <p>
+ *     {@link #ZSTD} requires {@code com.github.luben:zstd-jni} on the classpath.
+ * </p>
+ */
+public enum Compression {
+
+    /** Records are not compressed. */
+    NONE(0, 1),
+    /** Records are compressed using LZ4: fast compression with moderate compression ratio. */
+    LZ4(1, 255),
+    /** Records are compressed using Zstandard: better compression ratio than LZ4 at higher cost. */
+    ZSTD(2, 1024);
+
+    private static final int ZSTD_LEVEL = 3;
+
+    private final int id;
+    /**
+     * The maximum ratio of uncompressed to compressed length accepted when decompressing a record. The uncompressed
+     * length is read from the record itself, so it must be checked before a buffer of this size is allocated.
+     */
+    private final int maxCompressionRatio;
+
+    Compression(final int id, final int maxCompressionRatio) {
+        this.id = id;
+        this.maxCompressionRatio = maxCompressionRatio;
+    }
+
+    /**
+     * @return the identifier of the codec, as stored in the flags of V3 records.
+     */
+    int id() {
+        return id;
+    }
+
+    static Compression ofId(final int id) {
+        for (final Compression compression : values()) {
+            if (compression.id == id) {
+                return compression;
+            }
+        }
+        throw new IllegalStateException("Unsupported compression codec " + id);
+    }
+
+    byte[] compress(final byte[] source, final int length) {
+        switch (this) {
+            case NONE:
+                return Arrays.copyOf(source, length);
+            case LZ4:
+                final LZ4Compressor compressor = Lz4.FACTORY.fastCompressor();
+                final byte[] target = new byte[compressor.maxCompressedLength(length)];
+                final int compressedLength = compressor.compress(source, 0, length, target, 0, target.length);
+                return Arrays.copyOf(target, compressedLength);
+            case ZSTD:
+                try {
+                    return Zstd.compress(Arrays.copyOf(source, length), ZSTD_LEVEL);
+                } catch (final NoClassDefFoundError e) {
+                    throw new IllegalStateException("Zstd compression requires com.github.luben:zstd-jni", e);
+                }
+            default:
+                throw new IllegalStateException("Unsupported compression " + this);
+        }
+    }
+
+    /**
+     * Decompresses a record. The source is untrusted: the uncompressed length is checked against the maximum
+     * compression ratio of the codec, and LZ4 records are decompressed using the safe decompressor.
+     *
+     * @throws IllegalStateException if the uncompressed length is invalid, or the record is corrupt
+     */
+    byte[] decompress(final byte[] source, final int offset, final int length, final int uncompressedLength) {
+        if (uncompressedLength < 0 || uncompressedLength > (long) length * maxCompressionRatio) {
+            throw new IllegalStateException("Invalid uncompressed length " + uncompressedLength + " of " + this + " record with " + length + " bytes");
+        }
+        switch (this) {
+            case NONE:
+                return Arrays.copyOfRange(source, offset, offset + length);
+            case LZ4:
+                final LZ4SafeDecompressor decompressor = Lz4.FACTORY.safeDecompressor();
+                final byte[] target = new byte[uncompressedLength];
+                final int decompressedLength = decompressor.decompress(source, offset, length, target, 0);
+                if (decompressedLength != uncompressedLength) {
+                    throw new IllegalStateException("Corrupt LZ4 record: expected " + uncompressedLength + " bytes, but got " + decompressedLength);
+                }
+                return target;
+            case ZSTD:
+                try {
+                    return Zstd.decompress(Arrays.copyOfRange(source, offset, offset + length), uncompressedLength);
+                } catch (final NoClassDefFoundError e) {
+                    throw new IllegalStateException("Zstd decompression requires com.github.luben:zstd-jni", e);
+                }
+            default:
+                throw new IllegalStateException("Unsupported compression " + this);
+        }
+    }
+
+    private static final class Lz4 {
+        private static final LZ4Factory FACTORY = LZ4Factory.fastestInstance();
+    }
+}
@@ -1,7 +1,5 @@
 package de.otto.synapse.translator;
 
-import java.util.regex.Pattern;
-
 /**
  * Identifies the format used to encode or decode messages.
  */
@@ -10,7 +8,15 @@ public enum MessageFormat {
     /** String representation of the message only contains the message payload; no header attributes supported. */
     V1,
     /** String representation of the message contains version, header attributes and payload in JSON format */
-    V2;
+    V2,
+    /**
+     * Compact binary representation of the message, containing key, header attributes and payload, optionally
+     * compressed. Only supported by channels transporting bytes.
+     *
+     * @see BinaryEncoder
+     * @see BinaryDecoder
+     */
+    V3;
 
     public static final String SYNAPSE_MSG_FORMAT = "_synapse_msg_format";
     public static final String SYNAPSE_MSG_KEY = "_synapse_msg_key";
@@ -19,7 +25,8 @@ public enum MessageFormat {
     public static final String SYNAPSE_MSG_HEADERS = "_synapse_msg_headers";
     public static final String SYNAPSE_MSG_PAYLOAD = "_synapse_msg_payload";
 
-    private static final Pattern V2_PATTERN = Pattern.compile("\\{\\s*\"" + SYNAPSE_MSG_FORMAT + "\"\\s*:\\s*\"v2\".+");
+    private static final String V2_FORMAT_FIELD = "\"" + SYNAPSE_MSG_FORMAT + "\"";
+    private static final String V2_FORMAT_VALUE = "\"v2\"";
 
     /**
      * Returns the default message format used by Synapse to encode messages.
@@ -32,16 +39,75 @@ public enum MessageFormat {
 
     /**
      * Determines the {@code MessageFormat} from the string representation of some message.
+     * <p>
+     *     Only the prefix of the message is inspected: messages starting with {@code {"_synapse_msg_format":"v2"}
+     *     (optionally separated by whitespace) are identified as {@link #V2}, all other messages as {@link #V1}.
+     * </p>
      *
      * @param message the string representation of some message
      * @return MessageFormat of the message
      */
     public static MessageFormat versionOf(final String message) {
-        if (message != null) {
-            return V2_PATTERN.matcher(message).matches()
-                    ? V2
-                    : V1;
-        } else {
+        return message != null && hasV2Prefix(message.length(), message::charAt)
+                ? V2
+                : V1;
+    }
+
+    /**
+     * Determines the {@code MessageFormat} from the binary representation of some message.
+     *
+     * @param message the binary representation of some message
+     * @return MessageFormat of the message
+     */
+    public static MessageFormat versionOf(final byte[] message) {
+        if (message == null) {
             return V1;
+        } else if (V3Codec.isV3(message)) {
+            return V3;
+        } else {
+            // The prefix of V2 messages only consists of ASCII characters:
+            return hasV2Prefix(message.length, i -> (char) (message[i] & 0xFF)) ? V2 : V1;
         }
-    }}
+    }
+
+    private static boolean hasV2Prefix(final int length, final IntToCharFunction charAt) {
+        int pos = skipWhitespace(length, charAt, 0);
+        if (pos >= length || charAt.apply(pos) != '{') {
+            return false;
+        }
+        pos = skipWhitespace(length, charAt, pos + 1);
+        if (!startsWith(length, charAt, pos, V2_FORMAT_FIELD)) {
+            return false;
+        }
+        pos = skipWhitespace(length, charAt, pos + V2_FORMAT_FIELD.length());
+        if (pos >= length || charAt.apply(pos) != ':') {
+            return false;
+        }
+        pos = skipWhitespace(length, charAt, pos + 1);
+        return startsWith(length, charAt, pos, V2_FORMAT_VALUE) && length > pos + V2_FORMAT_VALUE.length();
+    }
+
+    private static boolean startsWith(final int length, final IntToCharFunction charAt, final int pos, final String prefix) {
+        if (pos + prefix.length() > length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); ++i) {
+            if (charAt.apply(pos + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int skipWhitespace(final int length, final IntToCharFunction charAt, int pos) {
+        while (pos < length && Character.isWhitespace(charAt.apply(pos))) {
+            ++pos;
+        }
+        return pos;
+    }
+
+    @FunctionalInterface
+    private interface IntToCharFunction {
+        char apply(int index);
+    }
+}
@@ -1,14 +1,12 @@
 package de.otto.synapse.translator;
 
-import com.fasterxml.jackson.core.JsonParseException;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.NullNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
-import com.fasterxml.jackson.databind.node.TextNode;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import de.otto.synapse.message.Message;
 
 import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Map;
 
 import static de.otto.synapse.translator.MessageFormat.*;
 import static de.otto.synapse.translator.ObjectMappers.currentObjectMapper;
@@ -38,6 +36,8 @@ public class TextEncoder implements Encoder<String> {
                 return message.getPayload();
             case V2:
                 return encodeV2(message);
+            case V3:
+                throw new IllegalStateException("MessageFormat V3 is a binary format: use BinaryEncoder instead of TextEncoder");
             default:
                 throw new IllegalStateException("Unsupported MessageFormat " + messageFormat);
         }
@@ -47,42 +47,49 @@ public class TextEncoder implements Encoder<String> {
         return encode(message, defaultMessageFormat());
     }
 
-    private static String encodeV2(Message<String> message) {
-        ObjectMapper mapper = currentObjectMapper();
-        try {
-            ObjectNode root = mapper.createObjectNode();
-            root.put(SYNAPSE_MSG_FORMAT, "v2");
-            root.set(SYNAPSE_MSG_KEY, encodeKeysV2(message, mapper));
-            root.set(SYNAPSE_MSG_HEADERS, encodeHeadersV2(message, mapper));
-            root.set(SYNAPSE_MSG_PAYLOAD, encodePayloadV2(message, mapper));
-            return root.toString();
-        } catch (IOException e) {
+    private static String encodeV2(final Message<String> message) {
+        final String payload = message.getPayload();
+        final StringWriter writer = new StringWriter(payload != null ? payload.length() + 256 : 256);
+        try (final JsonGenerator generator = currentObjectMapper().getFactory().createGenerator(writer)) {
+            generator.writeStartObject();
+            generator.writeStringField(SYNAPSE_MSG_FORMAT, "v2");
+            generator.writeObjectFieldStart(SYNAPSE_MSG_KEY);
+            generator.writeStringField(SYNAPSE_MSG_PARTITIONKEY, message.getKey().partitionKey());
+            generator.writeStringField(SYNAPSE_MSG_COMPACTIONKEY, message.getKey().compactionKey());
+            generator.writeEndObject();
+            generator.writeObjectFieldStart(SYNAPSE_MSG_HEADERS);
+            for (final Map.Entry<String, String> attribute : message.getHeader().getAll().entrySet()) {
+                generator.writeStringField(attribute.getKey(), attribute.getValue());
+            }
+            generator.writeEndObject();
+            generator.writeFieldName(SYNAPSE_MSG_PAYLOAD);
+            if (payload == null) {
+                generator.writeNull();
+            } else if (isJson(payload)) {
+                generator.writeRawValue(payload);
+            } else {
+                generator.writeString(payload);
+            }
+            generator.writeEndObject();
+        } catch (final IOException e) {
             throw new IllegalStateException(String.format("Cannot encode message %s", message), e);
         }
+        return writer.toString();
     }
 
-    private static ObjectNode encodeKeysV2(Message<String> message, ObjectMapper mapper) {
-        ObjectNode keyNode = mapper.createObjectNode();
-        keyNode.put(SYNAPSE_MSG_PARTITIONKEY, message.getKey().partitionKey());
-        keyNode.put(SYNAPSE_MSG_COMPACTIONKEY, message.getKey().compactionKey());
-        return keyNode;
-    }
-
-    private static JsonNode encodeHeadersV2(Message<String> message, ObjectMapper mapper) {
-        return mapper.convertValue(message.getHeader().getAll(), JsonNode.class);
-    }
-
-    private static JsonNode encodePayloadV2(Message<String> message, ObjectMapper mapper) throws IOException {
-        JsonNode jsonPayload;
-        try {
-            if (message.getPayload() == null) {
-                jsonPayload = NullNode.getInstance();
-            } else {
-                jsonPayload = mapper.readTree(message.getPayload());
+    /**
+     * Checks whether the payload is a single, valid JSON value that can be embedded into the V2 envelope as-is.
+     * The payload is only tokenized, not parsed into a tree of JSON nodes.
+     */
+    private static boolean isJson(final String payload) {
+        try (final JsonParser parser = currentObjectMapper().getFactory().createParser(payload)) {
+            if (parser.nextToken() == null) {
+                return false;
             }
-        } catch (JsonParseException e) {
-            jsonPayload = new TextNode(message.getPayload());
+            parser.skipChildren();
+            return parser.nextToken() == null;
+        } catch (final IOException e) {
+            return false;
         }
-        return jsonPayload;
     }
 }
@@ -0,0 +1,251 @@
+package de.otto.synapse.translator;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import de.otto.synapse.message.BinaryMessage;
+import de.otto.synapse.message.Header;
+import de.otto.synapse.message.Key;
+import de.otto.synapse.message.Message;
+import de.otto.synapse.message.TextMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+
+import static de.otto.synapse.message.Header.copyOf;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Encodes and decodes messages in {@link MessageFormat#V3 V3 format}.
+ * <p>
+ *     Layout of a V3 record:
+ * </p>
+ * <pre>
+ *     record  := MAGIC flags body                         (flags: bits 0-1 compression codec)
+ *              | MAGIC flags varint(length(body)) compressed(body)
+ *     body    := partitionKey compactionKey varint(#attributes) attribute* payload
+ *     partitionKey  := varint(length) utf8
+ *     compactionKey := varint(0)                          (same as partition key)
+ *                    | varint(length + 1) utf8
+ *     attribute     := name varint(length) utf8
+ *     name          := varint(index + 1)                  (interned header name)
+ *                    | varint(0) varint(length) utf8
+ *     payload       := varint(0)                          (null payload)
+ *                    | varint(length + 1) utf8
+ * </pre>
+ * <p>
+ *     Varints are unsigned LEB128. The table of interned header names is append-only: names must never be
+ *     removed or reordered, otherwise existing records can not be decoded anymore.
+ * </p>
+ */
+final class V3Codec {
+
+    /**
+     * The first byte of V3 records. 0xB3 is a UTF-8 continuation byte, so valid UTF-8 text (V1 and V2 messages)
+     * never starts with this byte.
+     */
+    static final byte MAGIC = (byte) 0xB3;
+
+    private static final int COMPRESSION_MASK = 0x03;
+    private static final int HEADER_SIZE = 2;
+
+    private static final List<String> INTERNED_HEADER_NAMES = ImmutableList.of(
+            "synapse_msg_id",
+            "synapse_msg_sender",
+            "synapse_msg_arrival_ts",
+            "synapse_msg_sender_ts",
+            "synapse_msg_receiver_ts"
+    );
+    private static final Map<String, Integer> INTERNED_HEADER_INDEXES;
+
+    static {
+        final ImmutableMap.Builder<String, Integer> builder = ImmutableMap.builder();
+        for (int i = 0; i < INTERNED_HEADER_NAMES.size(); ++i) {
+            builder.put(INTERNED_HEADER_NAMES.get(i), i);
+        }
+        INTERNED_HEADER_INDEXES = builder.build();
+    }
+
+    private V3Codec() {
+    }
+
+    static boolean isV3(final byte[] record) {
+        return record != null && record.length > 0 && record[0] == MAGIC;
+    }
+
+    static byte[] encode(final Message<String> message,
+                         final Compression compression,
+                         final int minCompressionSize) {
+        final Output body = new Output();
+        final Key key = message.getKey();
+        body.writeString(key.partitionKey());
+        if (key.compactionKey().equals(key.partitionKey())) {
+            body.writeVarint(0);
+        } else {
+            body.writeNullableString(key.compactionKey());
+        }
+        final Map<String, String> attributes = message.getHeader().getAll();
+        body.writeVarint(attributes.size());
+        for (final Map.Entry<String, String> attribute : attributes.entrySet()) {
+            final Integer index = INTERNED_HEADER_INDEXES.get(attribute.getKey());
+            if (index != null) {
+                body.writeVarint(index + 1);
+            } else {
+                body.writeVarint(0);
+                body.writeString(attribute.getKey());
+            }
+            body.writeString(attribute.getValue());
+        }
+        body.writeNullableString(message.getPayload());
+
+        if (compression != Compression.NONE && body.size() >= minCompressionSize) {
+            final byte[] compressed = compression.compress(body.buffer(), body.size());
+            final Output record = new Output();
+            record.write(MAGIC);
+            record.write(compression.id());
+            record.writeVarint(body.size());
+            if (record.size() + compressed.length < HEADER_SIZE + body.size()) {
+                record.write(compressed, 0, compressed.length);
+                return record.toByteArray();
+            }
+        }
+        final Output record = new Output();
+        record.write(MAGIC);
+        record.write(Compression.NONE.id());
+        record.write(body.buffer(), 0, body.size());
+        return record.toByteArray();
+    }
+
+    static TextMessage decode(final Key prototypeKey,
+                              final Header prototypeHeader,
+                              final byte[] record) {
+        if (!isV3(record) || record.length < HEADER_SIZE) {
+            throw new IllegalStateException("Not a V3 record");
+        }
+        final Compression compression = Compression.ofId(record[1] & COMPRESSION_MASK);
+        final Input body;
+        if (compression == Compression.NONE) {
+            body = new Input(record, HEADER_SIZE);
+        } else {
+            final Input input = new Input(record, HEADER_SIZE);
+            final int uncompressedLength = input.readVarint();
+            body = new Input(compression.decompress(record, input.position, record.length - input.position, uncompressedLength), 0);
+        }
+        final String partitionKey = body.readString();
+        final String compactionKey = body.readNullableString();
+        final Key key = Key.of(partitionKey, compactionKey != null ? compactionKey : partitionKey);
+        final Header.Builder header = copyOf(prototypeHeader);
+        final int attributeCount = body.readVarint();
+        for (int i = 0; i < attributeCount; ++i) {
+            final int nameIndex = body.readVarint();
+            final String name = nameIndex > 0
+                    ? internedHeaderName(nameIndex - 1)
+                    : body.readString();
+            header.withAttribute(name, body.readString());
+        }
+        final ByteBuffer payload = body.readNullableBytes();
+        return payload != null
+                ? BinaryMessage.of(key, header.build(), payload)
+                : TextMessage.of(key, header.build(), null);
+    }
+
+    private static String internedHeaderName(final int index) {
+        if (index >= INTERNED_HEADER_NAMES.size()) {
+            throw new IllegalStateException("Unknown interned header name " + index);
+        }
+        return INTERNED_HEADER_NAMES.get(index);
+    }
+
+    private static final class Output extends ByteArrayOutputStream {
+
+        private Output() {
+            super(256);
+        }
+
+        private byte[] buffer() {
+            return buf;
+        }
+
+        private void writeVarint(int value) {
+            while ((value & ~0x7F) != 0) {
+                write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            write(value);
+        }
+
+        private void writeString(final String value) {
+            final byte[] bytes = value.getBytes(UTF_8);
+            writeVarint(bytes.length);
+            write(bytes, 0, bytes.length);
+        }
+
+        private void writeNullableString(final String value) {
+            if (value == null) {
+                writeVarint(0);
+            } else {
+                final byte[] bytes = value.getBytes(UTF_8);
+                writeVarint(bytes.length + 1);
+                write(bytes, 0, bytes.length);
+            }
+        }
+    }
+
+    private static final class Input {
+
+        private final byte[] bytes;
+        private int position;
+
+        private Input(final byte[] bytes, final int position) {
+            this.bytes = bytes;
+            this.position = position;
+        }
+
+        private int readVarint() {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                if (position >= bytes.length) {
+                    throw new IllegalStateException("Unexpected end of V3 record");
+                }
+                final byte b = bytes[position++];
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalStateException("Malformed varint in V3 record");
+        }
+
+        private String readString() {
+            return readUtf8(readVarint());
+        }
+
+        private String readNullableString() {
+            final int length = readVarint();
+            return length == 0 ? null : readUtf8(length - 1);
+        }
+
+        private ByteBuffer readNullableBytes() {
+            final int length = readVarint() - 1;
+            if (length < 0) {
+                return null;
+            }
+            if (length > bytes.length - position) {
+                throw new IllegalStateException("Unexpected end of V3 record");
+            }
+            final ByteBuffer value = ByteBuffer.wrap(bytes, position, length);
+            position += length;
+            return value;
+        }
+
+        private String readUtf8(final int length) {
+            if (length < 0 || length > bytes.length - position) {
+                throw new IllegalStateException("Unexpected end of V3 record");
+            }
+            final String value = new String(bytes, position, length, UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package de.otto.synapse.annotation;
 
+import de.otto.synapse.channel.ShardPosition;
 import de.otto.synapse.configuration.InMemoryMessageLogTestConfiguration;
 import de.otto.synapse.configuration.SynapseAutoConfiguration;
+import de.otto.synapse.consumer.BatchMessageConsumer;
 import de.otto.synapse.consumer.MessageConsumer;
+import de.otto.synapse.consumer.MethodInvokingBatchMessageConsumer;
 import de.otto.synapse.consumer.MethodInvokingMessageConsumer;
 import de.otto.synapse.eventsource.DelegateEventSource;
 import de.otto.synapse.message.Message;
@@ -53,6 +56,21 @@ public class EventSourceConsumerBeanPostProcessorTest {
         assertThat(otherMessageConsumers.get(0)).isInstanceOf(MethodInvokingMessageConsumer.class);
     }
 
+    @Test
+    public void shouldRegisterBatchEventConsumer() {
+        context.register(BatchConsumerConfiguration.class);
+        context.register(InMemoryMessageLogTestConfiguration.class);
+        context.refresh();
+
+        final DelegateEventSource someStreamEventSource = context.getBean("testEventSource", DelegateEventSource.class);
+        final List<MessageConsumer<?>> messageConsumers = someStreamEventSource.getMessageDispatcher().getAll();
+        assertThat(messageConsumers).hasSize(1);
+        final List<BatchMessageConsumer<?>> batchMessageConsumers = someStreamEventSource.getMessageDispatcher().getAllBatchMessageConsumers();
+        assertThat(batchMessageConsumers).hasSize(2);
+        assertThat(batchMessageConsumers.get(0)).isInstanceOf(MethodInvokingBatchMessageConsumer.class);
+        assertThat(batchMessageConsumers.get(1)).isInstanceOf(MethodInvokingBatchMessageConsumer.class);
+    }
+
     @Test(expected = BeanCreationException.class)
     public void shouldFailToRegisterConsumerBecauseOfMissingEventSource() {
         context.register(TestConfigurationWithMissingEventSource.class);
@@ -113,6 +131,14 @@ public class EventSourceConsumerBeanPostProcessorTest {
         }
     }
 
+    @EnableEventSource(name = "testEventSource", channelName = "some-stream")
+    static class BatchConsumerConfiguration {
+        @Bean
+        public TestBatchConsumer test() {
+            return new TestBatchConsumer();
+        }
+    }
+
     static class TestConfigurationWithMissingEventSource{
         @Bean
         public TestConsumerWithSnapshotEventSource test() {
@@ -183,4 +209,24 @@ public class EventSourceConsumerBeanPostProcessorTest {
         }
     }
 
+    static class TestBatchConsumer {
+        @EventSourceConsumer(
+                eventSource = "testEventSource",
+                payloadType = String.class)
+        public void single(Message<String> message) {
+        }
+
+        @EventSourceConsumer(
+                eventSource = "testEventSource",
+                payloadType = String.class)
+        public void batch(List<Message<String>> messages) {
+        }
+
+        @EventSourceConsumer(
+                eventSource = "testEventSource",
+                payloadType = String.class)
+        public void batchWithShardPosition(ShardPosition shardPosition, List<Message<String>> messages) {
+        }
+    }
+
 }
@@ -72,6 +72,15 @@ public class StopConditionTest {
         assertThat(predicate.test(pastResponse), is(false));
     }
 
+    @Test
+    public void shouldNotStopOnMessageWithoutArrivalTimestamp() {
+        final Predicate<ShardResponse> predicate = arrivalTimestampAfterNow();
+        final ShardResponse response = someShardResponseWithMessages(
+                ofMillis(42),
+                TextMessage.of("foo", "bar"));
+        assertThat(predicate.test(response), is(false));
+    }
+
     @Test
     public void shouldStopOnMessageArrivedAfterNow() {
         final Predicate<ShardResponse> predicate = arrivalTimestampAfterNow();
@@ -1,13 +1,18 @@
 package de.otto.synapse.configuration;
 
+import de.otto.synapse.endpoint.AsyncMessageInterceptor;
 import de.otto.synapse.endpoint.MessageInterceptor;
 import de.otto.synapse.endpoint.MessageInterceptorRegistry;
 import de.otto.synapse.message.Message;
+import de.otto.synapse.message.TextMessage;
+import de.otto.synapse.metrics.LatencyTimer;
+import de.otto.synapse.metrics.MessageTimings;
 import org.junit.Test;
 import org.springframework.core.annotation.Order;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.concurrent.CompletionStage;
 
 import static de.otto.synapse.endpoint.EndpointType.RECEIVER;
 import static de.otto.synapse.endpoint.EndpointType.SENDER;
@@ -15,7 +20,14 @@ import static de.otto.synapse.endpoint.MessageInterceptorRegistration.matchingCh
 import static de.otto.synapse.endpoint.MessageInterceptorRegistration.matchingReceiverChannelsWith;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 import static org.springframework.core.Ordered.HIGHEST_PRECEDENCE;
 
 public class MessageInterceptorRegistryTest {
@@ -185,4 +197,72 @@ public class MessageInterceptorRegistryTest {
         assertThat(registry.getInterceptorChain("foo", RECEIVER).getInterceptors(), is(empty()));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldTimeInterceptorsIfMessageTimingsAreConfigured() {
+        // given
+        MessageInterceptorRegistry registry = new MessageInterceptorRegistry();
+        MessageTimings messageTimings = mock(MessageTimings.class);
+        LatencyTimer timer = mock(LatencyTimer.class);
+        when(messageTimings.interceptorTimer(eq("foo"), eq(RECEIVER), eq("TestInterceptor"))).thenReturn(timer);
+        registry.register(matchingChannelsWith("foo", new TestInterceptor()));
+        // when
+        registry.setMessageTimings(messageTimings);
+        TextMessage interceptedMessage = registry.getInterceptorChain("foo", RECEIVER).intercept(TextMessage.of("some key", "some payload"));
+        // then
+        assertThat(interceptedMessage.getPayload(), is("intercepted"));
+        verify(timer).start();
+        verify(timer).stop(anyLong());
+    }
+
+    @Test
+    public void shouldKeepAsyncInterceptorsAsynchronousIfTimed() {
+        // given
+        MessageInterceptorRegistry registry = new MessageInterceptorRegistry();
+        MessageTimings messageTimings = mock(MessageTimings.class);
+        LatencyTimer timer = mock(LatencyTimer.class);
+        when(messageTimings.interceptorTimer(eq("foo"), eq(RECEIVER), eq("TestAsyncInterceptor"))).thenReturn(timer);
+        registry.setMessageTimings(messageTimings);
+        // when
+        registry.register(matchingChannelsWith("foo", new TestAsyncInterceptor()));
+        // then
+        assertThat(registry.getInterceptorChain("foo", RECEIVER).hasAsyncInterceptors(), is(true));
+        TextMessage interceptedMessage = registry.getInterceptorChain("foo", RECEIVER)
+                .interceptAsync(TextMessage.of("some key", "some payload"))
+                .toCompletableFuture()
+                .join();
+        assertThat(interceptedMessage.getPayload(), is("intercepted"));
+        verify(timer, times(1)).stop(anyLong());
+    }
+
+    @Test
+    public void shouldRemoveTimingsFromInterceptorChains() {
+        // given
+        MessageInterceptorRegistry registry = new MessageInterceptorRegistry();
+        MessageInterceptor interceptor = mock(MessageInterceptor.class);
+        MessageTimings messageTimings = mock(MessageTimings.class);
+        when(messageTimings.interceptorTimer(eq("foo"), eq(RECEIVER), anyString())).thenReturn(mock(LatencyTimer.class));
+        registry.register(matchingChannelsWith("foo", interceptor));
+        registry.setMessageTimings(messageTimings);
+        assertThat(registry.getInterceptorChain("foo", RECEIVER).getInterceptors(), not(contains(interceptor)));
+        // when
+        registry.setMessageTimings(null);
+        // then
+        assertThat(registry.getInterceptorChain("foo", RECEIVER).getInterceptors(), contains(interceptor));
+    }
+
+    static class TestInterceptor implements MessageInterceptor {
+        @Nullable
+        @Override
+        public TextMessage intercept(@Nonnull TextMessage message) {
+            return TextMessage.of(message.getKey(), message.getHeader(), "intercepted");
+        }
+    }
+
+    static class TestAsyncInterceptor implements AsyncMessageInterceptor {
+        @Nonnull
+        @Override
+        public CompletionStage<TextMessage> interceptAsync(@Nonnull TextMessage message) {
+            return completedFuture(TextMessage.of(message.getKey(), message.getHeader(), "intercepted"));
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package de.otto.synapse.configuration;
 
+import de.otto.synapse.endpoint.MessageInterceptorRegistry;
+import de.otto.synapse.metrics.MicrometerMessageTimings;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.After;
 import org.junit.Test;
 import org.springframework.boot.test.util.TestPropertyValues;
@@ -29,4 +32,45 @@ public class SynapsePropertiesTest {
 
         assertThat(context.getBean(SynapseProperties.class).getSender().getName()).isEqualTo("my service");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldDisablePartitionedDispatchByDefault() {
+        context.register(SynapseAutoConfiguration.class);
+        context.refresh();
+
+        assertThat(context.getBean(SynapseProperties.class).getReceiver().getPartitionedDispatch().getEffectiveLanes()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldConfigurePartitionedDispatch() {
+        context.register(SynapseAutoConfiguration.class);
+        TestPropertyValues.of(
+                "synapse.receiver.partitioned-dispatch.enabled=true",
+                "synapse.receiver.partitioned-dispatch.lanes=8"
+        ).applyTo(context);
+        context.refresh();
+
+        assertThat(context.getBean(SynapseProperties.class).getReceiver().getPartitionedDispatch().getEffectiveLanes()).isEqualTo(8);
+    }
+
+    @Test
+    public void shouldNotConfigureMessageTimingsByDefault() {
+        context.register(SynapseAutoConfiguration.class);
+        context.refresh();
+
+        assertThat(context.getBean(MessageInterceptorRegistry.class).getMessageTimings()).isNull();
+    }
+
+    @Test
+    public void shouldConfigureMessageTimings() {
+        context.registerBean(SimpleMeterRegistry.class);
+        context.register(SynapseAutoConfiguration.class);
+        TestPropertyValues.of(
+                "synapse.metrics.latency.enabled=true",
+                "synapse.metrics.latency.sampling-interval=10"
+        ).applyTo(context);
+        context.refresh();
+
+        assertThat(context.getBean(MessageInterceptorRegistry.class).getMessageTimings()).isInstanceOf(MicrometerMessageTimings.class);
+    }
+}
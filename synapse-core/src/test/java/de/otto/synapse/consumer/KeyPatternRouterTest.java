@@ -0,0 +1,96 @@
+package de.otto.synapse.consumer;
+
+import org.junit.Test;
+
+import java.util.regex.Pattern;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.regex.Pattern.compile;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class KeyPatternRouterTest {
+
+    @Test
+    public void shouldRouteToNothingWithoutPatterns() {
+        final KeyPatternRouter router = KeyPatternRouter.of(emptyList());
+
+        assertThat(router.route("foo"), is(new int[0]));
+    }
+
+    @Test
+    public void shouldRouteAllKeysToMatchAllPatterns() {
+        final KeyPatternRouter router = KeyPatternRouter.of(asList(compile(".*"), compile(".*")));
+
+        assertThat(router.route("foo"), is(new int[]{0, 1}));
+        assertThat(router.route(""), is(new int[]{0, 1}));
+    }
+
+    @Test
+    public void shouldRouteByLiteralPrefix() {
+        final KeyPatternRouter router = KeyPatternRouter.of(asList(
+                compile("apple.*"),
+                compile(".*"),
+                compile("apple-pie.*"),
+                compile("banana.*")));
+
+        assertThat(router.route("apple-pie-1"), is(new int[]{0, 1, 2}));
+        assertThat(router.route("apple"), is(new int[]{0, 1}));
+        assertThat(router.route("banana"), is(new int[]{1, 3}));
+        assertThat(router.route("cherry"), is(new int[]{1}));
+    }
+
+    @Test
+    public void shouldRouteExactLiterals() {
+        final KeyPatternRouter router = KeyPatternRouter.of(asList(compile("apple"), compile("app.*")));
+
+        assertThat(router.route("apple"), is(new int[]{0, 1}));
+        assertThat(router.route("apple1"), is(new int[]{1}));
+        assertThat(router.route("appl"), is(new int[]{1}));
+    }
+
+    @Test
+    public void shouldRouteEscapedLiteralPrefixesUsingTrie() {
+        final KeyPatternRouter router = KeyPatternRouter.of(asList(
+                compile("product\\..*"),
+                compile("product\\.42"),
+                compile("price\\\\.*")));
+
+        assertThat(router.getComplexRouteCount(), is(0));
+        assertThat(router.route("product.42"), is(new int[]{0, 1}));
+        assertThat(router.route("product.43"), is(new int[]{0}));
+        assertThat(router.route("productX42"), is(new int[0]));
+        assertThat(router.route("price\\1"), is(new int[]{2}));
+    }
+
+    @Test
+    public void shouldRouteEscapedCharacterClassesUsingRegex() {
+        final KeyPatternRouter router = KeyPatternRouter.of(asList(compile("product\\d.*"), compile("product\\.*")));
+
+        assertThat(router.getComplexRouteCount(), is(2));
+        assertThat(router.route("product1"), is(new int[]{0}));
+        assertThat(router.route("product.."), is(new int[]{1}));
+    }
+
+    @Test
+    public void shouldRouteComplexPatternsUsingRegex() {
+        final KeyPatternRouter router = KeyPatternRouter.of(asList(
+                compile("[0-9]+"),
+                compile("apple.*"),
+                compile("apple\\..*|banana"),
+                compile("APPLE.*", Pattern.CASE_INSENSITIVE)));
+
+        assertThat(router.route("42"), is(new int[]{0}));
+        assertThat(router.route("apple.1"), is(new int[]{1, 2, 3}));
+        assertThat(router.route("banana"), is(new int[]{2}));
+        assertThat(router.route("apple1"), is(new int[]{1, 3}));
+    }
+
+    @Test
+    public void shouldNotMatchLineTerminatorsWithDotStar() {
+        final KeyPatternRouter router = KeyPatternRouter.of(asList(compile(".*"), compile("foo.*"), compile("(?s)foo.*")));
+
+        assertThat(router.route("foo\nbar"), is(new int[]{2}));
+    }
+}
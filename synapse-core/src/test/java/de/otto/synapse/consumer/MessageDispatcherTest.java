@@ -1,14 +1,34 @@
 package de.otto.synapse.consumer;
 
+import de.otto.synapse.channel.ShardPosition;
+import de.otto.synapse.message.BinaryMessage;
+import de.otto.synapse.message.Key;
+import de.otto.synapse.message.LazyMessage;
 import de.otto.synapse.message.Message;
 import de.otto.synapse.message.TextMessage;
+import de.otto.synapse.metrics.LatencyTimer;
 import org.junit.Test;
 
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
 import static de.otto.synapse.channel.ShardPosition.fromHorizon;
+import static de.otto.synapse.channel.ShardPosition.fromPosition;
 import static de.otto.synapse.consumer.TestMessageConsumer.testEventConsumer;
 import static de.otto.synapse.message.Header.of;
 import static de.otto.synapse.message.Message.message;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -65,10 +85,8 @@ public class MessageDispatcherTest {
             fail();
         } catch (final IllegalStateException e) {
             // then
-            verify(appleConsumer).keyPattern();
-            verify(appleConsumer).payloadType();
-            verifyNoMoreInteractions(appleConsumer);
-            verifyZeroInteractions(bananaConsumer);
+            verify(appleConsumer, never()).accept(any(Message.class));
+            verify(bananaConsumer, never()).accept(any(Message.class));
             throw e;
         }
     }
@@ -104,6 +122,269 @@ public class MessageDispatcherTest {
         verify(eventConsumerCherry, never()).accept(any(Message.class));
     }
 
+    @Test
+    public void shouldShareDecodedMessageBetweenConsumersOfSamePayloadType() {
+        // given
+        TestMessageConsumer<Apple> appleConsumerA = testEventConsumer(".*", Apple.class);
+        TestMessageConsumer<Apple> appleConsumerB = testEventConsumer(".*", Apple.class);
+        TestMessageConsumer<Banana> bananaConsumer = testEventConsumer(".*", Banana.class);
+
+        MessageDispatcher messageDispatcher = new MessageDispatcher(asList(appleConsumerA, bananaConsumer, appleConsumerB));
+
+        // when
+        messageDispatcher.accept(TextMessage.of("someKey", of(fromHorizon("test")), "{}"));
+
+        // then
+        assertThat(appleConsumerA.getConsumedMessages(), hasSize(1));
+        assertThat(appleConsumerB.getConsumedMessages(), hasSize(1));
+        assertThat(bananaConsumer.getConsumedMessages(), hasSize(1));
+        assertThat(appleConsumerA.getConsumedMessages().get(0), is(sameInstance(appleConsumerB.getConsumedMessages().get(0))));
+        assertThat(bananaConsumer.getConsumedMessages().get(0).getPayload(), is(instanceOf(Banana.class)));
+    }
+
+    @Test
+    public void shouldDispatchTextMessageToStringConsumers() {
+        // given
+        TestMessageConsumer<String> stringConsumer = testEventConsumer(".*", String.class);
+        MessageDispatcher messageDispatcher = new MessageDispatcher(asList(stringConsumer));
+
+        // when
+        final TextMessage someMessage = TextMessage.of("someKey", of(fromHorizon("test")), "{}");
+        messageDispatcher.accept(someMessage);
+
+        // then
+        assertThat(stringConsumer.getConsumedMessages().get(0), is(sameInstance(someMessage)));
+    }
+
+    @Test
+    public void shouldDispatchBatchToBatchConsumersMatchingKeyPattern() {
+        // given
+        final List<ShardPosition> shardPositions = new ArrayList<>();
+        final List<List<Message<String>>> appleBatches = new ArrayList<>();
+        final List<List<Message<String>>> bananaBatches = new ArrayList<>();
+        final List<List<Message<String>>> cherryBatches = new ArrayList<>();
+
+        final MessageDispatcher messageDispatcher = new MessageDispatcher();
+        messageDispatcher.add(BatchMessageConsumer.of("apple.*", String.class, (shardPosition, messages) -> {
+            shardPositions.add(shardPosition);
+            appleBatches.add(messages);
+        }));
+        messageDispatcher.add(BatchMessageConsumer.of("banana.*", String.class, (shardPosition, messages) -> bananaBatches.add(messages)));
+        messageDispatcher.add(BatchMessageConsumer.of("cherry.*", String.class, (shardPosition, messages) -> cherryBatches.add(messages)));
+
+        // when
+        final TextMessage firstApple = TextMessage.of("apple-1", of(fromPosition("test", "1")), "{}");
+        final TextMessage banana = TextMessage.of("banana-1", of(fromPosition("test", "2")), "{}");
+        final TextMessage secondApple = TextMessage.of("apple-2", of(fromPosition("test", "3")), "{}");
+        messageDispatcher.acceptBatch(fromPosition("test", "3"), asList(firstApple, banana, secondApple));
+
+        // then
+        assertThat(shardPositions, contains(fromPosition("test", "3")));
+        assertThat(appleBatches, hasSize(1));
+        assertThat(appleBatches.get(0), contains(firstApple, secondApple));
+        assertThat(bananaBatches, hasSize(1));
+        assertThat(bananaBatches.get(0), contains(banana));
+        assertThat(cherryBatches, hasSize(0));
+    }
+
+    @Test
+    public void shouldDecodePayloadsOfBatch() {
+        // given
+        final List<Message<Apple>> apples = new ArrayList<>();
+        final MessageDispatcher messageDispatcher = new MessageDispatcher();
+        messageDispatcher.add(BatchMessageConsumer.of(".*", Apple.class, (shardPosition, messages) -> apples.addAll(messages)));
+
+        // when
+        messageDispatcher.acceptBatch(fromPosition("test", "2"), asList(
+                TextMessage.of("first", of(fromPosition("test", "1")), "{}"),
+                TextMessage.of("second", of(fromPosition("test", "2")), null)));
+
+        // then
+        assertThat(apples, hasSize(2));
+        assertThat(apples.get(0).getPayload(), is(instanceOf(Apple.class)));
+        assertThat(apples.get(1).getPayload(), is(nullValue()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldNotDispatchSingleMessagesToBatchConsumersAndViceVersa() {
+        // given
+        final TestMessageConsumer<String> messageConsumer = spy(testEventConsumer(".*", String.class));
+        final BatchMessageConsumer<String> batchMessageConsumer = mock(BatchMessageConsumer.class);
+        when(batchMessageConsumer.keyPattern()).thenReturn(Pattern.compile(".*"));
+        when(batchMessageConsumer.payloadType()).thenReturn(String.class);
+
+        final MessageDispatcher messageDispatcher = new MessageDispatcher();
+        messageDispatcher.add(messageConsumer);
+        messageDispatcher.add(batchMessageConsumer);
+
+        // when
+        final TextMessage someMessage = TextMessage.of("someKey", of(fromPosition("test", "1")), "{}");
+        messageDispatcher.accept(someMessage);
+        messageDispatcher.acceptBatch(fromPosition("test", "1"), asList(someMessage));
+
+        // then
+        verify(messageConsumer, times(1)).accept(any(Message.class));
+        verify(batchMessageConsumer, times(1)).accept(any(ShardPosition.class), any(List.class));
+        assertThat(messageDispatcher.getAll(), contains(messageConsumer));
+        assertThat(messageDispatcher.getAllBatchMessageConsumers(), contains(batchMessageConsumer));
+    }
+
+    @Test
+    public void shouldNotDecodePayloadForLazyConsumers() {
+        // given
+        TestMessageConsumer<Apple> lazyAppleConsumer = lazyTestConsumer(Apple.class);
+        MessageDispatcher messageDispatcher = new MessageDispatcher(asList(lazyAppleConsumer));
+
+        // when
+        messageDispatcher.accept(TextMessage.of("someKey", of(fromHorizon("test")), "kawumm!"));
+
+        // then
+        final Message<Apple> consumedMessage = lazyAppleConsumer.getConsumedMessages().get(0);
+        assertThat(consumedMessage, is(instanceOf(LazyMessage.class)));
+        assertThat(((LazyMessage<Apple>) consumedMessage).isDecoded(), is(false));
+        assertThat(((LazyMessage<Apple>) consumedMessage).getRawPayload(), is("kawumm!"));
+        try {
+            consumedMessage.getPayload();
+            fail();
+        } catch (final UncheckedIOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void shouldDecodeLazyPayloadOnDemand() {
+        // given
+        TestMessageConsumer<Apple> lazyAppleConsumer = lazyTestConsumer(Apple.class);
+        MessageDispatcher messageDispatcher = new MessageDispatcher(asList(lazyAppleConsumer));
+
+        // when
+        messageDispatcher.accept(TextMessage.of("someKey", of(fromHorizon("test")), "{}"));
+
+        // then
+        assertThat(lazyAppleConsumer.getConsumedMessages().get(0).getPayload(), is(new Apple()));
+    }
+
+    @Test
+    public void shouldShareMessagesBetweenLazyAndEagerConsumers() {
+        // given
+        TestMessageConsumer<Apple> lazyAppleConsumerA = lazyTestConsumer(Apple.class);
+        TestMessageConsumer<Apple> eagerAppleConsumer = testEventConsumer(".*", Apple.class);
+        TestMessageConsumer<Apple> lazyAppleConsumerB = lazyTestConsumer(Apple.class);
+
+        MessageDispatcher messageDispatcher = new MessageDispatcher(asList(lazyAppleConsumerA, eagerAppleConsumer, lazyAppleConsumerB));
+
+        // when
+        messageDispatcher.accept(TextMessage.of("someKey", of(fromHorizon("test")), "{}"));
+
+        // then
+        final Message<Apple> lazyMessage = lazyAppleConsumerA.getConsumedMessages().get(0);
+        assertThat(eagerAppleConsumer.getConsumedMessages().get(0), is(sameInstance(lazyMessage)));
+        assertThat(lazyAppleConsumerB.getConsumedMessages().get(0), is(sameInstance(lazyMessage)));
+        assertThat(((LazyMessage<Apple>) lazyMessage).isDecoded(), is(true));
+    }
+
+    @Test
+    public void shouldDispatchTextMessageToLazyStringConsumers() {
+        // given
+        TestMessageConsumer<String> lazyStringConsumer = lazyTestConsumer(String.class);
+        MessageDispatcher messageDispatcher = new MessageDispatcher(asList(lazyStringConsumer));
+
+        // when
+        final TextMessage someMessage = TextMessage.of("someKey", of(fromHorizon("test")), "{}");
+        messageDispatcher.accept(someMessage);
+
+        // then
+        assertThat(lazyStringConsumer.getConsumedMessages().get(0), is(sameInstance(someMessage)));
+    }
+
+    @Test
+    public void shouldDecodeBinaryMessagesWithoutMaterializingPayload() {
+        // given
+        TestMessageConsumer<Apple> appleConsumer = testEventConsumer(".*", Apple.class);
+        MessageDispatcher messageDispatcher = new MessageDispatcher(asList(appleConsumer));
+
+        // when
+        final BinaryMessage someMessage = BinaryMessage.of(Key.of("someKey"), of(fromHorizon("test")), ByteBuffer.wrap("{}".getBytes(UTF_8)));
+        messageDispatcher.accept(someMessage);
+
+        // then
+        assertThat(appleConsumer.getConsumedMessages().get(0).getPayload(), is(new Apple()));
+        assertThat(someMessage.isMaterialized(), is(false));
+    }
+
+    @Test
+    public void shouldNotMaterializePayloadOfBinaryMessagesForLazyConsumers() {
+        // given
+        TestMessageConsumer<Apple> lazyAppleConsumer = lazyTestConsumer(Apple.class);
+        MessageDispatcher messageDispatcher = new MessageDispatcher(asList(lazyAppleConsumer));
+
+        // when
+        final BinaryMessage someMessage = BinaryMessage.of(Key.of("someKey"), of(fromHorizon("test")), ByteBuffer.wrap("{}".getBytes(UTF_8)));
+        messageDispatcher.accept(someMessage);
+
+        // then
+        final Message<Apple> lazyMessage = lazyAppleConsumer.getConsumedMessages().get(0);
+        assertThat(someMessage.isMaterialized(), is(false));
+        assertThat(lazyMessage.getPayload(), is(new Apple()));
+        assertThat(someMessage.isMaterialized(), is(false));
+    }
+
+    @Test
+    public void shouldTimeConsumers() {
+        // given
+        final LatencyTimer timer = mock(LatencyTimer.class);
+        when(timer.start()).thenReturn(42L);
+        final TestMessageConsumer<String> stringConsumer = testEventConsumer(".*", String.class);
+        final List<Object> timedConsumers = new ArrayList<>();
+        final MessageDispatcher messageDispatcher = new MessageDispatcher(consumer -> {
+            timedConsumers.add(consumer);
+            return timer;
+        });
+        messageDispatcher.add(stringConsumer);
+
+        // when
+        messageDispatcher.accept(TextMessage.of("foo", "bar"));
+
+        // then
+        assertThat(timedConsumers, contains(stringConsumer));
+        assertThat(stringConsumer.getConsumedMessages(), hasSize(1));
+        verify(timer).start();
+        verify(timer).stop(42L);
+    }
+
+    @Test
+    public void shouldStopTimerIfConsumerFails() {
+        // given
+        final LatencyTimer timer = mock(LatencyTimer.class);
+        when(timer.start()).thenReturn(42L);
+        final MessageDispatcher messageDispatcher = new MessageDispatcher(consumer -> timer);
+        messageDispatcher.add(new TestMessageConsumer<String>(".*", String.class) {
+            @Override
+            public void accept(final Message<String> message) {
+                throw new IllegalArgumentException("kawumm");
+            }
+        });
+
+        // when
+        try {
+            messageDispatcher.accept(TextMessage.of("foo", "bar"));
+            fail("IllegalStateException expected");
+        } catch (final IllegalStateException e) {
+            // then
+            verify(timer).stop(42L);
+        }
+    }
+
+    private static <T> TestMessageConsumer<T> lazyTestConsumer(final Class<T> payloadType) {
+        return new TestMessageConsumer<T>(".*", payloadType) {
+            @Override
+            public boolean lazyPayload() {
+                return true;
+            }
+        };
+    }
+
     static class Apple {
         public boolean equals(Object o) {
             return o instanceof Apple;
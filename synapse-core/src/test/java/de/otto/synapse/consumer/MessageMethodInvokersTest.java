@@ -0,0 +1,107 @@
+package de.otto.synapse.consumer;
+
+import de.otto.synapse.message.Message;
+import de.otto.synapse.message.TextMessage;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import static de.otto.synapse.consumer.MessageMethodInvokers.invokerFor;
+import static de.otto.synapse.consumer.MessageMethodInvokers.reflectiveInvokerFor;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class MessageMethodInvokersTest {
+
+    public static class PublicTarget {
+        final List<Message<?>> messages = new ArrayList<>();
+
+        public void consume(final Message<String> message) {
+            messages.add(message);
+        }
+
+        public Message<String> intercept(final TextMessage message) {
+            return message;
+        }
+
+        public int count(final Message<String> message) {
+            return messages.size();
+        }
+
+        public void fail(final Message<String> message) throws IOException {
+            throw new IOException("kawumm");
+        }
+    }
+
+    static class PackagePrivateTarget {
+        final List<Message<?>> messages = new ArrayList<>();
+
+        void consume(final Message<String> message) {
+            messages.add(message);
+        }
+
+        private Message<String> intercept(final TextMessage message) {
+            return message;
+        }
+    }
+
+    @Test
+    public void shouldInvokePublicVoidMethod() throws NoSuchMethodException {
+        final PublicTarget target = new PublicTarget();
+        final TextMessage message = TextMessage.of("foo", "bar");
+
+        final Object result = invokerFor(target, PublicTarget.class.getMethod("consume", Message.class)).invoke(message);
+
+        assertThat(result, is(nullValue()));
+        assertThat(target.messages, contains(message));
+    }
+
+    @Test
+    public void shouldInvokePublicMethodReturningMessage() throws NoSuchMethodException {
+        final TextMessage message = TextMessage.of("foo", "bar");
+
+        final Object result = invokerFor(new PublicTarget(), PublicTarget.class.getMethod("intercept", TextMessage.class)).invoke(message);
+
+        assertThat(result, is(sameInstance(message)));
+    }
+
+    @Test
+    public void shouldInvokePublicMethodReturningPrimitive() throws NoSuchMethodException {
+        final Object result = invokerFor(new PublicTarget(), PublicTarget.class.getMethod("count", Message.class)).invoke(TextMessage.of("foo", "bar"));
+
+        assertThat(result, is(0));
+    }
+
+    @Test
+    public void shouldInvokeNonPublicMethods() throws NoSuchMethodException {
+        final PackagePrivateTarget target = new PackagePrivateTarget();
+        final TextMessage message = TextMessage.of("foo", "bar");
+
+        invokerFor(target, PackagePrivateTarget.class.getDeclaredMethod("consume", Message.class)).invoke(message);
+        final Object result = invokerFor(target, PackagePrivateTarget.class.getDeclaredMethod("intercept", TextMessage.class)).invoke(message);
+
+        assertThat(target.messages, contains(message));
+        assertThat(result, is(sameInstance(message)));
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldPassThroughCheckedExceptions() throws Exception {
+        final Method method = PublicTarget.class.getMethod("fail", Message.class);
+        invokerFor(new PublicTarget(), method).invoke(TextMessage.of("foo", "bar"));
+        // Make the compiler happy about the expected checked exception:
+        throw new AssertionError("expected IOException");
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldPassThroughCheckedExceptionsFromReflectiveInvoker() throws Exception {
+        final Method method = PublicTarget.class.getMethod("fail", Message.class);
+        reflectiveInvokerFor(new PublicTarget(), method).invoke(TextMessage.of("foo", "bar"));
+        throw new AssertionError("expected IOException");
+    }
+}
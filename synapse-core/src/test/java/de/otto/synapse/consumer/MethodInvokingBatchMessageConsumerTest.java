@@ -0,0 +1,101 @@
+package de.otto.synapse.consumer;
+
+import de.otto.synapse.channel.ShardPosition;
+import de.otto.synapse.message.Message;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+import static de.otto.synapse.channel.ShardPosition.fromPosition;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class MethodInvokingBatchMessageConsumerTest {
+
+    private List<Message<String>> receivedMessages;
+    private ShardPosition receivedShardPosition;
+
+    public void validMethod(final List<Message<String>> messages) {
+        receivedMessages = messages;
+    }
+
+    public void validMethodWithShardPosition(final ShardPosition shardPosition, final List<Message<String>> messages) {
+        receivedShardPosition = shardPosition;
+        receivedMessages = messages;
+    }
+
+    public String validMethodWithReturnValue(final List<Message<String>> messages) {
+        receivedMessages = messages;
+        return "";
+    }
+
+    public void methodWithWrongParameterOrder(final List<Message<String>> messages, final ShardPosition shardPosition) {
+    }
+
+    public void singleMessageMethod(final Message<String> message) {
+    }
+
+    public void failingMethod(final List<Message<String>> messages) {
+        throw new IllegalArgumentException("boom");
+    }
+
+    @Before
+    public void setup() {
+        receivedMessages = null;
+        receivedShardPosition = null;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldBuildBatchConsumerForValidMethod() throws NoSuchMethodException {
+        final Method method = MethodInvokingBatchMessageConsumerTest.class.getMethod("validMethod", List.class);
+        final MethodInvokingBatchMessageConsumer<String> consumer = new MethodInvokingBatchMessageConsumer<>(".*", String.class, this, method);
+        final List<Message<String>> messages = singletonList(mock(Message.class));
+        consumer.accept(fromPosition("foo", "42"), messages);
+        assertThat(receivedMessages).isSameAs(messages);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldPassShardPositionToBatchConsumer() throws NoSuchMethodException {
+        final Method method = MethodInvokingBatchMessageConsumerTest.class.getMethod("validMethodWithShardPosition", ShardPosition.class, List.class);
+        final MethodInvokingBatchMessageConsumer<String> consumer = new MethodInvokingBatchMessageConsumer<>(".*", String.class, this, method);
+        final List<Message<String>> messages = singletonList(mock(Message.class));
+        consumer.accept(fromPosition("foo", "42"), messages);
+        assertThat(receivedShardPosition).isEqualTo(fromPosition("foo", "42"));
+        assertThat(receivedMessages).isSameAs(messages);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldBuildBatchConsumerAndIgnoreReturnValue() throws NoSuchMethodException {
+        final Method method = MethodInvokingBatchMessageConsumerTest.class.getMethod("validMethodWithReturnValue", List.class);
+        final MethodInvokingBatchMessageConsumer<String> consumer = new MethodInvokingBatchMessageConsumer<>(".*", String.class, this, method);
+        consumer.accept(fromPosition("foo", "42"), singletonList(mock(Message.class)));
+        assertThat(receivedMessages).hasSize(1);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldWrapExceptionsThrownByBatchConsumer() throws NoSuchMethodException {
+        final Method method = MethodInvokingBatchMessageConsumerTest.class.getMethod("failingMethod", List.class);
+        new MethodInvokingBatchMessageConsumer<>(".*", String.class, this, method).accept(fromPosition("foo", "42"), singletonList(null));
+    }
+
+    @Test
+    public void shouldDetectBatchConsumerMethods() throws NoSuchMethodException {
+        assertThat(MethodInvokingBatchMessageConsumer.isBatchConsumerMethod(MethodInvokingBatchMessageConsumerTest.class.getMethod("validMethod", List.class))).isTrue();
+        assertThat(MethodInvokingBatchMessageConsumer.isBatchConsumerMethod(MethodInvokingBatchMessageConsumerTest.class.getMethod("validMethodWithShardPosition", ShardPosition.class, List.class))).isTrue();
+        assertThat(MethodInvokingBatchMessageConsumer.isBatchConsumerMethod(MethodInvokingBatchMessageConsumerTest.class.getMethod("methodWithWrongParameterOrder", List.class, ShardPosition.class))).isFalse();
+        assertThat(MethodInvokingBatchMessageConsumer.isBatchConsumerMethod(MethodInvokingBatchMessageConsumerTest.class.getMethod("singleMessageMethod", Message.class))).isFalse();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailBuildingBatchConsumerForSingleMessageMethod() throws NoSuchMethodException {
+        final Method method = MethodInvokingBatchMessageConsumerTest.class.getMethod("singleMessageMethod", Message.class);
+        new MethodInvokingBatchMessageConsumer<>(".*", String.class, this, method);
+    }
+
+}
@@ -55,6 +55,20 @@ public class MethodInvokingMessageConsumerTest {
         assertThat(eventReceived).isTrue();
     }
 
+    @Test
+    public void shouldNotAcceptLazyPayloadsByDefault() throws NoSuchMethodException {
+        final Method method = MethodInvokingMessageConsumerTest.class.getMethod("validMethod", Message.class);
+        final MethodInvokingMessageConsumer<String> eventConsumer = new MethodInvokingMessageConsumer<>(".*", String.class, this, method);
+        assertThat(eventConsumer.lazyPayload()).isFalse();
+    }
+
+    @Test
+    public void shouldBuildEventConsumerAcceptingLazyPayloads() throws NoSuchMethodException {
+        final Method method = MethodInvokingMessageConsumerTest.class.getMethod("validMethod", Message.class);
+        final MethodInvokingMessageConsumer<String> eventConsumer = new MethodInvokingMessageConsumer<>(".*", String.class, this, method, true);
+        assertThat(eventConsumer.lazyPayload()).isTrue();
+    }
+
     @Test(expected = IllegalArgumentException.class)
     @SuppressWarnings("unchecked")
     public void shouldFailBuildingEventConsumerWithTooManyArgs() throws NoSuchMethodException {
@@ -5,7 +5,14 @@ import de.otto.synapse.message.Key;
 import de.otto.synapse.message.TextMessage;
 import org.junit.Test;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.ArgumentMatchers.any;
@@ -55,6 +62,69 @@ public class InterceptorChainTest {
         assertThat(chain.intercept(someMessage("foo")).getKey(), is(Key.of("bar")));
     }
 
+    @Test
+    public void shouldComposeAsyncInterceptorsWithoutBlocking() {
+        final CompletableFuture<TextMessage> pending = new CompletableFuture<>();
+        final List<String> calls = new CopyOnWriteArrayList<>();
+        final MessageInterceptor first = message -> {
+            calls.add("first");
+            return message;
+        };
+        final AsyncMessageInterceptor second = message -> {
+            calls.add("second");
+            return pending;
+        };
+        final MessageInterceptor third = message -> {
+            calls.add("third");
+            return someMessage("bar");
+        };
+        final InterceptorChain chain = new InterceptorChain(ImmutableList.of(first, second, third));
+
+        final CompletableFuture<TextMessage> result = chain.interceptAsync(someMessage("foo")).toCompletableFuture();
+
+        assertThat(chain.hasAsyncInterceptors(), is(true));
+        assertThat(result.isDone(), is(false));
+        assertThat(calls, contains("first", "second"));
+
+        pending.complete(someMessage("foobar"));
+
+        assertThat(result.join().getKey(), is(Key.of("bar")));
+        assertThat(calls, contains("first", "second", "third"));
+    }
+
+    @Test
+    public void shouldStopInterceptingAsyncOnNull() {
+        final AsyncMessageInterceptor first = message -> completedFuture(null);
+        final MessageInterceptor second = mock(MessageInterceptor.class);
+        final InterceptorChain chain = new InterceptorChain(ImmutableList.of(first, second));
+        assertThat(chain.interceptAsync(someMessage("foo")).toCompletableFuture().join(), is(nullValue()));
+        verifyZeroInteractions(second);
+    }
+
+    @Test
+    public void shouldCompleteExceptionallyIfInterceptorFails() {
+        final MessageInterceptor first = message -> {
+            throw new IllegalStateException("kawumm");
+        };
+        final InterceptorChain chain = new InterceptorChain(ImmutableList.of(first));
+        final CompletableFuture<TextMessage> result = chain.interceptAsync(someMessage("foo")).toCompletableFuture();
+        assertThat(result.isCompletedExceptionally(), is(true));
+    }
+
+    @Test
+    public void shouldInterceptAsyncInterceptorsSynchronously() {
+        final AsyncMessageInterceptor first = message -> supplyAsync(() -> someMessage("bar"));
+        final InterceptorChain chain = new InterceptorChain(ImmutableList.of(first));
+        //noinspection ConstantConditions
+        assertThat(chain.intercept(someMessage("foo")).getKey(), is(Key.of("bar")));
+    }
+
+    @Test
+    public void shouldNotHaveAsyncInterceptors() {
+        final InterceptorChain chain = new InterceptorChain(ImmutableList.of(mock(MessageInterceptor.class)));
+        assertThat(chain.hasAsyncInterceptors(), is(false));
+    }
+
     @SuppressWarnings("unchecked")
     private TextMessage someMessage(final String keyValue) {
         return TextMessage.of(Key.of(keyValue), null);
@@ -0,0 +1,111 @@
+package de.otto.synapse.endpoint.receiver;
+
+import de.otto.synapse.info.MessageReceiverNotification;
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Clock;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static com.google.common.collect.ImmutableMap.of;
+import static de.otto.synapse.channel.ChannelDurationBehind.channelDurationBehind;
+import static de.otto.synapse.endpoint.receiver.DispatchMode.LIVE;
+import static de.otto.synapse.info.MessageReceiverStatus.RUNNING;
+import static java.time.Duration.ofHours;
+import static java.time.Duration.ofMillis;
+import static java.time.Duration.ofSeconds;
+import static java.util.Arrays.asList;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class ChannelDurationBehindTrackerTest {
+
+    private final ScheduledExecutorService scheduler = newSingleThreadScheduledExecutor();
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void shouldTrackDurationBehindOfShards() {
+        // given
+        final ChannelDurationBehindTracker tracker = new ChannelDurationBehindTracker("foo", null, "Reading.");
+        tracker.assign(asList("shard-1", "shard-2"));
+
+        // when
+        tracker.update("shard-1", ofMillis(42));
+
+        // then
+        assertThat(tracker.getDurationBehind(), is(ofMillis(Long.MAX_VALUE)));
+        assertThat(tracker.getChannelDurationBehind().getShardDurationsBehind(), is(of(
+                "shard-1", ofMillis(42),
+                "shard-2", ofMillis(Long.MAX_VALUE))));
+
+        // when
+        tracker.update("shard-2", ofMillis(7));
+        tracker.revoke("shard-1");
+
+        // then
+        assertThat(tracker.getDurationBehind(), is(ofMillis(7)));
+        assertThat(tracker.getChannelDurationBehind(), is(channelDurationBehind().with("shard-2", ofMillis(7)).build()));
+    }
+
+    @Test
+    public void shouldCoalesceNotifications() {
+        // given
+        final ChannelDurationBehindTracker tracker = someTracker();
+        tracker.update("shard-1", ofSeconds(30));
+        verify(eventPublisher, timeout(1000)).publishEvent(notification(30000, "Reading."));
+
+        // when
+        for (int i = 29; i >= 20; --i) {
+            tracker.update("shard-1", ofSeconds(i));
+        }
+        tracker.close();
+
+        // then
+        final ArgumentCaptor<MessageReceiverNotification> captor = ArgumentCaptor.forClass(MessageReceiverNotification.class);
+        verify(eventPublisher, times(2)).publishEvent(captor.capture());
+        assertThat(captor.getAllValues().get(1), is(notification(20000, "Reading.")));
+    }
+
+    @Test
+    public void shouldPublishSwitchOfDispatchModeImmediately() {
+        // given
+        final ChannelDurationBehindTracker tracker = someTracker();
+        tracker.update("shard-1", ofSeconds(30));
+        verify(eventPublisher, timeout(1000)).publishEvent(notification(30000, "Reading."));
+
+        // when
+        tracker.update("shard-1", ofMillis(100));
+
+        // then
+        verify(eventPublisher, timeout(1000)).publishEvent(notification(100, "Switched to live mode."));
+        assertThat(tracker.getDispatchMode(), is(LIVE));
+        tracker.close();
+        verify(eventPublisher, times(2)).publishEvent(any(MessageReceiverNotification.class));
+    }
+
+    private ChannelDurationBehindTracker someTracker() {
+        return new ChannelDurationBehindTracker("foo", eventPublisher, "Reading.", new DispatchModeSelector("foo"), ofHours(1), scheduler, Clock.systemDefaultZone());
+    }
+
+    private static MessageReceiverNotification notification(final long millisBehind, final String message) {
+        return MessageReceiverNotification.builder()
+                .withChannelName("foo")
+                .withChannelDurationBehind(channelDurationBehind().with("shard-1", ofMillis(millisBehind)).build())
+                .withStatus(RUNNING)
+                .withMessage(message)
+                .build();
+    }
+}
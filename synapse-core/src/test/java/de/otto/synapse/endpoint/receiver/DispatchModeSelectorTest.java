@@ -0,0 +1,51 @@
+package de.otto.synapse.endpoint.receiver;
+
+import org.junit.Test;
+
+import java.util.Optional;
+
+import static de.otto.synapse.channel.ChannelDurationBehind.unknown;
+import static de.otto.synapse.endpoint.receiver.DispatchMode.CATCH_UP;
+import static de.otto.synapse.endpoint.receiver.DispatchMode.LIVE;
+import static java.time.Duration.ofMillis;
+import static java.time.Duration.ofSeconds;
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class DispatchModeSelectorTest {
+
+    @Test
+    public void shouldStartInCatchUpMode() {
+        // given
+        final DispatchModeSelector selector = new DispatchModeSelector("foo");
+
+        // when
+        final Optional<DispatchMode> switchedTo = selector.update(unknown(asList("shard-1", "shard-2")));
+
+        // then
+        assertThat(switchedTo, is(Optional.empty()));
+        assertThat(selector.getDispatchMode(), is(CATCH_UP));
+    }
+
+    @Test
+    public void shouldSwitchModesWithHysteresis() {
+        // given
+        final DispatchModeSelector selector = new DispatchModeSelector("foo");
+
+        // when / then
+        assertThat(selector.update(ofSeconds(5)), is(Optional.empty()));
+        assertThat(selector.update(ofMillis(999)), is(Optional.of(LIVE)));
+        assertThat(selector.update(ofSeconds(5)), is(Optional.empty()));
+        assertThat(selector.update(ofSeconds(10)), is(Optional.empty()));
+        assertThat(selector.getDispatchMode(), is(LIVE));
+        assertThat(selector.update(ofSeconds(11)), is(Optional.of(CATCH_UP)));
+        assertThat(selector.update(ofSeconds(2)), is(Optional.empty()));
+        assertThat(selector.getDispatchMode(), is(CATCH_UP));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectLiveThresholdGreaterThanCatchUpThreshold() {
+        new DispatchModeSelector("foo", CATCH_UP, ofSeconds(1), ofSeconds(2));
+    }
+}
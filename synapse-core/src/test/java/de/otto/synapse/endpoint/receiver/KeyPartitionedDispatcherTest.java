@@ -0,0 +1,186 @@
+package de.otto.synapse.endpoint.receiver;
+
+import de.otto.synapse.message.Key;
+import de.otto.synapse.message.TextMessage;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.util.concurrent.Uninterruptibles.sleepUninterruptibly;
+import static java.util.Arrays.asList;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+
+public class KeyPartitionedDispatcherTest {
+
+    @Test
+    public void shouldProcessMessagesSequentiallyInCallingThread() {
+        // given
+        final List<String> threads = new CopyOnWriteArrayList<>();
+        final List<TextMessage> messages = asList(TextMessage.of("a", "1"), TextMessage.of("b", "2"));
+
+        // when
+        final List<TextMessage> result = KeyPartitionedDispatcher.sequential().dispatch(messages, message -> {
+            threads.add(Thread.currentThread().getName());
+            return message;
+        });
+
+        // then
+        assertThat(result, is(messages));
+        assertThat(threads, contains(Thread.currentThread().getName(), Thread.currentThread().getName()));
+    }
+
+    @Test
+    public void shouldKeepOrderOfMessagesWithSamePartitionKey() {
+        // given
+        final List<TextMessage> messages = new ArrayList<>();
+        for (int i = 0; i < 1000; ++i) {
+            messages.add(TextMessage.of(Key.of("key-" + (i % 7), "compaction-" + i), "" + i));
+        }
+        final Map<String, List<Integer>> processed = new ConcurrentHashMap<>();
+
+        // when
+        try (final KeyPartitionedDispatcher dispatcher = new KeyPartitionedDispatcher("test", 4)) {
+            final List<TextMessage> result = dispatcher.dispatch(messages, message -> {
+                processed.computeIfAbsent(message.getKey().partitionKey(), k -> new CopyOnWriteArrayList<>())
+                        .add(Integer.valueOf(message.getPayload()));
+                return message;
+            });
+
+            // then
+            assertThat(result, is(messages));
+        }
+        assertThat(processed.keySet(), hasSize(7));
+        processed.forEach((partitionKey, payloads) -> {
+            assertThat(payloads, is(payloads.stream().sorted().collect(toList())));
+        });
+    }
+
+    @Test
+    public void shouldContinueProcessingAfterFailures() {
+        // given
+        final List<TextMessage> messages = asList(TextMessage.of("a", "1"), TextMessage.of("a", "2"), TextMessage.of("b", "3"));
+
+        // when
+        final List<TextMessage> result;
+        try (final KeyPartitionedDispatcher dispatcher = new KeyPartitionedDispatcher("test", 2)) {
+            result = dispatcher.dispatch(messages, message -> {
+                if (message.getPayload().equals("1")) {
+                    throw new IllegalStateException("kawumm");
+                }
+                return message.getPayload().equals("3") ? null : message;
+            });
+        }
+
+        // then
+        assertThat(result, hasSize(3));
+        assertThat(result.get(0), is(nullValue()));
+        assertThat(result.get(1), is(messages.get(1)));
+        assertThat(result.get(2), is(nullValue()));
+    }
+
+    @Test
+    public void shouldKeepOrderOfMessagesWithSamePartitionKeyWhenDispatchingAsync() {
+        // given
+        final List<TextMessage> messages = new ArrayList<>();
+        for (int i = 0; i < 200; ++i) {
+            messages.add(TextMessage.of(Key.of("key-" + (i % 7), "compaction-" + i), "" + i));
+        }
+        final Map<String, List<Integer>> processed = new ConcurrentHashMap<>();
+        final ExecutorService executor = newFixedThreadPool(8);
+
+        // when
+        final List<TextMessage> result;
+        try (final KeyPartitionedDispatcher dispatcher = new KeyPartitionedDispatcher("test", 1, 16)) {
+            result = dispatcher.dispatchAsync(messages, message -> supplyAsync(() -> {
+                sleepUninterruptibly(ThreadLocalRandom.current().nextInt(3), MILLISECONDS);
+                processed.computeIfAbsent(message.getKey().partitionKey(), k -> new CopyOnWriteArrayList<>())
+                        .add(Integer.valueOf(message.getPayload()));
+                return message;
+            }, executor));
+        } finally {
+            executor.shutdown();
+        }
+
+        // then
+        assertThat(result, is(messages));
+        assertThat(processed.keySet(), hasSize(7));
+        processed.forEach((partitionKey, payloads) -> {
+            assertThat(payloads, is(payloads.stream().sorted().collect(toList())));
+        });
+    }
+
+    @Test
+    public void shouldLimitNumberOfMessagesInFlight() {
+        // given
+        final List<TextMessage> messages = new ArrayList<>();
+        for (int i = 0; i < 50; ++i) {
+            messages.add(TextMessage.of("key-" + i, "" + i));
+        }
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        final ExecutorService executor = newFixedThreadPool(16);
+
+        // when
+        try (final KeyPartitionedDispatcher dispatcher = new KeyPartitionedDispatcher("test", 1, 4)) {
+            dispatcher.dispatchAsync(messages, message -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                return supplyAsync(() -> {
+                    sleepUninterruptibly(2, MILLISECONDS);
+                    inFlight.decrementAndGet();
+                    return message;
+                }, executor);
+            });
+        } finally {
+            executor.shutdown();
+        }
+
+        // then
+        assertThat(maxInFlight.get(), is(lessThanOrEqualTo(4)));
+        assertThat(maxInFlight.get(), is(greaterThan(1)));
+    }
+
+    @Test
+    public void shouldContinueProcessingAfterAsyncFailures() {
+        // given
+        final List<TextMessage> messages = asList(TextMessage.of("a", "1"), TextMessage.of("a", "2"), TextMessage.of("b", "3"));
+
+        // when
+        final List<TextMessage> result;
+        try (final KeyPartitionedDispatcher dispatcher = KeyPartitionedDispatcher.sequential()) {
+            result = dispatcher.dispatchAsync(messages, message -> {
+                if (message.getPayload().equals("3")) {
+                    throw new IllegalStateException("kawumm");
+                }
+                return supplyAsync(() -> {
+                    if (message.getPayload().equals("1")) {
+                        throw new IllegalStateException("kawumm");
+                    }
+                    return message;
+                });
+            });
+        }
+
+        // then
+        assertThat(result, hasSize(3));
+        assertThat(result.get(0), is(nullValue()));
+        assertThat(result.get(1), is(messages.get(1)));
+        assertThat(result.get(2), is(nullValue()));
+    }
+}
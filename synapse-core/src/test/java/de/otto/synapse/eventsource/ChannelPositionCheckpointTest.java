@@ -0,0 +1,169 @@
+package de.otto.synapse.eventsource;
+
+import de.otto.synapse.channel.ChannelPosition;
+import de.otto.synapse.channel.ShardResponse;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+import static de.otto.synapse.channel.ChannelPosition.channelPosition;
+import static de.otto.synapse.channel.ShardPosition.atPosition;
+import static de.otto.synapse.channel.ShardPosition.fromHorizon;
+import static de.otto.synapse.channel.ShardPosition.fromPosition;
+import static de.otto.synapse.channel.ShardPosition.fromTimestamp;
+import static de.otto.synapse.channel.ShardResponse.shardResponse;
+import static java.time.ZoneOffset.UTC;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class ChannelPositionCheckpointTest {
+
+    private static final Instant NOW = Instant.parse("2019-10-01T10:00:00Z");
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void shouldRestoreWrittenChannelPosition() throws IOException {
+        // given
+        final Path file = temporaryFolder.getRoot().toPath().resolve("checkpoints/some-channel.json");
+        final ChannelPosition channelPosition = channelPosition(
+                fromHorizon("shard-1"),
+                fromPosition("shard-2", "42"),
+                atPosition("shard-3", "4711"),
+                fromTimestamp("shard-4", NOW.minusSeconds(60)));
+        new ChannelPositionCheckpoint("some-channel", file, Duration.ofSeconds(10), Duration.ofHours(1), fixedClock(NOW))
+                .write(channelPosition);
+
+        // when
+        final Optional<ChannelPosition> restored = new ChannelPositionCheckpoint("some-channel", file, Duration.ofSeconds(10), Duration.ofHours(1), fixedClock(NOW.plusSeconds(60)))
+                .restore();
+
+        // then
+        assertThat(restored, is(Optional.of(channelPosition)));
+        assertThat(Files.exists(file.resolveSibling("some-channel.json.tmp")), is(false));
+    }
+
+    @Test
+    public void shouldIgnoreMissingCheckpoint() {
+        // given
+        final Path file = temporaryFolder.getRoot().toPath().resolve("some-channel.json");
+        final ChannelPositionCheckpoint checkpoint = new ChannelPositionCheckpoint("some-channel", file, Duration.ofSeconds(10), Duration.ofHours(1));
+
+        // when
+        final Optional<ChannelPosition> restored = checkpoint.restore();
+
+        // then
+        assertThat(restored, is(Optional.empty()));
+    }
+
+    @Test
+    public void shouldIgnoreCheckpointOlderThanMaxAge() {
+        // given
+        final Path file = temporaryFolder.getRoot().toPath().resolve("some-channel.json");
+        new ChannelPositionCheckpoint("some-channel", file, Duration.ofSeconds(10), Duration.ofHours(1), fixedClock(NOW))
+                .write(channelPosition(fromPosition("shard-1", "42")));
+
+        // when
+        final Optional<ChannelPosition> restored = new ChannelPositionCheckpoint("some-channel", file, Duration.ofSeconds(10), Duration.ofHours(1), fixedClock(NOW.plus(Duration.ofHours(2))))
+                .restore();
+
+        // then
+        assertThat(restored, is(Optional.empty()));
+    }
+
+    @Test
+    public void shouldIgnoreCheckpointOfOtherChannel() {
+        // given
+        final Path file = temporaryFolder.getRoot().toPath().resolve("some-channel.json");
+        new ChannelPositionCheckpoint("other-channel", file, Duration.ofSeconds(10), Duration.ofHours(1))
+                .write(channelPosition(fromPosition("shard-1", "42")));
+
+        // when
+        final Optional<ChannelPosition> restored = new ChannelPositionCheckpoint("some-channel", file, Duration.ofSeconds(10), Duration.ofHours(1))
+                .restore();
+
+        // then
+        assertThat(restored, is(Optional.empty()));
+    }
+
+    @Test
+    public void shouldIgnoreCorruptedCheckpoint() throws IOException {
+        // given
+        final Path file = temporaryFolder.getRoot().toPath().resolve("some-channel.json");
+        Files.write(file, "{\"channelName\":\"some-".getBytes());
+
+        // when
+        final Optional<ChannelPosition> restored = new ChannelPositionCheckpoint("some-channel", file, Duration.ofSeconds(10), Duration.ofHours(1))
+                .restore();
+
+        // then
+        assertThat(restored, is(Optional.empty()));
+    }
+
+    @Test
+    public void shouldWriteTrackedPositionsAfterInterval() {
+        // given
+        final Path file = temporaryFolder.getRoot().toPath().resolve("some-channel.json");
+        final MutableClock clock = new MutableClock(NOW);
+        final ChannelPositionCheckpoint checkpoint = new ChannelPositionCheckpoint("some-channel", file, Duration.ofSeconds(10), Duration.ofHours(1), clock);
+        final Predicate<ShardResponse> stopCondition = checkpoint.tracking(
+                channelPosition(fromHorizon("shard-1"), fromHorizon("shard-2")),
+                shardResponse -> false);
+
+        // when
+        stopCondition.test(shardResponse(fromPosition("shard-1", "1"), Duration.ZERO));
+        clock.instant = NOW.plusSeconds(5);
+        stopCondition.test(shardResponse(fromPosition("shard-2", "2"), Duration.ZERO));
+
+        // then
+        assertThat(Files.exists(file), is(false));
+
+        // when
+        clock.instant = NOW.plusSeconds(10);
+        stopCondition.test(shardResponse(fromPosition("shard-1", "3"), Duration.ZERO));
+
+        // then
+        assertThat(Files.exists(file), is(true));
+        assertThat(
+                new ChannelPositionCheckpoint("some-channel", file, Duration.ofSeconds(10), Duration.ofHours(1), clock).restore(),
+                is(Optional.of(channelPosition(fromPosition("shard-1", "3"), fromPosition("shard-2", "2")))));
+    }
+
+    private static Clock fixedClock(final Instant instant) {
+        return Clock.fixed(instant, UTC);
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant instant;
+
+        MutableClock(final Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return UTC;
+        }
+
+        @Override
+        public Clock withZone(final ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
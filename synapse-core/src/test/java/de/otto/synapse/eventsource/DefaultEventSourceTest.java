@@ -1,15 +1,21 @@
 package de.otto.synapse.eventsource;
 
 import de.otto.synapse.channel.ChannelPosition;
+import de.otto.synapse.channel.ShardPosition;
+import de.otto.synapse.consumer.BatchMessageConsumer;
 import de.otto.synapse.consumer.MessageDispatcher;
 import de.otto.synapse.endpoint.receiver.MessageLogReceiverEndpoint;
 import de.otto.synapse.message.Header;
 import de.otto.synapse.message.Key;
+import de.otto.synapse.message.Message;
 import de.otto.synapse.message.TextMessage;
 import de.otto.synapse.messagestore.MessageStore;
 import de.otto.synapse.messagestore.MessageStoreEntry;
 import org.junit.Test;
 
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
@@ -21,6 +27,8 @@ import static de.otto.synapse.channel.StopCondition.shutdown;
 import static de.otto.synapse.messagestore.MessageStores.emptyMessageStore;
 import static java.util.concurrent.CompletableFuture.completedFuture;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -134,6 +142,40 @@ public class DefaultEventSourceTest {
         verify(messageDispatcher).accept(TextMessage.of(Key.of("1"), null));
     }
 
+    @Test
+    public void shouldDispatchBatchesFromMessageStore() throws ExecutionException, InterruptedException {
+        // given
+        // and some message store having messages from two shards
+        final MessageStore messageStore = mock(MessageStore.class);
+        final TextMessage first = TextMessage.of(Key.of("1"), Header.of(fromPosition("foo", "1")), null);
+        final TextMessage second = TextMessage.of(Key.of("2"), Header.of(fromPosition("bar", "2")), null);
+        final TextMessage third = TextMessage.of(Key.of("3"), Header.of(fromPosition("foo", "3")), null);
+        when(messageStore.stream()).thenReturn(Stream.of(
+                MessageStoreEntry.of("some-channel", first),
+                MessageStoreEntry.of("some-channel", second),
+                MessageStoreEntry.of("some-channel", third)));
+        when(messageStore.getLatestChannelPosition(anyString())).thenReturn(fromHorizon());
+
+        // and some MessageLogReceiverEndpoint with a BatchMessageConsumer:
+        final MessageLogReceiverEndpoint messageLog = mockMessageLogReceiverEndpoint();
+        when(messageLog.intercept(any(TextMessage.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        final MessageDispatcher messageDispatcher = new MessageDispatcher();
+        final Map<ShardPosition, List<Message<String>>> batches = new ConcurrentHashMap<>();
+        messageDispatcher.add(BatchMessageConsumer.of(".*", String.class, batches::put));
+        when(messageLog.getMessageDispatcher()).thenReturn(messageDispatcher);
+
+        // and our famous DefaultEventSource:
+        final DefaultEventSource eventSource = new DefaultEventSource(messageStore, messageLog);
+
+        // when
+        eventSource.consume().get();
+
+        // then
+        assertThat(batches.keySet(), containsInAnyOrder(fromPosition("foo", "3"), fromPosition("bar", "2")));
+        assertThat(batches.get(fromPosition("foo", "3")), contains(first, third));
+        assertThat(batches.get(fromPosition("bar", "2")), contains(second));
+    }
+
     @Test
     public void shouldContinueWithChannelPositionFromMessageStore() throws ExecutionException, InterruptedException {
         // given
@@ -186,6 +228,54 @@ public class DefaultEventSourceTest {
         verify(messageStore).close();
     }
 
+    @Test
+    public void shouldReplayMessageStoreUsingReplayCoordinator() throws ExecutionException, InterruptedException {
+        // given
+        final MessageStore messageStore = mock(MessageStore.class);
+        when(messageStore.stream()).thenReturn(Stream.of(
+                MessageStoreEntry.of("some-channel", TextMessage.of(Key.of("1"), null)),
+                MessageStoreEntry.of("some-channel", TextMessage.of(Key.of("2"), null))));
+        when(messageStore.getLatestChannelPosition(anyString())).thenReturn(fromHorizon());
+        final MessageLogReceiverEndpoint messageLog = mockMessageLogReceiverEndpoint();
+        when(messageLog.intercept(any(TextMessage.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        final MessageDispatcher messageDispatcher = mock(MessageDispatcher.class);
+        when(messageLog.getMessageDispatcher()).thenReturn(messageDispatcher);
+
+        try (final MessageStoreReplayCoordinator coordinator = new MessageStoreReplayCoordinator(1, 2)) {
+            final DefaultEventSource eventSource = new DefaultEventSource(messageStore, messageLog, coordinator);
+
+            // when
+            eventSource.consume().get();
+
+            // then
+            assertThat(coordinator.getFinishedReplays(), is(1));
+            verify(messageDispatcher).accept(TextMessage.of(Key.of("1"), null));
+            verify(messageDispatcher).accept(TextMessage.of(Key.of("2"), null));
+        }
+    }
+
+    @Test
+    public void shouldSkipReplayOfMessageStoreIfCheckpointIsRestored() throws ExecutionException, InterruptedException {
+        // given
+        final ChannelPosition checkpointPosition = channelPosition(fromPosition("shard1", "42"));
+        final ChannelPosition finalPosition = channelPosition(fromPosition("shard1", "4711"));
+        final ChannelPositionCheckpoint checkpoint = mock(ChannelPositionCheckpoint.class);
+        when(checkpoint.tracking(any(ChannelPosition.class), any(Predicate.class))).thenAnswer(invocation -> invocation.getArgument(1));
+        final MessageStore messageStore = mockMessageStore(fromHorizon());
+        final MessageLogReceiverEndpoint messageLog = mockMessageLogReceiverEndpoint(finalPosition);
+        final DefaultEventSource eventSource = new DefaultEventSource(messageStore, messageLog, null, checkpoint, checkpointPosition);
+
+        // when
+        final ChannelPosition channelPosition = eventSource.consume().get();
+
+        // then
+        assertThat(channelPosition, is(finalPosition));
+        verify(messageStore, never()).stream();
+        verify(messageLog).consumeUntil(eq(checkpointPosition), any(Predicate.class));
+        verify(checkpoint).write(finalPosition);
+        verify(checkpoint, never()).restore();
+    }
+
     @Test
     public void shouldStopMessageLogReceiverEndpoint() {
         // given
@@ -0,0 +1,119 @@
+package de.otto.synapse.eventsource;
+
+import de.otto.synapse.message.Key;
+import de.otto.synapse.message.TextMessage;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static java.util.Collections.synchronizedList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+public class KeyPartitionedReplayTest {
+
+    @Test
+    public void shouldReplayAllMessages() {
+        // given
+        final KeyPartitionedReplay replay = new KeyPartitionedReplay(4, 10, 2);
+        final List<TextMessage> consumed = synchronizedList(new ArrayList<>());
+        final AtomicLong progress = new AtomicLong();
+
+        // when
+        final long count = replay.replay(messages(1000, 100), consumed::add, progress::addAndGet);
+
+        // then
+        assertThat(count, is(1000L));
+        assertThat(consumed, hasSize(1000));
+        assertThat(progress.get(), is(1000L));
+    }
+
+    @Test
+    public void shouldKeepOrderingOfMessagesWithSameCompactionKey() {
+        // given
+        final KeyPartitionedReplay replay = new KeyPartitionedReplay(4, 7, 1);
+        final Map<String, List<String>> payloadsPerKey = new ConcurrentHashMap<>();
+
+        // when
+        replay.replay(messages(1000, 10), message -> payloadsPerKey
+                .computeIfAbsent(message.getKey().compactionKey(), key -> new CopyOnWriteArrayList<>())
+                .add(message.getPayload()), processed -> {});
+
+        // then
+        assertThat(payloadsPerKey.size(), is(10));
+        payloadsPerKey.forEach((key, payloads) -> {
+            final List<String> expected = IntStream.range(0, 1000)
+                    .filter(i -> Integer.toString(i % 10).equals(key))
+                    .mapToObj(Integer::toString)
+                    .collect(Collectors.toList());
+            assertThat(payloads, is(expected));
+        });
+    }
+
+    @Test
+    public void shouldReplayUsingMultipleWorkers() {
+        // given
+        final KeyPartitionedReplay replay = new KeyPartitionedReplay(4, 1, 1);
+        final List<String> threadNames = new CopyOnWriteArrayList<>();
+
+        // when
+        replay.replay(messages(100, 100), message -> threadNames.add(Thread.currentThread().getName()), processed -> {});
+
+        // then
+        assertThat(threadNames, everyItem(not(is(Thread.currentThread().getName()))));
+        assertThat(threadNames.stream().distinct().count() > 1, is(true));
+    }
+
+    @Test
+    public void shouldReplayInCallingThreadUsingSingleWorker() {
+        // given
+        final KeyPartitionedReplay replay = new KeyPartitionedReplay(1);
+        final List<String> threadNames = new ArrayList<>();
+        final List<String> payloads = new ArrayList<>();
+
+        // when
+        replay.replay(messages(3, 3), message -> {
+            threadNames.add(Thread.currentThread().getName());
+            payloads.add(message.getPayload());
+        }, processed -> {});
+
+        // then
+        assertThat(threadNames, everyItem(is(Thread.currentThread().getName())));
+        assertThat(payloads, contains("0", "1", "2"));
+    }
+
+    @Test
+    public void shouldContinueReplayAfterConsumerFailed() {
+        // given
+        final KeyPartitionedReplay replay = new KeyPartitionedReplay(2, 5, 1);
+        final List<TextMessage> consumed = synchronizedList(new ArrayList<>());
+
+        // when
+        replay.replay(messages(20, 20), message -> {
+            if (message.getPayload().equals("3")) {
+                throw new IllegalStateException("kawumm");
+            }
+            consumed.add(message);
+        }, processed -> {});
+
+        // then
+        assertThat(consumed, hasSize(19));
+    }
+
+    private static Stream<TextMessage> messages(final int count, final int keys) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> TextMessage.of(Key.of("p", Integer.toString(i % keys)), Integer.toString(i)));
+    }
+}
@@ -0,0 +1,95 @@
+package de.otto.synapse.eventsource;
+
+import de.otto.synapse.message.Key;
+import de.otto.synapse.message.TextMessage;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class MessageStoreReplayCoordinatorTest {
+
+    @Test
+    public void shouldLimitNumberOfConcurrentReplays() {
+        // given
+        try (final MessageStoreReplayCoordinator coordinator = new MessageStoreReplayCoordinator(2, 1)) {
+            final AtomicInteger running = new AtomicInteger();
+            final AtomicInteger maxRunning = new AtomicInteger();
+
+            // when
+            final List<CompletableFuture<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 6; ++i) {
+                final String channelName = "channel-" + i;
+                futures.add(coordinator.schedule(channelName, () -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        MILLISECONDS.sleep(20);
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    running.decrementAndGet();
+                    return channelName;
+                }));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+            // then
+            assertThat(maxRunning.get(), is(lessThanOrEqualTo(2)));
+            assertThat(coordinator.getScheduledReplays(), is(6));
+            assertThat(coordinator.getFinishedReplays(), is(6));
+            assertThat(futures.get(5).join(), is("channel-5"));
+        }
+    }
+
+    @Test
+    public void shouldReplayConcurrentlyUsingSharedWorkers() {
+        // given
+        try (final MessageStoreReplayCoordinator coordinator = new MessageStoreReplayCoordinator(2, 3)) {
+            final AtomicInteger consumed = new AtomicInteger();
+
+            // when
+            final List<CompletableFuture<Long>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; ++i) {
+                futures.add(coordinator.schedule("channel-" + i, () -> coordinator.getReplay().replay(
+                        IntStream.range(0, 1000).mapToObj(n -> TextMessage.of(Key.of(Integer.toString(n)), null)),
+                        message -> consumed.incrementAndGet(),
+                        processed -> {})));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+            // then
+            assertThat(coordinator.getReplay().getWorkers(), is(3));
+            assertThat(consumed.get(), is(4000));
+            assertThat(futures.get(0).join(), is(1000L));
+        }
+    }
+
+    @Test
+    public void shouldCountFailedReplaysAsFinished() {
+        // given
+        try (final MessageStoreReplayCoordinator coordinator = new MessageStoreReplayCoordinator(1, 1)) {
+            final List<String> results = new ArrayList<>();
+
+            // when
+            final CompletableFuture<String> failed = coordinator.schedule("failing", () -> {
+                throw new IllegalStateException("kawumm");
+            });
+            final CompletableFuture<String> succeeded = coordinator.schedule("succeeding", () -> "ok");
+            results.add(failed.handle((result, throwable) -> throwable != null ? "failed" : result).join());
+            results.add(succeeded.join());
+
+            // then
+            assertThat(results, contains("failed", "ok"));
+            assertThat(coordinator.getFinishedReplays(), is(2));
+        }
+    }
+}
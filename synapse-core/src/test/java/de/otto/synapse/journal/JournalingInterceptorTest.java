@@ -1,12 +1,19 @@
 package de.otto.synapse.journal;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import de.otto.synapse.message.Header;
+import de.otto.synapse.message.Key;
 import de.otto.synapse.message.TextMessage;
 import de.otto.synapse.messagestore.Index;
 import de.otto.synapse.messagestore.MessageStore;
 import de.otto.synapse.messagestore.MessageStoreEntry;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.mockito.Mockito.*;
 
 public class JournalingInterceptorTest {
@@ -37,4 +44,24 @@ public class JournalingInterceptorTest {
 
         verify(messageStore).add(MessageStoreEntry.of("foo-channel", message));
     }
+
+    @Test
+    public void shouldJournalMessageWithoutCopyingHeader() {
+        final MessageStore messageStore = mock(MessageStore.class);
+        when(messageStore.getIndexes()).thenReturn(ImmutableSet.of(Index.JOURNAL_KEY));
+
+        final Journal journal = mock(Journal.class);
+        when(journal.getMessageStore()).thenReturn(messageStore);
+
+        final JournalingInterceptor interceptor = new JournalingInterceptor("foo-channel", journal);
+        final Header header = Header.of(ImmutableMap.of("foo", "bar")).withAttribute("bar", "baz");
+        final TextMessage message = TextMessage.of(Key.of("42"), header, "p");
+
+        final TextMessage intercepted = interceptor.intercept(message);
+
+        final ArgumentCaptor<MessageStoreEntry> entry = ArgumentCaptor.forClass(MessageStoreEntry.class);
+        verify(messageStore).add(entry.capture());
+        assertThat(intercepted, is(sameInstance(message)));
+        assertThat(entry.getValue().getTextMessage().getHeader(), is(sameInstance(header)));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,75 @@
+package de.otto.synapse.message;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+
+import static de.otto.synapse.channel.ShardPosition.fromPosition;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+public class BinaryMessageTest {
+
+    @Test
+    public void shouldMaterializePayloadOnDemand() {
+        final BinaryMessage message = BinaryMessage.of(Key.of("42"), Header.of(), ByteBuffer.wrap("ßome dätä".getBytes(UTF_8)));
+
+        assertThat(message.isMaterialized(), is(false));
+        assertThat(message.getPayload(), is("ßome dätä"));
+        assertThat(message.isMaterialized(), is(true));
+    }
+
+    @Test
+    public void shouldUseBytesBetweenPositionAndLimit() {
+        final byte[] bytes = "xx{}yy".getBytes(UTF_8);
+        final BinaryMessage message = BinaryMessage.of(Key.of("42"), Header.of(), ByteBuffer.wrap(bytes, 2, 2));
+
+        assertThat(message.getPayload(), is("{}"));
+        assertThat(message.getPayloadBytes().remaining(), is(2));
+    }
+
+    @Test
+    public void shouldBeEqualToTextMessage() {
+        final Header header = Header.of(fromPosition("some-channel", "00001"));
+        final BinaryMessage message = BinaryMessage.of(Key.of("42"), header, ByteBuffer.wrap("{}".getBytes(UTF_8)));
+
+        assertThat(message, is(TextMessage.of(Key.of("42"), header, "{}")));
+        assertThat(message.hashCode(), is(TextMessage.of(Key.of("42"), header, "{}").hashCode()));
+    }
+
+    @Test
+    public void shouldKeepBytesWhenReplacingHeader() {
+        final BinaryMessage message = BinaryMessage.of(Key.of("42"), Header.of(), ByteBuffer.wrap("{}".getBytes(UTF_8)));
+
+        final TextMessage withHeader = message.withHeader(Header.builder().withAttribute("foo", "bar").build());
+
+        assertThat(withHeader, is(instanceOf(BinaryMessage.class)));
+        assertThat(((BinaryMessage) withHeader).isMaterialized(), is(false));
+        assertThat(withHeader.getHeader().getAsString("foo"), is("bar"));
+        assertThat(withHeader.getPayload(), is("{}"));
+    }
+
+    @Test
+    public void shouldSerializeAsTextMessage() throws Exception {
+        final BinaryMessage message = BinaryMessage.of(Key.of("42"), Header.of(), ByteBuffer.wrap("{}".getBytes(UTF_8)));
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (final ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(message);
+        }
+        final Object deserialized;
+        try (final ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            deserialized = in.readObject();
+        }
+
+        assertThat(deserialized, is(not(instanceOf(BinaryMessage.class))));
+        assertThat(deserialized, is(TextMessage.of(Key.of("42"), Header.of(), "{}")));
+    }
+}
@@ -1,16 +1,23 @@
 package de.otto.synapse.message;
 
 import com.google.common.collect.ImmutableMap;
+import de.otto.synapse.channel.ShardPosition;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.time.Instant;
 import java.util.Optional;
 
+import static de.otto.synapse.channel.ShardPosition.fromPosition;
 import static de.otto.synapse.message.Header.of;
 import static java.time.Instant.now;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 
 public class HeaderTest {
 
@@ -44,4 +51,143 @@ public class HeaderTest {
         final Header header = of(ImmutableMap.of());
         assertThat(header.getShardPosition(), is(Optional.empty()));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldAddAttributeWithoutModifyingOriginalHeader() {
+        final Header header = of(ImmutableMap.of("x", "foo"));
+        final Header layered = header.withAttribute("y", "bar");
+        assertThat(layered.getAsString("x"), is("foo"));
+        assertThat(layered.getAsString("y"), is("bar"));
+        assertThat(layered.containsKey("y"), is(true));
+        assertThat(header.containsKey("y"), is(false));
+        assertThat(layered.getAll(), is(ImmutableMap.of("x", "foo", "y", "bar")));
+    }
+
+    @Test
+    public void shouldOverrideAttributesOfParentHeader() {
+        final Header header = of(ImmutableMap.of("x", "foo", "y", "bar"))
+                .withAttribute("x", "foobar");
+        assertThat(header.get("x"), is("foobar"));
+        assertThat(header.getAll(), is(ImmutableMap.of("x", "foobar", "y", "bar")));
+    }
+
+    @Test
+    public void shouldKeepShardPositionOfParentHeader() {
+        final ShardPosition position = fromPosition("some-shard", "42");
+        final Header header = of(position).withAttribute(DefaultHeaderAttr.MSG_ID, "4711");
+        assertThat(header.getShardPosition(), is(Optional.of(position)));
+        assertThat(header.getAsString(DefaultHeaderAttr.MSG_ID), is("4711"));
+    }
+
+    @Test
+    public void shouldReturnInstantAttrFromLayeredHeader() {
+        final Instant time = now();
+        final Header header = of().withAttribute(DefaultHeaderAttr.MSG_RECEIVER_TS, time);
+        assertThat(header.getAsInstant(DefaultHeaderAttr.MSG_RECEIVER_TS), is(time));
+    }
+
+    @Test
+    public void shouldBeEqualToFlatHeader() {
+        final Header layered = of(ImmutableMap.of("x", "foo"))
+                .withAttribute("y", "bar")
+                .withAttributes(ImmutableMap.of("z", "foobar"));
+        final Header flat = Header.builder()
+                .withAttribute("x", "foo")
+                .withAttribute("y", "bar")
+                .withAttribute("z", "foobar")
+                .build();
+        assertThat(layered, is(flat));
+        assertThat(layered.hashCode(), is(flat.hashCode()));
+        assertThat(layered.toString(), is(flat.toString()));
+    }
+
+    @Test
+    public void shouldSupportManyLayers() {
+        Header header = of();
+        for (int i = 0; i < 100; ++i) {
+            header = header.withAttribute("attr-" + i, String.valueOf(i));
+        }
+        assertThat(header.getAll().size(), is(100));
+        assertThat(header.getAsString("attr-0"), is("0"));
+        assertThat(header.getAsString("attr-99"), is("99"));
+    }
+
+    @Test
+    public void shouldSerializeLayeredHeader() throws Exception {
+        final Header header = of(fromPosition("some-shard", "42"), ImmutableMap.of("x", "foo"))
+                .withAttribute("y", "bar");
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (final ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(header);
+        }
+        try (final ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            final Header deserialized = (Header) in.readObject();
+            assertThat(deserialized, is(header));
+            assertThat(deserialized.getAsString("x"), is("foo"));
+            assertThat(deserialized.getAsString("y"), is("bar"));
+        }
+    }
+
+    @Test
+    public void shouldReturnTimestampAttributeWithoutParsing() {
+        final Instant time = now();
+        final Header header = Header.builder()
+                .withAttribute(DefaultHeaderAttr.MSG_ARRIVAL_TS, time)
+                .build();
+        assertThat(header.getAsInstant(DefaultHeaderAttr.MSG_ARRIVAL_TS), is(sameInstance(time)));
+        assertThat(header.getAsString(DefaultHeaderAttr.MSG_ARRIVAL_TS), is(time.toString()));
+        assertThat(header.containsKey(DefaultHeaderAttr.MSG_ARRIVAL_TS), is(true));
+        assertThat(header.getAll(), is(ImmutableMap.of(DefaultHeaderAttr.MSG_ARRIVAL_TS.key(), time.toString())));
+    }
+
+    @Test
+    public void shouldParseTimestampAttributeOnlyOnce() {
+        final Header header = of(ImmutableMap.of(DefaultHeaderAttr.MSG_SENDER_TS.key(), "2019-01-01T00:00:00.000Z"));
+        final Instant first = header.getAsInstant(DefaultHeaderAttr.MSG_SENDER_TS);
+        assertThat(first, is(Instant.parse("2019-01-01T00:00:00Z")));
+        assertThat(header.getAsInstant(DefaultHeaderAttr.MSG_SENDER_TS), is(sameInstance(first)));
+        assertThat(header.getAsString(DefaultHeaderAttr.MSG_SENDER_TS), is("2019-01-01T00:00:00.000Z"));
+        assertThat(header.getAll(), is(ImmutableMap.of(DefaultHeaderAttr.MSG_SENDER_TS.key(), "2019-01-01T00:00:00.000Z")));
+    }
+
+    @Test
+    public void shouldOverrideTimestampAttributeOfParentHeader() {
+        final Instant time = now();
+        final Header header = of(ImmutableMap.of(DefaultHeaderAttr.MSG_RECEIVER_TS.key(), "2019-01-01T00:00:00Z"))
+                .withAttribute(DefaultHeaderAttr.MSG_RECEIVER_TS, time);
+        assertThat(header.getAsInstant(DefaultHeaderAttr.MSG_RECEIVER_TS), is(time));
+        assertThat(header.getAll(), is(ImmutableMap.of(DefaultHeaderAttr.MSG_RECEIVER_TS.key(), time.toString())));
+
+        final Header overridden = header.withAttribute(DefaultHeaderAttr.MSG_RECEIVER_TS, "2019-01-01T00:00:00Z");
+        assertThat(overridden.getAsInstant(DefaultHeaderAttr.MSG_RECEIVER_TS), is(Instant.parse("2019-01-01T00:00:00Z")));
+    }
+
+    @Test
+    public void shouldCopyTimestampAttributes() {
+        final Instant time = now();
+        final Header header = Header.copyOf(of().withAttribute(DefaultHeaderAttr.MSG_ARRIVAL_TS, time))
+                .withAttribute("x", "foo")
+                .build();
+        assertThat(header.getAsInstant(DefaultHeaderAttr.MSG_ARRIVAL_TS), is(sameInstance(time)));
+        assertThat(header.getAsString("x"), is("foo"));
+    }
+
+    @Test
+    public void shouldSerializeTimestampAttributes() throws Exception {
+        final Instant time = now();
+        final Header header = Header.builder()
+                .withAttribute(DefaultHeaderAttr.MSG_ARRIVAL_TS, time)
+                .build();
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (final ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(header);
+        }
+        try (final ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            final Header deserialized = (Header) in.readObject();
+            assertThat(deserialized, is(header));
+            assertThat(deserialized.getAsInstant(DefaultHeaderAttr.MSG_ARRIVAL_TS), is(time));
+        }
+    }
+}
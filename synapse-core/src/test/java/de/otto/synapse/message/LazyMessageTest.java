@@ -0,0 +1,88 @@
+package de.otto.synapse.message;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static de.otto.synapse.channel.ShardPosition.fromPosition;
+import static de.otto.synapse.message.Header.of;
+import static de.otto.synapse.message.LazyMessage.lazyMessage;
+import static de.otto.synapse.message.Message.message;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+
+public class LazyMessageTest {
+
+    @Test
+    public void shouldDecodePayloadOnlyOnce() {
+        final AtomicInteger calls = new AtomicInteger();
+        final LazyMessage<Integer> message = lazyMessage(Key.of("42"), Header.of(), "4711", countingDecoder(calls));
+
+        assertThat(message.isDecoded(), is(false));
+        assertThat(calls.get(), is(0));
+        assertThat(message.getPayload(), is(4711));
+        assertThat(message.getPayload(), is(4711));
+        assertThat(message.isDecoded(), is(true));
+        assertThat(calls.get(), is(1));
+    }
+
+    @Test
+    public void shouldNotCallDecoderForNullPayload() {
+        final AtomicInteger calls = new AtomicInteger();
+        final LazyMessage<Integer> message = lazyMessage(Key.of("42"), Header.of(), null, countingDecoder(calls));
+
+        assertThat(message.getPayload(), is(nullValue()));
+        assertThat(calls.get(), is(0));
+    }
+
+    @Test
+    public void shouldKeepRawPayload() {
+        final LazyMessage<Integer> message = lazyMessage(Key.of("42"), Header.of(), "4711", Integer::valueOf);
+
+        message.getPayload();
+
+        assertThat(message.getRawPayload(), is("4711"));
+    }
+
+    @Test
+    public void shouldBeEqualToDecodedMessage() {
+        final Header header = of(fromPosition("some-channel", "00001"));
+        final LazyMessage<Integer> lazyMessage = lazyMessage(Key.of("42"), header, "4711", Integer::valueOf);
+
+        assertThat(lazyMessage, is(message(Key.of("42"), header, 4711)));
+        assertThat(lazyMessage.hashCode(), is(message(Key.of("42"), header, 4711).hashCode()));
+        assertThat(lazyMessage, is(not(message(Key.of("42"), header, 42))));
+    }
+
+    @Test
+    public void shouldSerializeAsDecodedMessage() throws Exception {
+        final LazyMessage<Integer> lazyMessage = lazyMessage(Key.of("42"), Header.of(), "4711", Integer::valueOf);
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (final ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(lazyMessage);
+        }
+        final Object deserialized;
+        try (final ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            deserialized = in.readObject();
+        }
+
+        assertThat(deserialized, is(not(instanceOf(LazyMessage.class))));
+        assertThat(deserialized, is(message(Key.of("42"), Header.of(), 4711)));
+    }
+
+    private static Function<String, Integer> countingDecoder(final AtomicInteger calls) {
+        return raw -> {
+            calls.incrementAndGet();
+            return Integer.valueOf(raw);
+        };
+    }
+}
@@ -0,0 +1,55 @@
+package de.otto.synapse.messagestore;
+
+import de.otto.synapse.message.Key;
+import de.otto.synapse.message.TextMessage;
+import org.junit.Test;
+
+import static de.otto.synapse.channel.ChannelPosition.channelPosition;
+import static de.otto.synapse.channel.ChannelPosition.fromHorizon;
+import static de.otto.synapse.channel.ShardPosition.fromPosition;
+import static de.otto.synapse.message.Header.of;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+
+public class ChannelPositionsTest {
+
+    @Test
+    public void shouldTrackLatestPositionPerShard() {
+        // given
+        final ChannelPositions channelPositions = new ChannelPositions();
+
+        // when
+        channelPositions.updateFrom(entry("some-channel", "foo", "1"));
+        channelPositions.updateFrom(entry("some-channel", "bar", "2"));
+        channelPositions.updateFrom(entry("some-channel", "foo", "3"));
+        channelPositions.updateFrom(entry("other-channel", "foo", "4"));
+
+        // then
+        assertThat(channelPositions.getChannelNames(), containsInAnyOrder("some-channel", "other-channel"));
+        assertThat(channelPositions.getLatestChannelPosition("some-channel"), is(channelPosition(
+                fromPosition("foo", "3"),
+                fromPosition("bar", "2"))));
+        assertThat(channelPositions.getLatestChannelPosition("other-channel"), is(channelPosition(
+                fromPosition("foo", "4"))));
+    }
+
+    @Test
+    public void shouldReturnHorizonForEntriesWithoutShardPosition() {
+        // given
+        final ChannelPositions channelPositions = new ChannelPositions();
+
+        // when
+        channelPositions.updateFrom(MessageStoreEntry.of("some-channel", TextMessage.of(Key.of("1"), "some payload")));
+
+        // then
+        assertThat(channelPositions.getChannelNames(), contains("some-channel"));
+        assertThat(channelPositions.getLatestChannelPosition("some-channel"), is(fromHorizon()));
+        assertThat(channelPositions.getLatestChannelPosition("unknown-channel"), is(fromHorizon()));
+    }
+
+    private static MessageStoreEntry entry(final String channelName, final String shardName, final String position) {
+        return MessageStoreEntry.of(channelName, TextMessage.of(Key.of(position), of(fromPosition(shardName, position)), "some payload"));
+    }
+}
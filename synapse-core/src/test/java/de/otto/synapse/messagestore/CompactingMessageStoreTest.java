@@ -37,7 +37,8 @@ public class CompactingMessageStoreTest {
     @Parameters
     public static Iterable<? extends Supplier<MessageStore>> messageStores() {
         return asList(
-                () -> new OnHeapCompactingMessageStore(true)
+                () -> new OnHeapCompactingMessageStore(true),
+                () -> OffHeapCompactingMessageStore.builder().build()
         );
     }
 
@@ -225,4 +226,21 @@ public class CompactingMessageStoreTest {
         assertThat(messageStore.stream().count(), is(0L));
     }
 
+    @Test
+    public void shouldStreamMessagesAddedAfterRemovalInInsertionOrder() {
+        final MessageStore messageStore = messageStoreBuilder.get();
+        for (int i=0; i<10; ++i) {
+            messageStore.add(MessageStoreEntry.of("some-channel", TextMessage.of(Key.of(valueOf(i)), "some payload")));
+        }
+        for (int i=0; i<5; ++i) {
+            messageStore.add(MessageStoreEntry.of("some-channel", TextMessage.of(Key.of(valueOf(i)), null)));
+        }
+        for (int i=0; i<5; ++i) {
+            messageStore.add(MessageStoreEntry.of("some-channel", TextMessage.of(Key.of(valueOf(i)), "some new payload")));
+        }
+        assertThat(messageStore.size(), is(10L));
+        assertThat(messageStore.stream().map(entry -> entry.getTextMessage().getKey().compactionKey()).collect(toList()), contains(
+                "5", "6", "7", "8", "9", "0", "1", "2", "3", "4"));
+    }
+
 }
\ No newline at end of file
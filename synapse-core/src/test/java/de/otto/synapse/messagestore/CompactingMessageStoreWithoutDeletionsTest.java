@@ -28,7 +28,8 @@ public class CompactingMessageStoreWithoutDeletionsTest {
     @Parameters
     public static Iterable<? extends Supplier<MessageStore>> messageStores() {
         return asList(
-                () -> new OnHeapCompactingMessageStore(false)
+                () -> new OnHeapCompactingMessageStore(false),
+                () -> OffHeapCompactingMessageStore.builder().withRemoveNullPayloadMessages(false).build()
         );
     }
 
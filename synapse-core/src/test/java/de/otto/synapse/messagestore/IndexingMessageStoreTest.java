@@ -44,7 +44,8 @@ public class IndexingMessageStoreTest {
     public static Iterable<? extends Supplier<MessageStore>> channelIndexedMessageStore() {
         return asList(
                 () -> new OnHeapIndexingMessageStore(channelNameIndexer()),
-                () -> new OffHeapIndexingMessageStore("test", channelNameIndexer())
+                () -> new OffHeapIndexingMessageStore("test", channelNameIndexer()),
+                () -> new OffHeapIndexingMessageStore("test", channelNameIndexer(), null, 1024)
         );
     }
 
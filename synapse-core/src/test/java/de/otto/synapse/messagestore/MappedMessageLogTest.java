@@ -0,0 +1,126 @@
+package de.otto.synapse.messagestore;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+
+public class MappedMessageLogTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void shouldAppendRecordsToMultipleSegments() throws IOException {
+        // given
+        try (final MappedMessageLog log = new MappedMessageLog("test", temporaryFolder.getRoot().toPath(), 16)) {
+
+            // when
+            final long first = log.append(bytes("first"));
+            final long second = log.append(bytes("second"));
+            final long third = log.append(bytes("third"));
+
+            // then
+            assertThat(log.getSegmentCount(), is(3));
+            assertThat(string(log.read(second)), is("second"));
+            assertThat(log.stream().map(MappedMessageLogTest::string).collect(Collectors.toList()), contains("first", "second", "third"));
+            assertThat(log.stream(LongStream.of(third, first)).map(MappedMessageLogTest::string).collect(Collectors.toList()), contains("third", "first"));
+            assertThat(Files.list(temporaryFolder.getRoot().toPath()).count(), is(0L));
+        }
+    }
+
+    @Test
+    public void shouldNotReadRecordsAfterClose() {
+        // given
+        final MappedMessageLog log = new MappedMessageLog("test", null, 16);
+        final long first = log.append(bytes("first"));
+        final Stream<ByteBuffer> records = log.stream(LongStream.of(first));
+
+        // when
+        log.close();
+
+        // then
+        assertThat(log.stream().collect(Collectors.toList()), is(empty()));
+        assertThat(log.stream(first, Long.MAX_VALUE).collect(Collectors.toList()), is(empty()));
+        try {
+            records.collect(Collectors.toList());
+            fail("IllegalStateException expected");
+        } catch (final IllegalStateException e) {
+            assertThat(e.getMessage(), is("MappedMessageLog test is already closed"));
+        }
+    }
+
+    @Test
+    public void shouldStoreRecordsLargerThanSegmentSize() {
+        // given
+        try (final MappedMessageLog log = new MappedMessageLog("test", null, 8)) {
+
+            // when
+            log.append(bytes("some record that is larger than a segment"));
+            log.append(bytes("x"));
+
+            // then
+            final List<String> records = log.stream().map(MappedMessageLogTest::string).collect(Collectors.toList());
+            assertThat(records, contains("some record that is larger than a segment", "x"));
+        }
+    }
+
+    @Test
+    public void shouldNotStreamRecordsAppendedAfterStreamWasCreated() {
+        // given
+        try (final MappedMessageLog log = new MappedMessageLog("test", null, 1024)) {
+            log.append(bytes("first"));
+
+            // when
+            final Stream<ByteBuffer> stream = log.stream();
+            log.append(bytes("second"));
+
+            // then
+            assertThat(stream.map(MappedMessageLogTest::string).collect(Collectors.toList()), contains("first"));
+        }
+    }
+
+    @Test
+    public void shouldSplitStreamAtSegmentBoundaries() {
+        // given
+        try (final MappedMessageLog log = new MappedMessageLog("test", null, 64)) {
+            for (int i = 0; i < 100; ++i) {
+                log.append(bytes(String.valueOf(i)));
+            }
+
+            // when
+            final Spliterator<ByteBuffer> suffix = log.stream().spliterator();
+            final Spliterator<ByteBuffer> prefix = suffix.trySplit();
+
+            // then
+            assertThat(prefix.estimateSize() + suffix.estimateSize(), is(100L));
+            assertThat(log.parallelStream().map(MappedMessageLogTest::string).collect(Collectors.toList()),
+                    is(log.stream().map(MappedMessageLogTest::string).collect(Collectors.toList())));
+        }
+    }
+
+    private static byte[] bytes(final String value) {
+        return value.getBytes(UTF_8);
+    }
+
+    private static String string(final ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+}
@@ -0,0 +1,71 @@
+package de.otto.synapse.messagestore;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import de.otto.synapse.channel.ShardPosition;
+import de.otto.synapse.message.Header;
+import de.otto.synapse.message.Key;
+import de.otto.synapse.message.TextMessage;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+
+import static de.otto.synapse.messagestore.Index.CHANNEL_NAME;
+import static de.otto.synapse.messagestore.Index.PARTITION_KEY;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class MessageStoreEntryCodecTest {
+
+    private final MessageStoreEntryCodec codec = new MessageStoreEntryCodec(ImmutableList.of(CHANNEL_NAME, PARTITION_KEY));
+
+    @Test
+    public void shouldEncodeAndDecodeEntries() {
+        // given
+        final MessageStoreEntry entry = MessageStoreEntry.of(
+                "some-channel",
+                ImmutableMap.of(PARTITION_KEY, "p", CHANNEL_NAME, "some-channel"),
+                TextMessage.of(
+                        Key.of("p", "c"),
+                        Header.of(ShardPosition.fromPosition("shard-1", "42"), ImmutableMap.of("foo", "bär")),
+                        "{\"some\":\"payload\"}"));
+
+        // when
+        final MessageStoreEntry decoded = codec.decode(ByteBuffer.wrap(codec.encode(entry)));
+
+        // then
+        assertThat(decoded, is(entry));
+        assertThat(decoded.getFilterValues(), is(entry.getFilterValues()));
+    }
+
+    @Test
+    public void shouldEncodeAndDecodeDeletionsWithoutShardPosition() {
+        // given
+        final MessageStoreEntry entry = MessageStoreEntry.of("some-channel", TextMessage.of(Key.of("k"), null));
+
+        // when
+        final MessageStoreEntry decoded = codec.decode(ByteBuffer.wrap(codec.encode(entry)));
+
+        // then
+        assertThat(decoded, is(entry));
+        assertThat(decoded.getTextMessage().getHeader().getShardPosition().isPresent(), is(false));
+    }
+
+    @Test
+    public void shouldEncodeAndDecodeShardPositions() {
+        for (final ShardPosition shardPosition : ImmutableList.of(
+                ShardPosition.fromHorizon("s"),
+                ShardPosition.atPosition("s", "4711"),
+                ShardPosition.fromTimestamp("s", Instant.parse("2019-04-01T10:15:30.123456789Z")))) {
+            // given
+            final MessageStoreEntry entry = MessageStoreEntry.of("c", TextMessage.of(Key.of("k"), Header.of(shardPosition), "x"));
+
+            // when
+            final MessageStoreEntry decoded = codec.decode(ByteBuffer.wrap(codec.encode(entry)));
+
+            // then
+            assertThat(decoded.getTextMessage().getHeader().getShardPosition().get(), is(shardPosition));
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package de.otto.synapse.messagestore;
+
+import com.google.common.collect.ImmutableMap;
+import de.otto.synapse.message.Header;
+import de.otto.synapse.message.Key;
+import de.otto.synapse.message.TextMessage;
+import org.junit.Test;
+
+import java.time.Instant;
+
+import static de.otto.synapse.channel.ChannelPosition.channelPosition;
+import static de.otto.synapse.channel.ChannelPosition.fromHorizon;
+import static de.otto.synapse.channel.ShardPosition.atPosition;
+import static de.otto.synapse.channel.ShardPosition.fromPosition;
+import static de.otto.synapse.channel.ShardPosition.fromTimestamp;
+import static de.otto.synapse.message.DefaultHeaderAttr.MSG_ARRIVAL_TS;
+import static de.otto.synapse.messagestore.MessageStoreEntryFilters.arrivedBetween;
+import static de.otto.synapse.messagestore.MessageStoreEntryFilters.comparePositions;
+import static de.otto.synapse.messagestore.MessageStoreEntryFilters.following;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+
+public class MessageStoreEntryFiltersTest {
+
+    private static final Instant NOW = Instant.parse("2019-01-01T12:00:00Z");
+
+    @Test
+    public void shouldComparePositionsNumerically() {
+        assertThat(comparePositions("9", "10"), is(lessThan(0)));
+        assertThat(comparePositions("49590338271490256608559692538361571095921575989136588898", "49590338271490256608559692538361571095921575989136588899"), is(lessThan(0)));
+        assertThat(comparePositions("0042", "42"), is(0));
+        assertThat(comparePositions("100", "99"), is(greaterThan(0)));
+    }
+
+    @Test
+    public void shouldComparePositionsLexicographically() {
+        assertThat(comparePositions("a", "b"), is(lessThan(0)));
+        assertThat(comparePositions("9a", "10a"), is(greaterThan(0)));
+    }
+
+    @Test
+    public void shouldSelectEntriesFollowingPosition() {
+        final MessageStoreEntry entry = entryOf("foo", "shard-0", "42");
+
+        assertThat(following("foo", channelPosition(fromPosition("shard-0", "41"))).test(entry), is(true));
+        assertThat(following("foo", channelPosition(fromPosition("shard-0", "42"))).test(entry), is(false));
+        assertThat(following("foo", channelPosition(atPosition("shard-0", "42"))).test(entry), is(true));
+        assertThat(following("foo", channelPosition(fromTimestamp("shard-0", NOW))).test(entry), is(true));
+        assertThat(following("foo", channelPosition(fromTimestamp("shard-0", NOW.plusSeconds(1)))).test(entry), is(false));
+        assertThat(following("foo", channelPosition(fromPosition("shard-1", "99"))).test(entry), is(true));
+        assertThat(following("foo", fromHorizon()).test(entry), is(true));
+        assertThat(following("bar", fromHorizon()).test(entry), is(false));
+    }
+
+    @Test
+    public void shouldNotSelectEntriesWithoutPosition() {
+        final MessageStoreEntry entry = MessageStoreEntry.of("foo", TextMessage.of(Key.of("key"), Header.of(), "payload"));
+
+        assertThat(following("foo", fromHorizon()).test(entry), is(false));
+    }
+
+    @Test
+    public void shouldSelectEntriesArrivedBetweenTimestamps() {
+        final MessageStoreEntry entry = entryOf("foo", "shard-0", "42");
+
+        assertThat(arrivedBetween("foo", NOW, NOW.plusSeconds(1)).test(entry), is(true));
+        assertThat(arrivedBetween("foo", NOW.minusSeconds(1), NOW).test(entry), is(false));
+        assertThat(arrivedBetween("bar", NOW, NOW.plusSeconds(1)).test(entry), is(false));
+    }
+
+    private MessageStoreEntry entryOf(final String channelName, final String shardName, final String position) {
+        final Header header = Header.of(fromPosition(shardName, position), ImmutableMap.of(MSG_ARRIVAL_TS.key(), NOW.toString()));
+        return MessageStoreEntry.of(channelName, TextMessage.of(Key.of("key"), header, "payload"));
+    }
+}
@@ -1,5 +1,6 @@
 package de.otto.synapse.messagestore;
 
+import com.google.common.collect.ImmutableMap;
 import de.otto.synapse.channel.ShardPosition;
 import de.otto.synapse.message.Header;
 import de.otto.synapse.message.Key;
@@ -10,21 +11,28 @@ import org.junit.runners.Parameterized;
 import org.junit.runners.Parameterized.Parameter;
 import org.junit.runners.Parameterized.Parameters;
 
+import java.time.Instant;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static de.otto.synapse.channel.ChannelPosition.channelPosition;
 import static de.otto.synapse.channel.ChannelPosition.fromHorizon;
+import static de.otto.synapse.channel.ShardPosition.atPosition;
 import static de.otto.synapse.channel.ShardPosition.fromPosition;
 import static de.otto.synapse.channel.StartFrom.POSITION;
+import static de.otto.synapse.message.DefaultHeaderAttr.MSG_ARRIVAL_TS;
 import static java.lang.String.valueOf;
 import static java.util.Arrays.asList;
 import static java.util.concurrent.CompletableFuture.allOf;
 import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.stream.Collectors.toList;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 
@@ -39,8 +47,10 @@ public class MessageStoreTest {
         return asList(
                 () -> new OnHeapIndexingMessageStore(),
                 () -> new OffHeapIndexingMessageStore("test"),
+                () -> new OffHeapIndexingMessageStore("test", Indexers.noOpIndexer(), null, 1024),
                 () -> new OnHeapRingBufferMessageStore(1000),
-                () -> new OnHeapCompactingMessageStore(true)
+                () -> new OnHeapCompactingMessageStore(true),
+                () -> OffHeapCompactingMessageStore.builder().build()
         );
     }
 
@@ -64,6 +74,18 @@ public class MessageStoreTest {
     }
 
     @SuppressWarnings("Duplicates")
+    @Test
+    public void shouldStreamMessagesInParallel() {
+        final MessageStore messageStore = messageStoreBuilder.get();
+        for (int i=0; i<5000; ++i) {
+            messageStore.add(MessageStoreEntry.of("", TextMessage.of(Key.of(valueOf(i)), "some payload")));
+        }
+        final List<MessageStoreEntry> entries = messageStore.stream().collect(toList());
+        assertThat(messageStore.parallelStream().isParallel(), is(true));
+        assertThat(messageStore.parallelStream().collect(toList()), is(entries));
+        assertThat(messageStore.parallelStream().count(), is((long) entries.size()));
+    }
+
     @Test
     public void shouldKeepInsertionOrderOfMessages() {
         final MessageStore messageStore = messageStoreBuilder.get();
@@ -127,4 +149,46 @@ public class MessageStoreTest {
         assertThat(messageStore.getLatestChannelPosition(""), is(fromHorizon()));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldStreamMessagesFollowingChannelPosition() {
+        final MessageStore messageStore = messageStoreBuilder.get();
+        addMessagesWithPositionAndArrivalTimestamp(messageStore);
+
+        assertThat(keysOf(messageStore.stream("foo", channelPosition(fromPosition("shard-0", "49")))), is(
+                IntStream.range(0, 200).filter(i -> i % 2 == 1 || i / 2 > 49).mapToObj(i -> "foo-" + i).collect(toList())));
+        assertThat(keysOf(messageStore.stream("foo", channelPosition(atPosition("shard-0", "49"), fromPosition("shard-1", "99")))), is(
+                IntStream.range(0, 200).filter(i -> i % 2 == 0 && i / 2 >= 49).mapToObj(i -> "foo-" + i).collect(toList())));
+        assertThat(keysOf(messageStore.stream("foo", channelPosition(fromPosition("shard-0", "99"), fromPosition("shard-1", "99")))), is(empty()));
+        assertThat(keysOf(messageStore.stream("unknown", fromHorizon())), is(empty()));
+    }
+
+    @Test
+    public void shouldStreamMessagesArrivedBetweenTimestamps() {
+        final MessageStore messageStore = messageStoreBuilder.get();
+        final Instant now = addMessagesWithPositionAndArrivalTimestamp(messageStore);
+
+        assertThat(keysOf(messageStore.stream("foo", now.plusSeconds(300), now.plusSeconds(600))), is(
+                IntStream.range(30, 60).mapToObj(i -> "foo-" + i).collect(toList())));
+        assertThat(keysOf(messageStore.stream("bar", now.minusSeconds(60), now.plusSeconds(5))), is(
+                asList("bar-0")));
+        assertThat(keysOf(messageStore.stream("foo", now.plusSeconds(600), now.plusSeconds(300))), is(empty()));
+        assertThat(keysOf(messageStore.stream("foo", now.plusSeconds(3600), now.plusSeconds(7200))), is(empty()));
+    }
+
+    private Instant addMessagesWithPositionAndArrivalTimestamp(final MessageStore messageStore) {
+        final Instant now = Instant.parse("2019-01-01T12:00:00Z");
+        for (int i=0; i<200; ++i) {
+            for (final String channelName : asList("foo", "bar")) {
+                final Header header = Header.of(
+                        fromPosition("shard-" + i % 2, valueOf(i / 2)),
+                        ImmutableMap.of(MSG_ARRIVAL_TS.key(), now.plusSeconds(i * 10).toString()));
+                messageStore.add(MessageStoreEntry.of(channelName, TextMessage.of(Key.of(channelName + "-" + i), header, "some payload")));
+            }
+        }
+        return now;
+    }
+
+    private List<String> keysOf(final Stream<MessageStoreEntry> entries) {
+        return entries.map(entry -> entry.getTextMessage().getKey().compactionKey()).collect(toList());
+    }
+}
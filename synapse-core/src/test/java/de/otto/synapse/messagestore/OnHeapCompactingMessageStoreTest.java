@@ -0,0 +1,88 @@
+package de.otto.synapse.messagestore;
+
+import de.otto.synapse.message.Key;
+import de.otto.synapse.message.TextMessage;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+import static java.lang.String.valueOf;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+public class OnHeapCompactingMessageStoreTest {
+
+    @Test
+    public void shouldEvictOldestEntriesIfMaxCapacityIsReached() {
+        // given
+        final OnHeapCompactingMessageStore messageStore = new OnHeapCompactingMessageStore(true, 3);
+
+        // when
+        for (int i = 0; i < 5; ++i) {
+            messageStore.add(entry(valueOf(i), "some payload"));
+        }
+        messageStore.add(entry("3", "updated payload"));
+
+        // then
+        assertThat(messageStore.size(), is(3L));
+        assertThat(compactionKeys(messageStore), contains("2", "3", "4"));
+    }
+
+    @Test
+    public void shouldAppendReAddedEntriesAfterRemoval() {
+        // given
+        final OnHeapCompactingMessageStore messageStore = new OnHeapCompactingMessageStore(true);
+        for (int i = 0; i < 3; ++i) {
+            messageStore.add(entry(valueOf(i), "some payload"));
+        }
+
+        // when
+        messageStore.add(entry("0", null));
+        messageStore.add(entry("0", "some payload"));
+
+        // then
+        assertThat(compactionKeys(messageStore), contains("1", "2", "0"));
+    }
+
+    @Test
+    public void shouldAddAndRemoveEntriesConcurrently() {
+        // given
+        final OnHeapCompactingMessageStore messageStore = new OnHeapCompactingMessageStore(true);
+        final ExecutorService executorService = newFixedThreadPool(4);
+
+        // when
+        final CompletableFuture[] completion = new CompletableFuture[4];
+        for (int thread = 0; thread < 4; ++thread) {
+            final int offset = thread * 10000;
+            completion[thread] = CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < 10000; ++i) {
+                    messageStore.add(entry(valueOf(offset + i), "some payload"));
+                    if (i % 2 == 0) {
+                        messageStore.add(entry(valueOf(offset + i), null));
+                    }
+                }
+            }, executorService);
+        }
+        CompletableFuture.allOf(completion).join();
+        executorService.shutdown();
+
+        // then
+        assertThat(messageStore.size(), is(20000L));
+        assertThat(messageStore.stream().count(), is(20000L));
+    }
+
+    private static MessageStoreEntry entry(final String compactionKey, final String payload) {
+        return MessageStoreEntry.of("some-channel", TextMessage.of(Key.of(compactionKey), payload));
+    }
+
+    private static List<String> compactionKeys(final MessageStore messageStore) {
+        return messageStore.stream()
+                .map(entry -> entry.getTextMessage().getKey().compactionKey())
+                .collect(toList());
+    }
+}
@@ -0,0 +1,80 @@
+package de.otto.synapse.messagestore;
+
+import com.google.common.collect.ImmutableMap;
+import de.otto.synapse.message.Header;
+import de.otto.synapse.message.Key;
+import de.otto.synapse.message.TextMessage;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static de.otto.synapse.channel.ChannelPosition.channelPosition;
+import static de.otto.synapse.channel.ChannelPosition.fromHorizon;
+import static de.otto.synapse.channel.ShardPosition.atPosition;
+import static de.otto.synapse.channel.ShardPosition.fromPosition;
+import static de.otto.synapse.message.DefaultHeaderAttr.MSG_ARRIVAL_TS;
+import static de.otto.synapse.messagestore.SequenceIndex.NO_ADDRESS;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class SequenceIndexTest {
+
+    private static final Instant NOW = Instant.parse("2019-01-01T12:00:00Z");
+
+    private final List<MessageStoreEntry> entries = new ArrayList<>();
+    private final SequenceIndex sequenceIndex = new SequenceIndex(address -> entries.get((int) address));
+
+    @Test
+    public void shouldFindFirstAddressFollowingPosition() {
+        for (int i = 0; i < 100; ++i) {
+            add("shard-" + i % 2, i / 2, NOW);
+        }
+
+        assertThat(sequenceIndex.firstAddressFollowing("foo", channelPosition(fromPosition("shard-0", "10"), fromPosition("shard-1", "20"))), is(22L));
+        assertThat(sequenceIndex.firstAddressFollowing("foo", channelPosition(atPosition("shard-0", "10"), fromPosition("shard-1", "20"))), is(20L));
+        assertThat(sequenceIndex.firstAddressFollowing("foo", channelPosition(fromPosition("shard-0", "49"), fromPosition("shard-1", "49"))), is(NO_ADDRESS));
+        assertThat(sequenceIndex.firstAddressFollowing("foo", channelPosition(fromPosition("shard-0", "10"))), is(1L));
+        assertThat(sequenceIndex.firstAddressFollowing("bar", fromHorizon()), is(NO_ADDRESS));
+    }
+
+    @Test
+    public void shouldScanShardWithUnorderedPositions() {
+        add("shard-0", 2, NOW);
+        add("shard-0", 1, NOW);
+        add("shard-0", 3, NOW);
+
+        assertThat(sequenceIndex.firstAddressFollowing("foo", channelPosition(fromPosition("shard-0", "2"))), is(0L));
+    }
+
+    @Test
+    public void shouldFindAddressRangeOfTimeInterval() {
+        for (int i = 0; i < 100; ++i) {
+            add("shard-0", i, NOW.plusSeconds(i * 60));
+        }
+
+        assertThat(sequenceIndex.addressRange("foo", NOW.plusSeconds(600), NOW.plusSeconds(1200)), is(new long[]{10L, 19L}));
+        assertThat(sequenceIndex.addressRange("foo", NOW.minusSeconds(600), NOW), is(nullValue()));
+        assertThat(sequenceIndex.addressRange("foo", NOW.plusSeconds(1200), NOW.plusSeconds(600)), is(nullValue()));
+        assertThat(sequenceIndex.addressRange("bar", NOW, NOW.plusSeconds(600)), is(nullValue()));
+    }
+
+    @Test
+    public void shouldClearIndex() {
+        add("shard-0", 1, NOW);
+
+        sequenceIndex.clear();
+
+        assertThat(sequenceIndex.firstAddressFollowing("foo", fromHorizon()), is(NO_ADDRESS));
+        assertThat(sequenceIndex.addressRange("foo", NOW, NOW.plusSeconds(60)), is(nullValue()));
+    }
+
+    private void add(final String shardName, final int position, final Instant arrivalTimestamp) {
+        final Header header = Header.of(fromPosition(shardName, String.valueOf(position)), ImmutableMap.of(MSG_ARRIVAL_TS.key(), arrivalTimestamp.toString()));
+        final MessageStoreEntry entry = MessageStoreEntry.of("foo", TextMessage.of(Key.of("key"), header, "payload"));
+        entries.add(entry);
+        sequenceIndex.add(entry, entries.size() - 1);
+    }
+}
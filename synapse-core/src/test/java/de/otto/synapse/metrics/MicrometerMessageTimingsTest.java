@@ -0,0 +1,122 @@
+package de.otto.synapse.metrics;
+
+import de.otto.synapse.consumer.MessageConsumer;
+import de.otto.synapse.message.Message;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+import java.util.regex.Pattern;
+
+import static de.otto.synapse.endpoint.EndpointType.RECEIVER;
+import static de.otto.synapse.endpoint.EndpointType.SENDER;
+import static de.otto.synapse.metrics.LatencyTimer.NOT_SAMPLED;
+import static de.otto.synapse.metrics.MicrometerMessageTimings.CONSUMER_TIMER;
+import static de.otto.synapse.metrics.MicrometerMessageTimings.INTERCEPTOR_TIMER;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class MicrometerMessageTimingsTest {
+
+    @Test
+    public void shouldRecordInterceptorLatencyTaggedByChannelEndpointTypeAndName() {
+        // given
+        final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        final MessageTimings timings = new MicrometerMessageTimings(meterRegistry);
+        // when
+        final LatencyTimer timer = timings.interceptorTimer("some-channel", SENDER, "SomeInterceptor");
+        timer.stop(timer.start());
+        // then
+        final Timer micrometerTimer = meterRegistry.get(INTERCEPTOR_TIMER)
+                .tag("channel", "some-channel")
+                .tag("endpoint_type", "SENDER")
+                .tag("bean", "SomeInterceptor")
+                .timer();
+        assertThat(micrometerTimer.count(), is(1L));
+    }
+
+    @Test
+    public void shouldRecordConsumerLatency() {
+        // given
+        final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        final MessageTimings timings = new MicrometerMessageTimings(meterRegistry);
+        // when
+        final LatencyTimer timer = timings.consumerTimer("some-channel", "SomeConsumer#accept");
+        timer.stop(timer.start());
+        timer.stop(timer.start());
+        // then
+        final Timer micrometerTimer = meterRegistry.get(CONSUMER_TIMER)
+                .tag("channel", "some-channel")
+                .tag("endpoint_type", RECEIVER.name())
+                .tag("bean", "SomeConsumer#accept")
+                .timer();
+        assertThat(micrometerTimer.count(), is(2L));
+    }
+
+    @Test
+    public void shouldOnlyRecordSampledMessages() {
+        // given
+        final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        final MessageTimings timings = new MicrometerMessageTimings(meterRegistry, 10);
+        final LatencyTimer timer = timings.consumerTimer("some-channel", "SomeConsumer");
+        // when
+        int sampled = 0;
+        for (int i = 0; i < 100; ++i) {
+            final long start = timer.start();
+            if (start != NOT_SAMPLED) {
+                ++sampled;
+            }
+            timer.stop(start);
+        }
+        // then
+        assertThat(sampled, is(10));
+        assertThat(meterRegistry.get(CONSUMER_TIMER).timer().count(), is(10L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectIllegalSamplingInterval() {
+        new MicrometerMessageTimings(new SimpleMeterRegistry(), 0);
+    }
+
+    @Test
+    public void shouldDeriveNameFromClassName() {
+        assertThat(MessageTimings.nameOf(new SomeConsumer()), is("SomeConsumer"));
+    }
+
+    @Test
+    public void shouldStripLambdaSuffixFromName() {
+        final Runnable lambda = () -> {};
+        assertThat(MessageTimings.nameOf(lambda), is("MicrometerMessageTimingsTest"));
+    }
+
+    @Test
+    public void shouldStripLambdaSuffixOfHiddenClassesFromName() {
+        assertThat(MessageTimings.lambdaDeclaringClassOf("de.otto.Foo$$Lambda$42/0x0000000800c0b000"), is("Foo"));
+        assertThat(MessageTimings.lambdaDeclaringClassOf("de.otto.Foo$$Lambda/0x0000000800c0b000"), is("Foo"));
+        assertThat(MessageTimings.lambdaDeclaringClassOf("de.otto.Foo$$LambdaConsumer"), is(nullValue()));
+        assertThat(MessageTimings.lambdaDeclaringClassOf("de.otto.Foo"), is(nullValue()));
+    }
+
+    @Test
+    public void shouldUseNameOfNamedTargets() {
+        final MessageTimings.Named named = () -> "someBean#someMethod";
+        assertThat(MessageTimings.nameOf(named), is("someBean#someMethod"));
+    }
+
+    static class SomeConsumer implements MessageConsumer<String> {
+        @Override
+        public Class<String> payloadType() {
+            return String.class;
+        }
+
+        @Override
+        public Pattern keyPattern() {
+            return Pattern.compile(".*");
+        }
+
+        @Override
+        public void accept(final Message<String> message) {
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package de.otto.synapse.state;
 
 import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
@@ -16,6 +19,9 @@ import static org.junit.Assert.assertThat;
 
 public class ChronicleMapStateRepositoryTest {
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     @Test
     public void shouldRetrieveValueAfterPut() {
         // given
@@ -76,6 +82,25 @@ public class ChronicleMapStateRepositoryTest {
         assertThat(resultKeys, containsInAnyOrder("someKeyA", "someKeyB", "someKeyC"));
     }
 
+    @Test
+    public void shouldRecoverEntriesFromPersistedFile() throws Exception {
+        // given
+        final File file = new File(temporaryFolder.getRoot(), "some-state.dat");
+        final ChronicleMapStateRepository<SomePojo> repository = builder(SomePojo.class).withPersistedFile(file).build();
+        assertThat(repository.isRecovered(), is(false));
+        repository.put("someKeyA", new SomePojo("A", 1));
+        repository.put("someKeyB", new SomePojo("B", 2));
+        repository.close();
+        // when
+        final ChronicleMapStateRepository<SomePojo> recovered = builder(SomePojo.class).withPersistedFile(file).build();
+        // then
+        assertThat(recovered.isRecovered(), is(true));
+        assertThat(recovered.getPersistedFile(), is(Optional.of(file)));
+        assertThat(recovered.size(), is(2L));
+        assertThat(recovered.get("someKeyB"), is(Optional.of(new SomePojo("B", 2))));
+        recovered.close();
+    }
+
     public static class SomePojo {
 
         public String someString;
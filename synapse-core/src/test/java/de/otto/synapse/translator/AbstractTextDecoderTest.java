@@ -131,6 +131,61 @@ public class AbstractTextDecoderTest {
         assertThat(message.getHeader().getAll()).isEmpty();
     }
 
+    @Test
+    public void shouldDecodeV2PayloadAsRawSlice() {
+        final String payload = "{ \"some\" : [ 1, 2.50, {\"nested\":\"}\"} ] }";
+        final String body = "{\"_synapse_msg_format\":\"v2\","
+                + "\"_synapse_msg_payload\":" + payload + ","
+                + "\"_synapse_msg_headers\":{\"attr\":\"value\"}}";
+
+        final Message<String> message = decoder.apply(body);
+
+        assertThat(message.getPayload()).isEqualTo(payload);
+        assertThat(message.getHeader().getAsString("attr")).isEqualTo("value");
+    }
+
+    @Test
+    public void shouldDecodeV2FormatWithArrayPayload() {
+        final String body = "{\"_synapse_msg_format\":\"v2\",\"_synapse_msg_payload\":[1,2,3]}";
+
+        final Message<String> message = decoder.apply(body);
+
+        assertThat(message.getPayload()).isEqualTo("[1,2,3]");
+    }
+
+    @Test
+    public void shouldDecodeV2FormatWithTextPayload() {
+        final String body = "{\"_synapse_msg_format\":\"v2\",\"_synapse_msg_payload\":\"some \\\"quoted\\\" text\"}";
+
+        final Message<String> message = decoder.apply(body);
+
+        assertThat(message.getPayload()).isEqualTo("some \"quoted\" text");
+    }
+
+    @Test
+    public void shouldIgnoreUnknownFieldsInV2Format() {
+        final String body = "{\"_synapse_msg_format\":\"v2\","
+                + "\"_synapse_msg_unknown\":{\"foo\":[\"bar\"]},"
+                + "\"_synapse_msg_key\":{\"partitionKey\":\"p1\",\"compactionKey\":\"p2\",\"other\":{}},"
+                + "\"_synapse_msg_payload\":{}}";
+
+        final Message<String> message = decoder.apply(body);
+
+        assertThat(message.getKey()).isEqualTo(Key.of("p1", "p2"));
+        assertThat(message.getPayload()).isEqualTo("{}");
+    }
+
+    @Test
+    public void shouldFallBackToV1IfV2FormatIsBroken() {
+        final String body = "{\"_synapse_msg_format\":\"v2\",\"_synapse_msg_key\":\"unexpected\",\"_synapse_msg_payload\":{}}";
+        final Key key = Key.of("foo", "bar");
+
+        final TextMessage message = decoder.decode(key, Header.of(), body);
+
+        assertThat(message.getKey()).isEqualTo(key);
+        assertThat(message.getPayload()).isEqualTo(body);
+    }
+
     @Test
     public void shouldConvertMessageToStringValueAndViceVersa() {
         final TextMessage message = TextMessage.of("some key","{}");
@@ -0,0 +1,112 @@
+package de.otto.synapse.translator;
+
+import de.otto.synapse.message.BinaryMessage;
+import de.otto.synapse.message.Header;
+import de.otto.synapse.message.Key;
+import de.otto.synapse.message.TextMessage;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BinaryDecoderTest {
+
+    private final BinaryDecoder decoder = new BinaryDecoder();
+
+    @Test
+    public void shouldDecodeV1Format() {
+        final TextMessage message = decoder.apply("ßome dätä".getBytes(UTF_8));
+
+        assertThat(message.getKey()).isEqualTo(Key.of());
+        assertThat(message.getPayload()).isEqualTo("ßome dätä");
+    }
+
+    @Test
+    public void shouldDecodeNullAsV1Format() {
+        final TextMessage message = decoder.apply(null);
+
+        assertThat(message.getPayload()).isNull();
+    }
+
+    @Test
+    public void shouldDecodeV2Format() {
+        final TextMessage message = TextMessage.of(Key.of("p1", "c1"), Header.builder().withAttribute("attr", "value").build(), "{}");
+
+        final String encoded = new TextEncoder(MessageFormat.V2).apply(message);
+
+        assertThat(decoder.apply(encoded.getBytes(UTF_8))).isEqualTo(message);
+    }
+
+    @Test
+    public void shouldDecodeV3Format() {
+        final TextMessage message = TextMessage.of(Key.of("p1", "c1"), Header.builder().withAttribute("attr", "value").build(), "{}");
+
+        final byte[] encoded = new BinaryEncoder().apply(message);
+
+        assertThat(decoder.apply(encoded)).isEqualTo(message);
+    }
+
+    @Test
+    public void shouldFallBackToPrototypeKeyForBrokenV3Records() {
+        final byte[] encoded = new BinaryEncoder().apply(TextMessage.of("some key", "some payload"));
+        final byte[] truncated = Arrays.copyOf(encoded, encoded.length - 4);
+
+        final TextMessage message = decoder.decode(Key.of("prototype"), Header.of(), truncated);
+
+        assertThat(message.getKey()).isEqualTo(Key.of("prototype"));
+    }
+
+    @Test
+    public void shouldRejectV3RecordsWithInvalidUncompressedLength() {
+        final byte[] record = {V3Codec.MAGIC, 1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07, 0x10, 0x00};
+
+        final TextMessage message = decoder.decode(Key.of("prototype"), Header.of(), record);
+
+        assertThat(message.getKey()).isEqualTo(Key.of("prototype"));
+    }
+
+    @Test
+    public void shouldRejectCorruptLz4Records() {
+        final byte[] record = {V3Codec.MAGIC, 1, 0x40, (byte) 0xF0, 0x7F, 0x7F, 0x7F, 0x7F};
+
+        final TextMessage message = decoder.decode(Key.of("prototype"), Header.of(), record);
+
+        assertThat(message.getKey()).isEqualTo(Key.of("prototype"));
+    }
+
+    @Test
+    public void shouldKeepV1PayloadAsBytes() {
+        final TextMessage message = decoder.apply("{\"some\":\"payload\"}".getBytes(UTF_8));
+
+        assertThat(message).isInstanceOf(BinaryMessage.class);
+        assertThat(((BinaryMessage) message).isMaterialized()).isFalse();
+        assertThat(message.getPayload()).isEqualTo("{\"some\":\"payload\"}");
+    }
+
+    @Test
+    public void shouldSliceV2PayloadFromBytes() {
+        final String body = "{\"_synapse_msg_format\":\"v2\","
+                + "\"_synapse_msg_key\":{\"partitionKey\":\"p1\",\"compactionKey\":\"p2\"},"
+                + "\"_synapse_msg_payload\":{\"sömé\":[\"päyload\"]},"
+                + "\"_synapse_msg_headers\":{\"attr\":\"välue\"}}";
+
+        final TextMessage message = decoder.apply(body.getBytes(UTF_8));
+
+        assertThat(message).isInstanceOf(BinaryMessage.class);
+        assertThat(((BinaryMessage) message).isMaterialized()).isFalse();
+        assertThat(message.getKey()).isEqualTo(Key.of("p1", "p2"));
+        assertThat(message.getHeader().getAsString("attr")).isEqualTo("välue");
+        assertThat(message.getPayload()).isEqualTo("{\"sömé\":[\"päyload\"]}");
+    }
+
+    @Test
+    public void shouldDecodeV2TextPayloadFromBytes() {
+        final String body = "{\"_synapse_msg_format\":\"v2\",\"_synapse_msg_payload\":\"some text\"}";
+
+        final TextMessage message = decoder.apply(body.getBytes(UTF_8));
+
+        assertThat(message.getPayload()).isEqualTo("some text");
+    }
+}
@@ -0,0 +1,104 @@
+package de.otto.synapse.translator;
+
+import com.google.common.base.Strings;
+import de.otto.synapse.message.Header;
+import de.otto.synapse.message.Key;
+import de.otto.synapse.message.TextMessage;
+import org.junit.Test;
+
+import static com.google.common.collect.ImmutableMap.of;
+import static de.otto.synapse.message.DefaultHeaderAttr.MSG_ID;
+import static de.otto.synapse.message.DefaultHeaderAttr.MSG_SENDER;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BinaryEncoderTest {
+
+    private final BinaryDecoder decoder = new BinaryDecoder();
+
+    @Test
+    public void shouldEncodeAndDecodeMessage() {
+        final TextMessage message = TextMessage.of(
+                Key.of("p1", "c1"),
+                Header.builder()
+                        .withAttribute(MSG_ID, "4711")
+                        .withAttribute(MSG_SENDER, "some-sender")
+                        .withAttributes(of("attr", "välue"))
+                        .build(),
+                "{\"some\":\"päyload\"}");
+
+        final byte[] encoded = new BinaryEncoder().apply(message);
+
+        assertThat(encoded[0]).isEqualTo(V3Codec.MAGIC);
+        assertThat(decoder.apply(encoded)).isEqualTo(message);
+    }
+
+    @Test
+    public void shouldEncodeSimpleKeyAndNullPayload() {
+        final TextMessage message = TextMessage.of(Key.of("some key"), Header.of(), null);
+
+        final byte[] encoded = new BinaryEncoder().apply(message);
+
+        assertThat(decoder.apply(encoded)).isEqualTo(message);
+        assertThat(decoder.apply(encoded).getPayload()).isNull();
+    }
+
+    @Test
+    public void shouldBeSmallerThanV2Format() {
+        final TextMessage message = TextMessage.of(
+                Key.of("p1", "c1"),
+                Header.builder().withAttribute(MSG_ID, "4711").build(),
+                "{}");
+
+        final byte[] v3 = new BinaryEncoder().apply(message);
+        final String v2 = new TextEncoder(MessageFormat.V2).apply(message);
+
+        assertThat(v3.length).isLessThan(v2.length() / 4);
+    }
+
+    @Test
+    public void shouldNotCompressSmallRecords() {
+        final TextMessage message = TextMessage.of("some key", Strings.repeat("a", 100));
+
+        final byte[] encoded = new BinaryEncoder(Compression.LZ4, 1024).apply(message);
+
+        assertThat(encoded[1]).isEqualTo((byte) Compression.NONE.id());
+    }
+
+    @Test
+    public void shouldCompressLargeRecordsUsingLz4() {
+        shouldCompressLargeRecords(Compression.LZ4);
+    }
+
+    @Test
+    public void shouldCompressLargeRecordsUsingZstd() {
+        shouldCompressLargeRecords(Compression.ZSTD);
+    }
+
+    @Test
+    public void shouldNotCompressIncompressibleRecords() {
+        final StringBuilder payload = new StringBuilder();
+        final java.util.Random random = new java.util.Random(42);
+        for (int i = 0; i < 64; ++i) {
+            payload.append((char) ('!' + random.nextInt(90)));
+        }
+        final TextMessage message = TextMessage.of("some key", payload.toString());
+
+        final byte[] encoded = new BinaryEncoder(Compression.LZ4, 0).apply(message);
+
+        assertThat(encoded[1]).isEqualTo((byte) Compression.NONE.id());
+        assertThat(decoder.apply(encoded)).isEqualTo(message);
+    }
+
+    private void shouldCompressLargeRecords(final Compression compression) {
+        final TextMessage message = TextMessage.of(
+                Key.of("p1", "c1"),
+                Header.builder().withAttribute("attr", "value").build(),
+                "[" + Strings.repeat("{\"some\":\"payload\"},", 1000) + "{}]");
+
+        final byte[] encoded = new BinaryEncoder(compression, 1024).apply(message);
+
+        assertThat(encoded[1]).isEqualTo((byte) compression.id());
+        assertThat(encoded.length).isLessThan(message.getPayload().length() / 10);
+        assertThat(decoder.apply(encoded)).isEqualTo(message);
+    }
+}
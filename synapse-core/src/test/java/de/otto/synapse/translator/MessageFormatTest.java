@@ -1,7 +1,13 @@
 package de.otto.synapse.translator;
 
+import de.otto.synapse.message.TextMessage;
 import org.junit.Test;
 
+import static de.otto.synapse.translator.MessageFormat.V1;
+import static de.otto.synapse.translator.MessageFormat.V2;
+import static de.otto.synapse.translator.MessageFormat.V3;
+import static de.otto.synapse.translator.MessageFormat.versionOf;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
 
 
@@ -11,4 +17,29 @@ public class MessageFormatTest {
     public void shouldReturnDefaultMessageFormat() {
         assertThat(MessageFormat.defaultMessageFormat()).isEqualTo(MessageFormat.V1);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldDetectV2Format() {
+        assertThat(versionOf("{\"_synapse_msg_format\":\"v2\",\"_synapse_msg_payload\":null}")).isEqualTo(V2);
+        assertThat(versionOf(" {\n  \"_synapse_msg_format\" : \"v2\",\n  \"_synapse_msg_payload\":null}")).isEqualTo(V2);
+    }
+
+    @Test
+    public void shouldDetectV1Format() {
+        assertThat(versionOf((String) null)).isEqualTo(V1);
+        assertThat(versionOf("")).isEqualTo(V1);
+        assertThat(versionOf("some payload")).isEqualTo(V1);
+        assertThat(versionOf("{\"foo\":\"bar\"}")).isEqualTo(V1);
+        assertThat(versionOf("{\"_synapse_msg_format\":\"v1\",\"_synapse_msg_payload\":null}")).isEqualTo(V1);
+        assertThat(versionOf("{\"_synapse_msg_payload\":null,\"_synapse_msg_format\":\"v2\"}")).isEqualTo(V1);
+        assertThat(versionOf("{\"_synapse_msg_format\":\"v2\"")).isEqualTo(V1);
+    }
+
+    @Test
+    public void shouldDetectFormatOfBinaryMessages() {
+        assertThat(versionOf((byte[]) null)).isEqualTo(V1);
+        assertThat(versionOf("some payload".getBytes(UTF_8))).isEqualTo(V1);
+        assertThat(versionOf("{\"_synapse_msg_format\":\"v2\",\"_synapse_msg_payload\":null}".getBytes(UTF_8))).isEqualTo(V2);
+        assertThat(versionOf(new BinaryEncoder().apply(TextMessage.of("some key", "some payload")))).isEqualTo(V3);
+    }
+}
@@ -9,6 +9,7 @@ import org.junit.Test;
 
 import static com.google.common.collect.ImmutableBiMap.of;
 import static de.otto.synapse.message.Key.NO_KEY;
+import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.is;
 
@@ -37,4 +38,36 @@ public class TextEncoderTest {
         assertThat(encoded).isEqualTo("{\"_synapse_msg_format\":\"v2\",\"_synapse_msg_key\":{\"partitionKey\":\"foo\",\"compactionKey\":\"bar\"},\"_synapse_msg_headers\":{\"attr\":\"value\"},\"_synapse_msg_payload\":{}}");
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldEmbedJsonPayloadInV2FormatWithoutReformatting() {
+        final TextEncoder encoder = new TextEncoder(MessageFormat.V2);
+        final String payload = "{ \"some\" : [ 1, 2.50, \"ünïcödé\" ] }";
+        final String encoded = encoder.apply(TextMessage.of(Key.of("foo"), Header.of(), payload));
+        assertThat(encoded).isEqualTo("{\"_synapse_msg_format\":\"v2\",\"_synapse_msg_key\":{\"partitionKey\":\"foo\",\"compactionKey\":\"foo\"},\"_synapse_msg_headers\":{},\"_synapse_msg_payload\":" + payload + "}");
+    }
+
+    @Test
+    public void shouldEscapeNonJsonPayloadInV2Format() {
+        final TextEncoder encoder = new TextEncoder(MessageFormat.V2);
+        final String encoded = encoder.apply(TextMessage.of(Key.of("foo"), Header.of(), "some \"non-json\" payload"));
+        assertThat(encoded).endsWith(",\"_synapse_msg_payload\":\"some \\\"non-json\\\" payload\"}");
+    }
+
+    @Test
+    public void shouldEscapeJsonPayloadWithTrailingContentInV2Format() {
+        final TextEncoder encoder = new TextEncoder(MessageFormat.V2);
+        final String encoded = encoder.apply(TextMessage.of(Key.of("foo"), Header.of(), "{} {}"));
+        assertThat(encoded).endsWith(",\"_synapse_msg_payload\":\"{} {}\"}");
+    }
+
+    @Test
+    public void shouldDecodeEncodedV2Messages() {
+        final TextEncoder encoder = new TextEncoder(MessageFormat.V2);
+        final TextDecoder decoder = new TextDecoder();
+        for (final String payload : asList("{}", "{\"a\":{\"b\":[1,2,{}]}}", "[1,2,3]", "42", "true", "some text", "{\"broken\":", "{} {}", "")) {
+            final TextMessage message = TextMessage.of(Key.of("p", "c"), Header.builder().withAttributes(of("attr", "valu\"e")).build(), payload);
+            assertThat(decoder.apply(encoder.apply(message))).isEqualTo(message);
+        }
+    }
+
+}
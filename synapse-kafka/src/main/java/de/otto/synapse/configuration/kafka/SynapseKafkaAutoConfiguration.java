@@ -3,6 +3,7 @@ package de.otto.synapse.configuration.kafka;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import de.otto.synapse.channel.selector.Kafka;
 import de.otto.synapse.configuration.EventSourcingAutoConfiguration;
+import de.otto.synapse.configuration.SynapseProperties;
 import de.otto.synapse.endpoint.MessageInterceptorRegistry;
 import de.otto.synapse.endpoint.receiver.MessageLogReceiverEndpointFactory;
 import de.otto.synapse.endpoint.receiver.kafka.KafkaMessageLogReceiverEndpointFactory;
@@ -69,7 +70,8 @@ public class SynapseKafkaAutoConfiguration {
     @ConditionalOnMissingBean(name = "kafkaMessageLogReceiverEndpointFactory")
     public MessageLogReceiverEndpointFactory kafkaMessageLogReceiverEndpointFactory(final KafkaProperties kafkaProperties,
                                                                                     final MessageInterceptorRegistry interceptorRegistry,
-                                                                                    final ApplicationEventPublisher eventPublisher) {
+                                                                                    final ApplicationEventPublisher eventPublisher,
+                                                                                    final SynapseProperties synapseProperties) {
         LOG.info("Auto-configuring Kafka MessageLogReceiverEndpointFactory");
         final ExecutorService executorService = newCachedThreadPool(
                 new ThreadFactoryBuilder().setNameFormat("kafka-message-log-%d").build()
@@ -85,7 +87,8 @@ public class SynapseKafkaAutoConfiguration {
                 interceptorRegistry,
                 kafkaConsumer,
                 executorService,
-                eventPublisher);
+                eventPublisher,
+                synapseProperties.getReceiver().getPartitionedDispatch().getEffectiveLanes());
     }
 
 }
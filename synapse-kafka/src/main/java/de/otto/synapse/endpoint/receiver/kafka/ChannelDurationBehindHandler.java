@@ -1,6 +1,8 @@
 package de.otto.synapse.endpoint.receiver.kafka;
 
 import de.otto.synapse.channel.ChannelDurationBehind;
+import de.otto.synapse.endpoint.receiver.ChannelDurationBehindTracker;
+import de.otto.synapse.endpoint.receiver.DispatchMode;
 import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
 import org.apache.kafka.common.TopicPartition;
 import org.slf4j.Logger;
@@ -10,23 +12,17 @@ import java.time.Clock;
 import java.time.Duration;
 import java.util.Collection;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicReference;
 
-import static de.otto.synapse.channel.ChannelDurationBehind.copyOf;
-import static de.otto.synapse.channel.ChannelDurationBehind.unknown;
-import static de.otto.synapse.info.MessageReceiverNotification.builder;
-import static de.otto.synapse.info.MessageReceiverStatus.RUNNING;
+import static de.otto.synapse.endpoint.receiver.ChannelDurationBehindTracker.sharedScheduler;
 import static java.time.Clock.systemDefaultZone;
 import static java.util.stream.Collectors.toSet;
 import static org.slf4j.LoggerFactory.getLogger;
 
-class ChannelDurationBehindHandler implements ConsumerRebalanceListener {
+class ChannelDurationBehindHandler implements ConsumerRebalanceListener, AutoCloseable {
     private static final Logger LOG = getLogger(ChannelDurationBehindHandler.class);
 
-    private final AtomicReference<ChannelDurationBehind> channelDurationBehind = new AtomicReference<>();
+    private final ChannelDurationBehindTracker durationBehindTracker;
     private final String channelName;
-    private final ApplicationEventPublisher eventPublisher;
-    private final Clock clock;
 
     ChannelDurationBehindHandler(final String channelName,
                                  final ApplicationEventPublisher eventPublisher) {
@@ -37,18 +33,13 @@ class ChannelDurationBehindHandler implements ConsumerRebalanceListener {
                                  final ApplicationEventPublisher eventPublisher,
                                  final Clock clock) {
         this.channelName = channelName;
-        this.eventPublisher = eventPublisher;
-        this.channelDurationBehind.set(unknown());
-        this.clock = clock;
+        this.durationBehindTracker = new ChannelDurationBehindTracker(channelName, eventPublisher, "Reading from Kafka stream.", sharedScheduler(), clock);
     }
 
     @Override
     public void onPartitionsRevoked(final Collection<TopicPartition> partitions) {
         LOG.info("Revoked " + partitions + " Kafka partitions: " + partitions);
-        partitions.forEach(p -> {
-            final String shardName = "" + p.partition();
-            channelDurationBehind.getAndUpdate(previous -> copyOf(previous).without(shardName).build());
-        });
+        partitions.forEach(p -> durationBehindTracker.revoke("" + p.partition()));
     }
 
     @Override
@@ -59,26 +50,32 @@ class ChannelDurationBehindHandler implements ConsumerRebalanceListener {
                 .map(String::valueOf)
                 .collect(toSet());
 
-        channelDurationBehind.getAndUpdate(previous -> copyOf(previous).withAllUnknown(shardNames).build());
+        durationBehindTracker.assign(shardNames);
     }
 
     public void update(final String shardName, final Duration durationBehind) {
-        channelDurationBehind.updateAndGet(behind -> copyOf(behind)
-                .with(shardName, durationBehind)
-                .build());
         LOG.info("Read from '{}:{}', durationBehind={}",  channelName, shardName, durationBehind);
+        durationBehindTracker.update(shardName, durationBehind);
+    }
 
-        if (eventPublisher != null) {
-            eventPublisher.publishEvent(builder()
-                    .withChannelName(channelName)
-                    .withChannelDurationBehind(channelDurationBehind.get())
-                    .withStatus(RUNNING)
-                    .withMessage("Reading from Kafka stream.")
-                    .build());
-        }
+    /**
+     * Publishes pending updates of the duration behind.
+     */
+    @Override
+    public void close() {
+        durationBehindTracker.close();
     }
 
     ChannelDurationBehind getChannelDurationBehind() {
-        return channelDurationBehind.get();
+        return durationBehindTracker.getChannelDurationBehind();
+    }
+
+    /**
+     * Returns the {@link DispatchMode} of the channel, depending on the duration behind of the assigned partitions.
+     *
+     * @return dispatch mode
+     */
+    DispatchMode getDispatchMode() {
+        return durationBehindTracker.getDispatchMode();
     }
 }
@@ -2,7 +2,7 @@ package de.otto.synapse.endpoint.receiver.kafka;
 
 import de.otto.synapse.message.Key;
 import de.otto.synapse.message.TextMessage;
-import de.otto.synapse.translator.Decoder;
+import de.otto.synapse.translator.AbstractTextDecoder;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.common.header.Header;
 import org.apache.kafka.common.header.Headers;
@@ -14,7 +14,15 @@ import static de.otto.synapse.channel.ShardPosition.fromPosition;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.slf4j.LoggerFactory.getLogger;
 
-public class KafkaDecoder implements Decoder<ConsumerRecord<String, String>> {
+/**
+ * Decodes Kafka {@link ConsumerRecord ConsumerRecords} into {@link TextMessage TextMessages}.
+ * <p>
+ *     Keys and header attributes are taken from the Kafka record. Record values in
+ *     {@link de.otto.synapse.translator.MessageFormat#V2 V2 format} are unwrapped; in this case, the key and
+ *     header attributes of the envelope take precedence over those of the Kafka record.
+ * </p>
+ */
+public class KafkaDecoder extends AbstractTextDecoder<ConsumerRecord<String, String>> {
 
     private static final Logger LOG = getLogger(KafkaDecoder.class);
 
@@ -23,7 +31,7 @@ public class KafkaDecoder implements Decoder<ConsumerRecord<String, String>> {
 
     @Override
     public TextMessage apply(final ConsumerRecord<String, String> record) {
-        return TextMessage.of(
+        return decode(
                 toKey(record),
                 toHeader(record),
                 record.value());
@@ -6,6 +6,7 @@ import de.otto.synapse.channel.ChannelResponse;
 import de.otto.synapse.channel.ShardResponse;
 import de.otto.synapse.endpoint.MessageInterceptorRegistry;
 import de.otto.synapse.endpoint.receiver.AbstractMessageLogReceiverEndpoint;
+import de.otto.synapse.endpoint.receiver.KeyPartitionedDispatcher;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
 import org.apache.kafka.common.errors.WakeupException;
@@ -35,17 +36,40 @@ public class KafkaMessageLogReceiverEndpoint extends AbstractMessageLogReceiverE
     private final ExecutorService executorService;
     private final ApplicationEventPublisher eventPublisher;
     private final MessageInterceptorRegistry interceptorRegistry;
+    private final int dispatchLanes;
 
     public KafkaMessageLogReceiverEndpoint(final String channelName,
                                            final MessageInterceptorRegistry interceptorRegistry,
                                            final KafkaConsumer<String, String> kafkaConsumer,
                                            final ExecutorService executorService,
                                            final ApplicationEventPublisher eventPublisher) {
+        this(channelName, interceptorRegistry, kafkaConsumer, executorService, eventPublisher, 1);
+    }
+
+    /**
+     * Creates a KafkaMessageLogReceiverEndpoint.
+     *
+     * @param channelName the name of the Kafka topic
+     * @param interceptorRegistry registry used to determine the receiver interceptors of the channel
+     * @param kafkaConsumer the KafkaConsumer used to poll the records of the topic
+     * @param executorService the executor used to poll the records
+     * @param eventPublisher optional publisher used to publish {@link de.otto.synapse.info.MessageReceiverNotification notifications}
+     * @param dispatchLanes the number of worker lanes used to dispatch the polled records, partitioned by
+     *                      {@link de.otto.synapse.message.Key#partitionKey() partition key}. Values less or equal
+     *                      1 will dispatch the records sequentially in the polling thread.
+     */
+    public KafkaMessageLogReceiverEndpoint(final String channelName,
+                                           final MessageInterceptorRegistry interceptorRegistry,
+                                           final KafkaConsumer<String, String> kafkaConsumer,
+                                           final ExecutorService executorService,
+                                           final ApplicationEventPublisher eventPublisher,
+                                           final int dispatchLanes) {
         super(channelName, interceptorRegistry, eventPublisher);
         this.kafkaConsumer = kafkaConsumer;
         this.executorService = executorService;
         this.eventPublisher = eventPublisher;
         this.interceptorRegistry = interceptorRegistry;
+        this.dispatchLanes = dispatchLanes;
     }
 
     @Nonnull
@@ -64,6 +88,7 @@ public class KafkaMessageLogReceiverEndpoint extends AbstractMessageLogReceiverE
                 kafkaConsumer
         );
 
+        final KeyPartitionedDispatcher keyPartitionedDispatcher = new KeyPartitionedDispatcher(getChannelName(), dispatchLanes);
         final KafkaRecordsConsumer recordsConsumer = new KafkaRecordsConsumer(
                 getChannelName(),
                 startFrom,
@@ -71,7 +96,8 @@ public class KafkaMessageLogReceiverEndpoint extends AbstractMessageLogReceiverE
                 getMessageDispatcher(),
                 durationBehindHandler,
                 rebalanceHandler::getCurrentPartitions,
-                new KafkaDecoder()
+                new KafkaDecoder(),
+                keyPartitionedDispatcher
         );
 
         final long t1 = System.currentTimeMillis();
@@ -86,6 +112,10 @@ public class KafkaMessageLogReceiverEndpoint extends AbstractMessageLogReceiverE
         kafkaConsumer.subscribe(singletonList(getChannelName()), ConsumerRebalanceListeners.of(durationBehindHandler, rebalanceHandler));
 
         return supplyAsync(() -> processMessages(startFrom, stopCondition, rebalanceHandler, recordsConsumer), executorService)
+                .whenComplete((channelPosition, throwable) -> {
+                    keyPartitionedDispatcher.close();
+                    durationBehindHandler.close();
+                })
                 .thenApply((channelPosition -> {
                     final long t2 = System.currentTimeMillis();
                     info(LOG, ImmutableMap.of("runtime", (t2 - t1)), "Consume events from Kafka", null);
@@ -17,15 +17,25 @@ public class KafkaMessageLogReceiverEndpointFactory implements MessageLogReceive
     private final KafkaConsumer<String, String> kafkaConsumer;
     private final ApplicationEventPublisher eventPublisher;
     private final ExecutorService executorService;
+    private final int dispatchLanes;
 
     public KafkaMessageLogReceiverEndpointFactory(final MessageInterceptorRegistry interceptorRegistry,
                                                   final KafkaConsumer<String, String> kafkaConsumer,
                                                   final ExecutorService kinesisMessageLogExecutorService,
                                                   final ApplicationEventPublisher eventPublisher) {
+        this(interceptorRegistry, kafkaConsumer, kinesisMessageLogExecutorService, eventPublisher, 1);
+    }
+
+    public KafkaMessageLogReceiverEndpointFactory(final MessageInterceptorRegistry interceptorRegistry,
+                                                  final KafkaConsumer<String, String> kafkaConsumer,
+                                                  final ExecutorService kinesisMessageLogExecutorService,
+                                                  final ApplicationEventPublisher eventPublisher,
+                                                  final int dispatchLanes) {
         this.interceptorRegistry = interceptorRegistry;
         this.kafkaConsumer = kafkaConsumer;
         this.executorService = kinesisMessageLogExecutorService;
         this.eventPublisher = eventPublisher;
+        this.dispatchLanes = dispatchLanes;
     }
 
 
@@ -36,7 +46,8 @@ public class KafkaMessageLogReceiverEndpointFactory implements MessageLogReceive
                 interceptorRegistry,
                 kafkaConsumer,
                 executorService,
-                eventPublisher);
+                eventPublisher,
+                dispatchLanes);
     }
 
     @Override
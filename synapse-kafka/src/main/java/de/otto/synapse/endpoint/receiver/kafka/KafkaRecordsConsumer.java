@@ -6,7 +6,9 @@ import de.otto.synapse.channel.ChannelPosition;
 import de.otto.synapse.channel.ChannelResponse;
 import de.otto.synapse.channel.ShardPosition;
 import de.otto.synapse.consumer.MessageDispatcher;
+import de.otto.synapse.endpoint.InterceptorChain;
 import de.otto.synapse.endpoint.MessageInterceptorRegistry;
+import de.otto.synapse.endpoint.receiver.KeyPartitionedDispatcher;
 import de.otto.synapse.message.TextMessage;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
@@ -15,7 +17,9 @@ import org.slf4j.Logger;
 
 import java.time.Clock;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
@@ -30,6 +34,7 @@ import static de.otto.synapse.channel.ChannelResponse.channelResponse;
 import static de.otto.synapse.channel.ShardPosition.fromPosition;
 import static de.otto.synapse.channel.ShardResponse.shardResponse;
 import static de.otto.synapse.endpoint.EndpointType.RECEIVER;
+import static de.otto.synapse.endpoint.receiver.DispatchMode.CATCH_UP;
 import static java.lang.Integer.parseInt;
 import static java.time.Duration.ofMillis;
 import static org.slf4j.LoggerFactory.getLogger;
@@ -44,6 +49,8 @@ class KafkaRecordsConsumer implements Function<ConsumerRecords<String, String>,
     private final Supplier<Set<String>> currentShardsSupplier;
     private final ChannelDurationBehindHandler durationBehindHandler;
     private final KafkaDecoder decoder;
+    private final KeyPartitionedDispatcher keyPartitionedDispatcher;
+    private final KeyPartitionedDispatcher sequentialDispatcher = KeyPartitionedDispatcher.sequential();
     private ChannelPosition currentChannelPosition;
 
     KafkaRecordsConsumer(final String channelName,
@@ -53,6 +60,17 @@ class KafkaRecordsConsumer implements Function<ConsumerRecords<String, String>,
                          final ChannelDurationBehindHandler durationBehindHandler,
                          final Supplier<Set<String>> currentShardsSupplier,
                          final KafkaDecoder decoder) {
+        this(channelName, startFrom, interceptorRegistry, messageDispatcher, durationBehindHandler, currentShardsSupplier, decoder, KeyPartitionedDispatcher.sequential());
+    }
+
+    KafkaRecordsConsumer(final String channelName,
+                         final ChannelPosition startFrom,
+                         final MessageInterceptorRegistry interceptorRegistry,
+                         final MessageDispatcher messageDispatcher,
+                         final ChannelDurationBehindHandler durationBehindHandler,
+                         final Supplier<Set<String>> currentShardsSupplier,
+                         final KafkaDecoder decoder,
+                         final KeyPartitionedDispatcher keyPartitionedDispatcher) {
         this.channelName = channelName;
         this.currentChannelPosition = startFrom;
         this.interceptorRegistry = interceptorRegistry;
@@ -60,33 +78,21 @@ class KafkaRecordsConsumer implements Function<ConsumerRecords<String, String>,
         this.currentShardsSupplier = currentShardsSupplier;
         this.durationBehindHandler = durationBehindHandler;
         this.decoder = decoder;
+        this.keyPartitionedDispatcher = keyPartitionedDispatcher;
     }
 
     @Override
     public ChannelResponse apply(final ConsumerRecords<String, String> records) {
         final Map<String, ImmutableList.Builder<TextMessage>> receivedMessagesPerShard = newHashMap();
         final Map<String, ShardPosition> shardPositionsFromRecords = newHashMap();
+        final List<TextMessage> decodedMessages = new ArrayList<>(records.count());
+        final List<String> shardNames = new ArrayList<>(records.count());
         records.forEach(record -> {
             try {
                 final String shardName = "" + record.partition();
-                final TextMessage message = decoder.apply(record);
-                LOG.debug("Processing message " + message.getKey());
-                final TextMessage interceptedMessage = interceptorRegistry
-                        .getInterceptorChain(channelName, RECEIVER)
-                        .intercept(message);
+                decodedMessages.add(decoder.apply(record));
+                shardNames.add(shardName);
                 shardPositionsFromRecords.put(shardName, toShardPosition(record));
-                if (interceptedMessage != null) {
-                    messageDispatcher.accept(interceptedMessage);
-                    receivedMessagesPerShard.compute(shardName, (key, messages) -> {
-                        if (messages != null) {
-                            return messages.add(interceptedMessage);
-                        } else {
-                            return ImmutableList.<TextMessage>builder().add(interceptedMessage);
-                        }
-                    });
-                } else {
-                    LOG.debug("Message {} dropped by interceptor", message.getKey());
-                }
             } catch (final Exception e) {
                 LOG.error("Error processing message: " + e.getMessage(), e);
 
@@ -95,10 +101,45 @@ class KafkaRecordsConsumer implements Function<ConsumerRecords<String, String>,
             }
         });
 
+        final InterceptorChain interceptorChain = interceptorRegistry.getInterceptorChain(channelName, RECEIVER);
+        // worker lanes are only paying off for the large batches polled while catching up:
+        final KeyPartitionedDispatcher dispatcher = durationBehindHandler.getDispatchMode() == CATCH_UP
+                ? keyPartitionedDispatcher
+                : sequentialDispatcher;
+        final List<TextMessage> interceptedMessages = interceptorChain.hasAsyncInterceptors()
+                ? dispatcher.dispatchAsync(decodedMessages, message -> {
+                    LOG.debug("Processing message " + message.getKey());
+                    return interceptorChain
+                            .interceptAsync(message)
+                            .thenApply(interceptedMessage -> dispatch(message, interceptedMessage));
+                })
+                : dispatcher.dispatch(decodedMessages, message -> {
+                    LOG.debug("Processing message " + message.getKey());
+                    return dispatch(message, interceptorChain.intercept(message));
+                });
+        for (int i = 0; i < interceptedMessages.size(); ++i) {
+            final TextMessage interceptedMessage = interceptedMessages.get(i);
+            if (interceptedMessage != null) {
+                receivedMessagesPerShard
+                        .computeIfAbsent(shardNames.get(i), shardName -> builder())
+                        .add(interceptedMessage);
+            }
+        }
+
         final ImmutableMap<String, Duration> channelDurationBehind = updateAndGetDurationBehind(records);
 
         updateCurrentChannelPosition(shardPositionsFromRecords.values());
 
+        if (!receivedMessagesPerShard.isEmpty() && messageDispatcher.hasBatchMessageConsumers()) {
+            receivedMessagesPerShard.forEach((shardName, messages) -> {
+                try {
+                    messageDispatcher.acceptBatch(currentChannelPosition.shard(shardName), messages.build());
+                } catch (final Exception e) {
+                    LOG.error("Error processing batch of messages: " + e.getMessage(), e);
+                }
+            });
+        }
+
         return channelResponse(channelName, currentShardPositions()
                 .stream()
                 .map(shardPosition -> {
@@ -114,6 +155,15 @@ class KafkaRecordsConsumer implements Function<ConsumerRecords<String, String>,
                 .collect(toImmutableList()));
     }
 
+    private TextMessage dispatch(final TextMessage message, final TextMessage interceptedMessage) {
+        if (interceptedMessage != null) {
+            messageDispatcher.accept(interceptedMessage);
+        } else {
+            LOG.debug("Message {} dropped by interceptor", message.getKey());
+        }
+        return interceptedMessage;
+    }
+
     private ShardPosition toShardPosition(final ConsumerRecord<String, String> record) {
         return fromPosition("" + record.partition(), followingShardPosition("" + (record.offset())));
     }
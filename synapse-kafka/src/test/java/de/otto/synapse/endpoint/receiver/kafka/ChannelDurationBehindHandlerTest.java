@@ -7,6 +7,7 @@ import org.junit.Test;
 import org.springframework.context.ApplicationEventPublisher;
 
 import static de.otto.synapse.channel.ChannelDurationBehind.channelDurationBehind;
+import static de.otto.synapse.endpoint.receiver.DispatchMode.LIVE;
 import static de.otto.synapse.info.MessageReceiverNotification.builder;
 import static de.otto.synapse.info.MessageReceiverStatus.RUNNING;
 import static java.time.Duration.ofMillis;
@@ -14,6 +15,7 @@ import static java.util.Arrays.asList;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 
 public class ChannelDurationBehindHandlerTest {
@@ -83,7 +85,7 @@ public class ChannelDurationBehindHandlerTest {
                 "1", ofMillis(42)
         )));
 
-        verify(eventPublisher).publishEvent(builder()
+        verify(eventPublisher, timeout(1000)).publishEvent(builder()
                 .withChannelName("foo")
                 .withChannelDurationBehind(
                         channelDurationBehind()
@@ -96,4 +98,33 @@ public class ChannelDurationBehindHandlerTest {
                 .build());
 
     }
+
+    @Test
+    public void shouldPublishSwitchToLiveMode() {
+        // given
+        final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+        final ChannelDurationBehindHandler handler = new ChannelDurationBehindHandler("foo", eventPublisher);
+        handler.onPartitionsAssigned(asList(
+                new TopicPartition("topic", 0),
+                new TopicPartition("topic", 1)
+        ));
+
+        // when
+        handler.update("0", ofMillis(42));
+        handler.update("1", ofMillis(42));
+
+        // then
+        assertThat(handler.getDispatchMode(), is(LIVE));
+        verify(eventPublisher, timeout(1000)).publishEvent(builder()
+                .withChannelName("foo")
+                .withChannelDurationBehind(
+                        channelDurationBehind()
+                                .with("0", ofMillis(42))
+                                .with("1", ofMillis(42))
+                                .build()
+                )
+                .withStatus(RUNNING)
+                .withMessage("Switched to live mode.")
+                .build());
+    }
 }
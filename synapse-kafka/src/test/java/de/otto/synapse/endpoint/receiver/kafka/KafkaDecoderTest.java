@@ -10,6 +10,7 @@ import org.apache.kafka.common.record.TimestampType;
 import org.junit.Test;
 
 import java.util.Map;
+import java.util.Optional;
 
 import static de.otto.synapse.channel.ShardPosition.fromPosition;
 import static java.nio.charset.StandardCharsets.UTF_8;
@@ -161,4 +162,30 @@ public class KafkaDecoderTest {
         assertThat(decodedMessage.getKey().compactionKey(), is("record-key"));
     }
 
+    @Test
+    public void shouldDecodeMessageInV2Format() {
+        // given
+        final KafkaDecoder decoder = new KafkaDecoder();
+        final ConsumerRecord<String,String> record = new ConsumerRecord<>(
+                "ch01",
+                0,
+                42L,
+                "key",
+                "{\"_synapse_msg_format\":\"v2\","
+                        + "\"_synapse_msg_key\":{\"partitionKey\":\"p1\",\"compactionKey\":\"p2\"},"
+                        + "\"_synapse_msg_headers\":{\"attr\":\"value\"},"
+                        + "\"_synapse_msg_payload\":{\"some\":\"payload\"}}"
+        );
+
+        // when
+        final TextMessage decodedMessage = decoder.apply(record);
+
+        // then
+        assertThat(decodedMessage.getKey().partitionKey(), is("p1"));
+        assertThat(decodedMessage.getKey().compactionKey(), is("p2"));
+        assertThat(decodedMessage.getHeader().getShardPosition(), is(Optional.of(fromPosition("0", "42"))));
+        assertThat(decodedMessage.getHeader().getAsString("attr"), is("value"));
+        assertThat(decodedMessage.getPayload(), is("{\"some\":\"payload\"}"));
+    }
+
 }
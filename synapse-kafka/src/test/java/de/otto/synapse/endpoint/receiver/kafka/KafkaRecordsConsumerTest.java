@@ -5,8 +5,10 @@ import com.google.common.collect.ImmutableSet;
 import de.otto.synapse.channel.ChannelPosition;
 import de.otto.synapse.channel.ChannelResponse;
 import de.otto.synapse.consumer.MessageDispatcher;
+import de.otto.synapse.endpoint.AsyncMessageInterceptor;
 import de.otto.synapse.endpoint.MessageInterceptor;
 import de.otto.synapse.endpoint.MessageInterceptorRegistry;
+import de.otto.synapse.endpoint.receiver.KeyPartitionedDispatcher;
 import de.otto.synapse.message.Key;
 import de.otto.synapse.message.TextMessage;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
@@ -16,6 +18,8 @@ import org.junit.Before;
 import org.junit.Test;
 import org.springframework.context.ApplicationEventPublisher;
 
+import java.util.List;
+
 import static de.otto.synapse.channel.ChannelPosition.channelPosition;
 import static de.otto.synapse.channel.ChannelPosition.fromHorizon;
 import static de.otto.synapse.channel.ShardPosition.fromHorizon;
@@ -26,8 +30,12 @@ import static de.otto.synapse.message.TextMessage.of;
 import static java.time.Instant.now;
 import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.IntStream.range;
 import static org.apache.kafka.common.record.TimestampType.LOG_APPEND_TIME;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.mockito.Mockito.*;
@@ -165,6 +173,28 @@ public class KafkaRecordsConsumerTest {
         verify(dispatcher).accept(of(Key.of("key"), of(fromPosition("0", "42")), "intercepted"));
     }
 
+    @Test
+    public void shouldInterceptMessageAsynchronously() {
+        // given
+        final KafkaRecordsConsumer consumer = someKafkaRecordsConsumer(fromHorizon());
+
+        final ConsumerRecord<String, String> record = someRecord(0, 42L);
+
+        // when
+        registry.register(allChannelsWith((AsyncMessageInterceptor) (m) -> supplyAsync(() -> {
+            return TextMessage.of(m.getKey(), m.getHeader(), "intercepted");
+        })));
+
+        final ConsumerRecords<String,String> records = new ConsumerRecords<>(ImmutableMap.of(
+                new TopicPartition("foo", 0),
+                singletonList(record))
+        );
+        consumer.apply(records);
+
+        // then
+        verify(dispatcher).accept(of(Key.of("key"), of(fromPosition("0", "42")), "intercepted"));
+    }
+
     @Test
     public void shouldDispatchMessage() {
         // given
@@ -202,6 +232,51 @@ public class KafkaRecordsConsumerTest {
         verifyNoInteractions(dispatcher);
     }
 
+    @Test
+    public void shouldDispatchMessagesUsingKeyPartitionedLanes() {
+        // given
+        final KeyPartitionedDispatcher keyPartitionedDispatcher = new KeyPartitionedDispatcher("foo", 4);
+        final KafkaRecordsConsumer consumer = new KafkaRecordsConsumer("foo", fromHorizon(), registry, dispatcher, durationBehindHandler, () -> ImmutableSet.of("0", "1"), new KafkaDecoder(), keyPartitionedDispatcher);
+
+        final List<ConsumerRecord<String, String>> recordList = range(0, 20)
+                .mapToObj(offset -> someRecord(0, offset, "key-" + (offset % 5)))
+                .collect(toList());
+
+        // when
+        final ChannelResponse channelResponse = consumer.apply(new ConsumerRecords<>(ImmutableMap.of(
+                new TopicPartition("foo", 0),
+                recordList)
+        ));
+        keyPartitionedDispatcher.close();
+
+        // then
+        verify(dispatcher, times(20)).accept(any(TextMessage.class));
+        assertThat(channelResponse.getChannelPosition().shard("0"), is(fromPosition("0", "19")));
+        assertThat(channelResponse.getMessages().stream().map(m -> m.getHeader().getShardPosition().get().position()).collect(toList()),
+                contains(range(0, 20).mapToObj(String::valueOf).toArray()));
+    }
+
+    @Test
+    public void shouldDispatchBatchOfMessagesPerShard() {
+        // given
+        final KafkaRecordsConsumer consumer = someKafkaRecordsConsumer(fromHorizon());
+        when(dispatcher.hasBatchMessageConsumers()).thenReturn(true);
+
+        // when
+        final ConsumerRecords<String,String> records = new ConsumerRecords<>(ImmutableMap.of(
+                new TopicPartition("foo", 0), asList(someRecord(0, 42L), someRecord(0, 43L)),
+                new TopicPartition("foo", 1), singletonList(someRecord(1, 4711L))
+        ));
+        consumer.apply(records);
+
+        // then
+        verify(dispatcher).acceptBatch(fromPosition("0", "43"), asList(
+                of(Key.of("key"), of(fromPosition("0", "42")), "payload"),
+                of(Key.of("key"), of(fromPosition("0", "43")), "payload")));
+        verify(dispatcher).acceptBatch(fromPosition("1", "4711"), singletonList(
+                of(Key.of("key"), of(fromPosition("1", "4711")), "payload")));
+    }
+
     @Test
     public void shouldUpdateDurationBehindHandler() {
         // given
@@ -226,13 +301,17 @@ public class KafkaRecordsConsumerTest {
     }
 
     private ConsumerRecord<String, String> someRecord(final int partition, final long offset) {
+        return someRecord(partition, offset, "key");
+    }
+
+    private ConsumerRecord<String, String> someRecord(final int partition, final long offset, final String key) {
         return new ConsumerRecord<>(
                 "foo",
                 partition,
                 offset,
                 now().toEpochMilli()-1000L, LOG_APPEND_TIME,
                 -1L, -1, -1,
-                "key",
+                key,
                 "payload"
         );
     }
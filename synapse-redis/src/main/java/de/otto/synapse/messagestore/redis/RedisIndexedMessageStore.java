@@ -5,27 +5,38 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import de.otto.synapse.channel.ChannelPosition;
 import de.otto.synapse.channel.ShardPosition;
+import de.otto.synapse.channel.StartFrom;
 import de.otto.synapse.message.TextMessage;
 import de.otto.synapse.messagestore.Index;
 import de.otto.synapse.messagestore.Indexer;
 import de.otto.synapse.messagestore.MessageStore;
 import de.otto.synapse.messagestore.MessageStoreEntry;
+import de.otto.synapse.messagestore.MessageStoreEntryFilters;
 import de.otto.synapse.translator.*;
 import org.slf4j.Logger;
-import org.springframework.dao.DataAccessException;
-import org.springframework.data.redis.core.*;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.BoundZSetOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+import org.springframework.data.redis.core.script.RedisScript;
 
+import java.time.Instant;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 import static de.otto.synapse.channel.ChannelPosition.channelPosition;
 import static de.otto.synapse.channel.ShardPosition.fromPosition;
+import static de.otto.synapse.message.DefaultHeaderAttr.MSG_ARRIVAL_TS;
 import static de.otto.synapse.message.DefaultHeaderAttr.MSG_ID;
+import static de.otto.synapse.messagestore.MessageStoreEntryFilters.comparePositions;
 import static java.util.Arrays.asList;
+import static java.util.Comparator.comparing;
+import static java.util.Comparator.comparingLong;
 import static java.util.Spliterators.spliteratorUnknownSize;
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 import static org.slf4j.LoggerFactory.getLogger;
 
@@ -35,12 +46,24 @@ import static org.slf4j.LoggerFactory.getLogger;
  * <p>
  *     The store can be configured like a ring-buffer to only store the latest N messages.
  * </p>
+ * <p>
+ *     Every message is assigned a sequence number. Per shard of a channel, the keys of the messages are stored in a
+ *     sorted set using the sequence number as score, together with a hash that maps the keys to the positions of
+ *     the messages. Per channel, the keys of the messages are stored in a sorted set using the arrival timestamp as
+ *     score. These are used to implement {@link #stream(String, ChannelPosition)} and
+ *     {@link #stream(String, Instant, Instant)} without scanning the whole store. Like the list of messages, they
+ *     are trimmed to the latest {@code maxMessages} messages: adding a message trims all shards of its channel, and
+ *     queries ignore messages that were trimmed by messages of other channels.
+ * </p>
  */
 @Beta
 public class RedisIndexedMessageStore implements MessageStore {
 
     private static final Logger LOG = getLogger(RedisIndexedMessageStore.class);
     private static final int CHARACTERISTICS = Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE;
+    private static final RedisScript<Long> ADD_MESSAGE_SCRIPT = RedisScript.of(
+            new ClassPathResource("de/otto/synapse/messagestore/redis/add-message.lua"),
+            Long.class);
 
     private final String name;
     private final Indexer indexer;
@@ -96,58 +119,47 @@ public class RedisIndexedMessageStore implements MessageStore {
         this.decoder = messageDecoder;
     }
 
+    /**
+     * Adds an entry to the store. All Redis operations are executed atomically by a single Lua script, so adding an
+     * entry requires a single round trip.
+     *
+     * @param entry the entry
+     */
     @Override
-    @SuppressWarnings("unchecked")
     public void add(final MessageStoreEntry entry) {
         final MessageStoreEntry indexedEntry = indexer.index(entry);
         final TextMessage textMessage = indexedEntry.getTextMessage();
-        final String messageId = messageIdCalculator(textMessage);
-
-        // This will contain the results of all ops in the transaction
-        final List<Object> txResults = redisTemplate.execute(new SessionCallback<List<Object>>() {
-            public List<Object> execute(final RedisOperations operations) throws DataAccessException {
-                operations.multi();
-                // Store shard position per channel in Redis Hash:
-                textMessage.getHeader().getShardPosition().ifPresent(shardPosition -> {
-                    final String channelPosKey = name + "-" + indexedEntry.getChannelName() + "-channelPos";
-                    final BoundHashOperations channelPosHash = operations.boundHashOps(channelPosKey);
-                    channelPosHash.put(shardPosition.shardName(), shardPosition.position());
-                });
-                // Store channelName in Redis Set
-                final String channelNamesKey = name + "-channels";
-                final BoundSetOperations channelNamesSet = operations.boundSetOps(channelNamesKey);
-                channelNamesSet.add(indexedEntry.getChannelName());
-
-                // Store every Message as a single Redis Hash '<channelName>-message-<messageId>'
-                final String messageHashKey = name + "-message-" + messageId;
-                final BoundHashOperations messageHash = operations.boundHashOps(messageHashKey);
-                messageHash.putAll(encode(indexedEntry));
-                // ...and set the expiration timeout for the message
-                messageHash.expire(maxAge, TimeUnit.SECONDS);
-
-                // Add id to the List of all messages of the channel in '<channelName>-messages'
-                final String messagesListKey = name + "-messages";
-                final BoundListOperations messageList = operations.boundListOps(messagesListKey);
-                messageList.rightPush(messageHashKey);
-                // ...and set/update the expiration timeout for this list
-                messageList.expire(maxAge, TimeUnit.SECONDS);
-                // ...and limit the number of entries so it will not grow without bounds
-                messageList.trim(-maxSize, -1);
-
-                // Calculate the indexes and add message keys to the different indexes
-                indexedEntry.getFilterValues().entrySet().forEach(filterEntry -> {
-                    // Add id to the List of all messages of the channel in '<channelName>-messages'
-                    final String indexListKey = name + "-" + filterEntry.getKey().getName() + "-" + filterEntry.getValue();
-                    final BoundListOperations partitionIndexList = operations.boundListOps(indexListKey);
-                    partitionIndexList.rightPush(messageHashKey);
-                    // ...and set/update the expiration timeout for this list
-                    partitionIndexList.expire(maxAge, TimeUnit.SECONDS);
-                });
-
-                return operations.exec();
-            }
+        final String channelName = indexedEntry.getChannelName();
+        final String messageHashKey = name + "-message-" + messageIdCalculator(textMessage);
+        final Optional<ShardPosition> shardPosition = textMessage.getHeader().getShardPosition();
+        final Instant arrivalTimestamp = textMessage.getHeader().getAsInstant(MSG_ARRIVAL_TS);
+
+        final List<String> keys = new ArrayList<>(asList(
+                name + "-channels",
+                name + "-messages",
+                messageHashKey,
+                name + "-sequence",
+                name + "-" + channelName + "-channelPos",
+                shardKeyOf(channelName, shardPosition.map(ShardPosition::shardName).orElse("")) + "-sequence",
+                shardKeyOf(channelName, shardPosition.map(ShardPosition::shardName).orElse("")) + "-positions",
+                arrivalTimestampsKeyOf(channelName)));
+        indexedEntry.getFilterValues().forEach((index, value) -> keys.add(name + "-" + index.getName() + "-" + value));
+
+        final List<String> args = new ArrayList<>(asList(
+                channelName,
+                String.valueOf(maxAge),
+                String.valueOf(maxSize),
+                shardPosition.map(ShardPosition::shardName).orElse(""),
+                shardPosition.map(ShardPosition::position).orElse(""),
+                arrivalTimestamp != null ? String.valueOf(arrivalTimestamp.toEpochMilli()) : "",
+                shardKeyOf(channelName, "")));
+        encode(indexedEntry).forEach((field, value) -> {
+            args.add(field);
+            args.add(value);
         });
-        LOG.debug("Redis returned with " + txResults);
+
+        final Long sequence = redisTemplate.execute(ADD_MESSAGE_SCRIPT, keys, args.toArray());
+        LOG.debug("Added message {} with sequence number {}", messageHashKey, sequence);
     }
 
     @Override
@@ -188,6 +200,17 @@ public class RedisIndexedMessageStore implements MessageStore {
         );
     }
 
+    /**
+     * Returns a parallel stream of the entries of the store. The list of message keys is split into ranges that
+     * are fetched from Redis concurrently, in batches of {@code batchSize} keys.
+     *
+     * @return parallel Stream of entries
+     */
+    @Override
+    public Stream<MessageStoreEntry> parallelStream() {
+        return fetch(StreamSupport.stream(new RedisListSpliterator<>(redisTemplate, name + "-messages", batchSize), true));
+    }
+
     public Stream<MessageStoreEntry> stream(final Index index, final String value) {
         final Iterator<MessageStoreEntry> messageIterator = new BatchedRedisHashedListIterator<>(
                 redisTemplate,
@@ -200,6 +223,96 @@ public class RedisIndexedMessageStore implements MessageStore {
         );
     }
 
+    /**
+     * Returns the entries of a channel following the given position. For every shard, only the messages following
+     * the position of the shard are fetched from Redis.
+     * <p>
+     *     The shard positions are not part of the encoded messages, so the messages are selected using the positions
+     *     stored per shard, compared like {@link MessageStoreEntryFilters#comparePositions(String, String)}. Shards
+     *     starting at a timestamp are selected using the arrival timestamps of the channel, with a precision of
+     *     milliseconds.
+     * </p>
+     *
+     * @param channelName the name of the channel
+     * @param fromPosition the position of the channel
+     * @return stream of message-store entries
+     */
+    @Override
+    public Stream<MessageStoreEntry> stream(final String channelName, final ChannelPosition fromPosition) {
+        final List<TypedTuple<String>> messageKeys = new ArrayList<>();
+        // messages of other channels may have trimmed messages from the list, without trimming the shards of this channel:
+        final double firstSequence = firstSequence();
+        redisTemplate.<String, String>boundHashOps(name + "-" + channelName + "-channelPos").keys().forEach(shardName -> {
+            final String shardKey = shardKeyOf(channelName, shardName);
+            final BoundZSetOperations<String, String> shardSequence = redisTemplate.boundZSetOps(shardKey + "-sequence");
+            final ShardPosition startPosition = fromPosition.shard(shardName);
+            switch (startPosition.startFrom()) {
+                case POSITION:
+                case AT_POSITION:
+                    final Predicate<String> following = startPosition.startFrom() == StartFrom.POSITION
+                            ? position -> comparePositions(position, startPosition.position()) > 0
+                            : position -> comparePositions(position, startPosition.position()) >= 0;
+                    final Set<String> followingMessageKeys = redisTemplate
+                            .<String, String>boundHashOps(shardKey + "-positions")
+                            .entries()
+                            .entrySet()
+                            .stream()
+                            .filter(messagePosition -> following.test(messagePosition.getValue()))
+                            .map(Map.Entry::getKey)
+                            .collect(Collectors.toSet());
+                    if (!followingMessageKeys.isEmpty()) {
+                        addAll(messageKeys, shardSequence.rangeByScoreWithScores(firstSequence, Double.MAX_VALUE), messageKey -> followingMessageKeys.contains(messageKey.getValue()));
+                    }
+                    break;
+                case TIMESTAMP:
+                    final Set<String> arrivedMessageKeys = redisTemplate
+                            .boundZSetOps(arrivalTimestampsKeyOf(channelName))
+                            .rangeByScore(startPosition.timestamp().toEpochMilli(), Double.MAX_VALUE);
+                    if (arrivedMessageKeys != null) {
+                        addAll(messageKeys, shardSequence.rangeByScoreWithScores(firstSequence, Double.MAX_VALUE), messageKey -> arrivedMessageKeys.contains(messageKey.getValue()));
+                    }
+                    break;
+                default:
+                    addAll(messageKeys, shardSequence.rangeByScoreWithScores(firstSequence, Double.MAX_VALUE));
+            }
+        });
+        messageKeys.sort(comparing(TypedTuple::getScore));
+        return fetch(messageKeys.stream().map(TypedTuple::getValue));
+    }
+
+    /**
+     * Returns the entries of a channel that arrived in the given time interval. The entries are selected using the
+     * sorted set of the arrival timestamps of the channel, and ordered by their sequence number, so the stream
+     * maintains the insertion order.
+     *
+     * @param channelName the name of the channel
+     * @param from the start of the interval (inclusive)
+     * @param to the end of the interval (exclusive)
+     * @return stream of message-store entries
+     */
+    @Override
+    public Stream<MessageStoreEntry> stream(final String channelName, final Instant from, final Instant to) {
+        if (!from.isBefore(to)) {
+            return Stream.empty();
+        }
+        final Set<String> messageKeys = redisTemplate
+                .boundZSetOps(arrivalTimestampsKeyOf(channelName))
+                .rangeByScore(from.toEpochMilli(), to.toEpochMilli());
+        if (messageKeys == null) {
+            return Stream.empty();
+        }
+        final double firstSequence = firstSequence();
+        return messageKeys
+                .stream()
+                .map(messageHashKey -> redisTemplate.<String, String>boundHashOps(messageHashKey).entries())
+                .filter(entries -> entries != null && !entries.isEmpty() && sequenceOf(entries) >= firstSequence)
+                .sorted(comparingLong(RedisIndexedMessageStore::sequenceOf))
+                .collect(toList())
+                .stream()
+                .map(this::decode)
+                .filter(MessageStoreEntryFilters.arrivedBetween(channelName, from, to));
+    }
+
     @Override
     public long size() {
         return redisTemplate.boundListOps(name + "-messages").size();
@@ -207,10 +320,61 @@ public class RedisIndexedMessageStore implements MessageStore {
 
     public void clear() {
         final List<String> keys = new ArrayList<>(asList(name + "-channels", name + "-messages"));
-        getChannelNames().forEach(channel -> keys.add(name + "-" + channel + "-channelPos"));
+        keys.add(name + "-sequence");
+        getChannelNames().forEach(channel -> {
+            keys.add(name + "-" + channel + "-channelPos");
+            keys.add(arrivalTimestampsKeyOf(channel));
+            redisTemplate.<String, String>boundHashOps(name + "-" + channel + "-channelPos").keys().forEach(shardName -> {
+                keys.add(shardKeyOf(channel, shardName) + "-sequence");
+                keys.add(shardKeyOf(channel, shardName) + "-positions");
+            });
+        });
         redisTemplate.delete(keys);
     }
 
+    /**
+     * Returns the smallest sequence number of the messages that are not yet trimmed from the list of messages.
+     *
+     * @return sequence number
+     */
+    private double firstSequence() {
+        final String sequence = redisTemplate.opsForValue().get(name + "-sequence");
+        return sequence != null ? Long.parseLong(sequence) - maxSize + 1 : 0;
+    }
+
+    private static long sequenceOf(final Map<String, String> messageHash) {
+        final String sequence = messageHash.get("_sequence");
+        return sequence != null ? Long.parseLong(sequence) : 0;
+    }
+
+    private static void addAll(final List<TypedTuple<String>> messageKeys,
+                               final Set<TypedTuple<String>> shardMessageKeys) {
+        addAll(messageKeys, shardMessageKeys, messageKey -> true);
+    }
+
+    private static void addAll(final List<TypedTuple<String>> messageKeys,
+                               final Set<TypedTuple<String>> shardMessageKeys,
+                               final Predicate<TypedTuple<String>> predicate) {
+        if (shardMessageKeys != null) {
+            shardMessageKeys.stream().filter(predicate).forEach(messageKeys::add);
+        }
+    }
+
+    private Stream<MessageStoreEntry> fetch(final Stream<String> messageHashKeys) {
+        return messageHashKeys
+                .map(messageHashKey -> redisTemplate.<String, String>boundHashOps(messageHashKey).entries())
+                .filter(entries -> entries != null && !entries.isEmpty())
+                .map(this::decode);
+    }
+
+    private String shardKeyOf(final String channelName, final String shardName) {
+        return name + "-" + channelName + "-" + shardName;
+    }
+
+    private String arrivalTimestampsKeyOf(final String channelName) {
+        return name + "-" + channelName + "-arrivalTimestamps";
+    }
+
     private ImmutableMap<String, String> encode(final MessageStoreEntry entry) {
         final ImmutableMap.Builder<String, String> builder = ImmutableMap.<String, String>builder()
                 .put("_channelName", entry.getChannelName())
@@ -234,7 +398,7 @@ public class RedisIndexedMessageStore implements MessageStore {
     }
 
     private boolean isFilterValue(Map.Entry<String, String> entry) {
-        return !entry.getKey().equals("_channelName") && !entry.getKey().equals("_message");
+        return !entry.getKey().equals("_channelName") && !entry.getKey().equals("_message") && !entry.getKey().equals("_sequence");
     }
 
     private final String messageIdCalculator(final TextMessage message) {
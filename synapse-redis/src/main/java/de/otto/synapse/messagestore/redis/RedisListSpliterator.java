@@ -0,0 +1,122 @@
+package de.otto.synapse.messagestore.redis;
+
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Strings.isNullOrEmpty;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A {@link Spliterator} over a range of the elements of a Redis list, fetching the elements in batches.
+ * <p>
+ *     The range is determined by the size of the list when the spliterator is created. The spliterator is
+ *     splitting the range in halves, as long as the range is larger than a single batch, so the list can be
+ *     streamed in parallel.
+ * </p>
+ * <p>
+ *     The size of the range is only an estimate: message stores are trimming the list while it is streamed, so
+ *     the spliterator may return fewer elements. It is therefore neither {@code SIZED} nor {@code IMMUTABLE}.
+ * </p>
+ *
+ * @param <T> The type of the values stored in Redis
+ */
+class RedisListSpliterator<T> implements Spliterator<T> {
+
+    private static final int CHARACTERISTICS = Spliterator.ORDERED | Spliterator.NONNULL;
+
+    private final RedisTemplate<String, T> redisTemplate;
+    private final String redisListName;
+    private final int batchSize;
+    private final long fence;
+    private long position;
+    private long fetched;
+    private Iterator<T> currentBatchIterator = Collections.emptyIterator();
+
+    /**
+     * Creates a RedisListSpliterator over all elements of a Redis list.
+     *
+     * @param redisTemplate the RedisTemplate used to access Redis
+     * @param redisListName the name of the Redis list
+     * @param batchSize the number of elements fetched at once
+     */
+    RedisListSpliterator(final RedisTemplate<String, T> redisTemplate,
+                         final String redisListName,
+                         final int batchSize) {
+        this(redisTemplate, redisListName, batchSize, 0, sizeOf(redisTemplate, redisListName));
+    }
+
+    private RedisListSpliterator(final RedisTemplate<String, T> redisTemplate,
+                                 final String redisListName,
+                                 final int batchSize,
+                                 final long origin,
+                                 final long fence) {
+        requireNonNull(redisTemplate, "Parameter redisTemplate must not be null");
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Parameter batchSize must be greater 0");
+        }
+        if (isNullOrEmpty(redisListName)) {
+            throw new IllegalArgumentException("Parameter redisListName must not be empty");
+        }
+        this.redisTemplate = redisTemplate;
+        this.redisListName = redisListName;
+        this.batchSize = batchSize;
+        this.position = origin;
+        this.fetched = origin;
+        this.fence = fence;
+    }
+
+    @Override
+    public boolean tryAdvance(final Consumer<? super T> action) {
+        if (!currentBatchIterator.hasNext()) {
+            if (fetched >= fence) {
+                return false;
+            }
+            final long end = Math.min(fetched + batchSize, fence);
+            final List<T> batch = redisTemplate.boundListOps(redisListName).range(fetched, end - 1);
+            if (batch == null || batch.isEmpty()) {
+                // the list was trimmed in the meantime:
+                position = fetched = fence;
+                return false;
+            }
+            fetched = end;
+            currentBatchIterator = batch.iterator();
+        }
+        ++position;
+        action.accept(currentBatchIterator.next());
+        return true;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        if (currentBatchIterator.hasNext() || fence - fetched <= batchSize) {
+            return null;
+        }
+        final long mid = (fetched + fence) >>> 1;
+        final RedisListSpliterator<T> prefix = new RedisListSpliterator<>(redisTemplate, redisListName, batchSize, fetched, mid);
+        position = fetched = mid;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return fence - position;
+    }
+
+    @Override
+    public int characteristics() {
+        return CHARACTERISTICS;
+    }
+
+    private static long sizeOf(final RedisTemplate<String, ?> redisTemplate,
+                               final String redisListName) {
+        final Long size = requireNonNull(redisTemplate, "Parameter redisTemplate must not be null")
+                .boundListOps(redisListName)
+                .size();
+        return size != null ? size : 0;
+    }
+}
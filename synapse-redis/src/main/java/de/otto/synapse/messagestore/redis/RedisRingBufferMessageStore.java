@@ -155,6 +155,18 @@ public class RedisRingBufferMessageStore implements MessageStore {
         );
     }
 
+    /**
+     * Returns a parallel stream of the entries of the store. The list of messages is split into ranges that are
+     * fetched from Redis concurrently, in batches of {@code batchSize} messages.
+     *
+     * @return parallel Stream of entries
+     */
+    @Override
+    public Stream<MessageStoreEntry> parallelStream() {
+        return StreamSupport.stream(new RedisListSpliterator<>(redisTemplate, name + "-messages", batchSize), true)
+                .map(this::decode);
+    }
+
     /**
      * Guaranteed to throw an exception and leave the message store unmodified.
      *
@@ -166,6 +178,18 @@ public class RedisRingBufferMessageStore implements MessageStore {
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * Guaranteed to throw an exception: the messages are stored without their shard positions, so the store is
+     * unable to select the messages following a position.
+     *
+     * @throws UnsupportedOperationException always
+     * @deprecated Unsupported operation.
+     */
+    @Override
+    public Stream<MessageStoreEntry> stream(String channelName, ChannelPosition fromPosition) {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public long size() {
         return redisTemplate.boundListOps(name + "-messages").size();
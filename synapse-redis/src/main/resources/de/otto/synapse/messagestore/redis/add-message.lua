@@ -0,0 +1,75 @@
+-- Adds a message to a RedisIndexedMessageStore.
+--
+-- KEYS[1]  the set of channel names
+-- KEYS[2]  the list of all message keys
+-- KEYS[3]  the hash of the message
+-- KEYS[4]  the sequence number of the store
+-- KEYS[5]  the hash of the latest shard positions of the channel
+-- KEYS[6]  the sorted set of the message keys of the shard, scored by sequence number
+-- KEYS[7]  the hash of the shard positions of the messages of the shard
+-- KEYS[8]  the sorted set of the message keys of the channel, scored by arrival timestamp
+-- KEYS[9+] the index lists of the message
+--
+-- ARGV[1]  channel name
+-- ARGV[2]  max age in seconds
+-- ARGV[3]  max number of messages
+-- ARGV[4]  shard name, or an empty string if the message has no shard position
+-- ARGV[5]  shard position
+-- ARGV[6]  arrival timestamp in epoch millis, or an empty string
+-- ARGV[7]  the common prefix of the keys of the shards of the channel
+-- ARGV[8+] field/value pairs of the message hash
+--
+-- The keys of the other shards of the channel are derived from ARGV[7] and the shard names in KEYS[5], so the
+-- indexes of shards that did not receive messages in a while are trimmed, too.
+--
+-- Returns the sequence number of the message.
+
+local maxAge = tonumber(ARGV[2])
+local maxSize = tonumber(ARGV[3])
+local messageKey = KEYS[3]
+local sequence = redis.call('INCR', KEYS[4])
+
+redis.call('SADD', KEYS[1], ARGV[1])
+
+local fields = {'_sequence', sequence}
+for i = 8, #ARGV do
+    fields[#fields + 1] = ARGV[i]
+end
+redis.call('HMSET', messageKey, unpack(fields))
+redis.call('EXPIRE', messageKey, maxAge)
+
+redis.call('RPUSH', KEYS[2], messageKey)
+redis.call('EXPIRE', KEYS[2], maxAge)
+redis.call('LTRIM', KEYS[2], -maxSize, -1)
+
+for i = 9, #KEYS do
+    redis.call('RPUSH', KEYS[i], messageKey)
+    redis.call('EXPIRE', KEYS[i], maxAge)
+end
+
+-- messages with a sequence number <= sequence - maxSize were trimmed from the list of messages:
+for _, shardName in ipairs(redis.call('HKEYS', KEYS[5])) do
+    local shardKey = ARGV[7] .. shardName
+    local trimmed = redis.call('ZRANGEBYSCORE', shardKey .. '-sequence', '-inf', sequence - maxSize)
+    if #trimmed > 0 then
+        redis.call('ZREM', shardKey .. '-sequence', unpack(trimmed))
+        redis.call('HDEL', shardKey .. '-positions', unpack(trimmed))
+        redis.call('ZREM', KEYS[8], unpack(trimmed))
+    end
+end
+
+if ARGV[4] ~= '' then
+    redis.call('HSET', KEYS[5], ARGV[4], ARGV[5])
+    redis.call('ZADD', KEYS[6], sequence, messageKey)
+    redis.call('EXPIRE', KEYS[6], maxAge)
+    redis.call('HSET', KEYS[7], messageKey, ARGV[5])
+    redis.call('EXPIRE', KEYS[7], maxAge)
+end
+
+if ARGV[6] ~= '' then
+    redis.call('ZADD', KEYS[8], ARGV[6], messageKey)
+    redis.call('ZREMRANGEBYRANK', KEYS[8], 0, -(maxSize + 1))
+    redis.call('EXPIRE', KEYS[8], maxAge)
+end
+
+return sequence
@@ -27,17 +27,21 @@ import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import static de.otto.synapse.channel.ChannelPosition.channelPosition;
 import static de.otto.synapse.channel.ChannelPosition.fromHorizon;
+import static de.otto.synapse.channel.ShardPosition.atPosition;
 import static de.otto.synapse.channel.ShardPosition.fromPosition;
 import static de.otto.synapse.channel.StartFrom.POSITION;
+import static de.otto.synapse.message.DefaultHeaderAttr.MSG_ARRIVAL_TS;
 import static de.otto.synapse.message.Header.of;
 import static de.otto.synapse.messagestore.Index.*;
 import static de.otto.synapse.messagestore.Indexers.composite;
@@ -90,6 +94,9 @@ public class RedisIndexedMessageStoreIntegrationTest {
     @Autowired
     private RedisIndexedMessageStore messageStore;
 
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
     @Before
     public void before() {
         messageStore.clear();
@@ -137,6 +144,160 @@ public class RedisIndexedMessageStoreIntegrationTest {
         assertThat(channelNames, containsInAnyOrder("one", "two"));
     }
 
+    @Test
+    public void shouldStreamAllMessagesInParallel() {
+        for (int i = 0; i < 500; ++i) {
+            messageStore.add(of("one", TextMessage.of(String.valueOf(i), String.valueOf(i))));
+        }
+
+        final List<String> messageKeys = messageStore
+                .parallelStream()
+                .map(MessageStoreEntry::getTextMessage)
+                .map(TextMessage::getKey)
+                .map(Key::partitionKey)
+                .collect(Collectors.toList());
+        assertThat(messageKeys, is(messageStore
+                .stream()
+                .map(MessageStoreEntry::getTextMessage)
+                .map(TextMessage::getKey)
+                .map(Key::partitionKey)
+                .collect(Collectors.toList())));
+        assertThat(messageKeys.size(), is(500));
+    }
+
+    @Test
+    public void shouldStreamMessagesFollowingChannelPosition() {
+        addMessagesWithPositionAndArrivalTimestamp();
+
+        assertThat(keysOf(messageStore.stream("one", channelPosition(fromPosition("shard-0", "9")))), is(
+                IntStream.range(0, 40).filter(i -> i % 2 == 1 || i / 2 > 9).mapToObj(String::valueOf).collect(Collectors.toList())));
+        assertThat(keysOf(messageStore.stream("one", channelPosition(atPosition("shard-0", "14"), fromPosition("shard-1", "14")))), is(
+                IntStream.range(0, 40).filter(i -> i % 2 == 0 ? i / 2 >= 14 : i / 2 > 14).mapToObj(String::valueOf).collect(Collectors.toList())));
+        assertThat(keysOf(messageStore.stream("two", fromHorizon())), is(empty()));
+    }
+
+    @Test
+    public void shouldStreamMessagesFollowingPositionThatIsNotStored() {
+        for (int i = 0; i < 10; ++i) {
+            messageStore.add(of("one", TextMessage.of(Key.of(valueOf(i)), of(fromPosition("shard-0", valueOf(i * 10 + 10))), valueOf(i))));
+        }
+
+        assertThat(keysOf(messageStore.stream("one", channelPosition(fromPosition("shard-0", "35")))), is(
+                Arrays.asList("3", "4", "5", "6", "7", "8", "9")));
+        assertThat(keysOf(messageStore.stream("one", channelPosition(atPosition("shard-0", "5")))), is(
+                Arrays.asList("0", "1", "2", "3", "4", "5", "6", "7", "8", "9")));
+        assertThat(keysOf(messageStore.stream("one", channelPosition(fromPosition("shard-0", "100")))), is(empty()));
+    }
+
+    @Test
+    public void shouldTrimSequenceAndArrivalTimestampsWithMessages() {
+        final RedisIndexedMessageStore smallMessageStore = new RedisIndexedMessageStore(
+                "Small Store", 100, 10, 60, Indexers.noOpIndexer(), redisTemplate);
+        smallMessageStore.clear();
+        final Instant now = Instant.now();
+        for (int i = 0; i < 30; ++i) {
+            final Header header = of(
+                    fromPosition("shard-0", valueOf(i)),
+                    ImmutableMap.of(MSG_ARRIVAL_TS.key(), now.plusSeconds(i).toString()));
+            smallMessageStore.add(of("one", TextMessage.of(Key.of(valueOf(i)), header, valueOf(i))));
+        }
+
+        assertThat(redisTemplate.boundZSetOps("Small Store-one-shard-0-sequence").size(), is(10L));
+        assertThat(redisTemplate.boundHashOps("Small Store-one-shard-0-positions").size(), is(10L));
+        assertThat(redisTemplate.boundZSetOps("Small Store-one-arrivalTimestamps").size(), is(10L));
+        assertThat(keysOf(smallMessageStore.stream("one", fromHorizon())), is(
+                IntStream.range(20, 30).mapToObj(String::valueOf).collect(Collectors.toList())));
+        smallMessageStore.clear();
+    }
+
+    @Test
+    public void shouldTrimShardsWithoutNewMessages() {
+        final RedisIndexedMessageStore smallMessageStore = new RedisIndexedMessageStore(
+                "Small Store", 100, 10, 60, Indexers.noOpIndexer(), redisTemplate);
+        smallMessageStore.clear();
+        final Instant now = Instant.now();
+        for (int i = 0; i < 5; ++i) {
+            final Header header = of(
+                    fromPosition("shard-1", valueOf(i)),
+                    ImmutableMap.of(MSG_ARRIVAL_TS.key(), now.plusSeconds(i).toString()));
+            smallMessageStore.add(of("one", TextMessage.of(Key.of("inactive-" + i), header, valueOf(i))));
+        }
+        for (int i = 0; i < 30; ++i) {
+            final Header header = of(
+                    fromPosition("shard-0", valueOf(i)),
+                    ImmutableMap.of(MSG_ARRIVAL_TS.key(), now.plusSeconds(i).toString()));
+            smallMessageStore.add(of("one", TextMessage.of(Key.of(valueOf(i)), header, valueOf(i))));
+        }
+
+        assertThat(redisTemplate.boundZSetOps("Small Store-one-shard-1-sequence").size(), is(0L));
+        assertThat(redisTemplate.boundHashOps("Small Store-one-shard-1-positions").size(), is(0L));
+        assertThat(redisTemplate.boundZSetOps("Small Store-one-arrivalTimestamps").size(), is(10L));
+        assertThat(keysOf(smallMessageStore.stream("one", fromHorizon())), is(
+                IntStream.range(20, 30).mapToObj(String::valueOf).collect(Collectors.toList())));
+        smallMessageStore.clear();
+    }
+
+    @Test
+    public void shouldIgnoreMessagesTrimmedByOtherChannels() {
+        final RedisIndexedMessageStore smallMessageStore = new RedisIndexedMessageStore(
+                "Small Store", 100, 10, 60, Indexers.noOpIndexer(), redisTemplate);
+        smallMessageStore.clear();
+        final Instant now = Instant.now();
+        for (int i = 0; i < 5; ++i) {
+            final Header header = of(
+                    fromPosition("shard-0", valueOf(i)),
+                    ImmutableMap.of(MSG_ARRIVAL_TS.key(), now.plusSeconds(i).toString()));
+            smallMessageStore.add(of("two", TextMessage.of(Key.of("two-" + i), header, valueOf(i))));
+        }
+        for (int i = 0; i < 30; ++i) {
+            smallMessageStore.add(of("one", TextMessage.of(Key.of(valueOf(i)), of(fromPosition("shard-0", valueOf(i))), valueOf(i))));
+        }
+
+        assertThat(keysOf(smallMessageStore.stream("two", fromHorizon())), is(empty()));
+        assertThat(keysOf(smallMessageStore.stream("two", now, now.plusSeconds(10))), is(empty()));
+        smallMessageStore.clear();
+    }
+
+    @Test
+    public void shouldStreamMessagesArrivedBetweenTimestampsInInsertionOrder() {
+        final Instant now = Instant.parse("2019-01-01T12:00:00Z");
+        messageStore.add(of("one", TextMessage.of(Key.of("a"), of(ImmutableMap.of(MSG_ARRIVAL_TS.key(), now.plusSeconds(30).toString())), "a")));
+        messageStore.add(of("one", TextMessage.of(Key.of("b"), of(ImmutableMap.of(MSG_ARRIVAL_TS.key(), now.plusSeconds(10).toString())), "b")));
+        messageStore.add(of("one", TextMessage.of(Key.of("c"), of(ImmutableMap.of(MSG_ARRIVAL_TS.key(), now.plusSeconds(20).toString())), "c")));
+
+        assertThat(keysOf(messageStore.stream("one", now, now.plusSeconds(60))), is(Arrays.asList(
+                "a", "b", "c")));
+    }
+
+    @Test
+    public void shouldStreamMessagesArrivedBetweenTimestamps() {
+        final Instant now = addMessagesWithPositionAndArrivalTimestamp();
+
+        assertThat(keysOf(messageStore.stream("one", now.plusSeconds(50), now.plusSeconds(100))), is(Arrays.asList(
+                "5", "6", "7", "8", "9")));
+        assertThat(keysOf(messageStore.stream("one", now.plusSeconds(100), now.plusSeconds(50))), is(empty()));
+        assertThat(keysOf(messageStore.stream("two", now, now.plusSeconds(100))), is(empty()));
+    }
+
+    private Instant addMessagesWithPositionAndArrivalTimestamp() {
+        final Instant now = Instant.parse("2019-01-01T12:00:00Z");
+        for (int i = 0; i < 40; ++i) {
+            final Header header = of(
+                    fromPosition("shard-" + i % 2, valueOf(i / 2)),
+                    ImmutableMap.of(MSG_ARRIVAL_TS.key(), now.plusSeconds(i * 10).toString()));
+            messageStore.add(of("one", TextMessage.of(Key.of(valueOf(i)), header, valueOf(i))));
+        }
+        return now;
+    }
+
+    private List<String> keysOf(final Stream<MessageStoreEntry> entries) {
+        return entries
+                .map(MessageStoreEntry::getTextMessage)
+                .map(TextMessage::getKey)
+                .map(Key::partitionKey)
+                .collect(Collectors.toList());
+    }
+
     @SuppressWarnings("Duplicates")
     @Test
     public void shouldStreamAllMessages() {
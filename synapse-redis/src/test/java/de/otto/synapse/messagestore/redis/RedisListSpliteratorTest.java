@@ -0,0 +1,107 @@
+package de.otto.synapse.messagestore.redis;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.springframework.data.redis.core.BoundListOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class RedisListSpliteratorTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+    @Mock
+    private BoundListOperations<String, String> ops;
+
+    private final List<String> elements = IntStream.range(0, 100).mapToObj(String::valueOf).collect(Collectors.toList());
+
+    @Before
+    public void before() {
+        initMocks(this);
+        when(redisTemplate.boundListOps(any(String.class))).thenReturn(ops);
+        when(ops.size()).thenReturn((long) elements.size());
+        when(ops.range(anyLong(), anyLong())).thenAnswer(invocation -> {
+            final long start = invocation.getArgument(0);
+            final long end = invocation.getArgument(1);
+            return elements.subList((int) start, (int) Math.min(end + 1, elements.size()));
+        });
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectIllegalBatchSize() {
+        new RedisListSpliterator<>(redisTemplate, "foo", 0);
+    }
+
+    @Test
+    public void shouldSplitRangesOfKnownSize() {
+        // given
+        final Spliterator<String> suffix = new RedisListSpliterator<>(redisTemplate, "some-list", 10);
+
+        // when
+        final Spliterator<String> prefix = suffix.trySplit();
+
+        // then
+        assertThat(prefix.estimateSize(), is(50L));
+        assertThat(suffix.estimateSize(), is(50L));
+        assertThat(prefix.tryAdvance(element -> assertThat(element, is("0"))), is(true));
+        assertThat(prefix.estimateSize(), is(49L));
+        assertThat(suffix.tryAdvance(element -> assertThat(element, is("50"))), is(true));
+    }
+
+    @Test
+    public void shouldNotSplitSingleBatch() {
+        // given
+        final Spliterator<String> spliterator = new RedisListSpliterator<>(redisTemplate, "some-list", 100);
+
+        // when
+        final Spliterator<String> prefix = spliterator.trySplit();
+
+        // then
+        assertThat(prefix, is(nullValue()));
+    }
+
+    @Test
+    public void shouldStreamAllElementsInParallel() {
+        // when
+        final List<String> result = StreamSupport.stream(new RedisListSpliterator<>(redisTemplate, "some-list", 7), true)
+                .collect(Collectors.toList());
+
+        // then
+        assertThat(result, is(elements));
+    }
+
+    @Test
+    public void shouldStreamFewerElementsIfListIsTrimmedConcurrently() {
+        // given
+        when(ops.range(anyLong(), anyLong())).thenAnswer(invocation -> {
+            final long start = invocation.getArgument(0);
+            final long end = invocation.getArgument(1);
+            return start < 50
+                    ? elements.subList((int) start, (int) Math.min(end + 1, 50))
+                    : Collections.emptyList();
+        });
+        final Spliterator<String> spliterator = new RedisListSpliterator<>(redisTemplate, "some-list", 10);
+
+        // when
+        final Object[] result = StreamSupport.stream(spliterator, true).toArray();
+
+        // then
+        assertThat(spliterator.hasCharacteristics(Spliterator.SIZED), is(false));
+        assertThat(result.length, is(50));
+    }
+}
@@ -1,5 +1,6 @@
 package de.otto.synapse.messagestore.redis;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Range;
 import de.otto.synapse.channel.ChannelPosition;
 import de.otto.synapse.channel.ShardPosition;
@@ -23,6 +24,7 @@ import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import java.time.Instant;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -35,6 +37,7 @@ import static de.otto.synapse.channel.ChannelPosition.channelPosition;
 import static de.otto.synapse.channel.ChannelPosition.fromHorizon;
 import static de.otto.synapse.channel.ShardPosition.fromPosition;
 import static de.otto.synapse.channel.StartFrom.POSITION;
+import static de.otto.synapse.message.DefaultHeaderAttr.MSG_ARRIVAL_TS;
 import static de.otto.synapse.message.Header.of;
 import static java.lang.String.valueOf;
 import static java.util.concurrent.CompletableFuture.allOf;
@@ -114,7 +117,51 @@ public class RedisRingBufferMessageStoreIntegrationTest {
         assertThat(channelNames, contains("one", "two", "one"));
     }
 
+    @Test
+    public void shouldStreamAllMessagesInParallel() {
+        for (int i = 0; i < 500; ++i) {
+            messageStore.add(MessageStoreEntry.of("one", TextMessage.of(String.valueOf(i), String.valueOf(i))));
+        }
+
+        final List<String> messageKeys = messageStore
+                .parallelStream()
+                .map(MessageStoreEntry::getTextMessage)
+                .map(TextMessage::getKey)
+                .map(Key::partitionKey)
+                .collect(Collectors.toList());
+        assertThat(messageKeys, is(messageStore
+                .stream()
+                .map(MessageStoreEntry::getTextMessage)
+                .map(TextMessage::getKey)
+                .map(Key::partitionKey)
+                .collect(Collectors.toList())));
+        assertThat(messageKeys.size(), is(500));
+    }
+
     @SuppressWarnings("Duplicates")
+    @Test(expected = UnsupportedOperationException.class)
+    public void shouldRejectStreamingMessagesFollowingChannelPosition() {
+        messageStore.add(MessageStoreEntry.of("one", TextMessage.of(Key.of("1"), of(fromPosition("shard-0", "1")), "1")));
+
+        // shard positions are not stored, so the messages can not be selected by position:
+        messageStore.stream("one", fromHorizon());
+    }
+
+    @Test
+    public void shouldStreamMessagesArrivedBetweenTimestamps() {
+        final Instant now = Instant.parse("2019-01-01T12:00:00Z");
+        for (int i = 0; i < 10; ++i) {
+            final Header header = of(fromPosition("shard-0", valueOf(i)), ImmutableMap.of(MSG_ARRIVAL_TS.key(), now.plusSeconds(i).toString()));
+            messageStore.add(MessageStoreEntry.of("one", TextMessage.of(Key.of(valueOf(i)), header, valueOf(i))));
+        }
+
+        final List<String> messageKeys = messageStore
+                .stream("one", now.plusSeconds(3), now.plusSeconds(6))
+                .map(entry -> entry.getTextMessage().getKey().partitionKey())
+                .collect(Collectors.toList());
+        assertThat(messageKeys, contains("3", "4", "5"));
+    }
+
     @Test
     public void shouldStreamAllMessages() {
         messageStore.add(MessageStoreEntry.of("one", TextMessage.of("1", "1")));
@@ -4,6 +4,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import de.otto.synapse.endpoint.MessageInterceptorRegistry;
 import de.otto.synapse.endpoint.receiver.AbstractMessageLogReceiverEndpoint;
+import de.otto.synapse.endpoint.receiver.DispatchModeSelector;
 import de.otto.synapse.endpoint.receiver.MessageLogReceiverEndpoint;
 import de.otto.synapse.endpoint.receiver.MessageQueueReceiverEndpoint;
 import de.otto.synapse.message.Header;
@@ -27,6 +28,7 @@ import static de.otto.synapse.channel.ChannelPosition.channelPosition;
 import static de.otto.synapse.channel.ShardPosition.fromPosition;
 import static de.otto.synapse.channel.ShardResponse.shardResponse;
 import static de.otto.synapse.channel.StartFrom.HORIZON;
+import static de.otto.synapse.endpoint.receiver.DispatchMode.LIVE;
 import static de.otto.synapse.info.MessageReceiverStatus.*;
 import static java.time.Duration.ZERO;
 import static java.time.Duration.between;
@@ -78,6 +80,7 @@ public class InMemoryChannel extends AbstractMessageLogReceiverEndpoint implemen
             boolean shouldStop;
             ShardPosition shardPosition = startFrom.shard(getChannelName());
             AtomicInteger pos = new AtomicInteger(positionOf(shardPosition));
+            final DispatchModeSelector dispatchModeSelector = new DispatchModeSelector(getChannelName(), LIVE);
             do {
                 final ImmutableList<TextMessage> messages;
                 if (hasMessageAfter(pos.get())) {
@@ -89,6 +92,7 @@ public class InMemoryChannel extends AbstractMessageLogReceiverEndpoint implemen
                     if (interceptedMessage != null) {
                         try {
                             getMessageDispatcher().accept(interceptedMessage);
+                            getMessageDispatcher().acceptBatch(fromPosition(getChannelName(), String.valueOf(index)), ImmutableList.of(interceptedMessage));
                         } catch (final Exception e) {
                             LOG.error("Error processing message: " + e.getMessage(), e);
                         }
@@ -102,7 +106,12 @@ public class InMemoryChannel extends AbstractMessageLogReceiverEndpoint implemen
                     }
                 }
                 shardPosition = fromPosition(getChannelName(), String.valueOf(pos));
-                shouldStop = stopCondition.test(shardResponse(shardPosition, durationBehind(pos.get()), messages));
+                final Duration durationBehind = durationBehind(pos.get());
+                dispatchModeSelector.update(durationBehind).ifPresent(dispatchMode -> publishEvent(
+                        RUNNING,
+                        DispatchModeSelector.switchedTo(dispatchMode),
+                        channelDurationBehind().with(getChannelName(), durationBehind).build()));
+                shouldStop = stopCondition.test(shardResponse(shardPosition, durationBehind, messages));
             } while (!shouldStop && !stopSignal.get());
             publishEvent(FINISHED, "Finished InMemoryChannel " + getChannelName(), null);
             return channelPosition(shardPosition);